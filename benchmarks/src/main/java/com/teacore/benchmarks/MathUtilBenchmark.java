@@ -0,0 +1,88 @@
+package com.teacore.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.teacore.math.MathUtil;
+import com.teacore.math.Matrix3f;
+import com.teacore.math.Matrix4f;
+import com.teacore.math.Vector3f;
+
+/**
+ * Measures the projection and rotation matrix builders of MathUtil. The angle is a field, so the
+ * trigonometric functions cannot be folded into constants.
+ * 
+ * @author ShietStone
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MathUtilBenchmark {
+
+    private float angle;
+    private float aspect;
+    private Vector3f translation;
+    private Vector3f rotation;
+    private Vector3f scale;
+    private Matrix3f matrix3Dest;
+    private Matrix4f matrix4Dest;
+    
+    @Setup
+    public void setup() {
+        angle = 37.5f;
+        aspect = 16.0f / 9.0f;
+        translation = new Vector3f(1.0f, 2.0f, 3.0f);
+        rotation = new Vector3f(10.0f, 20.0f, 30.0f);
+        scale = new Vector3f(1.0f, 2.0f, 1.0f);
+        matrix3Dest = new Matrix3f();
+        matrix4Dest = new Matrix4f();
+    }
+    
+    @Benchmark
+    public Matrix4f projectionMatrix() {
+        return MathUtil.getProjectionMatrix(aspect, 0.1f, 100.0f, angle);
+    }
+    
+    @Benchmark
+    public Matrix3f rotationMatrixX() {
+        return MathUtil.getRotationMatrixX(angle);
+    }
+    
+    @Benchmark
+    public Matrix3f rotationMatrixXDest() {
+        return MathUtil.getRotationMatrixX(angle, matrix3Dest);
+    }
+    
+    @Benchmark
+    public Matrix3f rotationMatrixY() {
+        return MathUtil.getRotationMatrixY(angle);
+    }
+    
+    @Benchmark
+    public Matrix3f rotationMatrixZ() {
+        return MathUtil.getRotationMatrixZ(angle);
+    }
+    
+    @Benchmark
+    public Matrix3f eulerRotationMatrix() {
+        return MathUtil.getEulerRotationMatrix(angle, angle * 0.5f, angle * 2.0f, matrix3Dest);
+    }
+    
+    @Benchmark
+    public Matrix4f transformationMatrix() {
+        return MathUtil.getTransformationMatrix(translation, rotation, scale, matrix4Dest);
+    }
+}
@@ -0,0 +1,70 @@
+package com.teacore.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.teacore.math.MathUtil;
+import com.teacore.math.Matrix4f;
+import com.teacore.math.Vector3f;
+import com.teacore.math.Vector4f;
+
+/**
+ * Measures the matrix products of Matrix4f, both the allocating variants and the ones storing
+ * their result in a destination object.
+ * 
+ * @author ShietStone
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class Matrix4fBenchmark {
+
+    private Matrix4f left;
+    private Matrix4f right;
+    private Matrix4f matrixDest;
+    private Vector4f vector;
+    private Vector4f vectorDest;
+    
+    @Setup
+    public void setup() {
+        left = MathUtil.getTransformationMatrix(new Vector3f(1.0f, 2.0f, 3.0f), new Vector3f(10.0f, 20.0f, 30.0f),
+                                                new Vector3f(1.0f, 2.0f, 1.0f), new Matrix4f());
+        right = MathUtil.getProjectionMatrix(16.0f / 9.0f, 0.1f, 100.0f, 70.0f);
+        matrixDest = new Matrix4f();
+        vector = new Vector4f(1.0f, 2.0f, 3.0f, 1.0f);
+        vectorDest = new Vector4f();
+    }
+    
+    @Benchmark
+    public Matrix4f mul() {
+        return left.mul(right);
+    }
+    
+    @Benchmark
+    public Matrix4f mulDest() {
+        return left.mul(right, matrixDest);
+    }
+    
+    @Benchmark
+    public Vector4f mulVector() {
+        return left.mul(vector);
+    }
+    
+    @Benchmark
+    public Vector4f mulVectorDest() {
+        return left.mul(vector, vectorDest);
+    }
+}
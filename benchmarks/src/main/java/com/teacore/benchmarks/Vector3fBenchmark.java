@@ -0,0 +1,62 @@
+package com.teacore.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.teacore.math.Vector3f;
+
+/**
+ * Measures normalizing and crossing Vector3f, both the allocating variants and the ones storing
+ * their result in a destination object.
+ * 
+ * @author ShietStone
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class Vector3fBenchmark {
+
+    private Vector3f first;
+    private Vector3f second;
+    private Vector3f dest;
+    
+    @Setup
+    public void setup() {
+        first = new Vector3f(1.0f, 2.0f, 3.0f);
+        second = new Vector3f(-4.0f, 0.5f, 2.0f);
+        dest = new Vector3f();
+    }
+    
+    @Benchmark
+    public Vector3f normalize() {
+        return first.normalize();
+    }
+    
+    @Benchmark
+    public Vector3f normalizeDest() {
+        return first.normalize(dest);
+    }
+    
+    @Benchmark
+    public Vector3f cross() {
+        return first.cross(second);
+    }
+    
+    @Benchmark
+    public Vector3f crossDest() {
+        return first.cross(second, dest);
+    }
+}
@@ -0,0 +1,288 @@
+package com.teacore.math;
+
+import java.util.Arrays;
+
+/**
+ * A keyframe animation, for example of a skeleton, stored in flat arrays instead of keyframe
+ * objects. The clip consists of tracks, each animating the translation, rotation or scale of a
+ * single node of a TransformHierarchy (a bone). The keys of all tracks are packed one after the
+ * other into a single time array, their values into structure of arrays value arrays (x, y, z and
+ * w), so sampling a track touches only a few adjacent floats.
+ * <p>
+ * Rotation keys are normalized when added and flipped into the same hemisphere as the previous key,
+ * so they can be interpolated with a plain normalized lerp along the shortest path. A clip is only
+ * read while sampling, so it can be shared by any number of AnimationSamplers, even on multiple
+ * threads, as long as no tracks are added at the same time.
+ * 
+ * @author ShietStone
+ */
+public class AnimationClip {
+
+    /**
+     * The parts of a node transform a track can animate.
+     */
+    public enum Channel {
+        
+        /**
+         * The translation, with keys packed as (x, y, z).
+         */
+        TRANSLATION,
+        
+        /**
+         * The rotation, with keys packed as quaternion (x, y, z, w).
+         */
+        ROTATION,
+        
+        /**
+         * The scale, with keys packed as (x, y, z).
+         */
+        SCALE
+    }
+    
+    private float duration;
+    private int trackCount;
+    private int[] trackNodes;
+    private Channel[] trackChannels;
+    private int[] keyStarts;
+    private int keyCount;
+    private float[] times;
+    private float[] valuesX;
+    private float[] valuesY;
+    private float[] valuesZ;
+    private float[] valuesW;
+    
+    /**
+     * Creates an empty clip with the given duration, which is used to loop the clip and must not
+     * be negative.
+     * 
+     * @param duration The duration of the clip
+     */
+    public AnimationClip(float duration) {
+        if(!(duration >= 0.0f))
+            throw new IllegalArgumentException("Duration is negative");
+        
+        this.duration = duration;
+        trackNodes = new int[8];
+        trackChannels = new Channel[8];
+        keyStarts = new int[9];
+        times = new float[64];
+        valuesX = new float[64];
+        valuesY = new float[64];
+        valuesZ = new float[64];
+        valuesW = new float[64];
+    }
+    
+    /**
+     * Adds a track animating the given channel of the given node. The key times must be strictly
+     * increasing. The values are packed per key as (x, y, z) for translations and scales and as
+     * quaternion (x, y, z, w) for rotations. At least one key is required and no argument may be
+     * null.
+     * 
+     * @param node The index of the animated node
+     * @param channel The animated channel
+     * @param keyTimes The times of the keys
+     * @param keyValues The packed values of the keys
+     * @return The index of the new track
+     */
+    public int addTrack(int node, Channel channel, float[] keyTimes, float[] keyValues) {
+        if(channel == null || keyTimes == null || keyValues == null)
+            throw new IllegalArgumentException("An argument is null");
+        
+        if(node < 0)
+            throw new IllegalArgumentException("Invalid node index: " + node);
+        
+        int components = channel == Channel.ROTATION ? 4 : 3;
+        int count = keyTimes.length;
+        
+        if(count == 0)
+            throw new IllegalArgumentException("The track has no keys");
+        
+        if(keyValues.length != count * components)
+            throw new IllegalArgumentException("Key times and values do not match");
+        
+        for(int key = 1; key < count; key++)
+            if(!(keyTimes[key] > keyTimes[key - 1]))
+                throw new IllegalArgumentException("The key times are not strictly increasing");
+        
+        if(trackCount == trackNodes.length) {
+            trackNodes = Arrays.copyOf(trackNodes, trackCount * 2);
+            trackChannels = Arrays.copyOf(trackChannels, trackCount * 2);
+            keyStarts = Arrays.copyOf(keyStarts, trackCount * 2 + 1);
+        }
+        
+        if(keyCount + count > times.length) {
+            int capacity = Math.max(times.length * 2, keyCount + count);
+            times = Arrays.copyOf(times, capacity);
+            valuesX = Arrays.copyOf(valuesX, capacity);
+            valuesY = Arrays.copyOf(valuesY, capacity);
+            valuesZ = Arrays.copyOf(valuesZ, capacity);
+            valuesW = Arrays.copyOf(valuesW, capacity);
+        }
+        
+        for(int key = 0; key < count; key++) {
+            int target = keyCount + key;
+            float x = keyValues[key * components];
+            float y = keyValues[key * components + 1];
+            float z = keyValues[key * components + 2];
+            float w = 0.0f;
+            
+            if(channel == Channel.ROTATION) {
+                w = keyValues[key * components + 3];
+                float length = (float) Math.sqrt(x * x + y * y + z * z + w * w);
+                
+                if(length == 0.0f)
+                    throw new IllegalArgumentException("A rotation key has a length of zero");
+                
+                if(key > 0 && x * valuesX[target - 1] + y * valuesY[target - 1] + z * valuesZ[target - 1]
+                              + w * valuesW[target - 1] < 0.0f)
+                    length = -length;
+                
+                x /= length;
+                y /= length;
+                z /= length;
+                w /= length;
+            }
+            
+            times[target] = keyTimes[key];
+            valuesX[target] = x;
+            valuesY[target] = y;
+            valuesZ[target] = z;
+            valuesW[target] = w;
+        }
+        
+        trackNodes[trackCount] = node;
+        trackChannels[trackCount] = channel;
+        keyStarts[trackCount] = keyCount;
+        keyCount += count;
+        keyStarts[trackCount + 1] = keyCount;
+        return trackCount++;
+    }
+    
+    /**
+     * Returns the duration of this clip.
+     * 
+     * @return The duration
+     */
+    public float getDuration() {
+        return duration;
+    }
+    
+    /**
+     * Returns the number of tracks in this clip.
+     * 
+     * @return The track count
+     */
+    public int getTrackCount() {
+        return trackCount;
+    }
+    
+    /**
+     * Returns the number of keys of all tracks together.
+     * 
+     * @return The key count
+     */
+    public int getKeyCount() {
+        return keyCount;
+    }
+    
+    /**
+     * Returns the index of the node animated by the given track.
+     * 
+     * @param track The index of the track
+     * @return The index of the node
+     */
+    public int getTrackNode(int track) {
+        checkTrack(track);
+        return trackNodes[track];
+    }
+    
+    /**
+     * Returns the channel animated by the given track.
+     * 
+     * @param track The index of the track
+     * @return The channel
+     */
+    public Channel getTrackChannel(int track) {
+        checkTrack(track);
+        return trackChannels[track];
+    }
+    
+    /**
+     * Returns the number of keys of the given track.
+     * 
+     * @param track The index of the track
+     * @return The key count of the track
+     */
+    public int getTrackKeyCount(int track) {
+        checkTrack(track);
+        return keyStarts[track + 1] - keyStarts[track];
+    }
+    
+    /**
+     * Returns the index of the key of the given track that is active at the given time, which is
+     * the last key with a time not after it, or the first key if the time lies before all keys.
+     * Key indices are counted within the track. This uses a binary search, AnimationSampler finds
+     * the key in constant time when the time advances steadily.
+     * 
+     * @param track The index of the track
+     * @param time The time
+     * @return The index of the active key within the track
+     */
+    public int findKey(int track, float time) {
+        checkTrack(track);
+        return search(keyStarts[track], keyStarts[track + 1], time) - keyStarts[track];
+    }
+    
+    int search(int start, int end, float time) {
+        int low = start;
+        int high = end - 1;
+        
+        while(low < high) {
+            int middle = (low + high + 1) >>> 1;
+            
+            if(times[middle] <= time)
+                low = middle;
+            else
+                high = middle - 1;
+        }
+        
+        return low;
+    }
+    
+    int[] getTrackNodes() {
+        return trackNodes;
+    }
+    
+    Channel[] getTrackChannels() {
+        return trackChannels;
+    }
+    
+    int[] getKeyStarts() {
+        return keyStarts;
+    }
+    
+    float[] getTimes() {
+        return times;
+    }
+    
+    float[] getValuesX() {
+        return valuesX;
+    }
+    
+    float[] getValuesY() {
+        return valuesY;
+    }
+    
+    float[] getValuesZ() {
+        return valuesZ;
+    }
+    
+    float[] getValuesW() {
+        return valuesW;
+    }
+    
+    private void checkTrack(int track) {
+        if(track < 0 || track >= trackCount)
+            throw new IllegalArgumentException("Invalid track index: " + track);
+    }
+}
@@ -0,0 +1,220 @@
+package com.teacore.math;
+
+import java.util.Arrays;
+
+/**
+ * Samples an AnimationClip for a single animated instance, for example one character. For every
+ * track the sampler remembers the key found last (its cursor). As long as the time advances
+ * steadily, the next key is found by looking one key ahead of the cursor, so sampling costs
+ * constant time per track instead of a binary search over the keys. Only jumps of more than one
+ * key, for example when the time is rewound or the clip loops, fall back to a binary search.
+ * <p>
+ * Translations and scales are interpolated linearly, rotations with a normalized lerp. The result
+ * is written into the local transforms of a TransformHierarchy, from which the matrix palette for
+ * skinning can be computed in one go. Sampling does not allocate any objects. Every instance needs
+ * its own sampler, while the clip can be shared.
+ * 
+ * @author ShietStone
+ */
+public class AnimationSampler {
+
+    private AnimationClip clip;
+    private int[] cursors;
+    private boolean looping;
+    
+    /**
+     * Creates a sampler for the given clip, which may not be null. The clip is not looped.
+     * 
+     * @param clip The clip to sample
+     */
+    public AnimationSampler(AnimationClip clip) {
+        if(clip == null)
+            throw new IllegalArgumentException("Clip is null");
+        
+        this.clip = clip;
+        cursors = new int[clip.getTrackCount()];
+        reset();
+    }
+    
+    /**
+     * Returns the sampled clip.
+     * 
+     * @return The clip
+     */
+    public AnimationClip getClip() {
+        return clip;
+    }
+    
+    /**
+     * Returns if the clip is looped, meaning times are wrapped into the range from 0 to the clip
+     * duration. Otherwise times before the first or after the last key of a track return the value
+     * of that key.
+     * 
+     * @return If the clip is looped
+     */
+    public boolean isLooping() {
+        return looping;
+    }
+    
+    /**
+     * Sets if the clip is looped (see isLooping()).
+     * 
+     * @param looping If the clip should be looped
+     */
+    public void setLooping(boolean looping) {
+        this.looping = looping;
+    }
+    
+    /**
+     * Moves the cursors of all tracks back to their first key. This is never required for correct
+     * results, but avoids a binary search when an instance restarts the clip.
+     */
+    public void reset() {
+        if(cursors.length < clip.getTrackCount())
+            cursors = new int[clip.getTrackCount()];
+        
+        int[] keyStarts = clip.getKeyStarts();
+        
+        for(int track = 0; track < clip.getTrackCount(); track++)
+            cursors[track] = keyStarts[track];
+    }
+    
+    /**
+     * Samples all tracks of the clip at the given time and sets the animated local transforms of
+     * the given hierarchy, which may not be null and must contain every animated node. Nodes and
+     * channels without a track keep their local transform.
+     * 
+     * @param time The time to sample at
+     * @param pose The hierarchy to store the sampled transforms in
+     */
+    public void sample(float time, TransformHierarchy pose) {
+        if(pose == null)
+            throw new IllegalArgumentException("The pose is null");
+        
+        int trackCount = clip.getTrackCount();
+        
+        if(cursors.length < trackCount) {
+            int oldLength = cursors.length;
+            cursors = Arrays.copyOf(cursors, trackCount);
+            
+            for(int track = oldLength; track < trackCount; track++)
+                cursors[track] = clip.getKeyStarts()[track];
+        }
+        
+        if(looping) {
+            float duration = clip.getDuration();
+            time = duration > 0.0f ? time - (float) Math.floor(time / duration) * duration : 0.0f;
+        }
+        
+        int[] trackNodes = clip.getTrackNodes();
+        AnimationClip.Channel[] trackChannels = clip.getTrackChannels();
+        int[] keyStarts = clip.getKeyStarts();
+        float[] times = clip.getTimes();
+        float[] valuesX = clip.getValuesX();
+        float[] valuesY = clip.getValuesY();
+        float[] valuesZ = clip.getValuesZ();
+        float[] valuesW = clip.getValuesW();
+        
+        for(int track = 0; track < trackCount; track++) {
+            int end = keyStarts[track + 1];
+            int key = cursors[track];
+            
+            if(time < times[key])
+                key = clip.search(keyStarts[track], key + 1, time);
+            else if(key + 2 < end && times[key + 2] <= time)
+                key = clip.search(key + 2, end, time);
+            else if(key + 1 < end && times[key + 1] <= time)
+                key++;
+            
+            cursors[track] = key;
+            
+            int next = key;
+            float factor = 0.0f;
+            
+            if(key + 1 < end && time > times[key]) {
+                next = key + 1;
+                factor = (time - times[key]) / (times[next] - times[key]);
+            }
+            
+            float x = valuesX[key] + (valuesX[next] - valuesX[key]) * factor;
+            float y = valuesY[key] + (valuesY[next] - valuesY[key]) * factor;
+            float z = valuesZ[key] + (valuesZ[next] - valuesZ[key]) * factor;
+            int node = trackNodes[track];
+            
+            if(trackChannels[track] == AnimationClip.Channel.TRANSLATION) {
+                pose.setTranslation(node, x, y, z);
+            } else if(trackChannels[track] == AnimationClip.Channel.SCALE) {
+                pose.setScale(node, x, y, z);
+            } else {
+                float w = valuesW[key] + (valuesW[next] - valuesW[key]) * factor;
+                float length = (float) Math.sqrt(x * x + y * y + z * z + w * w);
+                pose.setRotation(node, x / length, y / length, z / length, w / length);
+            }
+        }
+    }
+    
+    /**
+     * Samples the clip into the given skeleton as sample(float, TransformHierarchy) does, updates
+     * its world matrices and stores the skinning matrix of every node in palette, starting at
+     * matrix offset (so the first float written is at index offset * 16). The skinning matrix of a
+     * node is its world matrix multiplied with its inverse bind matrix, packed as 16 floats in row
+     * major order like BatchMath uses. The inverse bind matrices are packed the same way, one per
+     * node, and have to be affine. If they are null the world matrices are stored directly. Using
+     * different offsets, the palettes of many instances can be stored in one array for upload.
+     * 
+     * @param time The time to sample at
+     * @param skeleton The hierarchy to sample into, which may not be null
+     * @param inverseBindMatrices The packed inverse bind matrices or null
+     * @param palette The array to store the skinning matrices in, which may not be null
+     * @param offset The index of the first matrix to write
+     * @return The palette array
+     */
+    public float[] sample(float time, TransformHierarchy skeleton, float[] inverseBindMatrices, float[] palette,
+                          int offset) {
+        if(skeleton == null || palette == null)
+            throw new IllegalArgumentException("An argument is null");
+        
+        int nodeCount = skeleton.getNodeCount();
+        
+        if(inverseBindMatrices != null && inverseBindMatrices.length / 16 < nodeCount)
+            throw new IllegalArgumentException("The inverse bind matrices array is too small");
+        
+        if(offset < 0 || palette.length / 16 - offset < nodeCount)
+            throw new IllegalArgumentException("The palette array is too small");
+        
+        sample(time, skeleton);
+        skeleton.update();
+        
+        float[] world = skeleton.getWorldMatrices();
+        
+        if(inverseBindMatrices == null) {
+            System.arraycopy(world, 0, palette, offset * 16, nodeCount * 16);
+            return palette;
+        }
+        
+        for(int node = 0; node < nodeCount; node++) {
+            int base = node * 16;
+            int target = (offset + node) * 16;
+            float[] b = inverseBindMatrices;
+            
+            for(int row = 0; row < 12; row += 4) {
+                float m0 = world[base + row];
+                float m1 = world[base + row + 1];
+                float m2 = world[base + row + 2];
+                float m3 = world[base + row + 3];
+                
+                palette[target + row] = m0 * b[base] + m1 * b[base + 4] + m2 * b[base + 8];
+                palette[target + row + 1] = m0 * b[base + 1] + m1 * b[base + 5] + m2 * b[base + 9];
+                palette[target + row + 2] = m0 * b[base + 2] + m1 * b[base + 6] + m2 * b[base + 10];
+                palette[target + row + 3] = m0 * b[base + 3] + m1 * b[base + 7] + m2 * b[base + 11] + m3;
+            }
+            
+            palette[target + 12] = 0.0f;
+            palette[target + 13] = 0.0f;
+            palette[target + 14] = 0.0f;
+            palette[target + 15] = 1.0f;
+        }
+        
+        return palette;
+    }
+}
@@ -0,0 +1,100 @@
+package com.teacore.math;
+
+/**
+ * The loops behind the bulk operations of the vector arrays and BatchMath. Every method works on
+ * the index range [from, to) of the given arrays, so a batch can be split up between threads.
+ * Implementations must produce bit identical results, meaning they perform the same float
+ * operations in the same order for every element.
+ * 
+ * @author ShietStone
+ */
+interface BatchBackend {
+
+    /**
+     * Multiplies every vector given as structure of arrays with the matrix. The destination
+     * arrays may be the source arrays.
+     * 
+     * @param matrix The matrix to multiply with
+     * @param x The x coordinates
+     * @param y The y coordinates
+     * @param z The z coordinates
+     * @param w The w coordinates
+     * @param dx The destination x coordinates
+     * @param dy The destination y coordinates
+     * @param dz The destination z coordinates
+     * @param dw The destination w coordinates
+     * @param from The first index (inclusive)
+     * @param to The last index (exclusive)
+     */
+    void transform(Matrix4f matrix, float[] x, float[] y, float[] z, float[] w,
+                   float[] dx, float[] dy, float[] dz, float[] dw, int from, int to);
+    
+    /**
+     * Transforms every point given as structure of arrays by the affine matrix, using an implicit
+     * w coordinate of 1. The destination arrays may be the source arrays.
+     * 
+     * @param matrix The matrix to transform with
+     * @param x The x coordinates
+     * @param y The y coordinates
+     * @param z The z coordinates
+     * @param dx The destination x coordinates
+     * @param dy The destination y coordinates
+     * @param dz The destination z coordinates
+     * @param from The first index (inclusive)
+     * @param to The last index (exclusive)
+     */
+    void transformPoints(Matrix4f matrix, float[] x, float[] y, float[] z,
+                         float[] dx, float[] dy, float[] dz, int from, int to);
+    
+    /**
+     * Normalizes every 3-dimensional vector given as structure of arrays in place. Vectors with a
+     * length of zero stay unchanged.
+     * 
+     * @param x The x coordinates
+     * @param y The y coordinates
+     * @param z The z coordinates
+     * @param from The first index (inclusive)
+     * @param to The last index (exclusive)
+     */
+    void normalize(float[] x, float[] y, float[] z, int from, int to);
+    
+    /**
+     * Normalizes every 4-dimensional vector given as structure of arrays in place. Vectors with a
+     * length of zero stay unchanged.
+     * 
+     * @param x The x coordinates
+     * @param y The y coordinates
+     * @param z The z coordinates
+     * @param w The w coordinates
+     * @param from The first index (inclusive)
+     * @param to The last index (exclusive)
+     */
+    void normalize(float[] x, float[] y, float[] z, float[] w, int from, int to);
+    
+    /**
+     * Multiplies packed 4x4 matrices (16 floats each, row major) pairwise. For a left step of 16
+     * every right matrix is multiplied with its own left matrix, for a left step of 0 every right
+     * matrix is multiplied with the first left matrix. The destination may be either source.
+     * 
+     * @param left The left matrices
+     * @param leftStep The distance in floats between two left matrices (16 or 0)
+     * @param right The right matrices
+     * @param dest The array to store the products in
+     * @param from The first matrix index (inclusive)
+     * @param to The last matrix index (exclusive)
+     */
+    void mul(float[] left, int leftStep, float[] right, float[] dest, int from, int to);
+    
+    /**
+     * Multiplies the given matrix with packed 4x4 matrices (16 floats each, row major), like
+     * mul(float[], int, float[], float[], int, int) with a left step of 0, but reading the left
+     * matrix from its fields. The destination may be the right array.
+     * 
+     * @param left The left matrix
+     * @param right The right matrices
+     * @param dest The array to store the products in
+     * @param from The first matrix index (inclusive)
+     * @param to The last matrix index (exclusive)
+     */
+    void mul(Matrix4f left, float[] right, float[] dest, int from, int to);
+}
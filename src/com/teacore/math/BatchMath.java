@@ -0,0 +1,188 @@
+package com.teacore.math;
+
+/**
+ * Selects the implementation behind the bulk operations of Vector3fArray, Vector4fArray and the
+ * batch matrix products provided here. If the JDK Vector API (the incubator module
+ * jdk.incubator.vector) is available at runtime, explicit SIMD loops are used, otherwise plain
+ * scalar loops. Both produce bit identical results. Setting the system property
+ * "teacore.math.simd" to "false" forces the scalar loops.
+ * 
+ * @author ShietStone
+ */
+public class BatchMath {
+
+    private static final ScalarBatchBackend scalarBackend;
+    private static final BatchBackend simdBackend;
+    private static BatchBackend backend;
+    
+    static {
+        scalarBackend = new ScalarBatchBackend();
+        simdBackend = loadSIMDBackend();
+        
+        if(simdBackend != null && !"false".equals(System.getProperty("teacore.math.simd")))
+            backend = simdBackend;
+        else
+            backend = scalarBackend;
+    }
+    
+    /**
+     * Returns if the SIMD implementation could be loaded, meaning the JDK Vector API is
+     * available.
+     * 
+     * @return If the SIMD implementation is available
+     */
+    public static boolean isSIMDAvailable() {
+        return simdBackend != null;
+    }
+    
+    /**
+     * Returns if the SIMD implementation is currently used.
+     * 
+     * @return If the SIMD implementation is used
+     */
+    public static boolean isSIMDEnabled() {
+        return backend == simdBackend;
+    }
+    
+    /**
+     * Sets whether the SIMD implementation or the scalar one is used. If SIMD is requested but not
+     * available an IllegalStateException is thrown.
+     * 
+     * @param enabled If the SIMD implementation should be used
+     */
+    public static void setSIMDEnabled(boolean enabled) {
+        if(enabled && simdBackend == null)
+            throw new IllegalStateException("The JDK Vector API is not available");
+        
+        backend = enabled ? simdBackend : scalarBackend;
+    }
+    
+    /**
+     * Multiplies packed 4x4 matrices pairwise, so that matrix i of dest is matrix i of left
+     * multiplied with matrix i of right (as in Matrix4f.mul(Matrix4f)). Every matrix consists of 16
+     * floats in row major order. The destination may be either source array. No argument may be
+     * null and all arrays must hold at least count matrices.
+     * 
+     * @param left The left matrices
+     * @param right The right matrices
+     * @param dest The array to store the products in
+     * @param count The number of matrices to multiply
+     * @return The destination array
+     */
+    public static float[] mulAll(float[] left, float[] right, float[] dest, int count) {
+        if(left == null)
+            throw new IllegalArgumentException("An argument is null");
+        
+        if(count < 0 || left.length / 16 < count)
+            throw new IllegalArgumentException("The left array is too small");
+        
+        checkMatrices(right, dest, count);
+        backend.mul(left, 16, right, dest, 0, count);
+        return dest;
+    }
+    
+    /**
+     * Multiplies a single matrix with packed 4x4 matrices, so that matrix i of dest is the given
+     * matrix multiplied with matrix i of right (for example a view projection matrix with many
+     * model matrices). Every packed matrix consists of 16 floats in row major order. The
+     * destination may be the right array. No argument may be null and the arrays must hold at
+     * least count matrices.
+     * 
+     * @param left The left matrix
+     * @param right The right matrices
+     * @param dest The array to store the products in
+     * @param count The number of matrices to multiply
+     * @return The destination array
+     */
+    public static float[] mulAll(Matrix4f left, float[] right, float[] dest, int count) {
+        if(left == null)
+            throw new IllegalArgumentException("An argument is null");
+        
+        checkMatrices(right, dest, count);
+        backend.mul(left, right, dest, 0, count);
+        return dest;
+    }
+    
+    /**
+     * Calculates the normal matrices (see Matrix4f.normalMatrix(Matrix3f)) of packed affine
+     * matrices, for example the model matrices of instances. Every source matrix consists of
+     * either 16 floats (as Matrix4f) or 12 floats (as Matrix4x3f) in row major order, of which
+     * only the upper 3x3 part is read. Every normal matrix is stored as 9 floats in row major
+     * order. Matrices that are not invertible get a normal matrix of zeros instead of throwing an
+     * exception. No argument may be null and the arrays must hold at least count matrices.
+     * 
+     * @param matrices The packed source matrices
+     * @param matrixSize The number of floats per source matrix, 16 or 12
+     * @param dest The array to store the normal matrices in
+     * @param count The number of matrices
+     * @return The destination array
+     */
+    public static float[] normalMatrixAll(float[] matrices, int matrixSize, float[] dest, int count) {
+        if(matrices == null || dest == null)
+            throw new IllegalArgumentException("An argument is null");
+        
+        if(matrixSize != 16 && matrixSize != 12)
+            throw new IllegalArgumentException("The matrix size must be 16 or 12");
+        
+        if(count < 0 || matrices.length / matrixSize < count || dest.length / 9 < count)
+            throw new IllegalArgumentException("An array is too small");
+        
+        for(int index = 0; index < count; index++) {
+            int source = index * matrixSize;
+            int target = index * 9;
+            float f00 = matrices[source];
+            float f01 = matrices[source + 1];
+            float f02 = matrices[source + 2];
+            float f10 = matrices[source + 4];
+            float f11 = matrices[source + 5];
+            float f12 = matrices[source + 6];
+            float f20 = matrices[source + 8];
+            float f21 = matrices[source + 9];
+            float f22 = matrices[source + 10];
+            
+            float c00 = f11 * f22 - f12 * f21;
+            float c01 = f12 * f20 - f10 * f22;
+            float c02 = f10 * f21 - f11 * f20;
+            float det = f00 * c00 + f01 * c01 + f02 * c02;
+            float invDet = det == 0.0f ? 0.0f : 1.0f / det;
+            
+            dest[target] = c00 * invDet;
+            dest[target + 1] = c01 * invDet;
+            dest[target + 2] = c02 * invDet;
+            dest[target + 3] = (f02 * f21 - f01 * f22) * invDet;
+            dest[target + 4] = (f00 * f22 - f02 * f20) * invDet;
+            dest[target + 5] = (f01 * f20 - f00 * f21) * invDet;
+            dest[target + 6] = (f01 * f12 - f02 * f11) * invDet;
+            dest[target + 7] = (f02 * f10 - f00 * f12) * invDet;
+            dest[target + 8] = (f00 * f11 - f01 * f10) * invDet;
+        }
+        
+        return dest;
+    }
+    
+    /**
+     * Returns the implementation currently in use.
+     * 
+     * @return The batch backend
+     */
+    static BatchBackend getBackend() {
+        return backend;
+    }
+    
+    private static void checkMatrices(float[] right, float[] dest, int count) {
+        if(right == null || dest == null)
+            throw new IllegalArgumentException("An argument is null");
+        
+        if(count < 0 || right.length / 16 < count || dest.length / 16 < count)
+            throw new IllegalArgumentException("An array is too small");
+    }
+    
+    private static BatchBackend loadSIMDBackend() {
+        try {
+            Class.forName("jdk.incubator.vector.FloatVector");
+            return new VectorBatchBackend(scalarBackend);
+        } catch(ClassNotFoundException | LinkageError e) {
+            return null;
+        }
+    }
+}
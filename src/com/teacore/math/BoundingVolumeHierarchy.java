@@ -0,0 +1,609 @@
+package com.teacore.math;
+
+/**
+ * A bounding volume hierarchy over axis aligned bounding boxes, used to find the primitives (for
+ * example scene objects) that overlap a box, a frustum or a ray without testing every single one.
+ * The primitives are given as packed array of boxes (minX, minY, minZ, maxX, maxY, maxZ), which is
+ * referenced and not copied. The tree is built with the surface area heuristic over binned
+ * centroids and stored in flat arrays instead of node objects: a node either points to its two
+ * children or to a range of the reordered primitive indices.
+ * <p>
+ * If primitives move, their boxes can be updated in the array and refit() adjusts the node bounds
+ * without rebuilding the tree, which is much cheaper but lets the tree quality degrade over time.
+ * Queries allocate nothing, as their traversal stack is allocated once per build. Because of that a
+ * hierarchy must not be queried by multiple threads at the same time.
+ * 
+ * @author ShietStone
+ */
+public class BoundingVolumeHierarchy {
+
+    private static final int BIN_COUNT = 12;
+    private static final int MAX_LEAF_SIZE = 4;
+    
+    private float[] boxes;
+    private int primitiveCount;
+    private int[] primitives;
+    private float[] nodeBounds;
+    private int[] nodeChild;
+    private int[] nodeSize;
+    private int nodeCount;
+    private int[] stack;
+    private int depth;
+    private float hitDistance;
+    
+    private int[] binCounts;
+    private float[] binBounds;
+    private float[] rightAreas;
+    private float[] centroidBounds;
+    
+    /**
+     * Creates and builds the hierarchy over the first count boxes of the given packed array. See
+     * build().
+     * 
+     * @param boxes The packed primitive boxes
+     * @param count The number of primitives
+     */
+    public BoundingVolumeHierarchy(float[] boxes, int count) {
+        binCounts = new int[BIN_COUNT];
+        binBounds = new float[BIN_COUNT * 6];
+        rightAreas = new float[BIN_COUNT];
+        centroidBounds = new float[6];
+        build(boxes, count);
+    }
+    
+    /**
+     * (Re)builds the hierarchy over the first count boxes of the given packed array, reusing the
+     * internal arrays if they are large enough. The array is referenced, so later changes to it can
+     * be applied with refit(). It may not be null and must hold at least count boxes.
+     * 
+     * @param boxes The packed primitive boxes
+     * @param count The number of primitives
+     */
+    public void build(float[] boxes, int count) {
+        if(boxes == null)
+            throw new IllegalArgumentException("Boxes are null");
+        
+        if(count < 0 || boxes.length / 6 < count)
+            throw new IllegalArgumentException("The boxes array is too small");
+        
+        this.boxes = boxes;
+        primitiveCount = count;
+        
+        if(primitives == null || primitives.length < count) {
+            primitives = new int[count];
+            nodeBounds = new float[Math.max(1, 2 * count - 1) * 6];
+            nodeChild = new int[Math.max(1, 2 * count - 1)];
+            nodeSize = new int[Math.max(1, 2 * count - 1)];
+        }
+        
+        for(int index = 0; index < count; index++)
+            primitives[index] = index;
+        
+        nodeCount = 1;
+        depth = 0;
+        buildNode(0, 0, count, 1);
+        
+        if(stack == null || stack.length < depth + 1)
+            stack = new int[depth + 1];
+    }
+    
+    /**
+     * Recalculates the bounds of all nodes from the current content of the boxes array, keeping the
+     * tree structure. Call this after primitives moved.
+     */
+    public void refit() {
+        for(int node = nodeCount - 1; node >= 0; node--) {
+            int base = node * 6;
+            
+            if(nodeSize[node] > 0 || primitiveCount == 0) {
+                setPrimitiveBounds(node, nodeChild[node], nodeChild[node] + nodeSize[node]);
+            } else {
+                int left = nodeChild[node] * 6;
+                int right = left + 6;
+                
+                for(int axis = 0; axis < 3; axis++) {
+                    nodeBounds[base + axis] = Math.min(nodeBounds[left + axis], nodeBounds[right + axis]);
+                    nodeBounds[base + axis + 3] = Math.max(nodeBounds[left + axis + 3], nodeBounds[right + axis + 3]);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Returns the number of primitives in this hierarchy.
+     * 
+     * @return The primitive count
+     */
+    public int getPrimitiveCount() {
+        return primitiveCount;
+    }
+    
+    /**
+     * Returns the number of nodes in this hierarchy.
+     * 
+     * @return The node count
+     */
+    public int getNodeCount() {
+        return nodeCount;
+    }
+    
+    /**
+     * Returns the depth of the tree, where a single leaf has a depth of 1.
+     * 
+     * @return The tree depth
+     */
+    public int getDepth() {
+        return depth;
+    }
+    
+    /**
+     * Finds all primitives whose boxes overlap the given box and stores their indices in results.
+     * At most results.length indices are stored. The results array may not be null.
+     * 
+     * @param minX The minimum x coordinate
+     * @param minY The minimum y coordinate
+     * @param minZ The minimum z coordinate
+     * @param maxX The maximum x coordinate
+     * @param maxY The maximum y coordinate
+     * @param maxZ The maximum z coordinate
+     * @param results The array to store the primitive indices in
+     * @return The number of primitive indices stored
+     */
+    public int queryAABB(float minX, float minY, float minZ, float maxX, float maxY, float maxZ, int[] results) {
+        if(results == null)
+            throw new IllegalArgumentException("Results array is null");
+        
+        if(primitiveCount == 0)
+            return 0;
+        
+        int found = 0;
+        int stackSize = 0;
+        stack[stackSize++] = 0;
+        
+        while(stackSize > 0) {
+            int node = stack[--stackSize];
+            
+            if(!overlaps(nodeBounds, node * 6, minX, minY, minZ, maxX, maxY, maxZ))
+                continue;
+            
+            if(nodeSize[node] == 0) {
+                stack[stackSize++] = nodeChild[node];
+                stack[stackSize++] = nodeChild[node] + 1;
+                continue;
+            }
+            
+            for(int index = nodeChild[node]; index < nodeChild[node] + nodeSize[node]; index++) {
+                int primitive = primitives[index];
+                
+                if(overlaps(boxes, primitive * 6, minX, minY, minZ, maxX, maxY, maxZ)) {
+                    if(found == results.length)
+                        return found;
+                    
+                    results[found++] = primitive;
+                }
+            }
+        }
+        
+        return found;
+    }
+    
+    /**
+     * Finds all primitives whose boxes may be visible in the given frustum (as tested by
+     * Frustum.testAABB()) and stores their indices in results. At most results.length indices are
+     * stored. No argument may be null.
+     * 
+     * @param frustum The frustum to test against
+     * @param results The array to store the primitive indices in
+     * @return The number of primitive indices stored
+     */
+    public int queryFrustum(Frustum frustum, int[] results) {
+        if(frustum == null || results == null)
+            throw new IllegalArgumentException("An argument is null");
+        
+        if(primitiveCount == 0)
+            return 0;
+        
+        int found = 0;
+        int stackSize = 0;
+        stack[stackSize++] = 0;
+        
+        while(stackSize > 0) {
+            int node = stack[--stackSize];
+            int base = node * 6;
+            
+            if(!frustum.testAABB(nodeBounds[base], nodeBounds[base + 1], nodeBounds[base + 2],
+                                 nodeBounds[base + 3], nodeBounds[base + 4], nodeBounds[base + 5]))
+                continue;
+            
+            if(nodeSize[node] == 0) {
+                stack[stackSize++] = nodeChild[node];
+                stack[stackSize++] = nodeChild[node] + 1;
+                continue;
+            }
+            
+            for(int index = nodeChild[node]; index < nodeChild[node] + nodeSize[node]; index++) {
+                int primitive = primitives[index];
+                int box = primitive * 6;
+                
+                if(frustum.testAABB(boxes[box], boxes[box + 1], boxes[box + 2], boxes[box + 3], boxes[box + 4], boxes[box + 5])) {
+                    if(found == results.length)
+                        return found;
+                    
+                    results[found++] = primitive;
+                }
+            }
+        }
+        
+        return found;
+    }
+    
+    /**
+     * Finds all primitives whose boxes are hit by the given ray within the maximum distance and
+     * stores their indices in results, in no particular order. This is useful to gather candidates
+     * for exact intersection tests. At most results.length indices are stored. The direction does
+     * not have to be normalized, distances are measured in multiples of it. The results array may
+     * not be null.
+     * 
+     * @param originX The x coordinate of the ray origin
+     * @param originY The y coordinate of the ray origin
+     * @param originZ The z coordinate of the ray origin
+     * @param directionX The x coordinate of the ray direction
+     * @param directionY The y coordinate of the ray direction
+     * @param directionZ The z coordinate of the ray direction
+     * @param maxDistance The maximum distance along the ray
+     * @param results The array to store the primitive indices in
+     * @return The number of primitive indices stored
+     */
+    public int queryRay(float originX, float originY, float originZ, float directionX, float directionY, float directionZ,
+                        float maxDistance, int[] results) {
+        if(results == null)
+            throw new IllegalArgumentException("Results array is null");
+        
+        if(primitiveCount == 0)
+            return 0;
+        
+        float inverseX = 1.0f / directionX;
+        float inverseY = 1.0f / directionY;
+        float inverseZ = 1.0f / directionZ;
+        int found = 0;
+        int stackSize = 0;
+        stack[stackSize++] = 0;
+        
+        while(stackSize > 0) {
+            int node = stack[--stackSize];
+            
+            if(intersectBox(nodeBounds, node * 6, originX, originY, originZ, inverseX, inverseY, inverseZ, maxDistance) < 0.0f)
+                continue;
+            
+            if(nodeSize[node] == 0) {
+                stack[stackSize++] = nodeChild[node];
+                stack[stackSize++] = nodeChild[node] + 1;
+                continue;
+            }
+            
+            for(int index = nodeChild[node]; index < nodeChild[node] + nodeSize[node]; index++) {
+                int primitive = primitives[index];
+                
+                if(intersectBox(boxes, primitive * 6, originX, originY, originZ, inverseX, inverseY, inverseZ, maxDistance) >= 0.0f) {
+                    if(found == results.length)
+                        return found;
+                    
+                    results[found++] = primitive;
+                }
+            }
+        }
+        
+        return found;
+    }
+    
+    /**
+     * Finds the primitive whose box is hit first by the given ray within the maximum distance.
+     * Nodes are visited front to back, so subtrees further away than the closest hit so far are
+     * skipped. The distance of the hit can be read with getHitDistance() afterwards. The direction
+     * does not have to be normalized, distances are measured in multiples of it.
+     * 
+     * @param originX The x coordinate of the ray origin
+     * @param originY The y coordinate of the ray origin
+     * @param originZ The z coordinate of the ray origin
+     * @param directionX The x coordinate of the ray direction
+     * @param directionY The y coordinate of the ray direction
+     * @param directionZ The z coordinate of the ray direction
+     * @param maxDistance The maximum distance along the ray
+     * @return The index of the primitive hit first or -1 if none is hit
+     */
+    public int intersectRay(float originX, float originY, float originZ, float directionX, float directionY, float directionZ,
+                            float maxDistance) {
+        hitDistance = Float.POSITIVE_INFINITY;
+        
+        if(primitiveCount == 0)
+            return -1;
+        
+        float inverseX = 1.0f / directionX;
+        float inverseY = 1.0f / directionY;
+        float inverseZ = 1.0f / directionZ;
+        float closest = maxDistance;
+        int hit = -1;
+        int stackSize = 0;
+        
+        if(intersectBox(nodeBounds, 0, originX, originY, originZ, inverseX, inverseY, inverseZ, closest) >= 0.0f)
+            stack[stackSize++] = 0;
+        
+        while(stackSize > 0) {
+            int node = stack[--stackSize];
+            
+            if(nodeSize[node] > 0) {
+                for(int index = nodeChild[node]; index < nodeChild[node] + nodeSize[node]; index++) {
+                    int primitive = primitives[index];
+                    float distance = intersectBox(boxes, primitive * 6, originX, originY, originZ, inverseX, inverseY, inverseZ, closest);
+                    
+                    if(distance >= 0.0f && distance < closest) {
+                        closest = distance;
+                        hit = primitive;
+                    }
+                }
+                
+                continue;
+            }
+            
+            int left = nodeChild[node];
+            int right = left + 1;
+            float leftDistance = intersectBox(nodeBounds, left * 6, originX, originY, originZ, inverseX, inverseY, inverseZ, closest);
+            float rightDistance = intersectBox(nodeBounds, right * 6, originX, originY, originZ, inverseX, inverseY, inverseZ, closest);
+            
+            if(leftDistance >= 0.0f && rightDistance >= 0.0f) {
+                if(leftDistance < rightDistance) {
+                    stack[stackSize++] = right;
+                    stack[stackSize++] = left;
+                } else {
+                    stack[stackSize++] = left;
+                    stack[stackSize++] = right;
+                }
+            } else if(leftDistance >= 0.0f) {
+                stack[stackSize++] = left;
+            } else if(rightDistance >= 0.0f) {
+                stack[stackSize++] = right;
+            }
+        }
+        
+        if(hit != -1)
+            hitDistance = closest;
+        
+        return hit;
+    }
+    
+    /**
+     * Returns the distance of the last hit found by intersectRay(), in multiples of the rays
+     * direction. It is positive infinity if nothing was hit.
+     * 
+     * @return The distance of the last hit
+     */
+    public float getHitDistance() {
+        return hitDistance;
+    }
+    
+    private void buildNode(int node, int start, int end, int currentDepth) {
+        depth = Math.max(depth, currentDepth);
+        setPrimitiveBounds(node, start, end);
+        
+        int count = end - start;
+        
+        if(count <= 1) {
+            makeLeaf(node, start, count);
+            return;
+        }
+        
+        setCentroidBounds(start, end);
+        
+        float bestCost = Float.POSITIVE_INFINITY;
+        int bestAxis = -1;
+        int bestBin = 0;
+        
+        for(int axis = 0; axis < 3; axis++) {
+            float min = centroidBounds[axis];
+            float extent = centroidBounds[axis + 3] - min;
+            
+            if(extent <= 0.0f)
+                continue;
+            
+            fillBins(start, end, axis, min, BIN_COUNT / extent);
+            
+            float rightArea = 0.0f;
+            float minX = Float.POSITIVE_INFINITY;
+            float minY = Float.POSITIVE_INFINITY;
+            float minZ = Float.POSITIVE_INFINITY;
+            float maxX = Float.NEGATIVE_INFINITY;
+            float maxY = Float.NEGATIVE_INFINITY;
+            float maxZ = Float.NEGATIVE_INFINITY;
+            
+            for(int bin = BIN_COUNT - 1; bin > 0; bin--) {
+                int base = bin * 6;
+                minX = Math.min(minX, binBounds[base]);
+                minY = Math.min(minY, binBounds[base + 1]);
+                minZ = Math.min(minZ, binBounds[base + 2]);
+                maxX = Math.max(maxX, binBounds[base + 3]);
+                maxY = Math.max(maxY, binBounds[base + 4]);
+                maxZ = Math.max(maxZ, binBounds[base + 5]);
+                rightArea = area(minX, minY, minZ, maxX, maxY, maxZ);
+                rightAreas[bin] = rightArea;
+            }
+            
+            minX = Float.POSITIVE_INFINITY;
+            minY = Float.POSITIVE_INFINITY;
+            minZ = Float.POSITIVE_INFINITY;
+            maxX = Float.NEGATIVE_INFINITY;
+            maxY = Float.NEGATIVE_INFINITY;
+            maxZ = Float.NEGATIVE_INFINITY;
+            int leftCount = 0;
+            
+            for(int bin = 0; bin < BIN_COUNT - 1; bin++) {
+                int base = bin * 6;
+                minX = Math.min(minX, binBounds[base]);
+                minY = Math.min(minY, binBounds[base + 1]);
+                minZ = Math.min(minZ, binBounds[base + 2]);
+                maxX = Math.max(maxX, binBounds[base + 3]);
+                maxY = Math.max(maxY, binBounds[base + 4]);
+                maxZ = Math.max(maxZ, binBounds[base + 5]);
+                leftCount += binCounts[bin];
+                
+                int rightCount = count - leftCount;
+                
+                if(leftCount == 0 || rightCount == 0)
+                    continue;
+                
+                float cost = leftCount * area(minX, minY, minZ, maxX, maxY, maxZ) + rightCount * rightAreas[bin + 1];
+                
+                if(cost < bestCost) {
+                    bestCost = cost;
+                    bestAxis = axis;
+                    bestBin = bin;
+                }
+            }
+        }
+        
+        int base = node * 6;
+        float nodeArea = area(nodeBounds[base], nodeBounds[base + 1], nodeBounds[base + 2],
+                              nodeBounds[base + 3], nodeBounds[base + 4], nodeBounds[base + 5]);
+        
+        if(count <= MAX_LEAF_SIZE && (bestAxis == -1 || count * nodeArea <= nodeArea + bestCost)) {
+            makeLeaf(node, start, count);
+            return;
+        }
+        
+        int middle;
+        
+        if(bestAxis == -1) {
+            middle = start + count / 2;
+        } else {
+            float min = centroidBounds[bestAxis];
+            float scale = BIN_COUNT / (centroidBounds[bestAxis + 3] - min);
+            middle = partition(start, end, bestAxis, min, scale, bestBin);
+            
+            if(middle == start || middle == end)
+                middle = start + count / 2;
+        }
+        
+        int left = nodeCount;
+        nodeCount += 2;
+        nodeChild[node] = left;
+        nodeSize[node] = 0;
+        
+        buildNode(left, start, middle, currentDepth + 1);
+        buildNode(left + 1, middle, end, currentDepth + 1);
+    }
+    
+    private void makeLeaf(int node, int start, int count) {
+        nodeChild[node] = start;
+        nodeSize[node] = count;
+    }
+    
+    private void setPrimitiveBounds(int node, int start, int end) {
+        float minX = Float.POSITIVE_INFINITY;
+        float minY = Float.POSITIVE_INFINITY;
+        float minZ = Float.POSITIVE_INFINITY;
+        float maxX = Float.NEGATIVE_INFINITY;
+        float maxY = Float.NEGATIVE_INFINITY;
+        float maxZ = Float.NEGATIVE_INFINITY;
+        
+        for(int index = start; index < end; index++) {
+            int box = primitives[index] * 6;
+            minX = Math.min(minX, boxes[box]);
+            minY = Math.min(minY, boxes[box + 1]);
+            minZ = Math.min(minZ, boxes[box + 2]);
+            maxX = Math.max(maxX, boxes[box + 3]);
+            maxY = Math.max(maxY, boxes[box + 4]);
+            maxZ = Math.max(maxZ, boxes[box + 5]);
+        }
+        
+        int base = node * 6;
+        nodeBounds[base] = minX;
+        nodeBounds[base + 1] = minY;
+        nodeBounds[base + 2] = minZ;
+        nodeBounds[base + 3] = maxX;
+        nodeBounds[base + 4] = maxY;
+        nodeBounds[base + 5] = maxZ;
+    }
+    
+    private void setCentroidBounds(int start, int end) {
+        for(int axis = 0; axis < 3; axis++) {
+            centroidBounds[axis] = Float.POSITIVE_INFINITY;
+            centroidBounds[axis + 3] = Float.NEGATIVE_INFINITY;
+        }
+        
+        for(int index = start; index < end; index++) {
+            int box = primitives[index] * 6;
+            
+            for(int axis = 0; axis < 3; axis++) {
+                float centroid = (boxes[box + axis] + boxes[box + axis + 3]) * 0.5f;
+                centroidBounds[axis] = Math.min(centroidBounds[axis], centroid);
+                centroidBounds[axis + 3] = Math.max(centroidBounds[axis + 3], centroid);
+            }
+        }
+    }
+    
+    private void fillBins(int start, int end, int axis, float min, float scale) {
+        for(int bin = 0; bin < BIN_COUNT; bin++) {
+            int base = bin * 6;
+            binCounts[bin] = 0;
+            binBounds[base] = Float.POSITIVE_INFINITY;
+            binBounds[base + 1] = Float.POSITIVE_INFINITY;
+            binBounds[base + 2] = Float.POSITIVE_INFINITY;
+            binBounds[base + 3] = Float.NEGATIVE_INFINITY;
+            binBounds[base + 4] = Float.NEGATIVE_INFINITY;
+            binBounds[base + 5] = Float.NEGATIVE_INFINITY;
+        }
+        
+        for(int index = start; index < end; index++) {
+            int box = primitives[index] * 6;
+            int base = getBin(box, axis, min, scale) * 6;
+            binCounts[base / 6]++;
+            binBounds[base] = Math.min(binBounds[base], boxes[box]);
+            binBounds[base + 1] = Math.min(binBounds[base + 1], boxes[box + 1]);
+            binBounds[base + 2] = Math.min(binBounds[base + 2], boxes[box + 2]);
+            binBounds[base + 3] = Math.max(binBounds[base + 3], boxes[box + 3]);
+            binBounds[base + 4] = Math.max(binBounds[base + 4], boxes[box + 4]);
+            binBounds[base + 5] = Math.max(binBounds[base + 5], boxes[box + 5]);
+        }
+    }
+    
+    private int getBin(int box, int axis, float min, float scale) {
+        float centroid = (boxes[box + axis] + boxes[box + axis + 3]) * 0.5f;
+        return Math.min(BIN_COUNT - 1, (int) ((centroid - min) * scale));
+    }
+    
+    private int partition(int start, int end, int axis, float min, float scale, int lastLeftBin) {
+        int left = start;
+        int right = end - 1;
+        
+        while(left <= right) {
+            if(getBin(primitives[left] * 6, axis, min, scale) <= lastLeftBin) {
+                left++;
+            } else {
+                int swap = primitives[left];
+                primitives[left] = primitives[right];
+                primitives[right--] = swap;
+            }
+        }
+        
+        return left;
+    }
+    
+    private static float area(float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
+        float x = maxX - minX;
+        float y = maxY - minY;
+        float z = maxZ - minZ;
+        return x * y + y * z + z * x;
+    }
+    
+    private static boolean overlaps(float[] bounds, int base, float minX, float minY, float minZ,
+                                    float maxX, float maxY, float maxZ) {
+        return bounds[base] <= maxX && bounds[base + 3] >= minX
+            && bounds[base + 1] <= maxY && bounds[base + 4] >= minY
+            && bounds[base + 2] <= maxZ && bounds[base + 5] >= minZ;
+    }
+    
+    private static float intersectBox(float[] bounds, int base, float originX, float originY, float originZ,
+                                      float inverseX, float inverseY, float inverseZ, float maxDistance) {
+        return Ray.intersectSlabs(bounds[base], bounds[base + 1], bounds[base + 2], bounds[base + 3], bounds[base + 4],
+                                  bounds[base + 5], originX, originY, originZ, inverseX, inverseY, inverseZ, maxDistance);
+    }
+}
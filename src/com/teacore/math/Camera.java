@@ -0,0 +1,572 @@
+package com.teacore.math;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+/**
+ * A camera with a position, an orientation and either a perspective or an orthographic projection.
+ * It keeps its view, projection and view * projection matrices and their inverses cached and only
+ * recomputes the ones affected by a change: moving or turning the camera does not touch the
+ * projection, changing the aspect ratio does not touch the view. The matrices are recomputed lazily
+ * when they are requested next and nothing is allocated then.
+ * <p>
+ * The matrices follow the OpenGL conventions: the camera looks along its negative z axis, the
+ * projection maps to clip space with z between -w and w, and vectors are multiplied as columns (see
+ * Matrix4f.mul(Vector4f)). Every matrix is also kept in a direct float buffer in column major
+ * order, which can be uploaded as uniform without the transpose flag. The matrices and buffers
+ * returned are the cached objects, so they must not be altered.
+ * 
+ * @author ShietStone
+ */
+public class Camera {
+
+    /**
+     * The matrices cached by a camera.
+     */
+    public enum MatrixType {
+        
+        /**
+         * The view matrix, which maps world space to view space.
+         */
+        VIEW,
+        
+        /**
+         * The projection matrix, which maps view space to clip space.
+         */
+        PROJECTION,
+        
+        /**
+         * The projection * view matrix, which maps world space to clip space.
+         */
+        VIEW_PROJECTION,
+        
+        /**
+         * The inverse of the view matrix, which maps view space to world space.
+         */
+        INVERSE_VIEW,
+        
+        /**
+         * The inverse of the projection matrix, which maps clip space to view space.
+         */
+        INVERSE_PROJECTION,
+        
+        /**
+         * The inverse of the projection * view matrix, which maps clip space to world space.
+         */
+        INVERSE_VIEW_PROJECTION
+    }
+    
+    private float positionX;
+    private float positionY;
+    private float positionZ;
+    private float rightX;
+    private float rightY;
+    private float rightZ;
+    private float upX;
+    private float upY;
+    private float upZ;
+    private float backX;
+    private float backY;
+    private float backZ;
+    
+    private boolean perspective;
+    private float fov;
+    private float aspect;
+    private float left;
+    private float right;
+    private float bottom;
+    private float top;
+    private float near;
+    private float far;
+    
+    private Matrix4f[] matrices;
+    private FloatBuffer[] buffers;
+    private boolean viewDirty;
+    private boolean projectionDirty;
+    
+    /**
+     * Creates a camera at the origin looking along the negative z axis, with a perspective
+     * projection with a field of view of 70 degrees, an aspect ratio of 1 and clipping planes at
+     * 0.1 and 1000.
+     */
+    public Camera() {
+        matrices = new Matrix4f[MatrixType.values().length];
+        buffers = new FloatBuffer[matrices.length];
+        
+        for(int index = 0; index < matrices.length; index++) {
+            matrices[index] = new Matrix4f();
+            buffers[index] = ByteBuffer.allocateDirect(64).order(ByteOrder.nativeOrder()).asFloatBuffer();
+        }
+        
+        setOrientation(0.0f, 0.0f, 0.0f, 1.0f);
+        setPerspective(70.0f, 1.0f, 0.1f, 1000.0f);
+    }
+    
+    /**
+     * Sets the position of this camera.
+     * 
+     * @param x The x coordinate
+     * @param y The y coordinate
+     * @param z The z coordinate
+     * @return This camera
+     */
+    public Camera setPosition(float x, float y, float z) {
+        positionX = x;
+        positionY = y;
+        positionZ = z;
+        viewDirty = true;
+        return this;
+    }
+    
+    /**
+     * Moves this camera by the given offset in world space.
+     * 
+     * @param x The offset along the x axis
+     * @param y The offset along the y axis
+     * @param z The offset along the z axis
+     * @return This camera
+     */
+    public Camera move(float x, float y, float z) {
+        return setPosition(positionX + x, positionY + y, positionZ + z);
+    }
+    
+    /**
+     * Moves this camera by the given offset relative to its orientation.
+     * 
+     * @param right The offset to the right
+     * @param up The offset upwards
+     * @param forward The offset forwards
+     * @return This camera
+     */
+    public Camera moveRelative(float right, float up, float forward) {
+        return setPosition(positionX + rightX * right + upX * up - backX * forward,
+                           positionY + rightY * right + upY * up - backY * forward,
+                           positionZ + rightZ * right + upZ * up - backZ * forward);
+    }
+    
+    /**
+     * Sets the orientation of this camera to the rotation of the given normalized quaternion. The
+     * identity rotation looks along the negative z axis with the y axis up.
+     * 
+     * @param x The x component of the quaternion
+     * @param y The y component of the quaternion
+     * @param z The z component of the quaternion
+     * @param w The w component of the quaternion
+     * @return This camera
+     */
+    public Camera setOrientation(float x, float y, float z, float w) {
+        float xx = x * x;
+        float yy = y * y;
+        float zz = z * z;
+        float xy = x * y;
+        float xz = x * z;
+        float yz = y * z;
+        float wx = w * x;
+        float wy = w * y;
+        float wz = w * z;
+        
+        rightX = 1.0f - 2.0f * (yy + zz);
+        rightY = 2.0f * (xy + wz);
+        rightZ = 2.0f * (xz - wy);
+        upX = 2.0f * (xy - wz);
+        upY = 1.0f - 2.0f * (xx + zz);
+        upZ = 2.0f * (yz + wx);
+        backX = 2.0f * (xz + wy);
+        backY = 2.0f * (yz - wx);
+        backZ = 1.0f - 2.0f * (xx + yy);
+        viewDirty = true;
+        return this;
+    }
+    
+    /**
+     * Sets the orientation of this camera to the rotation of the given normalized quaternion, which
+     * may not be null. See setOrientation(float, float, float, float).
+     * 
+     * @param orientation The orientation
+     * @return This camera
+     */
+    public Camera setOrientation(Quaternionf orientation) {
+        if(orientation == null)
+            throw new IllegalArgumentException("The orientation is null");
+        
+        return setOrientation(orientation.x, orientation.y, orientation.z, orientation.w);
+    }
+    
+    /**
+     * Places this camera at the eye position and turns it towards the target, with its up axis as
+     * close to the given up direction as possible. The up direction may not be parallel to the
+     * viewing direction.
+     * 
+     * @param eyeX The x coordinate of the camera position
+     * @param eyeY The y coordinate of the camera position
+     * @param eyeZ The z coordinate of the camera position
+     * @param targetX The x coordinate of the point to look at
+     * @param targetY The y coordinate of the point to look at
+     * @param targetZ The z coordinate of the point to look at
+     * @param upX The x coordinate of the up direction
+     * @param upY The y coordinate of the up direction
+     * @param upZ The z coordinate of the up direction
+     * @return This camera
+     */
+    public Camera lookAt(float eyeX, float eyeY, float eyeZ, float targetX, float targetY, float targetZ,
+                         float upX, float upY, float upZ) {
+        float backX = eyeX - targetX;
+        float backY = eyeY - targetY;
+        float backZ = eyeZ - targetZ;
+        float length = (float) Math.sqrt(backX * backX + backY * backY + backZ * backZ);
+        
+        if(length == 0.0f)
+            throw new IllegalArgumentException("The eye position equals the target");
+        
+        backX /= length;
+        backY /= length;
+        backZ /= length;
+        
+        float rightX = upY * backZ - upZ * backY;
+        float rightY = upZ * backX - upX * backZ;
+        float rightZ = upX * backY - upY * backX;
+        length = (float) Math.sqrt(rightX * rightX + rightY * rightY + rightZ * rightZ);
+        
+        if(length == 0.0f)
+            throw new IllegalArgumentException("The up direction is parallel to the viewing direction");
+        
+        this.rightX = rightX / length;
+        this.rightY = rightY / length;
+        this.rightZ = rightZ / length;
+        this.backX = backX;
+        this.backY = backY;
+        this.backZ = backZ;
+        this.upX = backY * this.rightZ - backZ * this.rightY;
+        this.upY = backZ * this.rightX - backX * this.rightZ;
+        this.upZ = backX * this.rightY - backY * this.rightX;
+        return setPosition(eyeX, eyeY, eyeZ);
+    }
+    
+    /**
+     * Does the same as lookAt(float, float, float, float, float, float, float, float, float). No
+     * argument may be null.
+     * 
+     * @param eye The camera position
+     * @param target The point to look at
+     * @param up The up direction
+     * @return This camera
+     */
+    public Camera lookAt(Vector3f eye, Vector3f target, Vector3f up) {
+        if(eye == null || target == null || up == null)
+            throw new IllegalArgumentException("An argument is null");
+        
+        return lookAt(eye.x, eye.y, eye.z, target.x, target.y, target.z, up.x, up.y, up.z);
+    }
+    
+    /**
+     * Stores the position of this camera in dest, which may not be null.
+     * 
+     * @param dest The vector to store the position in
+     * @return The destination vector
+     */
+    public Vector3f getPosition(Vector3f dest) {
+        if(dest == null)
+            throw new IllegalArgumentException("The destination vector is null");
+        
+        return dest.set(positionX, positionY, positionZ);
+    }
+    
+    /**
+     * Stores the normalized viewing direction of this camera in dest, which may not be null.
+     * 
+     * @param dest The vector to store the direction in
+     * @return The destination vector
+     */
+    public Vector3f getDirection(Vector3f dest) {
+        if(dest == null)
+            throw new IllegalArgumentException("The destination vector is null");
+        
+        return dest.set(-backX, -backY, -backZ);
+    }
+    
+    /**
+     * Switches this camera to a perspective projection with the given parameters.
+     * 
+     * @param fov The vertical field of view in degrees
+     * @param aspect The aspect ratio (width divided by height) of the target screen
+     * @param near The distance of the near clipping plane
+     * @param far The distance of the far clipping plane
+     * @return This camera
+     */
+    public Camera setPerspective(float fov, float aspect, float near, float far) {
+        if(fov <= 0.0f || fov >= 180.0f)
+            throw new IllegalArgumentException("Invalid field of view: " + fov);
+        
+        if(aspect <= 0.0f)
+            throw new IllegalArgumentException("Invalid aspect ratio: " + aspect);
+        
+        if(near <= 0.0f || far <= near)
+            throw new IllegalArgumentException("Invalid clipping planes: " + near + ", " + far);
+        
+        perspective = true;
+        this.fov = fov;
+        this.aspect = aspect;
+        this.near = near;
+        this.far = far;
+        projectionDirty = true;
+        return this;
+    }
+    
+    /**
+     * Switches this camera to an orthographic projection of the given box in view space.
+     * 
+     * @param left The left edge
+     * @param right The right edge
+     * @param bottom The bottom edge
+     * @param top The top edge
+     * @param near The distance of the near clipping plane
+     * @param far The distance of the far clipping plane
+     * @return This camera
+     */
+    public Camera setOrthographic(float left, float right, float bottom, float top, float near, float far) {
+        if(left == right || bottom == top)
+            throw new IllegalArgumentException("The projected area is empty");
+        
+        if(near == far)
+            throw new IllegalArgumentException("The clipping planes are equal");
+        
+        perspective = false;
+        this.left = left;
+        this.right = right;
+        this.bottom = bottom;
+        this.top = top;
+        this.near = near;
+        this.far = far;
+        aspect = (right - left) / (top - bottom);
+        projectionDirty = true;
+        return this;
+    }
+    
+    /**
+     * Returns whether this camera uses a perspective projection.
+     * 
+     * @return If the projection is perspective
+     */
+    public boolean isPerspective() {
+        return perspective;
+    }
+    
+    /**
+     * Sets the vertical field of view of the perspective projection. If this camera uses an
+     * orthographic projection an IllegalStateException is thrown.
+     * 
+     * @param fov The vertical field of view in degrees
+     * @return This camera
+     */
+    public Camera setFov(float fov) {
+        if(!perspective)
+            throw new IllegalStateException("The camera uses an orthographic projection");
+        
+        return setPerspective(fov, aspect, near, far);
+    }
+    
+    /**
+     * Returns the vertical field of view of the perspective projection in degrees.
+     * 
+     * @return The field of view
+     */
+    public float getFov() {
+        return fov;
+    }
+    
+    /**
+     * Sets the aspect ratio (width divided by height) of the target screen, for example after the
+     * window was resized. For an orthographic projection the height and the center of the projected
+     * area are kept and its width is adjusted.
+     * 
+     * @param aspect The aspect ratio
+     * @return This camera
+     */
+    public Camera setAspect(float aspect) {
+        if(aspect <= 0.0f)
+            throw new IllegalArgumentException("Invalid aspect ratio: " + aspect);
+        
+        if(perspective)
+            return setPerspective(fov, aspect, near, far);
+        
+        float center = (left + right) * 0.5f;
+        float halfWidth = (top - bottom) * 0.5f * aspect;
+        return setOrthographic(center - halfWidth, center + halfWidth, bottom, top, near, far);
+    }
+    
+    /**
+     * Returns the aspect ratio (width divided by height) of the projection.
+     * 
+     * @return The aspect ratio
+     */
+    public float getAspect() {
+        return aspect;
+    }
+    
+    /**
+     * Sets the distances of the near and the far clipping plane, keeping the type and the other
+     * parameters of the projection.
+     * 
+     * @param near The distance of the near clipping plane
+     * @param far The distance of the far clipping plane
+     * @return This camera
+     */
+    public Camera setClippingPlanes(float near, float far) {
+        if(perspective)
+            return setPerspective(fov, aspect, near, far);
+        
+        return setOrthographic(left, right, bottom, top, near, far);
+    }
+    
+    /**
+     * Returns the distance of the near clipping plane.
+     * 
+     * @return The near clipping plane
+     */
+    public float getNear() {
+        return near;
+    }
+    
+    /**
+     * Returns the distance of the far clipping plane.
+     * 
+     * @return The far clipping plane
+     */
+    public float getFar() {
+        return far;
+    }
+    
+    /**
+     * Returns the cached matrix of the given type, which may not be null, recomputing it first if
+     * it is outdated. The matrix must not be altered.
+     * 
+     * @param type The type of the matrix
+     * @return The matrix
+     */
+    public Matrix4f getMatrix(MatrixType type) {
+        checkType(type);
+        update();
+        return matrices[type.ordinal()];
+    }
+    
+    /**
+     * Returns the direct float buffer holding the matrix of the given type, which may not be null,
+     * in column major order, recomputing it first if it is outdated. Its position is 0 and its
+     * limit 16. The buffer must not be altered.
+     * 
+     * @param type The type of the matrix
+     * @return The buffer holding the matrix
+     */
+    public FloatBuffer getBuffer(MatrixType type) {
+        checkType(type);
+        update();
+        return buffers[type.ordinal()];
+    }
+    
+    /**
+     * Returns the view matrix, which maps world space to view space. See getMatrix(MatrixType).
+     * 
+     * @return The view matrix
+     */
+    public Matrix4f getViewMatrix() {
+        return getMatrix(MatrixType.VIEW);
+    }
+    
+    /**
+     * Returns the projection matrix, which maps view space to clip space. See getMatrix(MatrixType).
+     * 
+     * @return The projection matrix
+     */
+    public Matrix4f getProjectionMatrix() {
+        return getMatrix(MatrixType.PROJECTION);
+    }
+    
+    /**
+     * Returns the projection * view matrix, which maps world space to clip space and can be used
+     * for Frustum.set(Matrix4f). See getMatrix(MatrixType).
+     * 
+     * @return The view projection matrix
+     */
+    public Matrix4f getViewProjectionMatrix() {
+        return getMatrix(MatrixType.VIEW_PROJECTION);
+    }
+    
+    /**
+     * Returns the inverse of the projection * view matrix, which can be used for
+     * Ray.setFromScreen(). See getMatrix(MatrixType).
+     * 
+     * @return The inverse view projection matrix
+     */
+    public Matrix4f getInverseViewProjectionMatrix() {
+        return getMatrix(MatrixType.INVERSE_VIEW_PROJECTION);
+    }
+    
+    /**
+     * Recomputes the outdated matrices and their buffers. This is done automatically when a matrix
+     * or buffer is requested, but can be called explicitly, for example before handing the buffers
+     * to other code.
+     */
+    public void update() {
+        if(!viewDirty && !projectionDirty)
+            return;
+        
+        Matrix4f view = matrices[MatrixType.VIEW.ordinal()];
+        Matrix4f projection = matrices[MatrixType.PROJECTION.ordinal()];
+        Matrix4f viewProjection = matrices[MatrixType.VIEW_PROJECTION.ordinal()];
+        Matrix4f inverseView = matrices[MatrixType.INVERSE_VIEW.ordinal()];
+        Matrix4f inverseProjection = matrices[MatrixType.INVERSE_PROJECTION.ordinal()];
+        Matrix4f inverseViewProjection = matrices[MatrixType.INVERSE_VIEW_PROJECTION.ordinal()];
+        
+        if(viewDirty) {
+            view.set(rightX, rightY, rightZ, -(rightX * positionX + rightY * positionY + rightZ * positionZ),
+                     upX, upY, upZ, -(upX * positionX + upY * positionY + upZ * positionZ),
+                     backX, backY, backZ, -(backX * positionX + backY * positionY + backZ * positionZ),
+                     0.0f, 0.0f, 0.0f, 1.0f);
+            inverseView.set(rightX, upX, backX, positionX,
+                            rightY, upY, backY, positionY,
+                            rightZ, upZ, backZ, positionZ,
+                            0.0f, 0.0f, 0.0f, 1.0f);
+            view.get(buffers[MatrixType.VIEW.ordinal()], 0, true);
+            inverseView.get(buffers[MatrixType.INVERSE_VIEW.ordinal()], 0, true);
+        }
+        
+        if(projectionDirty) {
+            if(perspective) {
+                float f = 1.0f / (float) Math.tan(Math.toRadians(fov * 0.5f));
+                float depth = near - far;
+                
+                projection.set(f / aspect, 0.0f, 0.0f, 0.0f,
+                               0.0f, f, 0.0f, 0.0f,
+                               0.0f, 0.0f, (far + near) / depth, 2.0f * far * near / depth,
+                               0.0f, 0.0f, -1.0f, 0.0f);
+                inverseProjection.set(aspect / f, 0.0f, 0.0f, 0.0f,
+                                      0.0f, 1.0f / f, 0.0f, 0.0f,
+                                      0.0f, 0.0f, 0.0f, -1.0f,
+                                      0.0f, 0.0f, depth / (2.0f * far * near), (far + near) / (2.0f * far * near));
+            } else {
+                projection.set(2.0f / (right - left), 0.0f, 0.0f, -(right + left) / (right - left),
+                               0.0f, 2.0f / (top - bottom), 0.0f, -(top + bottom) / (top - bottom),
+                               0.0f, 0.0f, -2.0f / (far - near), -(far + near) / (far - near),
+                               0.0f, 0.0f, 0.0f, 1.0f);
+                projection.invertAffine(inverseProjection);
+            }
+            
+            projection.get(buffers[MatrixType.PROJECTION.ordinal()], 0, true);
+            inverseProjection.get(buffers[MatrixType.INVERSE_PROJECTION.ordinal()], 0, true);
+        }
+        
+        projection.mul(view, viewProjection);
+        inverseView.mul(inverseProjection, inverseViewProjection);
+        viewProjection.get(buffers[MatrixType.VIEW_PROJECTION.ordinal()], 0, true);
+        inverseViewProjection.get(buffers[MatrixType.INVERSE_VIEW_PROJECTION.ordinal()], 0, true);
+        
+        viewDirty = false;
+        projectionDirty = false;
+    }
+    
+    private void checkType(MatrixType type) {
+        if(type == null)
+            throw new IllegalArgumentException("Type is null");
+    }
+}
@@ -0,0 +1,299 @@
+package com.teacore.math;
+
+/**
+ * Represents the view frustum of a camera as six planes (left, right, bottom, top, near, far),
+ * which are extracted from a combined projection * view matrix. Spheres and axis aligned bounding
+ * boxes can be tested against it one by one or in batches over packed float arrays, the latter
+ * writing their results into a visibility bitset. Objects that fail the test are completely
+ * outside and do not need to be drawn. The test is conservative, so some objects near the corners
+ * of the frustum may pass although they are not visible. No method allocates any objects.
+ * 
+ * @author ShietStone
+ */
+public class Frustum {
+
+    public static final int LEFT = 0;
+    public static final int RIGHT = 1;
+    public static final int BOTTOM = 2;
+    public static final int TOP = 3;
+    public static final int NEAR = 4;
+    public static final int FAR = 5;
+    
+    private float[] planes;
+    
+    /**
+     * Creates a frustum that contains everything, until it is set to a matrix.
+     */
+    public Frustum() {
+        planes = new float[24];
+        
+        for(int plane = 0; plane < 6; plane++)
+            planes[plane * 4 + 3] = Float.POSITIVE_INFINITY;
+    }
+    
+    /**
+     * Creates a frustum from the given projection * view matrix. See set(Matrix4f).
+     * 
+     * @param matrix The combined projection and view matrix
+     */
+    public Frustum(Matrix4f matrix) {
+        this();
+        set(matrix);
+    }
+    
+    /**
+     * Extracts the planes of the given projection * view matrix, which maps world space points to
+     * OpenGL clip space (z between -w and w) via Matrix4f.mul(Vector4f). Each plane is a sum or
+     * difference of the last matrix row and one of the other rows. The matrix may not be null.
+     * 
+     * @param matrix The combined projection and view matrix
+     * @return This frustum
+     */
+    public Frustum set(Matrix4f matrix) {
+        if(matrix == null)
+            throw new IllegalArgumentException("The matrix is null");
+        
+        setPlane(LEFT, matrix.f30 + matrix.f00, matrix.f31 + matrix.f01, matrix.f32 + matrix.f02, matrix.f33 + matrix.f03);
+        setPlane(RIGHT, matrix.f30 - matrix.f00, matrix.f31 - matrix.f01, matrix.f32 - matrix.f02, matrix.f33 - matrix.f03);
+        setPlane(BOTTOM, matrix.f30 + matrix.f10, matrix.f31 + matrix.f11, matrix.f32 + matrix.f12, matrix.f33 + matrix.f13);
+        setPlane(TOP, matrix.f30 - matrix.f10, matrix.f31 - matrix.f11, matrix.f32 - matrix.f12, matrix.f33 - matrix.f13);
+        setPlane(NEAR, matrix.f30 + matrix.f20, matrix.f31 + matrix.f21, matrix.f32 + matrix.f22, matrix.f33 + matrix.f23);
+        setPlane(FAR, matrix.f30 - matrix.f20, matrix.f31 - matrix.f21, matrix.f32 - matrix.f22, matrix.f33 - matrix.f23);
+        return this;
+    }
+    
+    /**
+     * Extracts the planes of the given projection * view matrix, which is stored transposed. This
+     * is the case for matrices built like MathUtil.getProjectionMatrix(), which are uploaded to
+     * OpenGL without the transpose flag, so their rows are the columns of the clip space mapping.
+     * The matrix may not be null.
+     * 
+     * @param matrix The transposed combined projection and view matrix
+     * @return This frustum
+     */
+    public Frustum setTransposed(Matrix4f matrix) {
+        if(matrix == null)
+            throw new IllegalArgumentException("The matrix is null");
+        
+        setPlane(LEFT, matrix.f03 + matrix.f00, matrix.f13 + matrix.f10, matrix.f23 + matrix.f20, matrix.f33 + matrix.f30);
+        setPlane(RIGHT, matrix.f03 - matrix.f00, matrix.f13 - matrix.f10, matrix.f23 - matrix.f20, matrix.f33 - matrix.f30);
+        setPlane(BOTTOM, matrix.f03 + matrix.f01, matrix.f13 + matrix.f11, matrix.f23 + matrix.f21, matrix.f33 + matrix.f31);
+        setPlane(TOP, matrix.f03 - matrix.f01, matrix.f13 - matrix.f11, matrix.f23 - matrix.f21, matrix.f33 - matrix.f31);
+        setPlane(NEAR, matrix.f03 + matrix.f02, matrix.f13 + matrix.f12, matrix.f23 + matrix.f22, matrix.f33 + matrix.f32);
+        setPlane(FAR, matrix.f03 - matrix.f02, matrix.f13 - matrix.f12, matrix.f23 - matrix.f22, matrix.f33 - matrix.f32);
+        return this;
+    }
+    
+    /**
+     * Stores the plane with the given index (see the constants of this class) in dest as (a, b, c,
+     * d), so that a * x + b * y + c * z + d is the signed distance of a point to the plane, which
+     * is positive on the inner side. The destination may not be null.
+     * 
+     * @param plane The index of the plane
+     * @param dest The vector to store the plane in
+     * @return The destination vector
+     */
+    public Vector4f getPlane(int plane, Vector4f dest) {
+        if(plane < 0 || plane > 5)
+            throw new IllegalArgumentException("Invalid plane index: " + plane);
+        
+        if(dest == null)
+            throw new IllegalArgumentException("The destination vector is null");
+        
+        return dest.set(planes[plane * 4], planes[plane * 4 + 1], planes[plane * 4 + 2], planes[plane * 4 + 3]);
+    }
+    
+    /**
+     * Tests whether a point lies inside of this frustum.
+     * 
+     * @param x The x coordinate
+     * @param y The y coordinate
+     * @param z The z coordinate
+     * @return If the point is inside
+     */
+    public boolean testPoint(float x, float y, float z) {
+        return testSphere(x, y, z, 0.0f);
+    }
+    
+    /**
+     * Tests whether a sphere intersects or lies inside of this frustum.
+     * 
+     * @param x The x coordinate of the center
+     * @param y The y coordinate of the center
+     * @param z The z coordinate of the center
+     * @param radius The radius
+     * @return If the sphere may be visible
+     */
+    public boolean testSphere(float x, float y, float z, float radius) {
+        for(int index = 0; index < 24; index += 4)
+            if(planes[index] * x + planes[index + 1] * y + planes[index + 2] * z + planes[index + 3] < -radius)
+                return false;
+        
+        return true;
+    }
+    
+    /**
+     * Tests whether an axis aligned bounding box intersects or lies inside of this frustum. For
+     * every plane only the corner furthest along the planes normal is tested.
+     * 
+     * @param minX The minimum x coordinate
+     * @param minY The minimum y coordinate
+     * @param minZ The minimum z coordinate
+     * @param maxX The maximum x coordinate
+     * @param maxY The maximum y coordinate
+     * @param maxZ The maximum z coordinate
+     * @return If the box may be visible
+     */
+    public boolean testAABB(float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
+        for(int index = 0; index < 24; index += 4) {
+            float a = planes[index];
+            float b = planes[index + 1];
+            float c = planes[index + 2];
+            
+            if(a * (a > 0.0f ? maxX : minX) + b * (b > 0.0f ? maxY : minY) + c * (c > 0.0f ? maxZ : minZ)
+                    + planes[index + 3] < 0.0f)
+                return false;
+        }
+        
+        return true;
+    }
+    
+    /**
+     * Tests a batch of spheres packed as (x, y, z, radius) in the given array against this
+     * frustum. Bit i of the visibility bitset is set if sphere i may be visible and cleared
+     * otherwise. No argument may be null, the spheres array must hold count spheres and the
+     * bitset must have at least (count + 63) / 64 entries.
+     * 
+     * @param spheres The packed spheres
+     * @param count The number of spheres to test
+     * @param visibility The bitset to store the results in
+     * @return The number of spheres that may be visible
+     */
+    public int cullSpheres(float[] spheres, int count, long[] visibility) {
+        checkBatch(spheres, 4, count, visibility);
+        
+        float a0 = planes[0];
+        float b0 = planes[1];
+        float c0 = planes[2];
+        float d0 = planes[3];
+        float a1 = planes[4];
+        float b1 = planes[5];
+        float c1 = planes[6];
+        float d1 = planes[7];
+        float a2 = planes[8];
+        float b2 = planes[9];
+        float c2 = planes[10];
+        float d2 = planes[11];
+        float a3 = planes[12];
+        float b3 = planes[13];
+        float c3 = planes[14];
+        float d3 = planes[15];
+        float a4 = planes[16];
+        float b4 = planes[17];
+        float c4 = planes[18];
+        float d4 = planes[19];
+        float a5 = planes[20];
+        float b5 = planes[21];
+        float c5 = planes[22];
+        float d5 = planes[23];
+        
+        int visible = 0;
+        long word = 0L;
+        
+        for(int index = 0; index < count; index++) {
+            int base = index * 4;
+            float x = spheres[base];
+            float y = spheres[base + 1];
+            float z = spheres[base + 2];
+            float radius = -spheres[base + 3];
+            
+            boolean inside = a0 * x + b0 * y + c0 * z + d0 >= radius
+                          && a1 * x + b1 * y + c1 * z + d1 >= radius
+                          && a2 * x + b2 * y + c2 * z + d2 >= radius
+                          && a3 * x + b3 * y + c3 * z + d3 >= radius
+                          && a4 * x + b4 * y + c4 * z + d4 >= radius
+                          && a5 * x + b5 * y + c5 * z + d5 >= radius;
+            
+            if(inside) {
+                word |= 1L << index;
+                visible++;
+            }
+            
+            if((index & 63) == 63 || index == count - 1) {
+                visibility[index >>> 6] = word;
+                word = 0L;
+            }
+        }
+        
+        return visible;
+    }
+    
+    /**
+     * Tests a batch of axis aligned bounding boxes packed as (minX, minY, minZ, maxX, maxY, maxZ)
+     * in the given array against this frustum. Bit i of the visibility bitset is set if box i may
+     * be visible and cleared otherwise. No argument may be null, the boxes array must hold count
+     * boxes and the bitset must have at least (count + 63) / 64 entries.
+     * 
+     * @param boxes The packed boxes
+     * @param count The number of boxes to test
+     * @param visibility The bitset to store the results in
+     * @return The number of boxes that may be visible
+     */
+    public int cullAABBs(float[] boxes, int count, long[] visibility) {
+        checkBatch(boxes, 6, count, visibility);
+        
+        int visible = 0;
+        long word = 0L;
+        
+        for(int index = 0; index < count; index++) {
+            int base = index * 6;
+            
+            if(testAABB(boxes[base], boxes[base + 1], boxes[base + 2], boxes[base + 3], boxes[base + 4], boxes[base + 5])) {
+                word |= 1L << index;
+                visible++;
+            }
+            
+            if((index & 63) == 63 || index == count - 1) {
+                visibility[index >>> 6] = word;
+                word = 0L;
+            }
+        }
+        
+        return visible;
+    }
+    
+    /**
+     * Returns whether the object with the given index was marked visible in a bitset filled by
+     * one of the batch culling methods.
+     * 
+     * @param visibility The visibility bitset
+     * @param index The index of the object
+     * @return If the object is visible
+     */
+    public static boolean isVisible(long[] visibility, int index) {
+        return (visibility[index >>> 6] & (1L << index)) != 0;
+    }
+    
+    private void setPlane(int plane, float a, float b, float c, float d) {
+        float length = (float) Math.sqrt(a * a + b * b + c * c);
+        
+        if(length == 0.0f)
+            length = 1.0f;
+        
+        planes[plane * 4] = a / length;
+        planes[plane * 4 + 1] = b / length;
+        planes[plane * 4 + 2] = c / length;
+        planes[plane * 4 + 3] = d / length;
+    }
+    
+    private void checkBatch(float[] data, int floatsPerObject, int count, long[] visibility) {
+        if(data == null || visibility == null)
+            throw new IllegalArgumentException("An argument is null");
+        
+        if(count < 0 || data.length / floatsPerObject < count)
+            throw new IllegalArgumentException("The data array is too small");
+        
+        if(visibility.length < (count + 63) / 64)
+            throw new IllegalArgumentException("The visibility bitset is too small");
+    }
+}
@@ -6,6 +6,19 @@ package com.teacore.math;
  * @author ShietStone
  */
 public class MathUtil {
+
+    private static final int SIN_TABLE_BITS = 12;
+    private static final int SIN_TABLE_SIZE = 1 << SIN_TABLE_BITS;
+    private static final int SIN_TABLE_MASK = SIN_TABLE_SIZE - 1;
+    private static final double SIN_TABLE_SCALE = SIN_TABLE_SIZE / (2.0 * Math.PI);
+    private static final float[] SIN_TABLE;
+    
+    static {
+        SIN_TABLE = new float[SIN_TABLE_SIZE + 1];
+        
+        for(int index = 0; index <= SIN_TABLE_SIZE; index++)
+            SIN_TABLE[index] = (float) Math.sin(index / SIN_TABLE_SCALE);
+    }
     
     /**
      * Returns a 4x4 projection matrix defined by the given parameters.
@@ -34,8 +47,8 @@ public class MathUtil {
     /**
      * Returns the inverse of an projection matrix. This can be used for mouse picking in a 3D
      * scene. This does not generally invert any given matrix, so if given a non-projection matrix
-     * the mathematical result is unknown. IllegalArgumentException will be thrown if the matrix
-     * is null.
+     * the mathematical result is unknown, use Matrix4f.invert() for those instead.
+     * IllegalArgumentException will be thrown if the matrix is null.
      * 
      * @param projectionMatrix The projection matrix to invert
      * @return The inverted projection matrix
@@ -65,14 +78,38 @@ public class MathUtil {
      * @return The rotation matrix
      */
     public static Matrix3f getRotationMatrixX(float angle) {
-        float cos = (float) Math.cos(Math.toRadians(angle));
-        float sin = (float) Math.sin(Math.toRadians(angle));
+        return getRotationMatrixX(angle, new Matrix3f());
+    }
         
-        return new Matrix3f(new float[] {
-                1.0f, 0.0f, 0.0f,
-                0.0f, cos, -sin,
-                0.0f, sin, cos
-        });
+    /**
+     * Stores the rotation matrix around the x axis by a given angle in dest, which may not be
+     * null.
+     * 
+     * @param angle The angle to rotate by
+     * @param dest The matrix to store the rotation in
+     * @return The destination matrix
+     */
+    public static Matrix3f getRotationMatrixX(float angle, Matrix3f dest) {
+        return getRotationMatrixXRadians((float) Math.toRadians(angle), dest);
+    }
+    
+    /**
+     * Does the same as getRotationMatrixX(float, Matrix3f), but takes the angle in radians.
+     * 
+     * @param angle The angle in radians to rotate by
+     * @param dest The matrix to store the rotation in
+     * @return The destination matrix
+     */
+    public static Matrix3f getRotationMatrixXRadians(float angle, Matrix3f dest) {
+        if(dest == null)
+            throw new IllegalArgumentException("The destination matrix is null");
+        
+        float cos = (float) Math.cos(angle);
+        float sin = (float) Math.sin(angle);
+        
+        return dest.set(1.0f, 0.0f, 0.0f,
+                        0.0f, cos, -sin,
+                        0.0f, sin, cos);
     }
     
     /**
@@ -82,14 +119,38 @@ public class MathUtil {
      * @return The rotation matrix
      */
     public static Matrix3f getRotationMatrixY(float angle) {
-        float cos = (float) Math.cos(Math.toRadians(angle));
-        float sin = (float) Math.sin(Math.toRadians(angle));
+        return getRotationMatrixY(angle, new Matrix3f());
+    }
         
-        return new Matrix3f(new float[] {
-                cos, 0.0f, sin,
-                0.0f, 1.0f, 0.0f,
-                -sin, 0.0f, cos
-        });
+    /**
+     * Stores the rotation matrix around the y axis by a given angle in dest, which may not be
+     * null.
+     * 
+     * @param angle The angle to rotate by
+     * @param dest The matrix to store the rotation in
+     * @return The destination matrix
+     */
+    public static Matrix3f getRotationMatrixY(float angle, Matrix3f dest) {
+        return getRotationMatrixYRadians((float) Math.toRadians(angle), dest);
+    }
+    
+    /**
+     * Does the same as getRotationMatrixY(float, Matrix3f), but takes the angle in radians.
+     * 
+     * @param angle The angle in radians to rotate by
+     * @param dest The matrix to store the rotation in
+     * @return The destination matrix
+     */
+    public static Matrix3f getRotationMatrixYRadians(float angle, Matrix3f dest) {
+        if(dest == null)
+            throw new IllegalArgumentException("The destination matrix is null");
+        
+        float cos = (float) Math.cos(angle);
+        float sin = (float) Math.sin(angle);
+        
+        return dest.set(cos, 0.0f, sin,
+                        0.0f, 1.0f, 0.0f,
+                        -sin, 0.0f, cos);
     }
     
     /**
@@ -99,14 +160,38 @@ public class MathUtil {
      * @return The rotation matrix
      */
     public static Matrix3f getRotationMatrixZ(float angle) {
-        float cos = (float) Math.cos(Math.toRadians(angle));
-        float sin = (float) Math.sin(Math.toRadians(angle));
+        return getRotationMatrixZ(angle, new Matrix3f());
+    }
         
-        return new Matrix3f(new float[] {
-                cos, -sin, 0.0f,
-                sin, cos, 0.0f,
-                0.0f, 0.0f, 1.0f
-        });
+    /**
+     * Stores the rotation matrix around the z axis by a given angle in dest, which may not be
+     * null.
+     * 
+     * @param angle The angle to rotate by
+     * @param dest The matrix to store the rotation in
+     * @return The destination matrix
+     */
+    public static Matrix3f getRotationMatrixZ(float angle, Matrix3f dest) {
+        return getRotationMatrixZRadians((float) Math.toRadians(angle), dest);
+    }
+    
+    /**
+     * Does the same as getRotationMatrixZ(float, Matrix3f), but takes the angle in radians.
+     * 
+     * @param angle The angle in radians to rotate by
+     * @param dest The matrix to store the rotation in
+     * @return The destination matrix
+     */
+    public static Matrix3f getRotationMatrixZRadians(float angle, Matrix3f dest) {
+        if(dest == null)
+            throw new IllegalArgumentException("The destination matrix is null");
+        
+        float cos = (float) Math.cos(angle);
+        float sin = (float) Math.sin(angle);
+        
+        return dest.set(cos, -sin, 0.0f,
+                        sin, cos, 0.0f,
+                        0.0f, 0.0f, 1.0f);
     }
     
     /**
@@ -117,12 +202,184 @@ public class MathUtil {
      * @return The rotation matrix
      */
     public static Matrix2f getRotationMatrix(float angle) {
-        float cos = (float) Math.cos(Math.toRadians(angle));
-        float sin = (float) Math.sin(Math.toRadians(angle));
+        return getRotationMatrix(angle, new Matrix2f());
+    }
         
-        return new Matrix2f(new float[] {
-                cos, -sin,
-                sin, cos
-        });
+    /**
+     * Stores a rotation matrix for 2D space in dest, which may not be null.
+     * 
+     * @param angle The angle to rotate by
+     * @param dest The matrix to store the rotation in
+     * @return The destination matrix
+     */
+    public static Matrix2f getRotationMatrix(float angle, Matrix2f dest) {
+        return getRotationMatrixRadians((float) Math.toRadians(angle), dest);
+    }
+    
+    /**
+     * Does the same as getRotationMatrix(float, Matrix2f), but takes the angle in radians.
+     * 
+     * @param angle The angle in radians to rotate by
+     * @param dest The matrix to store the rotation in
+     * @return The destination matrix
+     */
+    public static Matrix2f getRotationMatrixRadians(float angle, Matrix2f dest) {
+        if(dest == null)
+            throw new IllegalArgumentException("The destination matrix is null");
+        
+        float cos = (float) Math.cos(angle);
+        float sin = (float) Math.sin(angle);
+        
+        return dest.set(cos, -sin,
+                        sin, cos);
+    }
+    
+    /**
+     * Stores the rotation around the x axis, followed by the rotation around the y axis, followed
+     * by the rotation around the z axis in dest, which may not be null. The result equals
+     * getRotationMatrixZ(angleZ) * getRotationMatrixY(angleY) * getRotationMatrixX(angleX), but is
+     * built in one pass without any matrix multiplication or allocation.
+     * 
+     * @param angleX The angle to rotate around the x axis by
+     * @param angleY The angle to rotate around the y axis by
+     * @param angleZ The angle to rotate around the z axis by
+     * @param dest The matrix to store the rotation in
+     * @return The destination matrix
+     */
+    public static Matrix3f getEulerRotationMatrix(float angleX, float angleY, float angleZ, Matrix3f dest) {
+        return getEulerRotationMatrixRadians((float) Math.toRadians(angleX), (float) Math.toRadians(angleY),
+                                             (float) Math.toRadians(angleZ), dest);
+    }
+    
+    /**
+     * Does the same as getEulerRotationMatrix(float, float, float, Matrix3f), but takes the
+     * angles in radians.
+     * 
+     * @param angleX The angle in radians to rotate around the x axis by
+     * @param angleY The angle in radians to rotate around the y axis by
+     * @param angleZ The angle in radians to rotate around the z axis by
+     * @param dest The matrix to store the rotation in
+     * @return The destination matrix
+     */
+    public static Matrix3f getEulerRotationMatrixRadians(float angleX, float angleY, float angleZ, Matrix3f dest) {
+        if(dest == null)
+            throw new IllegalArgumentException("The destination matrix is null");
+        
+        float sx = (float) Math.sin(angleX);
+        float cx = (float) Math.cos(angleX);
+        float sy = (float) Math.sin(angleY);
+        float cy = (float) Math.cos(angleY);
+        float sz = (float) Math.sin(angleZ);
+        float cz = (float) Math.cos(angleZ);
+        
+        return dest.set(cz * cy, cz * sy * sx - sz * cx, cz * sy * cx + sz * sx,
+                        sz * cy, sz * sy * sx + cz * cx, sz * sy * cx - cz * sx,
+                        -sy, cy * sx, cy * cx);
+    }
+    
+    /**
+     * Stores the transformation matrix translation * rotation * scale in dest, which may not be
+     * null. Applied to a point this scales it first, then rotates it (as in
+     * getEulerRotationMatrix()) and translates it last. The matrix is filled in one pass without
+     * any matrix multiplication or allocation. No argument may be null.
+     * 
+     * @param translation The translation
+     * @param rotation The angles to rotate around the x, y and z axis by
+     * @param scale The scale factors along the x, y and z axis
+     * @param dest The matrix to store the transformation in
+     * @return The destination matrix
+     */
+    public static Matrix4f getTransformationMatrix(Vector3f translation, Vector3f rotation, Vector3f scale, Matrix4f dest) {
+        if(rotation == null)
+            throw new IllegalArgumentException("An argument is null");
+        
+        return getTransformationMatrixRadians(translation, (float) Math.toRadians(rotation.x),
+                                              (float) Math.toRadians(rotation.y),
+                                              (float) Math.toRadians(rotation.z), scale, dest);
+    }
+    
+    /**
+     * Does the same as getTransformationMatrix(Vector3f, Vector3f, Vector3f, Matrix4f), but takes
+     * the rotation angles in radians. No argument may be null.
+     * 
+     * @param translation The translation
+     * @param angleX The angle in radians to rotate around the x axis by
+     * @param angleY The angle in radians to rotate around the y axis by
+     * @param angleZ The angle in radians to rotate around the z axis by
+     * @param scale The scale factors along the x, y and z axis
+     * @param dest The matrix to store the transformation in
+     * @return The destination matrix
+     */
+    public static Matrix4f getTransformationMatrixRadians(Vector3f translation, float angleX, float angleY, float angleZ,
+                                                          Vector3f scale, Matrix4f dest) {
+        if(translation == null || scale == null || dest == null)
+            throw new IllegalArgumentException("An argument is null");
+        
+        float sx = (float) Math.sin(angleX);
+        float cx = (float) Math.cos(angleX);
+        float sy = (float) Math.sin(angleY);
+        float cy = (float) Math.cos(angleY);
+        float sz = (float) Math.sin(angleZ);
+        float cz = (float) Math.cos(angleZ);
+        
+        return dest.set(cz * cy * scale.x, (cz * sy * sx - sz * cx) * scale.y, (cz * sy * cx + sz * sx) * scale.z, translation.x,
+                        sz * cy * scale.x, (sz * sy * sx + cz * cx) * scale.y, (sz * sy * cx - cz * sx) * scale.z, translation.y,
+                        -sy * scale.x, cy * sx * scale.y, cy * cx * scale.z, translation.z,
+                        0.0f, 0.0f, 0.0f, 1.0f);
+    }
+    
+    /**
+     * Stores the transformation matrix translation * rotation * scale in dest, taking the
+     * rotation as normalized quaternion. No argument may be null.
+     * 
+     * @param translation The translation
+     * @param rotation The rotation
+     * @param scale The scale factors along the x, y and z axis
+     * @param dest The matrix to store the transformation in
+     * @return The destination matrix
+     */
+    public static Matrix4f getTransformationMatrix(Vector3f translation, Quaternionf rotation, Vector3f scale, Matrix4f dest) {
+        if(translation == null || rotation == null || scale == null || dest == null)
+            throw new IllegalArgumentException("An argument is null");
+        
+        rotation.toMatrix4f(dest);
+        
+        return dest.set(dest.f00 * scale.x, dest.f01 * scale.y, dest.f02 * scale.z, translation.x,
+                        dest.f10 * scale.x, dest.f11 * scale.y, dest.f12 * scale.z, translation.y,
+                        dest.f20 * scale.x, dest.f21 * scale.y, dest.f22 * scale.z, translation.z,
+                        0.0f, 0.0f, 0.0f, 1.0f);
+    }
+    
+    /**
+     * Returns an approximation of the sine of the given angle in radians, looked up from a table
+     * of 4096 values per period with linear interpolation between them. The absolute error is
+     * below 4e-7 (compared to Math.sin()) for any argument whose magnitude is below 1e5, which is
+     * close to the precision of float itself, at a fraction of the cost of Math.sin().
+     * 
+     * @param radians The angle in radians
+     * @return The approximated sine
+     */
+    public static float fastSin(float radians) {
+        return lookupSin(radians * SIN_TABLE_SCALE);
+    }
+    
+    /**
+     * Returns an approximation of the cosine of the given angle in radians with the same error
+     * bound as fastSin().
+     * 
+     * @param radians The angle in radians
+     * @return The approximated cosine
+     */
+    public static float fastCos(float radians) {
+        return lookupSin(radians * SIN_TABLE_SCALE + SIN_TABLE_SIZE / 4);
+    }
+    
+    private static float lookupSin(double position) {
+        double floor = Math.floor(position);
+        int index = (int) ((long) floor & SIN_TABLE_MASK);
+        float fraction = (float) (position - floor);
+        float value = SIN_TABLE[index];
+        
+        return value + (SIN_TABLE[index + 1] - value) * fraction;
     }
 }
@@ -1,7 +1,12 @@
 package com.teacore.math;
 
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+
 /**
- * A representation of a 2x2 matrix with given commonly needed math functions.
+ * A representation of a 2x2 matrix with given commonly needed math functions. Operations are
+ * provided both as allocating methods and as methods storing their result in a given destination
+ * object, the latter allowing math code to run without allocating any objects.
  * 
  * @author ShietStone
  */
@@ -12,6 +17,13 @@ public class Matrix2f {
     public float f10;
     public float f11;
     
+    /**
+     * Creates this 2x2 matrix as identity matrix.
+     */
+    public Matrix2f() {
+        setIdentity();
+    }
+    
     /**
      * Creates this 2x2 matrix from the data array given. The arrays size must match 2x2
      * (total length 4) and it may not be null. These matrices are handled row major.
@@ -19,6 +31,34 @@ public class Matrix2f {
      * @param values The values of the matrix fields in row major order
      */
     public Matrix2f(float[] values) {
+        set(values);
+    }
+    
+    /**
+     * Creates this 2x2 matrix from the given arguments, where each argument is one matrix field. 
+     * The arguments are named and handled in row major order.
+     * 
+     * @param f00 Matrix field 0:0
+     * @param f01 Matrix field 0:1
+     * @param f10 Matrix field 1:0
+     * @param f11 Matrix field 1:1
+     */
+    public Matrix2f(float f00, float f01,
+                    float f10, float f11) {
+        this.f00 = f00;
+        this.f01 = f01;
+        this.f10 = f10;
+        this.f11 = f11;
+    }
+    
+    /**
+     * Sets this matrix to the values of the data array given. The arrays size must match 2x2
+     * (total length 4) and it may not be null. The array is handled row major.
+     * 
+     * @param values The values of the matrix fields in row major order
+     * @return This matrix
+     */
+    public Matrix2f set(float[] values) {
         if(values == null)
             throw new IllegalArgumentException("The value array is null");
         
@@ -29,23 +69,50 @@ public class Matrix2f {
         f01 = values[1];
         f10 = values[2];
         f11 = values[3];
+        return this;
     }
     
     /**
-     * Creates this 2x2 matrix from the given arguments, where each argument is one matrix field. 
-     * The arguments are named and handled in row major order.
+     * Sets this matrix to the given arguments, where each argument is one matrix field. The
+     * arguments are named and handled in row major order.
      * 
      * @param f00 Matrix field 0:0
      * @param f01 Matrix field 0:1
      * @param f10 Matrix field 1:0
      * @param f11 Matrix field 1:1
+     * @return This matrix
      */
-    public Matrix2f(float f00, float f01,
-                    float f10, float f11) {
+    public Matrix2f set(float f00, float f01,
+                        float f10, float f11) {
         this.f00 = f00;
         this.f01 = f01;
         this.f10 = f10;
         this.f11 = f11;
+        return this;
+    }
+    
+    /**
+     * Sets this matrix to the values of the given matrix, which may not be null.
+     * 
+     * @param matrix The matrix to copy the values from
+     * @return This matrix
+     */
+    public Matrix2f set(Matrix2f matrix) {
+        if(matrix == null)
+            throw new IllegalArgumentException("The matrix is null");
+        
+        return set(matrix.f00, matrix.f01,
+                   matrix.f10, matrix.f11);
+    }
+    
+    /**
+     * Sets this matrix to the identity matrix.
+     * 
+     * @return This matrix
+     */
+    public Matrix2f setIdentity() {
+        return set(1.0f, 0.0f,
+                   0.0f, 1.0f);
     }
     
     /**
@@ -54,10 +121,174 @@ public class Matrix2f {
      * @return This matrix as array
      */
     public float[] asArray() {
-        return new float[] {
-                f00, f01,
-                f10, f11
-        };
+        return asArray(new float[4]);
+    }
+    
+    /**
+     * Stores this matrix in the given array in row major order. The array may not be null and
+     * must have a length of at least 4.
+     * 
+     * @param dest The array to store the matrix fields in
+     * @return The destination array
+     */
+    public float[] asArray(float[] dest) {
+        if(dest == null)
+            throw new IllegalArgumentException("The destination array is null");
+        
+        if(dest.length < 4)
+            throw new IllegalArgumentException("The destination array must have a length of at least 4");
+        
+        dest[0] = f00;
+        dest[1] = f01;
+        dest[2] = f10;
+        dest[3] = f11;
+        return dest;
+    }
+    
+    /**
+     * Stores this matrix in row major order in the given float buffer, starting at its current
+     * position. The buffers position is not altered. The buffer may not be null.
+     * 
+     * @param buffer The buffer to store the matrix fields in
+     * @return The given buffer
+     */
+    public FloatBuffer get(FloatBuffer buffer) {
+        if(buffer == null)
+            throw new IllegalArgumentException("The buffer is null");
+        
+        return get(buffer, buffer.position(), false);
+    }
+    
+    /**
+     * Stores this matrix in the given float buffer, starting at the given absolute index. The
+     * fields are written either in column major order (as expected by OpenGL if the transpose flag
+     * is not set) or in row major order. The buffers position is not altered. The buffer may not
+     * be null and must have room for 4 floats after the index.
+     * 
+     * @param buffer The buffer to store the matrix fields in
+     * @param index The absolute index of the first float
+     * @param columnMajor If the matrix is stored in column major instead of row major order
+     * @return The given buffer
+     */
+    public FloatBuffer get(FloatBuffer buffer, int index, boolean columnMajor) {
+        if(buffer == null)
+            throw new IllegalArgumentException("The buffer is null");
+        
+        if(columnMajor) {
+            buffer.put(index, f00);
+            buffer.put(index + 1, f10);
+            buffer.put(index + 2, f01);
+            buffer.put(index + 3, f11);
+        } else {
+            buffer.put(index, f00);
+            buffer.put(index + 1, f01);
+            buffer.put(index + 2, f10);
+            buffer.put(index + 3, f11);
+        }
+        
+        return buffer;
+    }
+    
+    /**
+     * Stores this matrix in the given byte buffer, starting at the given absolute byte offset. The
+     * floats are written using the buffers byte order, either in column major or in row major
+     * order. The buffers position is not altered. The buffer may not be null and must have room
+     * for 16 bytes after the offset.
+     * 
+     * @param buffer The buffer to store the matrix fields in
+     * @param offset The absolute byte offset of the first float
+     * @param columnMajor If the matrix is stored in column major instead of row major order
+     * @return The given buffer
+     */
+    public ByteBuffer get(ByteBuffer buffer, int offset, boolean columnMajor) {
+        if(buffer == null)
+            throw new IllegalArgumentException("The buffer is null");
+        
+        if(columnMajor) {
+            buffer.putFloat(offset, f00);
+            buffer.putFloat(offset + 4, f10);
+            buffer.putFloat(offset + 8, f01);
+            buffer.putFloat(offset + 12, f11);
+        } else {
+            buffer.putFloat(offset, f00);
+            buffer.putFloat(offset + 4, f01);
+            buffer.putFloat(offset + 8, f10);
+            buffer.putFloat(offset + 12, f11);
+        }
+        
+        return buffer;
+    }
+    
+    /**
+     * Sets this matrix to the 4 floats in row major order at the current position of the given
+     * float buffer. The buffers position is not altered. The buffer may not be null.
+     * 
+     * @param buffer The buffer to read the matrix fields from
+     * @return This matrix
+     */
+    public Matrix2f set(FloatBuffer buffer) {
+        if(buffer == null)
+            throw new IllegalArgumentException("The buffer is null");
+        
+        return set(buffer, buffer.position(), false);
+    }
+    
+    /**
+     * Sets this matrix to the 4 floats starting at the given absolute index of the float buffer,
+     * which are read either in column major or in row major order. The buffers position is not
+     * altered. The buffer may not be null.
+     * 
+     * @param buffer The buffer to read the matrix fields from
+     * @param index The absolute index of the first float
+     * @param columnMajor If the matrix is stored in column major instead of row major order
+     * @return This matrix
+     */
+    public Matrix2f set(FloatBuffer buffer, int index, boolean columnMajor) {
+        if(buffer == null)
+            throw new IllegalArgumentException("The buffer is null");
+        
+        if(columnMajor) {
+            f00 = buffer.get(index);
+            f10 = buffer.get(index + 1);
+            f01 = buffer.get(index + 2);
+            f11 = buffer.get(index + 3);
+        } else {
+            f00 = buffer.get(index);
+            f01 = buffer.get(index + 1);
+            f10 = buffer.get(index + 2);
+            f11 = buffer.get(index + 3);
+        }
+        
+        return this;
+    }
+    
+    /**
+     * Sets this matrix to the 4 floats starting at the given absolute byte offset of the byte
+     * buffer, which are read using the buffers byte order either in column major or in row major
+     * order. The buffers position is not altered. The buffer may not be null.
+     * 
+     * @param buffer The buffer to read the matrix fields from
+     * @param offset The absolute byte offset of the first float
+     * @param columnMajor If the matrix is stored in column major instead of row major order
+     * @return This matrix
+     */
+    public Matrix2f set(ByteBuffer buffer, int offset, boolean columnMajor) {
+        if(buffer == null)
+            throw new IllegalArgumentException("The buffer is null");
+        
+        if(columnMajor) {
+            f00 = buffer.getFloat(offset);
+            f10 = buffer.getFloat(offset + 4);
+            f01 = buffer.getFloat(offset + 8);
+            f11 = buffer.getFloat(offset + 12);
+        } else {
+            f00 = buffer.getFloat(offset);
+            f01 = buffer.getFloat(offset + 4);
+            f10 = buffer.getFloat(offset + 8);
+            f11 = buffer.getFloat(offset + 12);
+        }
+        
+        return this;
     }
     
     /**
@@ -67,10 +298,22 @@ public class Matrix2f {
      * @return The result of this multiplication
      */
     public Vector2f mul(Vector2f vector) {
-        if(vector == null)
-            throw new IllegalArgumentException("The vector is null");
+        return mul(vector, new Vector2f());
+    }
+        
+    /**
+     * Multiplies a vector with this matrix and stores the result in dest, which may be the given
+     * vector itself. No argument may be null.
+     * 
+     * @param vector The vector to multiply
+     * @param dest The vector to store the result in
+     * @return The destination vector
+     */
+    public Vector2f mul(Vector2f vector, Vector2f dest) {
+        if(vector == null || dest == null)
+            throw new IllegalArgumentException("An argument is null");
         
-        return new Vector2f(
+        return dest.set(
                 vector.x * f00 + vector.y * f01,
                 vector.x * f10 + vector.y * f11);
     }
@@ -82,9 +325,34 @@ public class Matrix2f {
      * @return The result of this multiplication
      */
     public Matrix2f mul(Matrix2f matrix) {
-        return new Matrix2f(f00 * matrix.f00 + f01 * matrix.f10,
-                            f00 * matrix.f01 + f01 * matrix.f11,
-                            f10 * matrix.f00 + f11 * matrix.f10,
-                            f10 * matrix.f01 + f11 * matrix.f11);
+        return mul(matrix, new Matrix2f());
+    }
+    
+    /**
+     * Multiplies a matrix with this matrix and stores the result in dest, which may be this matrix
+     * or the given one. No argument may be null.
+     * 
+     * @param matrix The matrix to multiply
+     * @param dest The matrix to store the result in
+     * @return The destination matrix
+     */
+    public Matrix2f mul(Matrix2f matrix, Matrix2f dest) {
+        if(matrix == null || dest == null)
+            throw new IllegalArgumentException("An argument is null");
+        
+        return dest.set(f00 * matrix.f00 + f01 * matrix.f10,
+                        f00 * matrix.f01 + f01 * matrix.f11,
+                        f10 * matrix.f00 + f11 * matrix.f10,
+                        f10 * matrix.f01 + f11 * matrix.f11);
+    }
+    
+    /**
+     * Multiplies a matrix with this matrix. The result is stored in this matrix.
+     * 
+     * @param matrix The matrix to multiply
+     * @return This matrix
+     */
+    public Matrix2f mulLocal(Matrix2f matrix) {
+        return mul(matrix, this);
     }
 }
@@ -1,7 +1,12 @@
 package com.teacore.math;
 
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+
 /**
- * A representation of a 3x3 matrix with given commonly needed math functions.
+ * A representation of a 3x3 matrix with given commonly needed math functions. Operations are
+ * provided both as allocating methods and as methods storing their result in a given destination
+ * object, the latter allowing math code to run without allocating any objects.
  * 
  * @author ShietStone
  */
@@ -17,6 +22,13 @@ public class Matrix3f {
     public float f21;
     public float f22;
     
+    /**
+     * Creates this 3x3 matrix as identity matrix.
+     */
+    public Matrix3f() {
+        setIdentity();
+    }
+    
     /**
      * Creates this 3x3 matrix from the data array given. The arrays size must match 3x3
      * (total length 3) and it may not be null. These matrices are handled row major.
@@ -24,6 +36,45 @@ public class Matrix3f {
      * @param values The values of the matrix fields in row major order
      */
     public Matrix3f(float[] values) {
+        set(values);
+    }
+    
+    /**
+     * Creates this 3x3 matrix from the given arguments, where each argument is one matrix field. 
+     * The arguments are named and handled in row major order.
+     * 
+     * @param f00 Matrix field 0:0
+     * @param f01 Matrix field 0:1
+     * @param f02 Matrix field 0:2
+     * @param f10 Matrix field 1:0
+     * @param f11 Matrix field 1:1
+     * @param f12 Matrix field 1:2
+     * @param f20 Matrix field 2:0
+     * @param f21 Matrix field 2:1
+     * @param f22 Matrix field 2:2
+     */
+    public Matrix3f(float f00, float f01, float f02,
+                    float f10, float f11, float f12,
+                    float f20, float f21, float f22) {
+        this.f00 = f00;
+        this.f01 = f01;
+        this.f02 = f02;
+        this.f10 = f10;
+        this.f11 = f11;
+        this.f12 = f12;
+        this.f20 = f20;
+        this.f21 = f21;
+        this.f22 = f22;
+    }
+    
+    /**
+     * Sets this matrix to the values of the data array given. The arrays size must match 3x3
+     * (total length 9) and it may not be null. The array is handled row major.
+     * 
+     * @param values The values of the matrix fields in row major order
+     * @return This matrix
+     */
+    public Matrix3f set(float[] values) {
         if(values == null)
             throw new IllegalArgumentException("The value array is null");
         
@@ -39,11 +90,12 @@ public class Matrix3f {
         f20 = values[6];
         f21 = values[7];
         f22 = values[8];
+        return this;
     }
     
     /**
-     * Creates this 3x3 matrix from the given arguments, where each argument is one matrix field. 
-     * The arguments are named and handled in row major order.
+     * Sets this matrix to the given arguments, where each argument is one matrix field. The
+     * arguments are named and handled in row major order.
      * 
      * @param f00 Matrix field 0:0
      * @param f01 Matrix field 0:1
@@ -54,10 +106,11 @@ public class Matrix3f {
      * @param f20 Matrix field 2:0
      * @param f21 Matrix field 2:1
      * @param f22 Matrix field 2:2
+     * @return This matrix
      */
-    public Matrix3f(float f00, float f01, float f02,
-                    float f10, float f11, float f12,
-                    float f20, float f21, float f22) {
+    public Matrix3f set(float f00, float f01, float f02,
+                        float f10, float f11, float f12,
+                        float f20, float f21, float f22) {
         this.f00 = f00;
         this.f01 = f01;
         this.f02 = f02;
@@ -67,6 +120,33 @@ public class Matrix3f {
         this.f20 = f20;
         this.f21 = f21;
         this.f22 = f22;
+        return this;
+    }
+    
+    /**
+     * Sets this matrix to the values of the given matrix, which may not be null.
+     * 
+     * @param matrix The matrix to copy the values from
+     * @return This matrix
+     */
+    public Matrix3f set(Matrix3f matrix) {
+        if(matrix == null)
+            throw new IllegalArgumentException("The matrix is null");
+        
+        return set(matrix.f00, matrix.f01, matrix.f02,
+                   matrix.f10, matrix.f11, matrix.f12,
+                   matrix.f20, matrix.f21, matrix.f22);
+    }
+    
+    /**
+     * Sets this matrix to the identity matrix.
+     * 
+     * @return This matrix
+     */
+    public Matrix3f setIdentity() {
+        return set(1.0f, 0.0f, 0.0f,
+                   0.0f, 1.0f, 0.0f,
+                   0.0f, 0.0f, 1.0f);
     }
     
     /**
@@ -75,11 +155,219 @@ public class Matrix3f {
      * @return This matrix as array
      */
     public float[] asArray() {
-        return new float[] {
-                f00, f01, f02,
-                f10, f11, f12,
-                f20, f21, f22
-        };
+        return asArray(new float[9]);
+    }
+    
+    /**
+     * Stores this matrix in the given array in row major order. The array may not be null and
+     * must have a length of at least 9.
+     * 
+     * @param dest The array to store the matrix fields in
+     * @return The destination array
+     */
+    public float[] asArray(float[] dest) {
+        if(dest == null)
+            throw new IllegalArgumentException("The destination array is null");
+        
+        if(dest.length < 9)
+            throw new IllegalArgumentException("The destination array must have a length of at least 9");
+        
+        dest[0] = f00;
+        dest[1] = f01;
+        dest[2] = f02;
+        dest[3] = f10;
+        dest[4] = f11;
+        dest[5] = f12;
+        dest[6] = f20;
+        dest[7] = f21;
+        dest[8] = f22;
+        return dest;
+    }
+    
+    /**
+     * Stores this matrix in row major order in the given float buffer, starting at its current
+     * position. The buffers position is not altered. The buffer may not be null.
+     * 
+     * @param buffer The buffer to store the matrix fields in
+     * @return The given buffer
+     */
+    public FloatBuffer get(FloatBuffer buffer) {
+        if(buffer == null)
+            throw new IllegalArgumentException("The buffer is null");
+        
+        return get(buffer, buffer.position(), false);
+    }
+    
+    /**
+     * Stores this matrix in the given float buffer, starting at the given absolute index. The
+     * fields are written either in column major order (as expected by OpenGL if the transpose flag
+     * is not set) or in row major order. The buffers position is not altered. The buffer may not
+     * be null and must have room for 9 floats after the index.
+     * 
+     * @param buffer The buffer to store the matrix fields in
+     * @param index The absolute index of the first float
+     * @param columnMajor If the matrix is stored in column major instead of row major order
+     * @return The given buffer
+     */
+    public FloatBuffer get(FloatBuffer buffer, int index, boolean columnMajor) {
+        if(buffer == null)
+            throw new IllegalArgumentException("The buffer is null");
+        
+        if(columnMajor) {
+            buffer.put(index, f00);
+            buffer.put(index + 1, f10);
+            buffer.put(index + 2, f20);
+            buffer.put(index + 3, f01);
+            buffer.put(index + 4, f11);
+            buffer.put(index + 5, f21);
+            buffer.put(index + 6, f02);
+            buffer.put(index + 7, f12);
+            buffer.put(index + 8, f22);
+        } else {
+            buffer.put(index, f00);
+            buffer.put(index + 1, f01);
+            buffer.put(index + 2, f02);
+            buffer.put(index + 3, f10);
+            buffer.put(index + 4, f11);
+            buffer.put(index + 5, f12);
+            buffer.put(index + 6, f20);
+            buffer.put(index + 7, f21);
+            buffer.put(index + 8, f22);
+        }
+        
+        return buffer;
+    }
+    
+    /**
+     * Stores this matrix in the given byte buffer, starting at the given absolute byte offset. The
+     * floats are written using the buffers byte order, either in column major or in row major
+     * order. The buffers position is not altered. The buffer may not be null and must have room
+     * for 36 bytes after the offset.
+     * 
+     * @param buffer The buffer to store the matrix fields in
+     * @param offset The absolute byte offset of the first float
+     * @param columnMajor If the matrix is stored in column major instead of row major order
+     * @return The given buffer
+     */
+    public ByteBuffer get(ByteBuffer buffer, int offset, boolean columnMajor) {
+        if(buffer == null)
+            throw new IllegalArgumentException("The buffer is null");
+        
+        if(columnMajor) {
+            buffer.putFloat(offset, f00);
+            buffer.putFloat(offset + 4, f10);
+            buffer.putFloat(offset + 8, f20);
+            buffer.putFloat(offset + 12, f01);
+            buffer.putFloat(offset + 16, f11);
+            buffer.putFloat(offset + 20, f21);
+            buffer.putFloat(offset + 24, f02);
+            buffer.putFloat(offset + 28, f12);
+            buffer.putFloat(offset + 32, f22);
+        } else {
+            buffer.putFloat(offset, f00);
+            buffer.putFloat(offset + 4, f01);
+            buffer.putFloat(offset + 8, f02);
+            buffer.putFloat(offset + 12, f10);
+            buffer.putFloat(offset + 16, f11);
+            buffer.putFloat(offset + 20, f12);
+            buffer.putFloat(offset + 24, f20);
+            buffer.putFloat(offset + 28, f21);
+            buffer.putFloat(offset + 32, f22);
+        }
+        
+        return buffer;
+    }
+    
+    /**
+     * Sets this matrix to the 9 floats in row major order at the current position of the given
+     * float buffer. The buffers position is not altered. The buffer may not be null.
+     * 
+     * @param buffer The buffer to read the matrix fields from
+     * @return This matrix
+     */
+    public Matrix3f set(FloatBuffer buffer) {
+        if(buffer == null)
+            throw new IllegalArgumentException("The buffer is null");
+        
+        return set(buffer, buffer.position(), false);
+    }
+    
+    /**
+     * Sets this matrix to the 9 floats starting at the given absolute index of the float buffer,
+     * which are read either in column major or in row major order. The buffers position is not
+     * altered. The buffer may not be null.
+     * 
+     * @param buffer The buffer to read the matrix fields from
+     * @param index The absolute index of the first float
+     * @param columnMajor If the matrix is stored in column major instead of row major order
+     * @return This matrix
+     */
+    public Matrix3f set(FloatBuffer buffer, int index, boolean columnMajor) {
+        if(buffer == null)
+            throw new IllegalArgumentException("The buffer is null");
+        
+        if(columnMajor) {
+            f00 = buffer.get(index);
+            f10 = buffer.get(index + 1);
+            f20 = buffer.get(index + 2);
+            f01 = buffer.get(index + 3);
+            f11 = buffer.get(index + 4);
+            f21 = buffer.get(index + 5);
+            f02 = buffer.get(index + 6);
+            f12 = buffer.get(index + 7);
+            f22 = buffer.get(index + 8);
+        } else {
+            f00 = buffer.get(index);
+            f01 = buffer.get(index + 1);
+            f02 = buffer.get(index + 2);
+            f10 = buffer.get(index + 3);
+            f11 = buffer.get(index + 4);
+            f12 = buffer.get(index + 5);
+            f20 = buffer.get(index + 6);
+            f21 = buffer.get(index + 7);
+            f22 = buffer.get(index + 8);
+        }
+        
+        return this;
+    }
+    
+    /**
+     * Sets this matrix to the 9 floats starting at the given absolute byte offset of the byte
+     * buffer, which are read using the buffers byte order either in column major or in row major
+     * order. The buffers position is not altered. The buffer may not be null.
+     * 
+     * @param buffer The buffer to read the matrix fields from
+     * @param offset The absolute byte offset of the first float
+     * @param columnMajor If the matrix is stored in column major instead of row major order
+     * @return This matrix
+     */
+    public Matrix3f set(ByteBuffer buffer, int offset, boolean columnMajor) {
+        if(buffer == null)
+            throw new IllegalArgumentException("The buffer is null");
+        
+        if(columnMajor) {
+            f00 = buffer.getFloat(offset);
+            f10 = buffer.getFloat(offset + 4);
+            f20 = buffer.getFloat(offset + 8);
+            f01 = buffer.getFloat(offset + 12);
+            f11 = buffer.getFloat(offset + 16);
+            f21 = buffer.getFloat(offset + 20);
+            f02 = buffer.getFloat(offset + 24);
+            f12 = buffer.getFloat(offset + 28);
+            f22 = buffer.getFloat(offset + 32);
+        } else {
+            f00 = buffer.getFloat(offset);
+            f01 = buffer.getFloat(offset + 4);
+            f02 = buffer.getFloat(offset + 8);
+            f10 = buffer.getFloat(offset + 12);
+            f11 = buffer.getFloat(offset + 16);
+            f12 = buffer.getFloat(offset + 20);
+            f20 = buffer.getFloat(offset + 24);
+            f21 = buffer.getFloat(offset + 28);
+            f22 = buffer.getFloat(offset + 32);
+        }
+        
+        return this;
     }
     
     /**
@@ -89,10 +377,22 @@ public class Matrix3f {
      * @return The result of this multiplication
      */
     public Vector3f mul(Vector3f vector) {
-        if(vector == null)
-            throw new IllegalArgumentException("The vector is null");
+        return mul(vector, new Vector3f());
+    }
+        
+    /**
+     * Multiplies a vector with this matrix and stores the result in dest, which may be the given
+     * vector itself. No argument may be null.
+     * 
+     * @param vector The vector to multiply
+     * @param dest The vector to store the result in
+     * @return The destination vector
+     */
+    public Vector3f mul(Vector3f vector, Vector3f dest) {
+        if(vector == null || dest == null)
+            throw new IllegalArgumentException("An argument is null");
         
-        return new Vector3f(
+        return dest.set(
                 vector.x * f00 + vector.y * f01 + vector.z * f02,
                 vector.x * f10 + vector.y * f11 + vector.z * f12,
                 vector.x * f20 + vector.y * f21 + vector.z * f22);
@@ -105,14 +405,210 @@ public class Matrix3f {
      * @return The result of this multiplication
      */
     public Matrix3f mul(Matrix3f matrix) {
-        return new Matrix3f(f00 * matrix.f00 + f01 * matrix.f10 + f02 * matrix.f20,
-                            f00 * matrix.f01 + f01 * matrix.f11 + f02 * matrix.f21,
-                            f00 * matrix.f02 + f01 * matrix.f12 + f02 * matrix.f22,
-                            f10 * matrix.f00 + f11 * matrix.f10 + f12 * matrix.f20,
-                            f10 * matrix.f01 + f11 * matrix.f11 + f12 * matrix.f21,
-                            f10 * matrix.f02 + f11 * matrix.f12 + f12 * matrix.f22,
-                            f20 * matrix.f00 + f21 * matrix.f10 + f22 * matrix.f20,
-                            f20 * matrix.f01 + f21 * matrix.f11 + f22 * matrix.f21,
-                            f20 * matrix.f02 + f21 * matrix.f12 + f22 * matrix.f22);
+        return mul(matrix, new Matrix3f());
+    }
+    
+    /**
+     * Multiplies a matrix with this matrix and stores the result in dest, which may be this matrix
+     * or the given one. No argument may be null.
+     * 
+     * @param matrix The matrix to multiply
+     * @param dest The matrix to store the result in
+     * @return The destination matrix
+     */
+    public Matrix3f mul(Matrix3f matrix, Matrix3f dest) {
+        if(matrix == null || dest == null)
+            throw new IllegalArgumentException("An argument is null");
+        
+        return dest.set(f00 * matrix.f00 + f01 * matrix.f10 + f02 * matrix.f20,
+                        f00 * matrix.f01 + f01 * matrix.f11 + f02 * matrix.f21,
+                        f00 * matrix.f02 + f01 * matrix.f12 + f02 * matrix.f22,
+                        f10 * matrix.f00 + f11 * matrix.f10 + f12 * matrix.f20,
+                        f10 * matrix.f01 + f11 * matrix.f11 + f12 * matrix.f21,
+                        f10 * matrix.f02 + f11 * matrix.f12 + f12 * matrix.f22,
+                        f20 * matrix.f00 + f21 * matrix.f10 + f22 * matrix.f20,
+                        f20 * matrix.f01 + f21 * matrix.f11 + f22 * matrix.f21,
+                        f20 * matrix.f02 + f21 * matrix.f12 + f22 * matrix.f22);
+    }
+    
+    /**
+     * Multiplies a matrix with this matrix. The result is stored in this matrix.
+     * 
+     * @param matrix The matrix to multiply
+     * @return This matrix
+     */
+    public Matrix3f mulLocal(Matrix3f matrix) {
+        return mul(matrix, this);
+    }
+    
+    /**
+     * Calculates the determinant of this matrix.
+     * 
+     * @return The determinant
+     */
+    public float determinant() {
+        return f00 * (f11 * f22 - f12 * f21)
+             + f01 * (f12 * f20 - f10 * f22)
+             + f02 * (f10 * f21 - f11 * f20);
+    }
+    
+    /**
+     * Returns the transpose of this matrix. This object itself is not altered.
+     * 
+     * @return The transposed matrix
+     */
+    public Matrix3f transpose() {
+        return transpose(new Matrix3f());
+    }
+    
+    /**
+     * Transposes this matrix and stores the result in dest, which may be this matrix. The
+     * destination may not be null.
+     * 
+     * @param dest The matrix to store the result in
+     * @return The destination matrix
+     */
+    public Matrix3f transpose(Matrix3f dest) {
+        if(dest == null)
+            throw new IllegalArgumentException("The destination matrix is null");
+        
+        return dest.set(f00, f10, f20,
+                        f01, f11, f21,
+                        f02, f12, f22);
+    }
+    
+    /**
+     * Transposes this matrix. The result is stored in this matrix.
+     * 
+     * @return This matrix
+     */
+    public Matrix3f transposeLocal() {
+        return transpose(this);
+    }
+    
+    /**
+     * Returns the inverse of this matrix. This object itself is not altered. If this matrix is
+     * not invertible (its determinant is zero) an IllegalStateException is thrown.
+     * 
+     * @return The inverted matrix
+     */
+    public Matrix3f invert() {
+        return invert(new Matrix3f());
+    }
+    
+    /**
+     * Inverts this matrix using its cofactors and stores the result in dest, which may be this
+     * matrix. The destination may not be null. If this matrix is not invertible (its determinant
+     * is zero) an IllegalStateException is thrown and the destination is not altered.
+     * 
+     * @param dest The matrix to store the result in
+     * @return The destination matrix
+     */
+    public Matrix3f invert(Matrix3f dest) {
+        if(dest == null)
+            throw new IllegalArgumentException("The destination matrix is null");
+        
+        float c00 = f11 * f22 - f12 * f21;
+        float c01 = f12 * f20 - f10 * f22;
+        float c02 = f10 * f21 - f11 * f20;
+        float det = f00 * c00 + f01 * c01 + f02 * c02;
+        
+        if(det == 0.0f)
+            throw new IllegalStateException("The matrix is not invertible");
+        
+        float invDet = 1.0f / det;
+        
+        return dest.set(c00 * invDet, (f02 * f21 - f01 * f22) * invDet, (f01 * f12 - f02 * f11) * invDet,
+                        c01 * invDet, (f00 * f22 - f02 * f20) * invDet, (f02 * f10 - f00 * f12) * invDet,
+                        c02 * invDet, (f01 * f20 - f00 * f21) * invDet, (f00 * f11 - f01 * f10) * invDet);
+    }
+    
+    /**
+     * Inverts this matrix. The result is stored in this matrix. If this matrix is not invertible
+     * an IllegalStateException is thrown.
+     * 
+     * @return This matrix
+     */
+    public Matrix3f invertLocal() {
+        return invert(this);
+    }
+    
+    /**
+     * Returns the normal matrix of this matrix, which is the transpose of its inverse. This object
+     * itself is not altered. If this matrix is not invertible an IllegalStateException is thrown.
+     * 
+     * @return The normal matrix
+     */
+    public Matrix3f normalMatrix() {
+        return normalMatrix(new Matrix3f());
+    }
+    
+    /**
+     * Calculates the normal matrix of this matrix, which is the transpose of its inverse, and
+     * stores it in dest, which may be this matrix. Normals transformed by it stay perpendicular to
+     * surfaces transformed by this matrix, even if it scales non uniformly. It is calculated
+     * directly as cofactor matrix divided by the determinant, without inverting and transposing
+     * separately. The destination may not be null. If this matrix is not invertible (its
+     * determinant is zero) an IllegalStateException is thrown and the destination is not altered.
+     * 
+     * @param dest The matrix to store the result in
+     * @return The destination matrix
+     */
+    public Matrix3f normalMatrix(Matrix3f dest) {
+        if(dest == null)
+            throw new IllegalArgumentException("The destination matrix is null");
+        
+        return normalMatrix(f00, f01, f02, f10, f11, f12, f20, f21, f22, dest);
+    }
+    
+    /**
+     * Calculates the normal matrix of this matrix under the assumption that it is a rotation
+     * multiplied with a uniform scale, and stores it in dest, which may be this matrix. For those
+     * the normal matrix is the matrix itself divided by the squared scale, so no cofactors are
+     * needed. For other matrices the result is wrong; use normalMatrix(Matrix3f) for those. The
+     * destination may not be null. If the scale is zero an IllegalStateException is thrown and
+     * the destination is not altered.
+     * 
+     * @param dest The matrix to store the result in
+     * @return The destination matrix
+     */
+    public Matrix3f normalMatrixUniformScale(Matrix3f dest) {
+        if(dest == null)
+            throw new IllegalArgumentException("The destination matrix is null");
+        
+        return normalMatrixUniformScale(f00, f01, f02, f10, f11, f12, f20, f21, f22, dest);
+    }
+    
+    static Matrix3f normalMatrix(float f00, float f01, float f02,
+                                 float f10, float f11, float f12,
+                                 float f20, float f21, float f22, Matrix3f dest) {
+        float c00 = f11 * f22 - f12 * f21;
+        float c01 = f12 * f20 - f10 * f22;
+        float c02 = f10 * f21 - f11 * f20;
+        float det = f00 * c00 + f01 * c01 + f02 * c02;
+        
+        if(det == 0.0f)
+            throw new IllegalStateException("The matrix is not invertible");
+        
+        float invDet = 1.0f / det;
+        
+        return dest.set(c00 * invDet, c01 * invDet, c02 * invDet,
+                        (f02 * f21 - f01 * f22) * invDet, (f00 * f22 - f02 * f20) * invDet, (f01 * f20 - f00 * f21) * invDet,
+                        (f01 * f12 - f02 * f11) * invDet, (f02 * f10 - f00 * f12) * invDet, (f00 * f11 - f01 * f10) * invDet);
+    }
+    
+    static Matrix3f normalMatrixUniformScale(float f00, float f01, float f02,
+                                             float f10, float f11, float f12,
+                                             float f20, float f21, float f22, Matrix3f dest) {
+        float scaleSquared = f00 * f00 + f10 * f10 + f20 * f20;
+        
+        if(scaleSquared == 0.0f)
+            throw new IllegalStateException("The matrix is not invertible");
+        
+        float invScale = 1.0f / scaleSquared;
+        
+        return dest.set(f00 * invScale, f01 * invScale, f02 * invScale,
+                        f10 * invScale, f11 * invScale, f12 * invScale,
+                        f20 * invScale, f21 * invScale, f22 * invScale);
     }
 }
@@ -1,7 +1,12 @@
 package com.teacore.math;
 
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+
 /**
- * A representation of a 4x4 matrix with given commonly needed math functions.
+ * A representation of a 4x4 matrix with given commonly needed math functions. Operations are
+ * provided both as allocating methods and as methods storing their result in a given destination
+ * object, the latter allowing math code to run without allocating any objects.
  * 
  * @author ShietStone
  */
@@ -24,6 +29,13 @@ public class Matrix4f {
     public float f32;
     public float f33;
     
+    /**
+     * Creates this 4x4 matrix as identity matrix.
+     */
+    public Matrix4f() {
+        setIdentity();
+    }
+    
     /**
      * Creates this 4x4 matrix from the data array given. The arrays size must match 4x4
      * (total length 16) and it may not be null. These matrices are handled row major.
@@ -31,6 +43,60 @@ public class Matrix4f {
      * @param values The values of the matrix fields in row major order
      */
     public Matrix4f(float[] values) {
+        set(values);
+    }
+    
+    /**
+     * Creates this 4x4 matrix from the given arguments, where each argument is one matrix field. 
+     * The arguments are named and handled in row major order.
+     * 
+     * @param f00 Matrix field 0:0
+     * @param f01 Matrix field 0:1
+     * @param f02 Matrix field 0:2
+     * @param f03 Matrix field 0:3
+     * @param f10 Matrix field 1:0
+     * @param f11 Matrix field 1:1
+     * @param f12 Matrix field 1:2
+     * @param f13 Matrix field 1:3
+     * @param f20 Matrix field 2:0
+     * @param f21 Matrix field 2:1
+     * @param f22 Matrix field 2:2
+     * @param f23 Matrix field 2:3
+     * @param f30 Matrix field 3:0
+     * @param f31 Matrix field 3:1
+     * @param f32 Matrix field 3:2
+     * @param f33 Matrix field 3:3
+     */
+    public Matrix4f(float f00, float f01, float f02, float f03,
+                    float f10, float f11, float f12, float f13,
+                    float f20, float f21, float f22, float f23,
+                    float f30, float f31, float f32, float f33) {
+        this.f00 = f00;
+        this.f01 = f01;
+        this.f02 = f02;
+        this.f03 = f03;
+        this.f10 = f10;
+        this.f11 = f11;
+        this.f12 = f12;
+        this.f13 = f13;
+        this.f20 = f20;
+        this.f21 = f21;
+        this.f22 = f22;
+        this.f23 = f23;
+        this.f30 = f30;
+        this.f31 = f31;
+        this.f32 = f32;
+        this.f33 = f33;
+    }
+    
+    /**
+     * Sets this matrix to the values of the data array given. The arrays size must match 4x4
+     * (total length 16) and it may not be null. The array is handled row major.
+     * 
+     * @param values The values of the matrix fields in row major order
+     * @return This matrix
+     */
+    public Matrix4f set(float[] values) {
         if(values == null)
             throw new IllegalArgumentException("The value array is null");
         
@@ -53,11 +119,12 @@ public class Matrix4f {
         f31 = values[13];
         f32 = values[14];
         f33 = values[15];
+        return this;
     }
     
     /**
-     * Creates this 4x4 matrix from the given arguments, where each argument is one matrix field. 
-     * The arguments are named and handled in row major order.
+     * Sets this matrix to the given arguments, where each argument is one matrix field. The
+     * arguments are named and handled in row major order.
      * 
      * @param f00 Matrix field 0:0
      * @param f01 Matrix field 0:1
@@ -75,11 +142,12 @@ public class Matrix4f {
      * @param f31 Matrix field 3:1
      * @param f32 Matrix field 3:2
      * @param f33 Matrix field 3:3
+     * @return This matrix
      */
-    public Matrix4f(float f00, float f01, float f02, float f03,
-                    float f10, float f11, float f12, float f13,
-                    float f20, float f21, float f22, float f23,
-                    float f30, float f31, float f32, float f33) {
+    public Matrix4f set(float f00, float f01, float f02, float f03,
+                        float f10, float f11, float f12, float f13,
+                        float f20, float f21, float f22, float f23,
+                        float f30, float f31, float f32, float f33) {
         this.f00 = f00;
         this.f01 = f01;
         this.f02 = f02;
@@ -96,6 +164,49 @@ public class Matrix4f {
         this.f31 = f31;
         this.f32 = f32;
         this.f33 = f33;
+        return this;
+    }
+    
+    /**
+     * Sets this matrix to the values of the given matrix, which may not be null.
+     * 
+     * @param matrix The matrix to copy the values from
+     * @return This matrix
+     */
+    public Matrix4f set(Matrix4f matrix) {
+        if(matrix == null)
+            throw new IllegalArgumentException("The matrix is null");
+        
+        return set(matrix.f00, matrix.f01, matrix.f02, matrix.f03,
+                   matrix.f10, matrix.f11, matrix.f12, matrix.f13,
+                   matrix.f20, matrix.f21, matrix.f22, matrix.f23,
+                   matrix.f30, matrix.f31, matrix.f32, matrix.f33);
+    }
+    
+    /**
+     * Sets this matrix to the values of the given affine matrix, with the last row set to (0, 0,
+     * 0, 1). The matrix may not be null.
+     * 
+     * @param matrix The matrix to copy the values from
+     * @return This matrix
+     */
+    public Matrix4f set(Matrix4x3f matrix) {
+        if(matrix == null)
+            throw new IllegalArgumentException("The matrix is null");
+        
+        return matrix.toMatrix4f(this);
+    }
+    
+    /**
+     * Sets this matrix to the identity matrix.
+     * 
+     * @return This matrix
+     */
+    public Matrix4f setIdentity() {
+        return set(1.0f, 0.0f, 0.0f, 0.0f,
+                   0.0f, 1.0f, 0.0f, 0.0f,
+                   0.0f, 0.0f, 1.0f, 0.0f,
+                   0.0f, 0.0f, 0.0f, 1.0f);
     }
     
     /**
@@ -104,12 +215,282 @@ public class Matrix4f {
      * @return This matrix as array
      */
     public float[] asArray() {
-        return new float[] {
-                f00, f01, f02, f03,
-                f10, f11, f12, f13,
-                f20, f21, f22, f23,
-                f30, f31, f32, f33
-        };
+        return asArray(new float[16]);
+    }
+    
+    /**
+     * Stores this matrix in the given array in row major order. The array may not be null and
+     * must have a length of at least 16.
+     * 
+     * @param dest The array to store the matrix fields in
+     * @return The destination array
+     */
+    public float[] asArray(float[] dest) {
+        if(dest == null)
+            throw new IllegalArgumentException("The destination array is null");
+        
+        if(dest.length < 16)
+            throw new IllegalArgumentException("The destination array must have a length of at least 16");
+        
+        dest[0] = f00;
+        dest[1] = f01;
+        dest[2] = f02;
+        dest[3] = f03;
+        dest[4] = f10;
+        dest[5] = f11;
+        dest[6] = f12;
+        dest[7] = f13;
+        dest[8] = f20;
+        dest[9] = f21;
+        dest[10] = f22;
+        dest[11] = f23;
+        dest[12] = f30;
+        dest[13] = f31;
+        dest[14] = f32;
+        dest[15] = f33;
+        return dest;
+    }
+    
+    /**
+     * Stores this matrix in row major order in the given float buffer, starting at its current
+     * position. The buffers position is not altered. The buffer may not be null.
+     * 
+     * @param buffer The buffer to store the matrix fields in
+     * @return The given buffer
+     */
+    public FloatBuffer get(FloatBuffer buffer) {
+        if(buffer == null)
+            throw new IllegalArgumentException("The buffer is null");
+        
+        return get(buffer, buffer.position(), false);
+    }
+    
+    /**
+     * Stores this matrix in the given float buffer, starting at the given absolute index. The
+     * fields are written either in column major order (as expected by OpenGL if the transpose flag
+     * is not set) or in row major order. The buffers position is not altered. The buffer may not
+     * be null and must have room for 16 floats after the index.
+     * 
+     * @param buffer The buffer to store the matrix fields in
+     * @param index The absolute index of the first float
+     * @param columnMajor If the matrix is stored in column major instead of row major order
+     * @return The given buffer
+     */
+    public FloatBuffer get(FloatBuffer buffer, int index, boolean columnMajor) {
+        if(buffer == null)
+            throw new IllegalArgumentException("The buffer is null");
+        
+        if(columnMajor) {
+            buffer.put(index, f00);
+            buffer.put(index + 1, f10);
+            buffer.put(index + 2, f20);
+            buffer.put(index + 3, f30);
+            buffer.put(index + 4, f01);
+            buffer.put(index + 5, f11);
+            buffer.put(index + 6, f21);
+            buffer.put(index + 7, f31);
+            buffer.put(index + 8, f02);
+            buffer.put(index + 9, f12);
+            buffer.put(index + 10, f22);
+            buffer.put(index + 11, f32);
+            buffer.put(index + 12, f03);
+            buffer.put(index + 13, f13);
+            buffer.put(index + 14, f23);
+            buffer.put(index + 15, f33);
+        } else {
+            buffer.put(index, f00);
+            buffer.put(index + 1, f01);
+            buffer.put(index + 2, f02);
+            buffer.put(index + 3, f03);
+            buffer.put(index + 4, f10);
+            buffer.put(index + 5, f11);
+            buffer.put(index + 6, f12);
+            buffer.put(index + 7, f13);
+            buffer.put(index + 8, f20);
+            buffer.put(index + 9, f21);
+            buffer.put(index + 10, f22);
+            buffer.put(index + 11, f23);
+            buffer.put(index + 12, f30);
+            buffer.put(index + 13, f31);
+            buffer.put(index + 14, f32);
+            buffer.put(index + 15, f33);
+        }
+        
+        return buffer;
+    }
+    
+    /**
+     * Stores this matrix in the given byte buffer, starting at the given absolute byte offset. The
+     * floats are written using the buffers byte order, either in column major or in row major
+     * order. The buffers position is not altered. The buffer may not be null and must have room
+     * for 64 bytes after the offset.
+     * 
+     * @param buffer The buffer to store the matrix fields in
+     * @param offset The absolute byte offset of the first float
+     * @param columnMajor If the matrix is stored in column major instead of row major order
+     * @return The given buffer
+     */
+    public ByteBuffer get(ByteBuffer buffer, int offset, boolean columnMajor) {
+        if(buffer == null)
+            throw new IllegalArgumentException("The buffer is null");
+        
+        if(columnMajor) {
+            buffer.putFloat(offset, f00);
+            buffer.putFloat(offset + 4, f10);
+            buffer.putFloat(offset + 8, f20);
+            buffer.putFloat(offset + 12, f30);
+            buffer.putFloat(offset + 16, f01);
+            buffer.putFloat(offset + 20, f11);
+            buffer.putFloat(offset + 24, f21);
+            buffer.putFloat(offset + 28, f31);
+            buffer.putFloat(offset + 32, f02);
+            buffer.putFloat(offset + 36, f12);
+            buffer.putFloat(offset + 40, f22);
+            buffer.putFloat(offset + 44, f32);
+            buffer.putFloat(offset + 48, f03);
+            buffer.putFloat(offset + 52, f13);
+            buffer.putFloat(offset + 56, f23);
+            buffer.putFloat(offset + 60, f33);
+        } else {
+            buffer.putFloat(offset, f00);
+            buffer.putFloat(offset + 4, f01);
+            buffer.putFloat(offset + 8, f02);
+            buffer.putFloat(offset + 12, f03);
+            buffer.putFloat(offset + 16, f10);
+            buffer.putFloat(offset + 20, f11);
+            buffer.putFloat(offset + 24, f12);
+            buffer.putFloat(offset + 28, f13);
+            buffer.putFloat(offset + 32, f20);
+            buffer.putFloat(offset + 36, f21);
+            buffer.putFloat(offset + 40, f22);
+            buffer.putFloat(offset + 44, f23);
+            buffer.putFloat(offset + 48, f30);
+            buffer.putFloat(offset + 52, f31);
+            buffer.putFloat(offset + 56, f32);
+            buffer.putFloat(offset + 60, f33);
+        }
+        
+        return buffer;
+    }
+    
+    /**
+     * Sets this matrix to the 16 floats in row major order at the current position of the given
+     * float buffer. The buffers position is not altered. The buffer may not be null.
+     * 
+     * @param buffer The buffer to read the matrix fields from
+     * @return This matrix
+     */
+    public Matrix4f set(FloatBuffer buffer) {
+        if(buffer == null)
+            throw new IllegalArgumentException("The buffer is null");
+        
+        return set(buffer, buffer.position(), false);
+    }
+    
+    /**
+     * Sets this matrix to the 16 floats starting at the given absolute index of the float buffer,
+     * which are read either in column major or in row major order. The buffers position is not
+     * altered. The buffer may not be null.
+     * 
+     * @param buffer The buffer to read the matrix fields from
+     * @param index The absolute index of the first float
+     * @param columnMajor If the matrix is stored in column major instead of row major order
+     * @return This matrix
+     */
+    public Matrix4f set(FloatBuffer buffer, int index, boolean columnMajor) {
+        if(buffer == null)
+            throw new IllegalArgumentException("The buffer is null");
+        
+        if(columnMajor) {
+            f00 = buffer.get(index);
+            f10 = buffer.get(index + 1);
+            f20 = buffer.get(index + 2);
+            f30 = buffer.get(index + 3);
+            f01 = buffer.get(index + 4);
+            f11 = buffer.get(index + 5);
+            f21 = buffer.get(index + 6);
+            f31 = buffer.get(index + 7);
+            f02 = buffer.get(index + 8);
+            f12 = buffer.get(index + 9);
+            f22 = buffer.get(index + 10);
+            f32 = buffer.get(index + 11);
+            f03 = buffer.get(index + 12);
+            f13 = buffer.get(index + 13);
+            f23 = buffer.get(index + 14);
+            f33 = buffer.get(index + 15);
+        } else {
+            f00 = buffer.get(index);
+            f01 = buffer.get(index + 1);
+            f02 = buffer.get(index + 2);
+            f03 = buffer.get(index + 3);
+            f10 = buffer.get(index + 4);
+            f11 = buffer.get(index + 5);
+            f12 = buffer.get(index + 6);
+            f13 = buffer.get(index + 7);
+            f20 = buffer.get(index + 8);
+            f21 = buffer.get(index + 9);
+            f22 = buffer.get(index + 10);
+            f23 = buffer.get(index + 11);
+            f30 = buffer.get(index + 12);
+            f31 = buffer.get(index + 13);
+            f32 = buffer.get(index + 14);
+            f33 = buffer.get(index + 15);
+        }
+        
+        return this;
+    }
+    
+    /**
+     * Sets this matrix to the 16 floats starting at the given absolute byte offset of the byte
+     * buffer, which are read using the buffers byte order either in column major or in row major
+     * order. The buffers position is not altered. The buffer may not be null.
+     * 
+     * @param buffer The buffer to read the matrix fields from
+     * @param offset The absolute byte offset of the first float
+     * @param columnMajor If the matrix is stored in column major instead of row major order
+     * @return This matrix
+     */
+    public Matrix4f set(ByteBuffer buffer, int offset, boolean columnMajor) {
+        if(buffer == null)
+            throw new IllegalArgumentException("The buffer is null");
+        
+        if(columnMajor) {
+            f00 = buffer.getFloat(offset);
+            f10 = buffer.getFloat(offset + 4);
+            f20 = buffer.getFloat(offset + 8);
+            f30 = buffer.getFloat(offset + 12);
+            f01 = buffer.getFloat(offset + 16);
+            f11 = buffer.getFloat(offset + 20);
+            f21 = buffer.getFloat(offset + 24);
+            f31 = buffer.getFloat(offset + 28);
+            f02 = buffer.getFloat(offset + 32);
+            f12 = buffer.getFloat(offset + 36);
+            f22 = buffer.getFloat(offset + 40);
+            f32 = buffer.getFloat(offset + 44);
+            f03 = buffer.getFloat(offset + 48);
+            f13 = buffer.getFloat(offset + 52);
+            f23 = buffer.getFloat(offset + 56);
+            f33 = buffer.getFloat(offset + 60);
+        } else {
+            f00 = buffer.getFloat(offset);
+            f01 = buffer.getFloat(offset + 4);
+            f02 = buffer.getFloat(offset + 8);
+            f03 = buffer.getFloat(offset + 12);
+            f10 = buffer.getFloat(offset + 16);
+            f11 = buffer.getFloat(offset + 20);
+            f12 = buffer.getFloat(offset + 24);
+            f13 = buffer.getFloat(offset + 28);
+            f20 = buffer.getFloat(offset + 32);
+            f21 = buffer.getFloat(offset + 36);
+            f22 = buffer.getFloat(offset + 40);
+            f23 = buffer.getFloat(offset + 44);
+            f30 = buffer.getFloat(offset + 48);
+            f31 = buffer.getFloat(offset + 52);
+            f32 = buffer.getFloat(offset + 56);
+            f33 = buffer.getFloat(offset + 60);
+        }
+        
+        return this;
     }
     
     /**
@@ -119,10 +500,22 @@ public class Matrix4f {
      * @return The result of this multiplication
      */
     public Vector4f mul(Vector4f vector) {
-        if(vector == null)
-            throw new IllegalArgumentException("The vector is null");
+        return mul(vector, new Vector4f());
+    }
         
-        return new Vector4f(
+    /**
+     * Multiplies a vector with this matrix and stores the result in dest, which may be the given
+     * vector itself. No argument may be null.
+     * 
+     * @param vector The vector to multiply
+     * @param dest The vector to store the result in
+     * @return The destination vector
+     */
+    public Vector4f mul(Vector4f vector, Vector4f dest) {
+        if(vector == null || dest == null)
+            throw new IllegalArgumentException("An argument is null");
+        
+        return dest.set(
                 vector.x * f00 + vector.y * f01 + vector.z * f02 + vector.w * f03,
                 vector.x * f10 + vector.y * f11 + vector.z * f12 + vector.w * f13,
                 vector.x * f20 + vector.y * f21 + vector.z * f22 + vector.w * f23,
@@ -136,21 +529,284 @@ public class Matrix4f {
      * @return The result of this multiplication
      */
     public Matrix4f mul(Matrix4f matrix) {
-        return new Matrix4f(f00 * matrix.f00 + f01 * matrix.f10 + f02 * matrix.f20 + f03 * matrix.f30,
-                            f00 * matrix.f01 + f01 * matrix.f11 + f02 * matrix.f21 + f03 * matrix.f31,
-                            f00 * matrix.f02 + f01 * matrix.f12 + f02 * matrix.f22 + f03 * matrix.f32,
-                            f00 * matrix.f03 + f01 * matrix.f13 + f02 * matrix.f23 + f03 * matrix.f33,
-                            f10 * matrix.f00 + f11 * matrix.f10 + f12 * matrix.f20 + f13 * matrix.f30,
-                            f10 * matrix.f01 + f11 * matrix.f11 + f12 * matrix.f21 + f13 * matrix.f31,
-                            f10 * matrix.f02 + f11 * matrix.f12 + f12 * matrix.f22 + f13 * matrix.f32,
-                            f10 * matrix.f03 + f11 * matrix.f13 + f12 * matrix.f23 + f13 * matrix.f33,
-                            f20 * matrix.f00 + f21 * matrix.f10 + f22 * matrix.f20 + f23 * matrix.f30,
-                            f20 * matrix.f01 + f21 * matrix.f11 + f22 * matrix.f21 + f23 * matrix.f31,
-                            f20 * matrix.f02 + f21 * matrix.f12 + f22 * matrix.f22 + f23 * matrix.f32,
-                            f20 * matrix.f03 + f21 * matrix.f13 + f22 * matrix.f23 + f23 * matrix.f33,
-                            f30 * matrix.f00 + f31 * matrix.f10 + f32 * matrix.f20 + f33 * matrix.f30,
-                            f30 * matrix.f01 + f31 * matrix.f11 + f32 * matrix.f21 + f33 * matrix.f31,
-                            f30 * matrix.f02 + f31 * matrix.f12 + f32 * matrix.f22 + f33 * matrix.f32,
-                            f30 * matrix.f03 + f31 * matrix.f13 + f32 * matrix.f23 + f33 * matrix.f33);
+        return mul(matrix, new Matrix4f());
+    }
+    
+    /**
+     * Multiplies a matrix with this matrix and stores the result in dest, which may be this matrix
+     * or the given one. No argument may be null.
+     * 
+     * @param matrix The matrix to multiply
+     * @param dest The matrix to store the result in
+     * @return The destination matrix
+     */
+    public Matrix4f mul(Matrix4f matrix, Matrix4f dest) {
+        if(matrix == null || dest == null)
+            throw new IllegalArgumentException("An argument is null");
+        
+        return dest.set(f00 * matrix.f00 + f01 * matrix.f10 + f02 * matrix.f20 + f03 * matrix.f30,
+                        f00 * matrix.f01 + f01 * matrix.f11 + f02 * matrix.f21 + f03 * matrix.f31,
+                        f00 * matrix.f02 + f01 * matrix.f12 + f02 * matrix.f22 + f03 * matrix.f32,
+                        f00 * matrix.f03 + f01 * matrix.f13 + f02 * matrix.f23 + f03 * matrix.f33,
+                        f10 * matrix.f00 + f11 * matrix.f10 + f12 * matrix.f20 + f13 * matrix.f30,
+                        f10 * matrix.f01 + f11 * matrix.f11 + f12 * matrix.f21 + f13 * matrix.f31,
+                        f10 * matrix.f02 + f11 * matrix.f12 + f12 * matrix.f22 + f13 * matrix.f32,
+                        f10 * matrix.f03 + f11 * matrix.f13 + f12 * matrix.f23 + f13 * matrix.f33,
+                        f20 * matrix.f00 + f21 * matrix.f10 + f22 * matrix.f20 + f23 * matrix.f30,
+                        f20 * matrix.f01 + f21 * matrix.f11 + f22 * matrix.f21 + f23 * matrix.f31,
+                        f20 * matrix.f02 + f21 * matrix.f12 + f22 * matrix.f22 + f23 * matrix.f32,
+                        f20 * matrix.f03 + f21 * matrix.f13 + f22 * matrix.f23 + f23 * matrix.f33,
+                        f30 * matrix.f00 + f31 * matrix.f10 + f32 * matrix.f20 + f33 * matrix.f30,
+                        f30 * matrix.f01 + f31 * matrix.f11 + f32 * matrix.f21 + f33 * matrix.f31,
+                        f30 * matrix.f02 + f31 * matrix.f12 + f32 * matrix.f22 + f33 * matrix.f32,
+                        f30 * matrix.f03 + f31 * matrix.f13 + f32 * matrix.f23 + f33 * matrix.f33);
+    }
+    
+    /**
+     * Multiplies a matrix with this matrix. The result is stored in this matrix.
+     * 
+     * @param matrix The matrix to multiply
+     * @return This matrix
+     */
+    public Matrix4f mulLocal(Matrix4f matrix) {
+        return mul(matrix, this);
+    }
+    
+    /**
+     * Returns whether this matrix is affine, meaning its last row is exactly (0, 0, 0, 1). Such
+     * matrices can be inverted with the cheaper invertAffine().
+     * 
+     * @return If this matrix is affine
+     */
+    public boolean isAffine() {
+        return f30 == 0.0f && f31 == 0.0f && f32 == 0.0f && f33 == 1.0f;
+    }
+    
+    /**
+     * Calculates the determinant of this matrix.
+     * 
+     * @return The determinant
+     */
+    public float determinant() {
+        return (f00 * f11 - f10 * f01) * (f22 * f33 - f32 * f23)
+             - (f00 * f12 - f10 * f02) * (f21 * f33 - f31 * f23)
+             + (f00 * f13 - f10 * f03) * (f21 * f32 - f31 * f22)
+             + (f01 * f12 - f11 * f02) * (f20 * f33 - f30 * f23)
+             - (f01 * f13 - f11 * f03) * (f20 * f32 - f30 * f22)
+             + (f02 * f13 - f12 * f03) * (f20 * f31 - f30 * f21);
+    }
+    
+    /**
+     * Returns the transpose of this matrix. This object itself is not altered.
+     * 
+     * @return The transposed matrix
+     */
+    public Matrix4f transpose() {
+        return transpose(new Matrix4f());
+    }
+    
+    /**
+     * Transposes this matrix and stores the result in dest, which may be this matrix. The
+     * destination may not be null.
+     * 
+     * @param dest The matrix to store the result in
+     * @return The destination matrix
+     */
+    public Matrix4f transpose(Matrix4f dest) {
+        if(dest == null)
+            throw new IllegalArgumentException("The destination matrix is null");
+        
+        return dest.set(f00, f10, f20, f30,
+                        f01, f11, f21, f31,
+                        f02, f12, f22, f32,
+                        f03, f13, f23, f33);
+    }
+    
+    /**
+     * Transposes this matrix. The result is stored in this matrix.
+     * 
+     * @return This matrix
+     */
+    public Matrix4f transposeLocal() {
+        return transpose(this);
+    }
+    
+    /**
+     * Returns the inverse of this matrix. This object itself is not altered. If this matrix is
+     * not invertible (its determinant is zero) an IllegalStateException is thrown.
+     * 
+     * @return The inverted matrix
+     */
+    public Matrix4f invert() {
+        return invert(new Matrix4f());
+    }
+    
+    /**
+     * Inverts this matrix and stores the result in dest, which may be this matrix. The destination
+     * may not be null. The inverse is calculated from the 2x2 sub-determinants of the upper and
+     * lower two rows, which are shared between the determinant and the cofactors. If this matrix
+     * is not invertible (its determinant is zero) an IllegalStateException is thrown and the
+     * destination is not altered.
+     * 
+     * @param dest The matrix to store the result in
+     * @return The destination matrix
+     */
+    public Matrix4f invert(Matrix4f dest) {
+        if(dest == null)
+            throw new IllegalArgumentException("The destination matrix is null");
+        
+        float s0 = f00 * f11 - f10 * f01;
+        float s1 = f00 * f12 - f10 * f02;
+        float s2 = f00 * f13 - f10 * f03;
+        float s3 = f01 * f12 - f11 * f02;
+        float s4 = f01 * f13 - f11 * f03;
+        float s5 = f02 * f13 - f12 * f03;
+        
+        float c0 = f20 * f31 - f30 * f21;
+        float c1 = f20 * f32 - f30 * f22;
+        float c2 = f20 * f33 - f30 * f23;
+        float c3 = f21 * f32 - f31 * f22;
+        float c4 = f21 * f33 - f31 * f23;
+        float c5 = f22 * f33 - f32 * f23;
+        
+        float det = s0 * c5 - s1 * c4 + s2 * c3 + s3 * c2 - s4 * c1 + s5 * c0;
+        
+        if(det == 0.0f)
+            throw new IllegalStateException("The matrix is not invertible");
+        
+        float invDet = 1.0f / det;
+        
+        return dest.set(( f11 * c5 - f12 * c4 + f13 * c3) * invDet,
+                        (-f01 * c5 + f02 * c4 - f03 * c3) * invDet,
+                        ( f31 * s5 - f32 * s4 + f33 * s3) * invDet,
+                        (-f21 * s5 + f22 * s4 - f23 * s3) * invDet,
+                        (-f10 * c5 + f12 * c2 - f13 * c1) * invDet,
+                        ( f00 * c5 - f02 * c2 + f03 * c1) * invDet,
+                        (-f30 * s5 + f32 * s2 - f33 * s1) * invDet,
+                        ( f20 * s5 - f22 * s2 + f23 * s1) * invDet,
+                        ( f10 * c4 - f11 * c2 + f13 * c0) * invDet,
+                        (-f00 * c4 + f01 * c2 - f03 * c0) * invDet,
+                        ( f30 * s4 - f31 * s2 + f33 * s0) * invDet,
+                        (-f20 * s4 + f21 * s2 - f23 * s0) * invDet,
+                        (-f10 * c3 + f11 * c1 - f12 * c0) * invDet,
+                        ( f00 * c3 - f01 * c1 + f02 * c0) * invDet,
+                        (-f30 * s3 + f31 * s1 - f32 * s0) * invDet,
+                        ( f20 * s3 - f21 * s1 + f22 * s0) * invDet);
+    }
+    
+    /**
+     * Inverts this matrix. The result is stored in this matrix. If this matrix is not invertible
+     * an IllegalStateException is thrown.
+     * 
+     * @return This matrix
+     */
+    public Matrix4f invertLocal() {
+        return invert(this);
+    }
+    
+    /**
+     * Returns the inverse of this affine matrix. This object itself is not altered. See
+     * invertAffine(Matrix4f) for details.
+     * 
+     * @return The inverted matrix
+     */
+    public Matrix4f invertAffine() {
+        return invertAffine(new Matrix4f());
+    }
+    
+    /**
+     * Inverts this matrix under the assumption that it is affine (its last row is (0, 0, 0, 1),
+     * as it is the case for model and view matrices) and stores the result in dest, which may be
+     * this matrix. Only the upper 3x3 part is inverted, the inverted translation is derived from
+     * it. The last row is not read, so for non affine matrices the result is wrong; use invert()
+     * for those. The destination may not be null. If the upper 3x3 part is not invertible an
+     * IllegalStateException is thrown and the destination is not altered.
+     * 
+     * @param dest The matrix to store the result in
+     * @return The destination matrix
+     */
+    public Matrix4f invertAffine(Matrix4f dest) {
+        if(dest == null)
+            throw new IllegalArgumentException("The destination matrix is null");
+        
+        float c00 = f11 * f22 - f12 * f21;
+        float c01 = f12 * f20 - f10 * f22;
+        float c02 = f10 * f21 - f11 * f20;
+        float det = f00 * c00 + f01 * c01 + f02 * c02;
+        
+        if(det == 0.0f)
+            throw new IllegalStateException("The matrix is not invertible");
+        
+        float invDet = 1.0f / det;
+        
+        float i00 = c00 * invDet;
+        float i01 = (f02 * f21 - f01 * f22) * invDet;
+        float i02 = (f01 * f12 - f02 * f11) * invDet;
+        float i10 = c01 * invDet;
+        float i11 = (f00 * f22 - f02 * f20) * invDet;
+        float i12 = (f02 * f10 - f00 * f12) * invDet;
+        float i20 = c02 * invDet;
+        float i21 = (f01 * f20 - f00 * f21) * invDet;
+        float i22 = (f00 * f11 - f01 * f10) * invDet;
+        
+        return dest.set(i00, i01, i02, -(i00 * f03 + i01 * f13 + i02 * f23),
+                        i10, i11, i12, -(i10 * f03 + i11 * f13 + i12 * f23),
+                        i20, i21, i22, -(i20 * f03 + i21 * f13 + i22 * f23),
+                        0.0f, 0.0f, 0.0f, 1.0f);
+    }
+    
+    /**
+     * Inverts this affine matrix. The result is stored in this matrix. See
+     * invertAffine(Matrix4f) for details.
+     * 
+     * @return This matrix
+     */
+    public Matrix4f invertAffineLocal() {
+        return invertAffine(this);
+    }
+    
+    /**
+     * Returns the normal matrix of this matrix, which is the transpose of the inverse of its upper
+     * 3x3 part. See Matrix3f.normalMatrix(Matrix3f). If the upper 3x3 part is not invertible an
+     * IllegalStateException is thrown.
+     * 
+     * @return The normal matrix
+     */
+    public Matrix3f normalMatrix() {
+        return normalMatrix(new Matrix3f());
+    }
+    
+    /**
+     * Calculates the normal matrix of this matrix, which is the transpose of the inverse of its
+     * upper 3x3 part, and stores it in dest. It is calculated as cofactor matrix divided by the
+     * determinant, see Matrix3f.normalMatrix(Matrix3f). The destination may not be null. If the
+     * upper 3x3 part is not invertible an IllegalStateException is thrown and the destination is
+     * not altered.
+     * 
+     * @param dest The matrix to store the result in
+     * @return The destination matrix
+     */
+    public Matrix3f normalMatrix(Matrix3f dest) {
+        if(dest == null)
+            throw new IllegalArgumentException("The destination matrix is null");
+        
+        return Matrix3f.normalMatrix(f00, f01, f02, f10, f11, f12, f20, f21, f22, dest);
+    }
+    
+    /**
+     * Calculates the normal matrix of this matrix under the assumption that its upper 3x3 part is
+     * a rotation multiplied with a uniform scale, as it is the case for rigid transforms, and
+     * stores it in dest. See Matrix3f.normalMatrixUniformScale(Matrix3f). The destination may not
+     * be null. If the scale is zero an IllegalStateException is thrown and the destination is not
+     * altered.
+     * 
+     * @param dest The matrix to store the result in
+     * @return The destination matrix
+     */
+    public Matrix3f normalMatrixUniformScale(Matrix3f dest) {
+        if(dest == null)
+            throw new IllegalArgumentException("The destination matrix is null");
+        
+        return Matrix3f.normalMatrixUniformScale(f00, f01, f02, f10, f11, f12, f20, f21, f22, dest);
     }
 }
@@ -0,0 +1,673 @@
+package com.teacore.math;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+
+/**
+ * A representation of an affine 4x4 matrix, which only stores the upper three rows (4 columns and 3
+ * rows), as the last row is always (0, 0, 0, 1). This is the case for model, view and other
+ * matrices made of translations, rotations and scales. Compared to Matrix4f, multiplications,
+ * inversion and vector transformations skip all operations involving the last row, and the packed
+ * layout only takes 12 instead of 16 floats, for example as per instance data on the GPU.
+ * Operations are provided both as allocating methods and as methods storing their result in a given
+ * destination object, the latter allowing math code to run without allocating any objects.
+ * 
+ * @author ShietStone
+ */
+public class Matrix4x3f {
+
+    public float f00;
+    public float f01;
+    public float f02;
+    public float f03;
+    public float f10;
+    public float f11;
+    public float f12;
+    public float f13;
+    public float f20;
+    public float f21;
+    public float f22;
+    public float f23;
+    
+    /**
+     * Creates this matrix as identity matrix.
+     */
+    public Matrix4x3f() {
+        setIdentity();
+    }
+    
+    /**
+     * Creates this matrix from the data array given. The arrays size must match 4x3 (total length
+     * 12) and it may not be null. These matrices are handled row major.
+     * 
+     * @param values The values of the matrix fields in row major order
+     */
+    public Matrix4x3f(float[] values) {
+        set(values);
+    }
+    
+    /**
+     * Creates this matrix from the given arguments, where each argument is one matrix field. The
+     * arguments are named and handled in row major order.
+     * 
+     * @param f00 Matrix field 0:0
+     * @param f01 Matrix field 0:1
+     * @param f02 Matrix field 0:2
+     * @param f03 Matrix field 0:3
+     * @param f10 Matrix field 1:0
+     * @param f11 Matrix field 1:1
+     * @param f12 Matrix field 1:2
+     * @param f13 Matrix field 1:3
+     * @param f20 Matrix field 2:0
+     * @param f21 Matrix field 2:1
+     * @param f22 Matrix field 2:2
+     * @param f23 Matrix field 2:3
+     */
+    public Matrix4x3f(float f00, float f01, float f02, float f03,
+                      float f10, float f11, float f12, float f13,
+                      float f20, float f21, float f22, float f23) {
+        set(f00, f01, f02, f03,
+            f10, f11, f12, f13,
+            f20, f21, f22, f23);
+    }
+    
+    /**
+     * Creates this matrix from the upper three rows of the given 4x4 matrix, which may not be null.
+     * See set(Matrix4f).
+     * 
+     * @param matrix The matrix to copy the values from
+     */
+    public Matrix4x3f(Matrix4f matrix) {
+        set(matrix);
+    }
+    
+    /**
+     * Sets this matrix to the values of the data array given. The arrays size must match 4x3 (total
+     * length 12) and it may not be null. The array is handled row major.
+     * 
+     * @param values The values of the matrix fields in row major order
+     * @return This matrix
+     */
+    public Matrix4x3f set(float[] values) {
+        if(values == null)
+            throw new IllegalArgumentException("The value array is null");
+        
+        if(values.length != 12)
+            throw new IllegalArgumentException("The value array must have a length of 12");
+        
+        return set(values[0], values[1], values[2], values[3],
+                   values[4], values[5], values[6], values[7],
+                   values[8], values[9], values[10], values[11]);
+    }
+    
+    /**
+     * Sets this matrix to the given arguments, where each argument is one matrix field. The
+     * arguments are named and handled in row major order.
+     * 
+     * @param f00 Matrix field 0:0
+     * @param f01 Matrix field 0:1
+     * @param f02 Matrix field 0:2
+     * @param f03 Matrix field 0:3
+     * @param f10 Matrix field 1:0
+     * @param f11 Matrix field 1:1
+     * @param f12 Matrix field 1:2
+     * @param f13 Matrix field 1:3
+     * @param f20 Matrix field 2:0
+     * @param f21 Matrix field 2:1
+     * @param f22 Matrix field 2:2
+     * @param f23 Matrix field 2:3
+     * @return This matrix
+     */
+    public Matrix4x3f set(float f00, float f01, float f02, float f03,
+                          float f10, float f11, float f12, float f13,
+                          float f20, float f21, float f22, float f23) {
+        this.f00 = f00;
+        this.f01 = f01;
+        this.f02 = f02;
+        this.f03 = f03;
+        this.f10 = f10;
+        this.f11 = f11;
+        this.f12 = f12;
+        this.f13 = f13;
+        this.f20 = f20;
+        this.f21 = f21;
+        this.f22 = f22;
+        this.f23 = f23;
+        return this;
+    }
+    
+    /**
+     * Sets this matrix to the values of the given matrix, which may not be null.
+     * 
+     * @param matrix The matrix to copy the values from
+     * @return This matrix
+     */
+    public Matrix4x3f set(Matrix4x3f matrix) {
+        if(matrix == null)
+            throw new IllegalArgumentException("The matrix is null");
+        
+        return set(matrix.f00, matrix.f01, matrix.f02, matrix.f03,
+                   matrix.f10, matrix.f11, matrix.f12, matrix.f13,
+                   matrix.f20, matrix.f21, matrix.f22, matrix.f23);
+    }
+    
+    /**
+     * Sets this matrix to the upper three rows of the given 4x4 matrix, which may not be null. The
+     * last row is not read, so the result only equals the given matrix if it is affine (see
+     * Matrix4f.isAffine()).
+     * 
+     * @param matrix The matrix to copy the values from
+     * @return This matrix
+     */
+    public Matrix4x3f set(Matrix4f matrix) {
+        if(matrix == null)
+            throw new IllegalArgumentException("The matrix is null");
+        
+        return set(matrix.f00, matrix.f01, matrix.f02, matrix.f03,
+                   matrix.f10, matrix.f11, matrix.f12, matrix.f13,
+                   matrix.f20, matrix.f21, matrix.f22, matrix.f23);
+    }
+    
+    /**
+     * Sets this matrix to the identity matrix.
+     * 
+     * @return This matrix
+     */
+    public Matrix4x3f setIdentity() {
+        return set(1.0f, 0.0f, 0.0f, 0.0f,
+                   0.0f, 1.0f, 0.0f, 0.0f,
+                   0.0f, 0.0f, 1.0f, 0.0f);
+    }
+    
+    /**
+     * Returns this matrix as 4x4 matrix with the last row (0, 0, 0, 1).
+     * 
+     * @return The 4x4 matrix
+     */
+    public Matrix4f toMatrix4f() {
+        return toMatrix4f(new Matrix4f());
+    }
+    
+    /**
+     * Stores this matrix in the given 4x4 matrix, setting its last row to (0, 0, 0, 1). The
+     * destination may not be null.
+     * 
+     * @param dest The matrix to store the values in
+     * @return The destination matrix
+     */
+    public Matrix4f toMatrix4f(Matrix4f dest) {
+        if(dest == null)
+            throw new IllegalArgumentException("The destination matrix is null");
+        
+        return dest.set(f00, f01, f02, f03,
+                        f10, f11, f12, f13,
+                        f20, f21, f22, f23,
+                        0.0f, 0.0f, 0.0f, 1.0f);
+    }
+    
+    /**
+     * Returns a representation of this matrix as a row major array.
+     * 
+     * @return This matrix as array
+     */
+    public float[] asArray() {
+        return asArray(new float[12]);
+    }
+    
+    /**
+     * Stores this matrix in the given array in row major order. The array may not be null and must
+     * have a length of at least 12.
+     * 
+     * @param dest The array to store the matrix fields in
+     * @return The destination array
+     */
+    public float[] asArray(float[] dest) {
+        if(dest == null)
+            throw new IllegalArgumentException("The destination array is null");
+        
+        if(dest.length < 12)
+            throw new IllegalArgumentException("The destination array must have a length of at least 12");
+        
+        dest[0] = f00;
+        dest[1] = f01;
+        dest[2] = f02;
+        dest[3] = f03;
+        dest[4] = f10;
+        dest[5] = f11;
+        dest[6] = f12;
+        dest[7] = f13;
+        dest[8] = f20;
+        dest[9] = f21;
+        dest[10] = f22;
+        dest[11] = f23;
+        return dest;
+    }
+    
+    /**
+     * Stores this matrix in row major order in the given float buffer, starting at its current
+     * position. The buffers position is not altered. The buffer may not be null.
+     * 
+     * @param buffer The buffer to store the matrix fields in
+     * @return The given buffer
+     */
+    public FloatBuffer get(FloatBuffer buffer) {
+        if(buffer == null)
+            throw new IllegalArgumentException("The buffer is null");
+        
+        return get(buffer, buffer.position(), false);
+    }
+    
+    /**
+     * Stores this matrix as 12 floats in the given float buffer, starting at the given absolute
+     * index. In column major order the four columns are written as 3 floats each, matching a GLSL
+     * mat4x3. In row major order the three rows are written as 4 floats each, which can be read as
+     * three vec4 vertex attributes per instance. The buffers position is not altered. The buffer
+     * may not be null and must have room for 12 floats after the index.
+     * 
+     * @param buffer The buffer to store the matrix fields in
+     * @param index The absolute index of the first float
+     * @param columnMajor If the matrix is stored in column major instead of row major order
+     * @return The given buffer
+     */
+    public FloatBuffer get(FloatBuffer buffer, int index, boolean columnMajor) {
+        if(buffer == null)
+            throw new IllegalArgumentException("The buffer is null");
+        
+        if(columnMajor) {
+            buffer.put(index, f00);
+            buffer.put(index + 1, f10);
+            buffer.put(index + 2, f20);
+            buffer.put(index + 3, f01);
+            buffer.put(index + 4, f11);
+            buffer.put(index + 5, f21);
+            buffer.put(index + 6, f02);
+            buffer.put(index + 7, f12);
+            buffer.put(index + 8, f22);
+            buffer.put(index + 9, f03);
+            buffer.put(index + 10, f13);
+            buffer.put(index + 11, f23);
+        } else {
+            buffer.put(index, f00);
+            buffer.put(index + 1, f01);
+            buffer.put(index + 2, f02);
+            buffer.put(index + 3, f03);
+            buffer.put(index + 4, f10);
+            buffer.put(index + 5, f11);
+            buffer.put(index + 6, f12);
+            buffer.put(index + 7, f13);
+            buffer.put(index + 8, f20);
+            buffer.put(index + 9, f21);
+            buffer.put(index + 10, f22);
+            buffer.put(index + 11, f23);
+        }
+        
+        return buffer;
+    }
+    
+    /**
+     * Stores this matrix as 12 floats in the given byte buffer, starting at the given absolute byte
+     * offset. The floats are written using the buffers byte order, either in column major or in row
+     * major order (see get(FloatBuffer, int, boolean)). The buffers position is not altered. The
+     * buffer may not be null and must have room for 48 bytes after the offset.
+     * 
+     * @param buffer The buffer to store the matrix fields in
+     * @param offset The absolute byte offset of the first float
+     * @param columnMajor If the matrix is stored in column major instead of row major order
+     * @return The given buffer
+     */
+    public ByteBuffer get(ByteBuffer buffer, int offset, boolean columnMajor) {
+        if(buffer == null)
+            throw new IllegalArgumentException("The buffer is null");
+        
+        if(columnMajor) {
+            buffer.putFloat(offset, f00);
+            buffer.putFloat(offset + 4, f10);
+            buffer.putFloat(offset + 8, f20);
+            buffer.putFloat(offset + 12, f01);
+            buffer.putFloat(offset + 16, f11);
+            buffer.putFloat(offset + 20, f21);
+            buffer.putFloat(offset + 24, f02);
+            buffer.putFloat(offset + 28, f12);
+            buffer.putFloat(offset + 32, f22);
+            buffer.putFloat(offset + 36, f03);
+            buffer.putFloat(offset + 40, f13);
+            buffer.putFloat(offset + 44, f23);
+        } else {
+            buffer.putFloat(offset, f00);
+            buffer.putFloat(offset + 4, f01);
+            buffer.putFloat(offset + 8, f02);
+            buffer.putFloat(offset + 12, f03);
+            buffer.putFloat(offset + 16, f10);
+            buffer.putFloat(offset + 20, f11);
+            buffer.putFloat(offset + 24, f12);
+            buffer.putFloat(offset + 28, f13);
+            buffer.putFloat(offset + 32, f20);
+            buffer.putFloat(offset + 36, f21);
+            buffer.putFloat(offset + 40, f22);
+            buffer.putFloat(offset + 44, f23);
+        }
+        
+        return buffer;
+    }
+    
+    /**
+     * Sets this matrix to the 12 floats in row major order at the current position of the given
+     * float buffer. The buffers position is not altered. The buffer may not be null.
+     * 
+     * @param buffer The buffer to read the matrix fields from
+     * @return This matrix
+     */
+    public Matrix4x3f set(FloatBuffer buffer) {
+        if(buffer == null)
+            throw new IllegalArgumentException("The buffer is null");
+        
+        return set(buffer, buffer.position(), false);
+    }
+    
+    /**
+     * Sets this matrix to the 12 floats starting at the given absolute index of the float buffer,
+     * which are read either in column major or in row major order (see get(FloatBuffer, int,
+     * boolean)). The buffers position is not altered. The buffer may not be null.
+     * 
+     * @param buffer The buffer to read the matrix fields from
+     * @param index The absolute index of the first float
+     * @param columnMajor If the matrix is stored in column major instead of row major order
+     * @return This matrix
+     */
+    public Matrix4x3f set(FloatBuffer buffer, int index, boolean columnMajor) {
+        if(buffer == null)
+            throw new IllegalArgumentException("The buffer is null");
+        
+        if(columnMajor) {
+            f00 = buffer.get(index);
+            f10 = buffer.get(index + 1);
+            f20 = buffer.get(index + 2);
+            f01 = buffer.get(index + 3);
+            f11 = buffer.get(index + 4);
+            f21 = buffer.get(index + 5);
+            f02 = buffer.get(index + 6);
+            f12 = buffer.get(index + 7);
+            f22 = buffer.get(index + 8);
+            f03 = buffer.get(index + 9);
+            f13 = buffer.get(index + 10);
+            f23 = buffer.get(index + 11);
+        } else {
+            f00 = buffer.get(index);
+            f01 = buffer.get(index + 1);
+            f02 = buffer.get(index + 2);
+            f03 = buffer.get(index + 3);
+            f10 = buffer.get(index + 4);
+            f11 = buffer.get(index + 5);
+            f12 = buffer.get(index + 6);
+            f13 = buffer.get(index + 7);
+            f20 = buffer.get(index + 8);
+            f21 = buffer.get(index + 9);
+            f22 = buffer.get(index + 10);
+            f23 = buffer.get(index + 11);
+        }
+        
+        return this;
+    }
+    
+    /**
+     * Sets this matrix to the 12 floats starting at the given absolute byte offset of the byte
+     * buffer, which are read using the buffers byte order either in column major or in row major
+     * order. The buffers position is not altered. The buffer may not be null.
+     * 
+     * @param buffer The buffer to read the matrix fields from
+     * @param offset The absolute byte offset of the first float
+     * @param columnMajor If the matrix is stored in column major instead of row major order
+     * @return This matrix
+     */
+    public Matrix4x3f set(ByteBuffer buffer, int offset, boolean columnMajor) {
+        if(buffer == null)
+            throw new IllegalArgumentException("The buffer is null");
+        
+        if(columnMajor) {
+            f00 = buffer.getFloat(offset);
+            f10 = buffer.getFloat(offset + 4);
+            f20 = buffer.getFloat(offset + 8);
+            f01 = buffer.getFloat(offset + 12);
+            f11 = buffer.getFloat(offset + 16);
+            f21 = buffer.getFloat(offset + 20);
+            f02 = buffer.getFloat(offset + 24);
+            f12 = buffer.getFloat(offset + 28);
+            f22 = buffer.getFloat(offset + 32);
+            f03 = buffer.getFloat(offset + 36);
+            f13 = buffer.getFloat(offset + 40);
+            f23 = buffer.getFloat(offset + 44);
+        } else {
+            f00 = buffer.getFloat(offset);
+            f01 = buffer.getFloat(offset + 4);
+            f02 = buffer.getFloat(offset + 8);
+            f03 = buffer.getFloat(offset + 12);
+            f10 = buffer.getFloat(offset + 16);
+            f11 = buffer.getFloat(offset + 20);
+            f12 = buffer.getFloat(offset + 24);
+            f13 = buffer.getFloat(offset + 28);
+            f20 = buffer.getFloat(offset + 32);
+            f21 = buffer.getFloat(offset + 36);
+            f22 = buffer.getFloat(offset + 40);
+            f23 = buffer.getFloat(offset + 44);
+        }
+        
+        return this;
+    }
+    
+    /**
+     * Transforms a point (a vector with an implicit w of 1) by this matrix, so it is rotated,
+     * scaled and translated. The vector may not be null.
+     * 
+     * @param vector The point to transform
+     * @return The transformed point
+     */
+    public Vector3f transformPoint(Vector3f vector) {
+        return transformPoint(vector, new Vector3f());
+    }
+    
+    /**
+     * Transforms a point (a vector with an implicit w of 1) by this matrix and stores the result in
+     * dest, which may be the given vector itself. No argument may be null.
+     * 
+     * @param vector The point to transform
+     * @param dest The vector to store the result in
+     * @return The destination vector
+     */
+    public Vector3f transformPoint(Vector3f vector, Vector3f dest) {
+        if(vector == null || dest == null)
+            throw new IllegalArgumentException("An argument is null");
+        
+        return dest.set(vector.x * f00 + vector.y * f01 + vector.z * f02 + f03,
+                        vector.x * f10 + vector.y * f11 + vector.z * f12 + f13,
+                        vector.x * f20 + vector.y * f21 + vector.z * f22 + f23);
+    }
+    
+    /**
+     * Transforms a direction (a vector with an implicit w of 0) by this matrix, so it is only
+     * rotated and scaled. The vector may not be null.
+     * 
+     * @param vector The direction to transform
+     * @return The transformed direction
+     */
+    public Vector3f transformDirection(Vector3f vector) {
+        return transformDirection(vector, new Vector3f());
+    }
+    
+    /**
+     * Transforms a direction (a vector with an implicit w of 0) by this matrix and stores the
+     * result in dest, which may be the given vector itself. No argument may be null.
+     * 
+     * @param vector The direction to transform
+     * @param dest The vector to store the result in
+     * @return The destination vector
+     */
+    public Vector3f transformDirection(Vector3f vector, Vector3f dest) {
+        if(vector == null || dest == null)
+            throw new IllegalArgumentException("An argument is null");
+        
+        return dest.set(vector.x * f00 + vector.y * f01 + vector.z * f02,
+                        vector.x * f10 + vector.y * f11 + vector.z * f12,
+                        vector.x * f20 + vector.y * f21 + vector.z * f22);
+    }
+    
+    /**
+     * Multiplies a matrix with this matrix. The matrix may not be null.
+     * 
+     * @param matrix The matrix to multiply
+     * @return The result of this multiplication
+     */
+    public Matrix4x3f mul(Matrix4x3f matrix) {
+        return mul(matrix, new Matrix4x3f());
+    }
+    
+    /**
+     * Multiplies a matrix with this matrix and stores the result in dest, which may be this matrix
+     * or the given one. As the last rows of both are (0, 0, 0, 1), this takes 36 multiplications
+     * instead of the 64 of Matrix4f.mul(). No argument may be null.
+     * 
+     * @param matrix The matrix to multiply
+     * @param dest The matrix to store the result in
+     * @return The destination matrix
+     */
+    public Matrix4x3f mul(Matrix4x3f matrix, Matrix4x3f dest) {
+        if(matrix == null || dest == null)
+            throw new IllegalArgumentException("An argument is null");
+        
+        return dest.set(f00 * matrix.f00 + f01 * matrix.f10 + f02 * matrix.f20,
+                        f00 * matrix.f01 + f01 * matrix.f11 + f02 * matrix.f21,
+                        f00 * matrix.f02 + f01 * matrix.f12 + f02 * matrix.f22,
+                        f00 * matrix.f03 + f01 * matrix.f13 + f02 * matrix.f23 + f03,
+                        f10 * matrix.f00 + f11 * matrix.f10 + f12 * matrix.f20,
+                        f10 * matrix.f01 + f11 * matrix.f11 + f12 * matrix.f21,
+                        f10 * matrix.f02 + f11 * matrix.f12 + f12 * matrix.f22,
+                        f10 * matrix.f03 + f11 * matrix.f13 + f12 * matrix.f23 + f13,
+                        f20 * matrix.f00 + f21 * matrix.f10 + f22 * matrix.f20,
+                        f20 * matrix.f01 + f21 * matrix.f11 + f22 * matrix.f21,
+                        f20 * matrix.f02 + f21 * matrix.f12 + f22 * matrix.f22,
+                        f20 * matrix.f03 + f21 * matrix.f13 + f22 * matrix.f23 + f23);
+    }
+    
+    /**
+     * Multiplies a matrix with this matrix. The result is stored in this matrix.
+     * 
+     * @param matrix The matrix to multiply
+     * @return This matrix
+     */
+    public Matrix4x3f mulLocal(Matrix4x3f matrix) {
+        return mul(matrix, this);
+    }
+    
+    /**
+     * Calculates the determinant of this matrix, which is the one of its upper 3x3 part.
+     * 
+     * @return The determinant
+     */
+    public float determinant() {
+        return f00 * (f11 * f22 - f12 * f21)
+             + f01 * (f12 * f20 - f10 * f22)
+             + f02 * (f10 * f21 - f11 * f20);
+    }
+    
+    /**
+     * Returns the inverse of this matrix. This object itself is not altered. If this matrix is not
+     * invertible (its determinant is zero) an IllegalStateException is thrown.
+     * 
+     * @return The inverted matrix
+     */
+    public Matrix4x3f invert() {
+        return invert(new Matrix4x3f());
+    }
+    
+    /**
+     * Inverts this matrix and stores the result in dest, which may be this matrix. The destination
+     * may not be null. Only the upper 3x3 part is inverted, the inverted translation is derived
+     * from it. If this matrix is not invertible (its determinant is zero) an IllegalStateException
+     * is thrown and the destination is not altered.
+     * 
+     * @param dest The matrix to store the result in
+     * @return The destination matrix
+     */
+    public Matrix4x3f invert(Matrix4x3f dest) {
+        if(dest == null)
+            throw new IllegalArgumentException("The destination matrix is null");
+        
+        float c00 = f11 * f22 - f12 * f21;
+        float c01 = f12 * f20 - f10 * f22;
+        float c02 = f10 * f21 - f11 * f20;
+        float det = f00 * c00 + f01 * c01 + f02 * c02;
+        
+        if(det == 0.0f)
+            throw new IllegalStateException("The matrix is not invertible");
+        
+        float invDet = 1.0f / det;
+        
+        float i00 = c00 * invDet;
+        float i01 = (f02 * f21 - f01 * f22) * invDet;
+        float i02 = (f01 * f12 - f02 * f11) * invDet;
+        float i10 = c01 * invDet;
+        float i11 = (f00 * f22 - f02 * f20) * invDet;
+        float i12 = (f02 * f10 - f00 * f12) * invDet;
+        float i20 = c02 * invDet;
+        float i21 = (f01 * f20 - f00 * f21) * invDet;
+        float i22 = (f00 * f11 - f01 * f10) * invDet;
+        
+        return dest.set(i00, i01, i02, -(i00 * f03 + i01 * f13 + i02 * f23),
+                        i10, i11, i12, -(i10 * f03 + i11 * f13 + i12 * f23),
+                        i20, i21, i22, -(i20 * f03 + i21 * f13 + i22 * f23));
+    }
+    
+    /**
+     * Inverts this matrix. The result is stored in this matrix. If this matrix is not invertible an
+     * IllegalStateException is thrown.
+     * 
+     * @return This matrix
+     */
+    public Matrix4x3f invertLocal() {
+        return invert(this);
+    }
+    
+    /**
+     * Returns the normal matrix of this matrix, which is the transpose of the inverse of its upper
+     * 3x3 part. See Matrix3f.normalMatrix(Matrix3f). If the upper 3x3 part is not invertible an
+     * IllegalStateException is thrown.
+     * 
+     * @return The normal matrix
+     */
+    public Matrix3f normalMatrix() {
+        return normalMatrix(new Matrix3f());
+    }
+    
+    /**
+     * Calculates the normal matrix of this matrix, which is the transpose of the inverse of its
+     * upper 3x3 part, and stores it in dest. It is calculated as cofactor matrix divided by the
+     * determinant, see Matrix3f.normalMatrix(Matrix3f). The destination may not be null. If the
+     * upper 3x3 part is not invertible an IllegalStateException is thrown and the destination is
+     * not altered.
+     * 
+     * @param dest The matrix to store the result in
+     * @return The destination matrix
+     */
+    public Matrix3f normalMatrix(Matrix3f dest) {
+        if(dest == null)
+            throw new IllegalArgumentException("The destination matrix is null");
+        
+        return Matrix3f.normalMatrix(f00, f01, f02, f10, f11, f12, f20, f21, f22, dest);
+    }
+    
+    /**
+     * Calculates the normal matrix of this matrix under the assumption that its upper 3x3 part is
+     * a rotation multiplied with a uniform scale, as it is the case for rigid transforms, and
+     * stores it in dest. See Matrix3f.normalMatrixUniformScale(Matrix3f). The destination may not
+     * be null. If the scale is zero an IllegalStateException is thrown and the destination is not
+     * altered.
+     * 
+     * @param dest The matrix to store the result in
+     * @return The destination matrix
+     */
+    public Matrix3f normalMatrixUniformScale(Matrix3f dest) {
+        if(dest == null)
+            throw new IllegalArgumentException("The destination matrix is null");
+        
+        return Matrix3f.normalMatrixUniformScale(f00, f01, f02, f10, f11, f12, f20, f21, f22, dest);
+    }
+}
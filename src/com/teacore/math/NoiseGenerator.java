@@ -0,0 +1,780 @@
+package com.teacore.math;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Generates procedural noise, for example for heightmaps or noise textures. The base noise can be
+ * value, Perlin or simplex noise in 2 or 3 dimensions, which is summed up over a number of octaves
+ * (fractal noise): every octave multiplies the frequency by the lacunarity and the amplitude by the
+ * persistence. The result is scaled back to roughly -1 to 1.
+ * <p>
+ * The generate methods fill whole images or volumes at once. The rows are split into chunks of at
+ * most threshold rows, which are evaluated as tasks of a ForkJoinPool, and every pixel gets exactly
+ * the value noise() returns for its coordinates. Evaluating the noise itself allocates nothing.
+ * Pixel (x, y) of an image samples the noise at its center (originX + x + 0.5, originY + y + 0.5),
+ * so the frequency determines the size of the features in pixels. Sampling the centers keeps the
+ * pixels off the integer lattice points, where Perlin noise is 0. Next to float arrays, direct
+ * buffers can be filled with floats or with unsigned normalized bytes, which can be uploaded to an
+ * OGLTexture as they are. Row 0 comes first in the output and y grows by 1 per row, and OGLTexture
+ * puts the first row at the texture coordinate t = 0, so y grows with t.
+ * <p>
+ * The settings of a generator must not be changed while it generates on another thread.
+ * 
+ * @author ShietStone
+ */
+public class NoiseGenerator {
+
+    /**
+     * The available kinds of base noise.
+     */
+    public enum Type {
+        
+        /**
+         * Smoothly interpolated random values at the integer lattice points. Cheapest, but blocky.
+         */
+        VALUE,
+        
+        /**
+         * Gradient noise interpolated over the integer lattice (improved Perlin noise).
+         */
+        PERLIN,
+        
+        /**
+         * Gradient noise over a simplex grid, with fewer directional artifacts than Perlin noise.
+         */
+        SIMPLEX
+    }
+    
+    /**
+     * The default number of rows below which a chunk is not split up any further.
+     */
+    public static final int DEFAULT_THRESHOLD = 16;
+    
+    private static final float[] GRADIENTS_2D = { 1.0f, 1.0f, -1.0f, 1.0f, 1.0f, -1.0f, -1.0f, -1.0f,
+                                                  1.0f, 0.0f, -1.0f, 0.0f, 0.0f, 1.0f, 0.0f, -1.0f };
+    
+    private static final float[] GRADIENTS_3D = { 1.0f, 1.0f, 0.0f, -1.0f, 1.0f, 0.0f, 1.0f, -1.0f, 0.0f,
+                                                  -1.0f, -1.0f, 0.0f, 1.0f, 0.0f, 1.0f, -1.0f, 0.0f, 1.0f,
+                                                  1.0f, 0.0f, -1.0f, -1.0f, 0.0f, -1.0f, 0.0f, 1.0f, 1.0f,
+                                                  0.0f, -1.0f, 1.0f, 0.0f, 1.0f, -1.0f, 0.0f, -1.0f, -1.0f };
+    
+    private static final float SKEW_2D = 0.36602540378f;
+    private static final float UNSKEW_2D = 0.2113248654f;
+    private static final float SKEW_3D = 1.0f / 3.0f;
+    private static final float UNSKEW_3D = 1.0f / 6.0f;
+    
+    private static final int FLOAT_ARRAY = 0;
+    private static final int FLOAT_BUFFER = 1;
+    private static final int BYTE_BUFFER = 2;
+    
+    private int[] permutation;
+    private float[] values;
+    private Type type;
+    private int octaves;
+    private float frequency;
+    private float lacunarity;
+    private float persistence;
+    private float normalization;
+    private ForkJoinPool pool;
+    private int threshold;
+    
+    /**
+     * Creates a generator for Perlin noise with a single octave and a frequency of 1 / 64, running
+     * on the common ForkJoinPool with the default threshold. Generators with the same seed and
+     * settings produce the same noise.
+     * 
+     * @param seed The seed of the random lattice
+     */
+    public NoiseGenerator(long seed) {
+        this(seed, ForkJoinPool.commonPool(), DEFAULT_THRESHOLD);
+    }
+    
+    /**
+     * Creates a generator for Perlin noise with a single octave and a frequency of 1 / 64, running
+     * on the given pool, which may not be null. The threshold is the number of rows below which a
+     * chunk is generated by a single task and must be at least 1.
+     * 
+     * @param seed The seed of the random lattice
+     * @param pool The pool to run the tasks on
+     * @param threshold The maximum number of rows per task
+     */
+    public NoiseGenerator(long seed, ForkJoinPool pool, int threshold) {
+        if(pool == null)
+            throw new IllegalArgumentException("Pool is null");
+        
+        if(threshold < 1)
+            throw new IllegalArgumentException("Threshold is less than one");
+        
+        this.pool = pool;
+        this.threshold = threshold;
+        
+        Random random = new Random(seed);
+        permutation = new int[512];
+        values = new float[256];
+        
+        for(int index = 0; index < 256; index++) {
+            permutation[index] = index;
+            values[index] = random.nextFloat() * 2.0f - 1.0f;
+        }
+        
+        for(int index = 255; index > 0; index--) {
+            int other = random.nextInt(index + 1);
+            int swap = permutation[index];
+            permutation[index] = permutation[other];
+            permutation[other] = swap;
+        }
+        
+        System.arraycopy(permutation, 0, permutation, 256, 256);
+        
+        type = Type.PERLIN;
+        octaves = 1;
+        frequency = 1.0f / 64.0f;
+        lacunarity = 2.0f;
+        persistence = 0.5f;
+        normalization = 1.0f;
+    }
+    
+    /**
+     * Returns the kind of base noise.
+     * 
+     * @return The noise type
+     */
+    public Type getType() {
+        return type;
+    }
+    
+    /**
+     * Sets the kind of base noise, which may not be null.
+     * 
+     * @param type The noise type
+     * @return This generator
+     */
+    public NoiseGenerator setType(Type type) {
+        if(type == null)
+            throw new IllegalArgumentException("Type is null");
+        
+        this.type = type;
+        return this;
+    }
+    
+    /**
+     * Returns the number of octaves summed up.
+     * 
+     * @return The number of octaves
+     */
+    public int getOctaves() {
+        return octaves;
+    }
+    
+    /**
+     * Sets the number of octaves summed up, which must be at least 1.
+     * 
+     * @param octaves The number of octaves
+     * @return This generator
+     */
+    public NoiseGenerator setOctaves(int octaves) {
+        if(octaves < 1)
+            throw new IllegalArgumentException("Octaves is less than one");
+        
+        this.octaves = octaves;
+        updateNormalization();
+        return this;
+    }
+    
+    /**
+     * Returns the frequency of the first octave.
+     * 
+     * @return The frequency
+     */
+    public float getFrequency() {
+        return frequency;
+    }
+    
+    /**
+     * Sets the frequency of the first octave. For example a frequency of 1 / 64 makes features
+     * about 64 pixels large.
+     * 
+     * @param frequency The frequency
+     * @return This generator
+     */
+    public NoiseGenerator setFrequency(float frequency) {
+        this.frequency = frequency;
+        return this;
+    }
+    
+    /**
+     * Returns the factor the frequency is multiplied with per octave.
+     * 
+     * @return The lacunarity
+     */
+    public float getLacunarity() {
+        return lacunarity;
+    }
+    
+    /**
+     * Sets the factor the frequency is multiplied with per octave, usually 2.
+     * 
+     * @param lacunarity The lacunarity
+     * @return This generator
+     */
+    public NoiseGenerator setLacunarity(float lacunarity) {
+        this.lacunarity = lacunarity;
+        return this;
+    }
+    
+    /**
+     * Returns the factor the amplitude is multiplied with per octave.
+     * 
+     * @return The persistence
+     */
+    public float getPersistence() {
+        return persistence;
+    }
+    
+    /**
+     * Sets the factor the amplitude is multiplied with per octave, usually 0.5. It must be
+     * positive.
+     * 
+     * @param persistence The persistence
+     * @return This generator
+     */
+    public NoiseGenerator setPersistence(float persistence) {
+        if(!(persistence > 0.0f))
+            throw new IllegalArgumentException("Persistence is not positive");
+        
+        this.persistence = persistence;
+        updateNormalization();
+        return this;
+    }
+    
+    /**
+     * Returns the pool the tasks run on.
+     * 
+     * @return The fork join pool
+     */
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+    
+    /**
+     * Returns the maximum number of rows generated by a single task.
+     * 
+     * @return The threshold
+     */
+    public int getThreshold() {
+        return threshold;
+    }
+    
+    /**
+     * Sets the maximum number of rows generated by a single task, which must be at least 1.
+     * 
+     * @param threshold The threshold
+     */
+    public void setThreshold(int threshold) {
+        if(threshold < 1)
+            throw new IllegalArgumentException("Threshold is less than one");
+        
+        this.threshold = threshold;
+    }
+    
+    /**
+     * Returns the fractal 2D noise at the given coordinates, roughly between -1 and 1.
+     * 
+     * @param x The x coordinate
+     * @param y The y coordinate
+     * @return The noise value
+     */
+    public float noise(float x, float y) {
+        float sum = 0.0f;
+        float amplitude = 1.0f;
+        float scale = frequency;
+        
+        for(int octave = 0; octave < octaves; octave++) {
+            sum += amplitude * sample(x * scale, y * scale);
+            scale *= lacunarity;
+            amplitude *= persistence;
+        }
+        
+        return sum * normalization;
+    }
+    
+    /**
+     * Returns the fractal 3D noise at the given coordinates, roughly between -1 and 1.
+     * 
+     * @param x The x coordinate
+     * @param y The y coordinate
+     * @param z The z coordinate
+     * @return The noise value
+     */
+    public float noise(float x, float y, float z) {
+        float sum = 0.0f;
+        float amplitude = 1.0f;
+        float scale = frequency;
+        
+        for(int octave = 0; octave < octaves; octave++) {
+            sum += amplitude * sample(x * scale, y * scale, z * scale);
+            scale *= lacunarity;
+            amplitude *= persistence;
+        }
+        
+        return sum * normalization;
+    }
+    
+    /**
+     * Fills an image of 2D noise into dest row by row, so the value of pixel (x, y) is stored at
+     * index y * width + x. No argument may be null and the array must hold at least width * height
+     * values.
+     * 
+     * @param dest The array to store the noise in
+     * @param width The width of the image
+     * @param height The height of the image
+     * @param originX The x coordinate of the first column, growing by 1 per column
+     * @param originY The y coordinate of the first row, growing by 1 per row
+     * @return The destination array
+     */
+    public float[] generate(float[] dest, int width, int height, float originX, float originY) {
+        if(dest == null)
+            throw new IllegalArgumentException("The destination is null");
+        
+        invoke(FLOAT_ARRAY, dest, null, width, height, 0, originX, originY, 0.0f, dest.length);
+        return dest;
+    }
+    
+    /**
+     * Fills a volume of 3D noise into dest slice by slice, so the value of voxel (x, y, z) is
+     * stored at index (z * height + y) * width + x. A depth of 1 generates a single slice, for
+     * example for animated 2D noise. No argument may be null and the array must hold at least
+     * width * height * depth values.
+     * 
+     * @param dest The array to store the noise in
+     * @param width The width of the volume
+     * @param height The height of the volume
+     * @param depth The depth of the volume
+     * @param originX The x coordinate of the first column, growing by 1 per column
+     * @param originY The y coordinate of the first row, growing by 1 per row
+     * @param originZ The z coordinate of the first slice, growing by 1 per slice
+     * @return The destination array
+     */
+    public float[] generate(float[] dest, int width, int height, int depth, float originX, float originY, float originZ) {
+        if(dest == null)
+            throw new IllegalArgumentException("The destination is null");
+        
+        checkDepth(depth);
+        invoke(FLOAT_ARRAY, dest, null, width, height, depth, originX, originY, originZ, dest.length);
+        return dest;
+    }
+    
+    /**
+     * Fills an image of 2D noise into dest as generate(float[], int, int, float, float) does,
+     * starting at the buffer position. The buffer position is not changed. The buffer may not be
+     * null and must have at least width * height floats remaining.
+     * 
+     * @param dest The buffer to store the noise in
+     * @param width The width of the image
+     * @param height The height of the image
+     * @param originX The x coordinate of the first column, growing by 1 per column
+     * @param originY The y coordinate of the first row, growing by 1 per row
+     * @return The destination buffer
+     */
+    public FloatBuffer generate(FloatBuffer dest, int width, int height, float originX, float originY) {
+        if(dest == null)
+            throw new IllegalArgumentException("The destination is null");
+        
+        invoke(FLOAT_BUFFER, null, dest, width, height, 0, originX, originY, 0.0f, dest.remaining());
+        return dest;
+    }
+    
+    /**
+     * Fills a volume of 3D noise into dest as generate(float[], int, int, int, float, float,
+     * float) does, starting at the buffer position. The buffer position is not changed. The buffer
+     * may not be null and must have at least width * height * depth floats remaining.
+     * 
+     * @param dest The buffer to store the noise in
+     * @param width The width of the volume
+     * @param height The height of the volume
+     * @param depth The depth of the volume
+     * @param originX The x coordinate of the first column, growing by 1 per column
+     * @param originY The y coordinate of the first row, growing by 1 per row
+     * @param originZ The z coordinate of the first slice, growing by 1 per slice
+     * @return The destination buffer
+     */
+    public FloatBuffer generate(FloatBuffer dest, int width, int height, int depth, float originX, float originY,
+                                float originZ) {
+        if(dest == null)
+            throw new IllegalArgumentException("The destination is null");
+        
+        checkDepth(depth);
+        invoke(FLOAT_BUFFER, null, dest, width, height, depth, originX, originY, originZ, dest.remaining());
+        return dest;
+    }
+    
+    /**
+     * Fills an image of 2D noise into dest as generate(float[], int, int, float, float) does, but
+     * stores every value as unsigned normalized byte, mapping -1 to 0 and 1 to 255 and clamping
+     * values outside of this range. Starts at the buffer position, which is not changed. The
+     * buffer may not be null and must have at least width * height bytes remaining.
+     * 
+     * @param dest The buffer to store the noise in
+     * @param width The width of the image
+     * @param height The height of the image
+     * @param originX The x coordinate of the first column, growing by 1 per column
+     * @param originY The y coordinate of the first row, growing by 1 per row
+     * @return The destination buffer
+     */
+    public ByteBuffer generate(ByteBuffer dest, int width, int height, float originX, float originY) {
+        if(dest == null)
+            throw new IllegalArgumentException("The destination is null");
+        
+        invoke(BYTE_BUFFER, null, dest, width, height, 0, originX, originY, 0.0f, dest.remaining());
+        return dest;
+    }
+    
+    /**
+     * Fills a volume of 3D noise into dest as generate(float[], int, int, int, float, float,
+     * float) does, but stores every value as unsigned normalized byte like
+     * generate(ByteBuffer, int, int, float, float). Starts at the buffer position, which is not
+     * changed. The buffer may not be null and must have at least width * height * depth bytes
+     * remaining.
+     * 
+     * @param dest The buffer to store the noise in
+     * @param width The width of the volume
+     * @param height The height of the volume
+     * @param depth The depth of the volume
+     * @param originX The x coordinate of the first column, growing by 1 per column
+     * @param originY The y coordinate of the first row, growing by 1 per row
+     * @param originZ The z coordinate of the first slice, growing by 1 per slice
+     * @return The destination buffer
+     */
+    public ByteBuffer generate(ByteBuffer dest, int width, int height, int depth, float originX, float originY,
+                               float originZ) {
+        if(dest == null)
+            throw new IllegalArgumentException("The destination is null");
+        
+        checkDepth(depth);
+        invoke(BYTE_BUFFER, null, dest, width, height, depth, originX, originY, originZ, dest.remaining());
+        return dest;
+    }
+    
+    private void invoke(int mode, float[] array, Buffer buffer, int width, int height, int depth, float originX,
+                        float originY, float originZ, int capacity) {
+        if(width < 0 || height < 0)
+            throw new IllegalArgumentException("The size is negative");
+        
+        long size = (long) width * height * Math.max(depth, 1);
+        
+        if(size > capacity)
+            throw new IllegalArgumentException("The destination is too small");
+        
+        pool.invoke(new GenerateTask(this, mode, array, buffer, width, height, depth, originX, originY, originZ, 0,
+                                     height * Math.max(depth, 1), threshold));
+    }
+    
+    private void generateRows(int mode, float[] array, Buffer buffer, int width, int height, int depth,
+                              float originX, float originY, float originZ, int from, int to) {
+        int start = buffer == null ? 0 : buffer.position();
+        
+        for(int row = from; row < to; row++) {
+            float y = originY + row % height + 0.5f;
+            float z = originZ + row / height + 0.5f;
+            int index = start + row * width;
+            
+            for(int column = 0; column < width; column++, index++) {
+                float x = originX + column + 0.5f;
+                float value = depth == 0 ? noise(x, y) : noise(x, y, z);
+                
+                if(mode == FLOAT_ARRAY) {
+                    array[index] = value;
+                } else if(mode == FLOAT_BUFFER) {
+                    ((FloatBuffer) buffer).put(index, value);
+                } else {
+                    float scaled = (value * 0.5f + 0.5f) * 255.0f + 0.5f;
+                    ((ByteBuffer) buffer).put(index, (byte) (scaled < 0.0f ? 0 : scaled > 255.0f ? 255 : (int) scaled));
+                }
+            }
+        }
+    }
+    
+    private float sample(float x, float y) {
+        switch(type) {
+            case VALUE:
+                return value(x, y);
+            case PERLIN:
+                return perlin(x, y);
+            default:
+                return simplex(x, y);
+        }
+    }
+    
+    private float sample(float x, float y, float z) {
+        switch(type) {
+            case VALUE:
+                return value(x, y, z);
+            case PERLIN:
+                return perlin(x, y, z);
+            default:
+                return simplex(x, y, z);
+        }
+    }
+    
+    private float value(float x, float y) {
+        int x0 = floor(x);
+        int y0 = floor(y);
+        float u = fade(x - x0);
+        float v = fade(y - y0);
+        int[] p = permutation;
+        int a = p[x0 & 255];
+        int b = p[(x0 + 1) & 255];
+        int yi = y0 & 255;
+        
+        float bottom = lerp(u, values[p[a + yi]], values[p[b + yi]]);
+        float top = lerp(u, values[p[a + yi + 1]], values[p[b + yi + 1]]);
+        return lerp(v, bottom, top);
+    }
+    
+    private float value(float x, float y, float z) {
+        int x0 = floor(x);
+        int y0 = floor(y);
+        int z0 = floor(z);
+        float u = fade(x - x0);
+        float v = fade(y - y0);
+        float w = fade(z - z0);
+        int[] p = permutation;
+        int zi = z0 & 255;
+        int a = p[x0 & 255] + (y0 & 255);
+        int b = p[(x0 + 1) & 255] + (y0 & 255);
+        int aa = p[a] + zi;
+        int ab = p[a + 1] + zi;
+        int ba = p[b] + zi;
+        int bb = p[b + 1] + zi;
+        
+        float near = lerp(v, lerp(u, values[p[aa]], values[p[ba]]), lerp(u, values[p[ab]], values[p[bb]]));
+        float far = lerp(v, lerp(u, values[p[aa + 1]], values[p[ba + 1]]), lerp(u, values[p[ab + 1]], values[p[bb + 1]]));
+        return lerp(w, near, far);
+    }
+    
+    private float perlin(float x, float y) {
+        int x0 = floor(x);
+        int y0 = floor(y);
+        float fx = x - x0;
+        float fy = y - y0;
+        float u = fade(fx);
+        float v = fade(fy);
+        int[] p = permutation;
+        int a = p[x0 & 255];
+        int b = p[(x0 + 1) & 255];
+        int yi = y0 & 255;
+        
+        float bottom = lerp(u, gradient(p[a + yi], fx, fy), gradient(p[b + yi], fx - 1.0f, fy));
+        float top = lerp(u, gradient(p[a + yi + 1], fx, fy - 1.0f), gradient(p[b + yi + 1], fx - 1.0f, fy - 1.0f));
+        return lerp(v, bottom, top);
+    }
+    
+    private float perlin(float x, float y, float z) {
+        int x0 = floor(x);
+        int y0 = floor(y);
+        int z0 = floor(z);
+        float fx = x - x0;
+        float fy = y - y0;
+        float fz = z - z0;
+        float u = fade(fx);
+        float v = fade(fy);
+        float w = fade(fz);
+        int[] p = permutation;
+        int zi = z0 & 255;
+        int a = p[x0 & 255] + (y0 & 255);
+        int b = p[(x0 + 1) & 255] + (y0 & 255);
+        int aa = p[a] + zi;
+        int ab = p[a + 1] + zi;
+        int ba = p[b] + zi;
+        int bb = p[b + 1] + zi;
+        
+        float near = lerp(v, lerp(u, gradient(p[aa], fx, fy, fz), gradient(p[ba], fx - 1.0f, fy, fz)),
+                          lerp(u, gradient(p[ab], fx, fy - 1.0f, fz), gradient(p[bb], fx - 1.0f, fy - 1.0f, fz)));
+        float far = lerp(v, lerp(u, gradient(p[aa + 1], fx, fy, fz - 1.0f), gradient(p[ba + 1], fx - 1.0f, fy, fz - 1.0f)),
+                         lerp(u, gradient(p[ab + 1], fx, fy - 1.0f, fz - 1.0f),
+                              gradient(p[bb + 1], fx - 1.0f, fy - 1.0f, fz - 1.0f)));
+        return lerp(w, near, far);
+    }
+    
+    private float simplex(float x, float y) {
+        float skew = (x + y) * SKEW_2D;
+        int i = floor(x + skew);
+        int j = floor(y + skew);
+        float unskew = (i + j) * UNSKEW_2D;
+        float x0 = x - (i - unskew);
+        float y0 = y - (j - unskew);
+        int i1 = x0 > y0 ? 1 : 0;
+        int j1 = 1 - i1;
+        float x1 = x0 - i1 + UNSKEW_2D;
+        float y1 = y0 - j1 + UNSKEW_2D;
+        float x2 = x0 - 1.0f + 2.0f * UNSKEW_2D;
+        float y2 = y0 - 1.0f + 2.0f * UNSKEW_2D;
+        int[] p = permutation;
+        int ii = i & 255;
+        int jj = j & 255;
+        
+        float n = corner(p[ii + p[jj]], x0, y0) + corner(p[ii + i1 + p[jj + j1]], x1, y1)
+                  + corner(p[ii + 1 + p[jj + 1]], x2, y2);
+        return 70.0f * n;
+    }
+    
+    private float simplex(float x, float y, float z) {
+        float skew = (x + y + z) * SKEW_3D;
+        int i = floor(x + skew);
+        int j = floor(y + skew);
+        int k = floor(z + skew);
+        float unskew = (i + j + k) * UNSKEW_3D;
+        float x0 = x - (i - unskew);
+        float y0 = y - (j - unskew);
+        float z0 = z - (k - unskew);
+        int xy = x0 >= y0 ? 1 : 0;
+        int xz = x0 >= z0 ? 1 : 0;
+        int yz = y0 >= z0 ? 1 : 0;
+        int rankX = xy + xz;
+        int rankY = 1 - xy + yz;
+        int rankZ = 2 - xz - yz;
+        int i1 = rankX == 2 ? 1 : 0;
+        int j1 = rankY == 2 ? 1 : 0;
+        int k1 = rankZ == 2 ? 1 : 0;
+        int i2 = rankX >= 1 ? 1 : 0;
+        int j2 = rankY >= 1 ? 1 : 0;
+        int k2 = rankZ >= 1 ? 1 : 0;
+        
+        float x1 = x0 - i1 + UNSKEW_3D;
+        float y1 = y0 - j1 + UNSKEW_3D;
+        float z1 = z0 - k1 + UNSKEW_3D;
+        float x2 = x0 - i2 + 2.0f * UNSKEW_3D;
+        float y2 = y0 - j2 + 2.0f * UNSKEW_3D;
+        float z2 = z0 - k2 + 2.0f * UNSKEW_3D;
+        float x3 = x0 - 1.0f + 3.0f * UNSKEW_3D;
+        float y3 = y0 - 1.0f + 3.0f * UNSKEW_3D;
+        float z3 = z0 - 1.0f + 3.0f * UNSKEW_3D;
+        int[] p = permutation;
+        int ii = i & 255;
+        int jj = j & 255;
+        int kk = k & 255;
+        
+        float n = corner(p[ii + p[jj + p[kk]]], x0, y0, z0)
+                  + corner(p[ii + i1 + p[jj + j1 + p[kk + k1]]], x1, y1, z1)
+                  + corner(p[ii + i2 + p[jj + j2 + p[kk + k2]]], x2, y2, z2)
+                  + corner(p[ii + 1 + p[jj + 1 + p[kk + 1]]], x3, y3, z3);
+        return 32.0f * n;
+    }
+    
+    private float corner(int hash, float x, float y) {
+        float t = 0.5f - x * x - y * y;
+        
+        if(t < 0.0f)
+            return 0.0f;
+        
+        t *= t;
+        return t * t * gradient(hash, x, y);
+    }
+    
+    private float corner(int hash, float x, float y, float z) {
+        float t = 0.6f - x * x - y * y - z * z;
+        
+        if(t < 0.0f)
+            return 0.0f;
+        
+        t *= t;
+        return t * t * gradient(hash, x, y, z);
+    }
+    
+    private void updateNormalization() {
+        float sum = 0.0f;
+        float amplitude = 1.0f;
+        
+        for(int octave = 0; octave < octaves; octave++) {
+            sum += amplitude;
+            amplitude *= persistence;
+        }
+        
+        normalization = 1.0f / sum;
+    }
+    
+    private static float gradient(int hash, float x, float y) {
+        int index = (hash & 7) << 1;
+        return GRADIENTS_2D[index] * x + GRADIENTS_2D[index + 1] * y;
+    }
+    
+    private static float gradient(int hash, float x, float y, float z) {
+        int index = (hash % 12) * 3;
+        return GRADIENTS_3D[index] * x + GRADIENTS_3D[index + 1] * y + GRADIENTS_3D[index + 2] * z;
+    }
+    
+    private static int floor(float value) {
+        int result = (int) value;
+        return value < result ? result - 1 : result;
+    }
+    
+    private static float fade(float t) {
+        return t * t * t * (t * (t * 6.0f - 15.0f) + 10.0f);
+    }
+    
+    private static float lerp(float t, float a, float b) {
+        return a + t * (b - a);
+    }
+    
+    private static void checkDepth(int depth) {
+        if(depth < 1)
+            throw new IllegalArgumentException("Depth is less than one");
+    }
+    
+    private static final class GenerateTask extends RecursiveAction {
+        
+        private static final long serialVersionUID = 1L;
+        
+        private NoiseGenerator generator;
+        private int mode;
+        private float[] array;
+        private Buffer buffer;
+        private int width;
+        private int height;
+        private int depth;
+        private float originX;
+        private float originY;
+        private float originZ;
+        private int from;
+        private int to;
+        private int threshold;
+        
+        private GenerateTask(NoiseGenerator generator, int mode, float[] array, Buffer buffer, int width,
+                             int height, int depth, float originX, float originY, float originZ, int from, int to,
+                             int threshold) {
+            this.generator = generator;
+            this.mode = mode;
+            this.array = array;
+            this.buffer = buffer;
+            this.width = width;
+            this.height = height;
+            this.depth = depth;
+            this.originX = originX;
+            this.originY = originY;
+            this.originZ = originZ;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+        
+        @Override
+        protected void compute() {
+            if(to - from <= threshold) {
+                generator.generateRows(mode, array, buffer, width, height, depth, originX, originY, originZ, from, to);
+                return;
+            }
+            
+            int middle = (from + to) >>> 1;
+            
+            invokeAll(new GenerateTask(generator, mode, array, buffer, width, height, depth, originX, originY, originZ,
+                                       from, middle, threshold),
+                      new GenerateTask(generator, mode, array, buffer, width, height, depth, originX, originY, originZ,
+                                       middle, to, threshold));
+        }
+    }
+}
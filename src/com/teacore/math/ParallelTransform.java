@@ -0,0 +1,309 @@
+package com.teacore.math;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Transforms large sets of vertices by a Matrix4f on multiple threads. The vertices are split into
+ * chunks of at most threshold vertices, which are transformed as tasks of a ForkJoinPool. The
+ * interleaved methods work directly on packed vertex data, as held by an OGLVertexArray, where
+ * every vertex consists of stride floats and the vector to transform starts offset floats into
+ * each vertex. Only the transformed components are written, so the destination may be the source
+ * array for an in place transformation.
+ * 
+ * @author ShietStone
+ */
+public class ParallelTransform {
+
+    /**
+     * The default number of vertices below which a chunk is not split up any further.
+     */
+    public static final int DEFAULT_THRESHOLD = 8192;
+    
+    private static final int POINTS = 0;
+    private static final int DIRECTIONS = 1;
+    private static final int VECTORS = 2;
+    
+    private ForkJoinPool pool;
+    private int threshold;
+    
+    /**
+     * Creates a parallel transform running on the common ForkJoinPool with the default
+     * threshold.
+     */
+    public ParallelTransform() {
+        this(ForkJoinPool.commonPool(), DEFAULT_THRESHOLD);
+    }
+    
+    /**
+     * Creates a parallel transform running on the given pool, which may not be null. The threshold
+     * is the number of vertices below which a chunk is transformed by a single task and must be
+     * at least 1.
+     * 
+     * @param pool The pool to run the tasks on
+     * @param threshold The maximum number of vertices per task
+     */
+    public ParallelTransform(ForkJoinPool pool, int threshold) {
+        if(pool == null)
+            throw new IllegalArgumentException("Pool is null");
+        
+        if(threshold < 1)
+            throw new IllegalArgumentException("Threshold is less than one");
+        
+        this.pool = pool;
+        this.threshold = threshold;
+    }
+    
+    /**
+     * Returns the pool the tasks run on.
+     * 
+     * @return The fork join pool
+     */
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+    
+    /**
+     * Returns the maximum number of vertices transformed by a single task.
+     * 
+     * @return The threshold
+     */
+    public int getThreshold() {
+        return threshold;
+    }
+    
+    /**
+     * Sets the maximum number of vertices transformed by a single task, which must be at least 1.
+     * 
+     * @param threshold The threshold
+     */
+    public void setThreshold(int threshold) {
+        if(threshold < 1)
+            throw new IllegalArgumentException("Threshold is less than one");
+        
+        this.threshold = threshold;
+    }
+    
+    /**
+     * Transforms the 3 component points of interleaved vertex data by the given affine matrix,
+     * using an implicit w coordinate of 1 so translations are applied. The last matrix row is
+     * ignored. The destination must have the same length as the data and may be the data itself.
+     * No argument may be null.
+     * 
+     * @param matrix The matrix to transform with
+     * @param data The interleaved vertex data
+     * @param stride The number of floats per vertex
+     * @param offset The index of the points first component within a vertex
+     * @param dest The array to store the transformed points in
+     * @return The destination array
+     */
+    public float[] transformPoints(Matrix4f matrix, float[] data, int stride, int offset, float[] dest) {
+        return invoke(POINTS, matrix, data, stride, offset, 3, dest);
+    }
+    
+    /**
+     * Transforms the 3 component directions (for example normals) of interleaved vertex data by
+     * the given matrix, using an implicit w coordinate of 0 so translations are not applied. The
+     * last matrix row is ignored. The destination must have the same length as the data and may
+     * be the data itself. No argument may be null.
+     * 
+     * @param matrix The matrix to transform with
+     * @param data The interleaved vertex data
+     * @param stride The number of floats per vertex
+     * @param offset The index of the directions first component within a vertex
+     * @param dest The array to store the transformed directions in
+     * @return The destination array
+     */
+    public float[] transformDirections(Matrix4f matrix, float[] data, int stride, int offset, float[] dest) {
+        return invoke(DIRECTIONS, matrix, data, stride, offset, 3, dest);
+    }
+    
+    /**
+     * Multiplies the 4 component vectors of interleaved vertex data with the given matrix. The
+     * destination must have the same length as the data and may be the data itself. No argument
+     * may be null.
+     * 
+     * @param matrix The matrix to multiply with
+     * @param data The interleaved vertex data
+     * @param stride The number of floats per vertex
+     * @param offset The index of the vectors first component within a vertex
+     * @param dest The array to store the transformed vectors in
+     * @return The destination array
+     */
+    public float[] transform(Matrix4f matrix, float[] data, int stride, int offset, float[] dest) {
+        return invoke(VECTORS, matrix, data, stride, offset, 4, dest);
+    }
+    
+    /**
+     * Transforms all vectors of a Vector3fArray as points, as in
+     * Vector3fArray.transformAll(Matrix4f, Vector3fArray), but on multiple threads. The
+     * destination may be the source array but must have the same size. No argument may be null.
+     * 
+     * @param matrix The matrix to transform with
+     * @param array The vectors to transform
+     * @param dest The array to store the result in
+     * @return The destination array
+     */
+    public Vector3fArray transformAll(Matrix4f matrix, Vector3fArray array, Vector3fArray dest) {
+        if(matrix == null || array == null || dest == null)
+            throw new IllegalArgumentException("An argument is null");
+        
+        if(array.size() != dest.size())
+            throw new IllegalArgumentException("The array sizes do not match");
+        
+        pool.invoke(new ArrayTask(matrix, array, dest, 0, array.size(), threshold));
+        return dest;
+    }
+    
+    private float[] invoke(int mode, Matrix4f matrix, float[] data, int stride, int offset, int components, float[] dest) {
+        if(matrix == null || data == null || dest == null)
+            throw new IllegalArgumentException("An argument is null");
+        
+        if(stride < 1)
+            throw new IllegalArgumentException("Stride is less than one");
+        
+        if(offset < 0 || offset + components > stride)
+            throw new IllegalArgumentException("The vector does not fit into the stride");
+        
+        if(data.length % stride != 0)
+            throw new IllegalArgumentException("Data length and stride do not match");
+        
+        if(dest.length != data.length)
+            throw new IllegalArgumentException("Data and destination lengths do not match");
+        
+        pool.invoke(new InterleavedTask(mode, matrix, data, stride, offset, dest, 0, data.length / stride, threshold));
+        return dest;
+    }
+    
+    private static void transformInterleaved(int mode, Matrix4f matrix, float[] data, int stride, int offset,
+                                             float[] dest, int from, int to) {
+        float f00 = matrix.f00;
+        float f01 = matrix.f01;
+        float f02 = matrix.f02;
+        float f03 = matrix.f03;
+        float f10 = matrix.f10;
+        float f11 = matrix.f11;
+        float f12 = matrix.f12;
+        float f13 = matrix.f13;
+        float f20 = matrix.f20;
+        float f21 = matrix.f21;
+        float f22 = matrix.f22;
+        float f23 = matrix.f23;
+        float f30 = matrix.f30;
+        float f31 = matrix.f31;
+        float f32 = matrix.f32;
+        float f33 = matrix.f33;
+        
+        int end = to * stride + offset;
+        
+        if(mode == POINTS) {
+            for(int index = from * stride + offset; index < end; index += stride) {
+                float px = data[index];
+                float py = data[index + 1];
+                float pz = data[index + 2];
+                
+                dest[index] = f00 * px + f01 * py + f02 * pz + f03;
+                dest[index + 1] = f10 * px + f11 * py + f12 * pz + f13;
+                dest[index + 2] = f20 * px + f21 * py + f22 * pz + f23;
+            }
+        } else if(mode == DIRECTIONS) {
+            for(int index = from * stride + offset; index < end; index += stride) {
+                float px = data[index];
+                float py = data[index + 1];
+                float pz = data[index + 2];
+                
+                dest[index] = f00 * px + f01 * py + f02 * pz;
+                dest[index + 1] = f10 * px + f11 * py + f12 * pz;
+                dest[index + 2] = f20 * px + f21 * py + f22 * pz;
+            }
+        } else {
+            for(int index = from * stride + offset; index < end; index += stride) {
+                float px = data[index];
+                float py = data[index + 1];
+                float pz = data[index + 2];
+                float pw = data[index + 3];
+                
+                dest[index] = f00 * px + f01 * py + f02 * pz + f03 * pw;
+                dest[index + 1] = f10 * px + f11 * py + f12 * pz + f13 * pw;
+                dest[index + 2] = f20 * px + f21 * py + f22 * pz + f23 * pw;
+                dest[index + 3] = f30 * px + f31 * py + f32 * pz + f33 * pw;
+            }
+        }
+    }
+    
+    private static final class InterleavedTask extends RecursiveAction {
+        
+        private static final long serialVersionUID = 1L;
+        
+        private int mode;
+        private Matrix4f matrix;
+        private float[] data;
+        private int stride;
+        private int offset;
+        private float[] dest;
+        private int from;
+        private int to;
+        private int threshold;
+        
+        private InterleavedTask(int mode, Matrix4f matrix, float[] data, int stride, int offset, float[] dest,
+                                int from, int to, int threshold) {
+            this.mode = mode;
+            this.matrix = matrix;
+            this.data = data;
+            this.stride = stride;
+            this.offset = offset;
+            this.dest = dest;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+        
+        @Override
+        protected void compute() {
+            if(to - from <= threshold) {
+                transformInterleaved(mode, matrix, data, stride, offset, dest, from, to);
+                return;
+            }
+            
+            int middle = (from + to) >>> 1;
+            
+            invokeAll(new InterleavedTask(mode, matrix, data, stride, offset, dest, from, middle, threshold),
+                      new InterleavedTask(mode, matrix, data, stride, offset, dest, middle, to, threshold));
+        }
+    }
+    
+    private static final class ArrayTask extends RecursiveAction {
+        
+        private static final long serialVersionUID = 1L;
+        
+        private Matrix4f matrix;
+        private Vector3fArray array;
+        private Vector3fArray dest;
+        private int from;
+        private int to;
+        private int threshold;
+        
+        private ArrayTask(Matrix4f matrix, Vector3fArray array, Vector3fArray dest, int from, int to, int threshold) {
+            this.matrix = matrix;
+            this.array = array;
+            this.dest = dest;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+        
+        @Override
+        protected void compute() {
+            if(to - from <= threshold) {
+                BatchMath.getBackend().transformPoints(matrix, array.getX(), array.getY(), array.getZ(),
+                                                       dest.getX(), dest.getY(), dest.getZ(), from, to);
+                return;
+            }
+            
+            int middle = (from + to) >>> 1;
+            
+            invokeAll(new ArrayTask(matrix, array, dest, from, middle, threshold),
+                      new ArrayTask(matrix, array, dest, middle, to, threshold));
+        }
+    }
+}
@@ -0,0 +1,571 @@
+package com.teacore.math;
+
+/**
+ * Represents a rotation as quaternion (x, y, z, w), where (x, y, z) is the vector part and w the
+ * scalar part. Rotations created this way are cheaper to combine and to interpolate than rotation
+ * matrices and do not drift numerically as long as they are normalized from time to time. As with
+ * the vectors, operations are provided as allocating methods, as methods storing their result in a
+ * destination object and as Local methods altering this object. Angles are given in degrees, like
+ * in MathUtil.
+ * 
+ * @author ShietStone
+ */
+public class Quaternionf {
+
+    private static final float SLERP_THRESHOLD = 0.9995f;
+    
+    public float x;
+    public float y;
+    public float z;
+    public float w;
+    
+    /**
+     * Creates the identity quaternion, which represents no rotation.
+     */
+    public Quaternionf() {
+        this(0.0f, 0.0f, 0.0f, 1.0f);
+    }
+    
+    /**
+     * Stores the given quaternion components.
+     * 
+     * @param x The x component
+     * @param y The y component
+     * @param z The z component
+     * @param w The w (scalar) component
+     */
+    public Quaternionf(float x, float y, float z, float w) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.w = w;
+    }
+    
+    /**
+     * Sets this quaternions components to the given values.
+     * 
+     * @param x The x component
+     * @param y The y component
+     * @param z The z component
+     * @param w The w (scalar) component
+     * @return This quaternion
+     */
+    public Quaternionf set(float x, float y, float z, float w) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.w = w;
+        return this;
+    }
+    
+    /**
+     * Sets this quaternions components to the ones of the given quaternion.
+     * 
+     * @param quaternion The quaternion to copy the components from
+     * @return This quaternion
+     */
+    public Quaternionf set(Quaternionf quaternion) {
+        return set(quaternion.x, quaternion.y, quaternion.z, quaternion.w);
+    }
+    
+    /**
+     * Sets this quaternion to the identity quaternion, which represents no rotation.
+     * 
+     * @return This quaternion
+     */
+    public Quaternionf setIdentity() {
+        return set(0.0f, 0.0f, 0.0f, 1.0f);
+    }
+    
+    /**
+     * Sets this quaternion to a rotation around the given axis by the given angle. The axis may
+     * not be null and does not have to be normalized. If its length is zero the quaternion is set
+     * to the identity.
+     * 
+     * @param axis The axis to rotate around
+     * @param angle The angle to rotate by
+     * @return This quaternion
+     */
+    public Quaternionf setAxisAngle(Vector3f axis, float angle) {
+        if(axis == null)
+            throw new IllegalArgumentException("The axis is null");
+        
+        float length = axis.length();
+        
+        if(length == 0.0f)
+            return setIdentity();
+        
+        double halfAngle = Math.toRadians(angle) * 0.5;
+        float scale = (float) Math.sin(halfAngle) / length;
+        
+        return set(axis.x * scale, axis.y * scale, axis.z * scale, (float) Math.cos(halfAngle));
+    }
+    
+    /**
+     * Sets this quaternion to the rotation around the x axis, followed by the rotation around the
+     * y axis, followed by the rotation around the z axis. This is the same rotation as the matrix
+     * product MathUtil.getRotationMatrixZ(angleZ) * getRotationMatrixY(angleY) *
+     * getRotationMatrixX(angleX), but needs only one sine and cosine per angle and no matrix
+     * multiplication.
+     * 
+     * @param angleX The angle to rotate around the x axis by
+     * @param angleY The angle to rotate around the y axis by
+     * @param angleZ The angle to rotate around the z axis by
+     * @return This quaternion
+     */
+    public Quaternionf setEuler(float angleX, float angleY, float angleZ) {
+        double halfX = Math.toRadians(angleX) * 0.5;
+        double halfY = Math.toRadians(angleY) * 0.5;
+        double halfZ = Math.toRadians(angleZ) * 0.5;
+        float sx = (float) Math.sin(halfX);
+        float cx = (float) Math.cos(halfX);
+        float sy = (float) Math.sin(halfY);
+        float cy = (float) Math.cos(halfY);
+        float sz = (float) Math.sin(halfZ);
+        float cz = (float) Math.cos(halfZ);
+        
+        return set(sx * cy * cz - cx * sy * sz,
+                   cx * sy * cz + sx * cy * sz,
+                   cx * cy * sz - sx * sy * cz,
+                   cx * cy * cz + sx * sy * sz);
+    }
+    
+    /**
+     * Calculates the quaternions length.
+     * 
+     * @return The quaternions length
+     */
+    public float length() {
+        return (float) Math.sqrt(x * x + y * y + z * z + w * w);
+    }
+    
+    /**
+     * Returns the dot product of this quaternion and a given one.
+     * 
+     * @param quaternion The quaternion to calculate the dot product with
+     * @return The dot product
+     */
+    public float dot(Quaternionf quaternion) {
+        return x * quaternion.x + y * quaternion.y + z * quaternion.z + w * quaternion.w;
+    }
+    
+    /**
+     * Multiplies this quaternion with another one, which results in the rotation of the given
+     * quaternion followed by the rotation of this one. This object itself is not altered.
+     * 
+     * @param quaternion The quaternion to multiply with
+     * @return The result
+     */
+    public Quaternionf mul(Quaternionf quaternion) {
+        return mul(quaternion, new Quaternionf());
+    }
+    
+    /**
+     * Multiplies this quaternion with another one and stores the result in dest, which may be
+     * this quaternion or the given one. No argument may be null.
+     * 
+     * @param quaternion The quaternion to multiply with
+     * @param dest The quaternion to store the result in
+     * @return The destination quaternion
+     */
+    public Quaternionf mul(Quaternionf quaternion, Quaternionf dest) {
+        if(quaternion == null || dest == null)
+            throw new IllegalArgumentException("An argument is null");
+        
+        return dest.set(w * quaternion.x + x * quaternion.w + y * quaternion.z - z * quaternion.y,
+                        w * quaternion.y - x * quaternion.z + y * quaternion.w + z * quaternion.x,
+                        w * quaternion.z + x * quaternion.y - y * quaternion.x + z * quaternion.w,
+                        w * quaternion.w - x * quaternion.x - y * quaternion.y - z * quaternion.z);
+    }
+    
+    /**
+     * Multiplies this quaternion with another one. The result is stored in this object.
+     * 
+     * @param quaternion The quaternion to multiply with
+     * @return This quaternion
+     */
+    public Quaternionf mulLocal(Quaternionf quaternion) {
+        return mul(quaternion, this);
+    }
+    
+    /**
+     * Normalizes this quaternion, so it represents a pure rotation again. This object itself is
+     * not altered.
+     * 
+     * @return The result
+     */
+    public Quaternionf normalize() {
+        return normalize(new Quaternionf());
+    }
+    
+    /**
+     * Normalizes this quaternion and stores the result in dest. A quaternion with a length of
+     * zero is not changed.
+     * 
+     * @param dest The quaternion to store the result in
+     * @return The destination quaternion
+     */
+    public Quaternionf normalize(Quaternionf dest) {
+        float length = length();
+        
+        if(length == 0.0f)
+            length = 1.0f;
+        
+        return dest.set(x / length, y / length, z / length, w / length);
+    }
+    
+    /**
+     * Normalizes this quaternion. The result is stored in this object.
+     * 
+     * @return This quaternion
+     */
+    public Quaternionf normalizeLocal() {
+        return normalize(this);
+    }
+    
+    /**
+     * Returns the conjugate of this quaternion, which for a normalized quaternion is the inverse
+     * rotation. This object itself is not altered.
+     * 
+     * @return The result
+     */
+    public Quaternionf conjugate() {
+        return conjugate(new Quaternionf());
+    }
+    
+    /**
+     * Stores the conjugate of this quaternion in dest.
+     * 
+     * @param dest The quaternion to store the result in
+     * @return The destination quaternion
+     */
+    public Quaternionf conjugate(Quaternionf dest) {
+        return dest.set(-x, -y, -z, w);
+    }
+    
+    /**
+     * Conjugates this quaternion. The result is stored in this object.
+     * 
+     * @return This quaternion
+     */
+    public Quaternionf conjugateLocal() {
+        return conjugate(this);
+    }
+    
+    /**
+     * Linearly interpolates between this quaternion and another one along the shortest path and
+     * normalizes the result. This is cheaper than slerp() and good enough for close rotations,
+     * like neighbouring animation keyframes, but does not have a constant angular velocity. This
+     * object itself is not altered.
+     * 
+     * @param quaternion The quaternion to interpolate towards
+     * @param factor The interpolation factor, 0 results in this quaternion, 1 in the given one
+     * @return The result
+     */
+    public Quaternionf nlerp(Quaternionf quaternion, float factor) {
+        return nlerp(quaternion, factor, new Quaternionf());
+    }
+    
+    /**
+     * Linearly interpolates between this quaternion and another one and stores the normalized
+     * result in dest, which may be this quaternion or the given one. No argument may be null.
+     * 
+     * @param quaternion The quaternion to interpolate towards
+     * @param factor The interpolation factor, 0 results in this quaternion, 1 in the given one
+     * @param dest The quaternion to store the result in
+     * @return The destination quaternion
+     */
+    public Quaternionf nlerp(Quaternionf quaternion, float factor, Quaternionf dest) {
+        if(quaternion == null || dest == null)
+            throw new IllegalArgumentException("An argument is null");
+        
+        float s = dot(quaternion) < 0.0f ? -factor : factor;
+        
+        return dest.set(x + (quaternion.x * s - x * factor),
+                        y + (quaternion.y * s - y * factor),
+                        z + (quaternion.z * s - z * factor),
+                        w + (quaternion.w * s - w * factor)).normalizeLocal();
+    }
+    
+    /**
+     * Spherically interpolates between this quaternion and another one along the shortest path,
+     * which results in a constant angular velocity. This object itself is not altered.
+     * 
+     * @param quaternion The quaternion to interpolate towards
+     * @param factor The interpolation factor, 0 results in this quaternion, 1 in the given one
+     * @return The result
+     */
+    public Quaternionf slerp(Quaternionf quaternion, float factor) {
+        return slerp(quaternion, factor, new Quaternionf());
+    }
+    
+    /**
+     * Spherically interpolates between this quaternion and another one and stores the result in
+     * dest, which may be this quaternion or the given one. If both quaternions are very close the
+     * interpolation falls back to a normalized linear one to avoid a division by zero. No argument
+     * may be null.
+     * 
+     * @param quaternion The quaternion to interpolate towards
+     * @param factor The interpolation factor, 0 results in this quaternion, 1 in the given one
+     * @param dest The quaternion to store the result in
+     * @return The destination quaternion
+     */
+    public Quaternionf slerp(Quaternionf quaternion, float factor, Quaternionf dest) {
+        if(quaternion == null || dest == null)
+            throw new IllegalArgumentException("An argument is null");
+        
+        float dot = dot(quaternion);
+        float sign = 1.0f;
+        
+        if(dot < 0.0f) {
+            dot = -dot;
+            sign = -1.0f;
+        }
+        
+        float scaleA;
+        float scaleB;
+        
+        if(dot > SLERP_THRESHOLD) {
+            scaleA = 1.0f - factor;
+            scaleB = factor;
+        } else {
+            float theta = (float) Math.acos(dot);
+            float invSin = 1.0f / (float) Math.sin(theta);
+            scaleA = (float) Math.sin((1.0f - factor) * theta) * invSin;
+            scaleB = (float) Math.sin(factor * theta) * invSin;
+        }
+        
+        scaleB *= sign;
+        
+        return dest.set(x * scaleA + quaternion.x * scaleB,
+                        y * scaleA + quaternion.y * scaleB,
+                        z * scaleA + quaternion.z * scaleB,
+                        w * scaleA + quaternion.w * scaleB).normalizeLocal();
+    }
+    
+    /**
+     * Rotates a vector by this quaternion, which should be normalized. This object itself is not
+     * altered.
+     * 
+     * @param vector The vector to rotate
+     * @return The rotated vector
+     */
+    public Vector3f transform(Vector3f vector) {
+        return transform(vector, new Vector3f());
+    }
+    
+    /**
+     * Rotates a vector by this quaternion, which should be normalized, and stores the result in
+     * dest, which may be the given vector itself. No argument may be null.
+     * 
+     * @param vector The vector to rotate
+     * @param dest The vector to store the result in
+     * @return The destination vector
+     */
+    public Vector3f transform(Vector3f vector, Vector3f dest) {
+        if(vector == null || dest == null)
+            throw new IllegalArgumentException("An argument is null");
+        
+        float tx = 2.0f * (y * vector.z - z * vector.y);
+        float ty = 2.0f * (z * vector.x - x * vector.z);
+        float tz = 2.0f * (x * vector.y - y * vector.x);
+        
+        return dest.set(vector.x + w * tx + (y * tz - z * ty),
+                        vector.y + w * ty + (z * tx - x * tz),
+                        vector.z + w * tz + (x * ty - y * tx));
+    }
+    
+    /**
+     * Returns the rotation matrix of this quaternion, which should be normalized.
+     * 
+     * @return The rotation matrix
+     */
+    public Matrix3f toMatrix3f() {
+        return toMatrix3f(new Matrix3f());
+    }
+    
+    /**
+     * Stores the rotation matrix of this quaternion, which should be normalized, in dest. The
+     * destination may not be null.
+     * 
+     * @param dest The matrix to store the rotation in
+     * @return The destination matrix
+     */
+    public Matrix3f toMatrix3f(Matrix3f dest) {
+        if(dest == null)
+            throw new IllegalArgumentException("The destination matrix is null");
+        
+        float xx = x * x;
+        float yy = y * y;
+        float zz = z * z;
+        float xy = x * y;
+        float xz = x * z;
+        float yz = y * z;
+        float wx = w * x;
+        float wy = w * y;
+        float wz = w * z;
+        
+        return dest.set(1.0f - 2.0f * (yy + zz), 2.0f * (xy - wz), 2.0f * (xz + wy),
+                        2.0f * (xy + wz), 1.0f - 2.0f * (xx + zz), 2.0f * (yz - wx),
+                        2.0f * (xz - wy), 2.0f * (yz + wx), 1.0f - 2.0f * (xx + yy));
+    }
+    
+    /**
+     * Returns the rotation matrix of this quaternion, which should be normalized, as 4x4 matrix
+     * without translation.
+     * 
+     * @return The rotation matrix
+     */
+    public Matrix4f toMatrix4f() {
+        return toMatrix4f(new Matrix4f());
+    }
+    
+    /**
+     * Stores the rotation matrix of this quaternion, which should be normalized, in dest as 4x4
+     * matrix without translation. The destination may not be null.
+     * 
+     * @param dest The matrix to store the rotation in
+     * @return The destination matrix
+     */
+    public Matrix4f toMatrix4f(Matrix4f dest) {
+        if(dest == null)
+            throw new IllegalArgumentException("The destination matrix is null");
+        
+        float xx = x * x;
+        float yy = y * y;
+        float zz = z * z;
+        float xy = x * y;
+        float xz = x * z;
+        float yz = y * z;
+        float wx = w * x;
+        float wy = w * y;
+        float wz = w * z;
+        
+        return dest.set(1.0f - 2.0f * (yy + zz), 2.0f * (xy - wz), 2.0f * (xz + wy), 0.0f,
+                        2.0f * (xy + wz), 1.0f - 2.0f * (xx + zz), 2.0f * (yz - wx), 0.0f,
+                        2.0f * (xz - wy), 2.0f * (yz + wx), 1.0f - 2.0f * (xx + yy), 0.0f,
+                        0.0f, 0.0f, 0.0f, 1.0f);
+    }
+    
+    /**
+     * Interpolates the packed quaternions of two arrays pairwise using nlerp(), so that quaternion
+     * i of dest is quaternion i of from interpolated towards quaternion i of to by factor i. Every
+     * quaternion consists of 4 floats (x, y, z, w). This can be used to blend the keyframes of many
+     * animation tracks at once without allocating any objects. The destination may be either
+     * source array. No argument may be null and all arrays must hold at least count quaternions
+     * (respectively factors).
+     * 
+     * @param from The quaternions to interpolate from
+     * @param to The quaternions to interpolate towards
+     * @param factors The interpolation factors, usually between 0 and 1
+     * @param dest The array to store the interpolated quaternions in
+     * @param count The number of quaternions to interpolate
+     * @return The destination array
+     */
+    public static float[] nlerpAll(float[] from, float[] to, float[] factors, float[] dest, int count) {
+        checkArrays(from, to, factors, dest, count);
+        
+        for(int index = 0; index < count; index++) {
+            int base = index * 4;
+            float ax = from[base];
+            float ay = from[base + 1];
+            float az = from[base + 2];
+            float aw = from[base + 3];
+            float bx = to[base];
+            float by = to[base + 1];
+            float bz = to[base + 2];
+            float bw = to[base + 3];
+            float t = factors[index];
+            
+            float dot = ax * bx + ay * by + az * bz + aw * bw;
+            float s = dot < 0.0f ? -t : t;
+            float rx = ax + (bx * s - ax * t);
+            float ry = ay + (by * s - ay * t);
+            float rz = az + (bz * s - az * t);
+            float rw = aw + (bw * s - aw * t);
+            float length = (float) Math.sqrt(rx * rx + ry * ry + rz * rz + rw * rw);
+            float scale = length == 0.0f ? 1.0f : 1.0f / length;
+            
+            dest[base] = rx * scale;
+            dest[base + 1] = ry * scale;
+            dest[base + 2] = rz * scale;
+            dest[base + 3] = rw * scale;
+        }
+        
+        return dest;
+    }
+    
+    /**
+     * Interpolates the packed quaternions of two arrays pairwise using slerp(). See
+     * nlerpAll(float[], float[], float[], float[], int) for the layout and requirements of the
+     * arrays.
+     * 
+     * @param from The quaternions to interpolate from
+     * @param to The quaternions to interpolate towards
+     * @param factors The interpolation factors, between 0 and 1
+     * @param dest The array to store the interpolated quaternions in
+     * @param count The number of quaternions to interpolate
+     * @return The destination array
+     */
+    public static float[] slerpAll(float[] from, float[] to, float[] factors, float[] dest, int count) {
+        checkArrays(from, to, factors, dest, count);
+        
+        for(int index = 0; index < count; index++) {
+            int base = index * 4;
+            float ax = from[base];
+            float ay = from[base + 1];
+            float az = from[base + 2];
+            float aw = from[base + 3];
+            float bx = to[base];
+            float by = to[base + 1];
+            float bz = to[base + 2];
+            float bw = to[base + 3];
+            float t = factors[index];
+            
+            float dot = ax * bx + ay * by + az * bz + aw * bw;
+            float sign = 1.0f;
+            
+            if(dot < 0.0f) {
+                dot = -dot;
+                sign = -1.0f;
+            }
+            
+            float scaleA;
+            float scaleB;
+            
+            if(dot > SLERP_THRESHOLD) {
+                scaleA = 1.0f - t;
+                scaleB = t;
+            } else {
+                float theta = (float) Math.acos(dot);
+                float invSin = 1.0f / (float) Math.sin(theta);
+                scaleA = (float) Math.sin((1.0f - t) * theta) * invSin;
+                scaleB = (float) Math.sin(t * theta) * invSin;
+            }
+            
+            scaleB *= sign;
+            float rx = ax * scaleA + bx * scaleB;
+            float ry = ay * scaleA + by * scaleB;
+            float rz = az * scaleA + bz * scaleB;
+            float rw = aw * scaleA + bw * scaleB;
+            float length = (float) Math.sqrt(rx * rx + ry * ry + rz * rz + rw * rw);
+            float scale = length == 0.0f ? 1.0f : 1.0f / length;
+            
+            dest[base] = rx * scale;
+            dest[base + 1] = ry * scale;
+            dest[base + 2] = rz * scale;
+            dest[base + 3] = rw * scale;
+        }
+        
+        return dest;
+    }
+    
+    private static void checkArrays(float[] from, float[] to, float[] factors, float[] dest, int count) {
+        if(from == null || to == null || factors == null || dest == null)
+            throw new IllegalArgumentException("An argument is null");
+        
+        if(count < 0 || from.length / 4 < count || to.length / 4 < count || dest.length / 4 < count
+                || factors.length < count)
+            throw new IllegalArgumentException("An array is too small");
+    }
+}
@@ -0,0 +1,444 @@
+package com.teacore.math;
+
+/**
+ * Represents a ray with an origin and a direction, mainly used for mouse picking. A ray can be
+ * created from a point on the screen (for example GLFWWindow.getCursorX() and getCursorY()) and an
+ * inverse projection * view matrix, and then be tested against single objects or batches of axis
+ * aligned bounding boxes, spheres and indexed triangle meshes packed in float arrays. The batch
+ * methods return the index of the nearest object hit, whose distance can be read with
+ * getHitDistance() afterwards. Distances are measured in multiples of the direction, which is
+ * normalized when the ray is created from a screen point, so they are in world units then. For
+ * large scenes BoundingVolumeHierarchy.queryRay() can narrow down the candidates first. No method
+ * allocates any objects.
+ * 
+ * @author ShietStone
+ */
+public class Ray {
+
+    private static final float EPSILON = 1e-7f;
+    
+    public final Vector3f origin;
+    public final Vector3f direction;
+    
+    private float hitDistance;
+    
+    /**
+     * Creates a ray at the origin pointing along the positive z axis.
+     */
+    public Ray() {
+        origin = new Vector3f();
+        direction = new Vector3f(0.0f, 0.0f, 1.0f);
+        hitDistance = Float.POSITIVE_INFINITY;
+    }
+    
+    /**
+     * Creates a ray with the given origin and direction.
+     * 
+     * @param originX The x coordinate of the origin
+     * @param originY The y coordinate of the origin
+     * @param originZ The z coordinate of the origin
+     * @param directionX The x coordinate of the direction
+     * @param directionY The y coordinate of the direction
+     * @param directionZ The z coordinate of the direction
+     */
+    public Ray(float originX, float originY, float originZ, float directionX, float directionY, float directionZ) {
+        this();
+        set(originX, originY, originZ, directionX, directionY, directionZ);
+    }
+    
+    /**
+     * Sets the origin and the direction of this ray. The direction is not normalized.
+     * 
+     * @param originX The x coordinate of the origin
+     * @param originY The y coordinate of the origin
+     * @param originZ The z coordinate of the origin
+     * @param directionX The x coordinate of the direction
+     * @param directionY The y coordinate of the direction
+     * @param directionZ The z coordinate of the direction
+     * @return This ray
+     */
+    public Ray set(float originX, float originY, float originZ, float directionX, float directionY, float directionZ) {
+        origin.set(originX, originY, originZ);
+        direction.set(directionX, directionY, directionZ);
+        return this;
+    }
+    
+    /**
+     * Sets this ray to the one going through the given point on the screen, from the near to the
+     * far clipping plane. The screen point is given in window coordinates with the origin in the
+     * upper left corner, as returned by GLFWWindow.getCursorX() and getCursorY() together with
+     * getWindowWidth() and getWindowHeight(). The matrix is the inverse of the projection * view
+     * matrix, mapping OpenGL normalized device coordinates back to world space via
+     * Matrix4f.mul(Vector4f). The direction is normalized. The matrix may not be null.
+     * 
+     * @param screenX The x coordinate on the screen
+     * @param screenY The y coordinate on the screen
+     * @param width The width of the screen
+     * @param height The height of the screen
+     * @param inverseMatrix The inverse projection * view matrix
+     * @return This ray
+     */
+    public Ray setFromScreen(float screenX, float screenY, int width, int height, Matrix4f inverseMatrix) {
+        if(inverseMatrix == null)
+            throw new IllegalArgumentException("The matrix is null");
+        
+        Matrix4f m = inverseMatrix;
+        return unproject(screenX, screenY, width, height,
+                         m.f00, m.f01, m.f02, m.f03,
+                         m.f10, m.f11, m.f12, m.f13,
+                         m.f20, m.f21, m.f22, m.f23,
+                         m.f30, m.f31, m.f32, m.f33);
+    }
+    
+    /**
+     * Does the same as setFromScreen(), but takes the inverse matrix stored transposed, like the
+     * matrices returned by MathUtil.getInverseProjectionMatrix(). See Frustum.setTransposed(). The
+     * matrix may not be null.
+     * 
+     * @param screenX The x coordinate on the screen
+     * @param screenY The y coordinate on the screen
+     * @param width The width of the screen
+     * @param height The height of the screen
+     * @param inverseMatrix The transposed inverse projection * view matrix
+     * @return This ray
+     */
+    public Ray setFromScreenTransposed(float screenX, float screenY, int width, int height, Matrix4f inverseMatrix) {
+        if(inverseMatrix == null)
+            throw new IllegalArgumentException("The matrix is null");
+        
+        Matrix4f m = inverseMatrix;
+        return unproject(screenX, screenY, width, height,
+                         m.f00, m.f10, m.f20, m.f30,
+                         m.f01, m.f11, m.f21, m.f31,
+                         m.f02, m.f12, m.f22, m.f32,
+                         m.f03, m.f13, m.f23, m.f33);
+    }
+    
+    /**
+     * Stores this ray transformed by the given matrix in dest, which may be this ray. The origin is
+     * transformed as point and the direction as direction, which is not normalized again, so
+     * distances along the transformed ray match the ones along this ray. Transforming a world space
+     * ray by the inverse of a model matrix allows testing it against the untransformed mesh. No
+     * argument may be null.
+     * 
+     * @param matrix The transformation matrix
+     * @param dest The ray to store the result in
+     * @return The destination ray
+     */
+    public Ray transform(Matrix4f matrix, Ray dest) {
+        if(matrix == null || dest == null)
+            throw new IllegalArgumentException("An argument is null");
+        
+        float ox = origin.x;
+        float oy = origin.y;
+        float oz = origin.z;
+        float dx = direction.x;
+        float dy = direction.y;
+        float dz = direction.z;
+        
+        return dest.set(matrix.f00 * ox + matrix.f01 * oy + matrix.f02 * oz + matrix.f03,
+                        matrix.f10 * ox + matrix.f11 * oy + matrix.f12 * oz + matrix.f13,
+                        matrix.f20 * ox + matrix.f21 * oy + matrix.f22 * oz + matrix.f23,
+                        matrix.f00 * dx + matrix.f01 * dy + matrix.f02 * dz,
+                        matrix.f10 * dx + matrix.f11 * dy + matrix.f12 * dz,
+                        matrix.f20 * dx + matrix.f21 * dy + matrix.f22 * dz);
+    }
+    
+    /**
+     * Stores the point at the given distance along this ray in dest, which may not be null.
+     * 
+     * @param distance The distance along the ray
+     * @param dest The vector to store the point in
+     * @return The destination vector
+     */
+    public Vector3f getPoint(float distance, Vector3f dest) {
+        if(dest == null)
+            throw new IllegalArgumentException("The destination vector is null");
+        
+        return dest.set(origin.x + direction.x * distance, origin.y + direction.y * distance, origin.z + direction.z * distance);
+    }
+    
+    /**
+     * Returns the distance of the nearest hit found by the last batch intersection method. It is
+     * positive infinity if nothing was hit.
+     * 
+     * @return The distance of the last hit
+     */
+    public float getHitDistance() {
+        return hitDistance;
+    }
+    
+    /**
+     * Returns the distance at which this ray enters the given axis aligned bounding box, which is
+     * zero if the origin lies inside of it.
+     * 
+     * @param minX The minimum x coordinate
+     * @param minY The minimum y coordinate
+     * @param minZ The minimum z coordinate
+     * @param maxX The maximum x coordinate
+     * @param maxY The maximum y coordinate
+     * @param maxZ The maximum z coordinate
+     * @return The distance of the hit or -1.0 if the box is not hit
+     */
+    public float intersectAABB(float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
+        return intersectSlabs(minX, minY, minZ, maxX, maxY, maxZ, origin.x, origin.y, origin.z, 1.0f / direction.x,
+                              1.0f / direction.y, 1.0f / direction.z, Float.POSITIVE_INFINITY);
+    }
+    
+    /**
+     * Returns the distance at which this ray enters the given sphere, which is zero if the origin
+     * lies inside of it.
+     * 
+     * @param x The x coordinate of the center
+     * @param y The y coordinate of the center
+     * @param z The z coordinate of the center
+     * @param radius The radius
+     * @return The distance of the hit or -1.0 if the sphere is not hit
+     */
+    public float intersectSphere(float x, float y, float z, float radius) {
+        return intersectSphere(x, y, z, radius, direction.x * direction.x + direction.y * direction.y + direction.z * direction.z);
+    }
+    
+    /**
+     * Returns the distance at which this ray hits the given triangle. Both sides of the triangle
+     * are hit.
+     * 
+     * @param x0 The x coordinate of the first vertex
+     * @param y0 The y coordinate of the first vertex
+     * @param z0 The z coordinate of the first vertex
+     * @param x1 The x coordinate of the second vertex
+     * @param y1 The y coordinate of the second vertex
+     * @param z1 The z coordinate of the second vertex
+     * @param x2 The x coordinate of the third vertex
+     * @param y2 The y coordinate of the third vertex
+     * @param z2 The z coordinate of the third vertex
+     * @return The distance of the hit or -1.0 if the triangle is not hit
+     */
+    public float intersectTriangle(float x0, float y0, float z0, float x1, float y1, float z1, float x2, float y2, float z2) {
+        float e1x = x1 - x0;
+        float e1y = y1 - y0;
+        float e1z = z1 - z0;
+        float e2x = x2 - x0;
+        float e2y = y2 - y0;
+        float e2z = z2 - z0;
+        float px = direction.y * e2z - direction.z * e2y;
+        float py = direction.z * e2x - direction.x * e2z;
+        float pz = direction.x * e2y - direction.y * e2x;
+        float determinant = e1x * px + e1y * py + e1z * pz;
+        
+        if(determinant > -EPSILON && determinant < EPSILON)
+            return -1.0f;
+        
+        float inverse = 1.0f / determinant;
+        float tx = origin.x - x0;
+        float ty = origin.y - y0;
+        float tz = origin.z - z0;
+        float u = (tx * px + ty * py + tz * pz) * inverse;
+        
+        if(u < 0.0f || u > 1.0f)
+            return -1.0f;
+        
+        float qx = ty * e1z - tz * e1y;
+        float qy = tz * e1x - tx * e1z;
+        float qz = tx * e1y - ty * e1x;
+        float v = (direction.x * qx + direction.y * qy + direction.z * qz) * inverse;
+        
+        if(v < 0.0f || u + v > 1.0f)
+            return -1.0f;
+        
+        float distance = (e2x * qx + e2y * qy + e2z * qz) * inverse;
+        return distance >= 0.0f ? distance : -1.0f;
+    }
+    
+    /**
+     * Tests this ray against a batch of axis aligned bounding boxes packed as (minX, minY, minZ,
+     * maxX, maxY, maxZ) in the given array and returns the index of the nearest box hit. The boxes
+     * array may not be null and must hold count boxes.
+     * 
+     * @param boxes The packed boxes
+     * @param count The number of boxes to test
+     * @return The index of the nearest box hit or -1 if none is hit
+     */
+    public int intersectAABBs(float[] boxes, int count) {
+        checkBatch(boxes, 6, count);
+        
+        float inverseX = 1.0f / direction.x;
+        float inverseY = 1.0f / direction.y;
+        float inverseZ = 1.0f / direction.z;
+        float closest = Float.POSITIVE_INFINITY;
+        int hit = -1;
+        
+        for(int index = 0; index < count; index++) {
+            int base = index * 6;
+            float distance = intersectSlabs(boxes[base], boxes[base + 1], boxes[base + 2], boxes[base + 3], boxes[base + 4],
+                                            boxes[base + 5], origin.x, origin.y, origin.z, inverseX, inverseY, inverseZ,
+                                            Float.POSITIVE_INFINITY);
+            
+            if(distance >= 0.0f && distance < closest) {
+                closest = distance;
+                hit = index;
+            }
+        }
+        
+        hitDistance = closest;
+        return hit;
+    }
+    
+    /**
+     * Tests this ray against a batch of spheres packed as (x, y, z, radius) in the given array and
+     * returns the index of the nearest sphere hit. The spheres array may not be null and must hold
+     * count spheres.
+     * 
+     * @param spheres The packed spheres
+     * @param count The number of spheres to test
+     * @return The index of the nearest sphere hit or -1 if none is hit
+     */
+    public int intersectSpheres(float[] spheres, int count) {
+        checkBatch(spheres, 4, count);
+        
+        float lengthSquared = direction.x * direction.x + direction.y * direction.y + direction.z * direction.z;
+        float closest = Float.POSITIVE_INFINITY;
+        int hit = -1;
+        
+        for(int index = 0; index < count; index++) {
+            int base = index * 4;
+            float distance = intersectSphere(spheres[base], spheres[base + 1], spheres[base + 2], spheres[base + 3], lengthSquared);
+            
+            if(distance >= 0.0f && distance < closest) {
+                closest = distance;
+                hit = index;
+            }
+        }
+        
+        hitDistance = closest;
+        return hit;
+    }
+    
+    /**
+     * Tests this ray against an indexed triangle mesh and returns the index of the nearest triangle
+     * hit, which is its first index position divided by three. The mesh is given like for an
+     * OGLVertexArrayObject: the vertex data of the position array, its vertex size (of which the
+     * first three components are used as position) and the indices, three per triangle. No argument
+     * may be null.
+     * 
+     * @param vertexData The packed vertex positions
+     * @param vertexSize The number of floats per vertex
+     * @param indices The vertex indices, three per triangle
+     * @return The index of the nearest triangle hit or -1 if none is hit
+     */
+    public int intersectTriangles(float[] vertexData, int vertexSize, int[] indices) {
+        if(vertexData == null || indices == null)
+            throw new IllegalArgumentException("An argument is null");
+        
+        if(vertexSize < 3)
+            throw new IllegalArgumentException("Vertex size is less than three");
+        
+        float closest = Float.POSITIVE_INFINITY;
+        int hit = -1;
+        
+        for(int index = 0; index + 2 < indices.length; index += 3) {
+            int v0 = indices[index] * vertexSize;
+            int v1 = indices[index + 1] * vertexSize;
+            int v2 = indices[index + 2] * vertexSize;
+            float distance = intersectTriangle(vertexData[v0], vertexData[v0 + 1], vertexData[v0 + 2],
+                                               vertexData[v1], vertexData[v1 + 1], vertexData[v1 + 2],
+                                               vertexData[v2], vertexData[v2 + 1], vertexData[v2 + 2]);
+            
+            if(distance >= 0.0f && distance < closest) {
+                closest = distance;
+                hit = index / 3;
+            }
+        }
+        
+        hitDistance = closest;
+        return hit;
+    }
+    
+    private Ray unproject(float screenX, float screenY, int width, int height,
+                          float m00, float m01, float m02, float m03,
+                          float m10, float m11, float m12, float m13,
+                          float m20, float m21, float m22, float m23,
+                          float m30, float m31, float m32, float m33) {
+        if(width < 1 || height < 1)
+            throw new IllegalArgumentException("Invalid screen size");
+        
+        float x = 2.0f * screenX / width - 1.0f;
+        float y = 1.0f - 2.0f * screenY / height;
+        
+        float nearW = 1.0f / (m30 * x + m31 * y - m32 + m33);
+        float nearX = (m00 * x + m01 * y - m02 + m03) * nearW;
+        float nearY = (m10 * x + m11 * y - m12 + m13) * nearW;
+        float nearZ = (m20 * x + m21 * y - m22 + m23) * nearW;
+        
+        float farW = 1.0f / (m30 * x + m31 * y + m32 + m33);
+        float farX = (m00 * x + m01 * y + m02 + m03) * farW;
+        float farY = (m10 * x + m11 * y + m12 + m13) * farW;
+        float farZ = (m20 * x + m21 * y + m22 + m23) * farW;
+        
+        origin.set(nearX, nearY, nearZ);
+        direction.set(farX - nearX, farY - nearY, farZ - nearZ).normalizeLocal();
+        return this;
+    }
+    
+    /**
+     * Returns the distance at which a ray enters the given axis aligned bounding box or -1.0 if it
+     * misses it, using the slab test. Shared by Ray and BoundingVolumeHierarchy. The ray is given
+     * by its origin and the reciprocals of its direction components, so they can be computed once
+     * for many boxes. Only hits between 0 and maxDistance count. A direction component of 0 with
+     * the origin on a slab plane gives 0 * Infinity = NaN. The ray then lies within that slab, so
+     * the slab bounds are combined with comparisons that skip NaN instead of Math.min() and
+     * Math.max(), which would pass it on and report a miss.
+     */
+    static float intersectSlabs(float minX, float minY, float minZ, float maxX, float maxY, float maxZ,
+                                float originX, float originY, float originZ,
+                                float inverseX, float inverseY, float inverseZ, float maxDistance) {
+        float x1 = (minX - originX) * inverseX;
+        float x2 = (maxX - originX) * inverseX;
+        float y1 = (minY - originY) * inverseY;
+        float y2 = (maxY - originY) * inverseY;
+        float z1 = (minZ - originZ) * inverseZ;
+        float z2 = (maxZ - originZ) * inverseZ;
+        
+        float near = larger(larger(larger(0.0f, Math.min(x1, x2)), Math.min(y1, y2)), Math.min(z1, z2));
+        float far = smaller(smaller(smaller(maxDistance, Math.max(x1, x2)), Math.max(y1, y2)), Math.max(z1, z2));
+        
+        return near <= far ? near : -1.0f;
+    }
+    
+    private float intersectSphere(float x, float y, float z, float radius, float lengthSquared) {
+        float ox = origin.x - x;
+        float oy = origin.y - y;
+        float oz = origin.z - z;
+        float b = ox * direction.x + oy * direction.y + oz * direction.z;
+        float c = ox * ox + oy * oy + oz * oz - radius * radius;
+        
+        if(c <= 0.0f)
+            return 0.0f;
+        
+        if(b > 0.0f)
+            return -1.0f;
+        
+        float discriminant = b * b - lengthSquared * c;
+        
+        if(discriminant < 0.0f)
+            return -1.0f;
+        
+        return (-b - (float) Math.sqrt(discriminant)) / lengthSquared;
+    }
+    
+    private void checkBatch(float[] data, int floatsPerObject, int count) {
+        if(data == null)
+            throw new IllegalArgumentException("The data array is null");
+        
+        if(count < 0 || data.length / floatsPerObject < count)
+            throw new IllegalArgumentException("The data array is too small");
+    }
+    
+    private static float larger(float value, float candidate) {
+        return candidate > value ? candidate : value;
+    }
+    
+    private static float smaller(float value, float candidate) {
+        return candidate < value ? candidate : value;
+    }
+}
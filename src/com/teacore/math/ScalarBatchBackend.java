@@ -0,0 +1,160 @@
+package com.teacore.math;
+
+/**
+ * The plain Java implementation of the batch loops. It is always available and serves as fallback
+ * if the Vector API cannot be used. The JIT compiler may still vectorize some of these loops.
+ * 
+ * @author ShietStone
+ */
+final class ScalarBatchBackend implements BatchBackend {
+
+    @Override
+    public void transform(Matrix4f matrix, float[] x, float[] y, float[] z, float[] w,
+                          float[] dx, float[] dy, float[] dz, float[] dw, int from, int to) {
+        float f00 = matrix.f00;
+        float f01 = matrix.f01;
+        float f02 = matrix.f02;
+        float f03 = matrix.f03;
+        float f10 = matrix.f10;
+        float f11 = matrix.f11;
+        float f12 = matrix.f12;
+        float f13 = matrix.f13;
+        float f20 = matrix.f20;
+        float f21 = matrix.f21;
+        float f22 = matrix.f22;
+        float f23 = matrix.f23;
+        float f30 = matrix.f30;
+        float f31 = matrix.f31;
+        float f32 = matrix.f32;
+        float f33 = matrix.f33;
+        
+        for(int index = from; index < to; index++) {
+            float px = x[index];
+            float py = y[index];
+            float pz = z[index];
+            float pw = w[index];
+            
+            dx[index] = f00 * px + f01 * py + f02 * pz + f03 * pw;
+            dy[index] = f10 * px + f11 * py + f12 * pz + f13 * pw;
+            dz[index] = f20 * px + f21 * py + f22 * pz + f23 * pw;
+            dw[index] = f30 * px + f31 * py + f32 * pz + f33 * pw;
+        }
+    }
+    
+    @Override
+    public void transformPoints(Matrix4f matrix, float[] x, float[] y, float[] z,
+                                float[] dx, float[] dy, float[] dz, int from, int to) {
+        float f00 = matrix.f00;
+        float f01 = matrix.f01;
+        float f02 = matrix.f02;
+        float f03 = matrix.f03;
+        float f10 = matrix.f10;
+        float f11 = matrix.f11;
+        float f12 = matrix.f12;
+        float f13 = matrix.f13;
+        float f20 = matrix.f20;
+        float f21 = matrix.f21;
+        float f22 = matrix.f22;
+        float f23 = matrix.f23;
+        
+        for(int index = from; index < to; index++) {
+            float px = x[index];
+            float py = y[index];
+            float pz = z[index];
+            
+            dx[index] = f00 * px + f01 * py + f02 * pz + f03;
+            dy[index] = f10 * px + f11 * py + f12 * pz + f13;
+            dz[index] = f20 * px + f21 * py + f22 * pz + f23;
+        }
+    }
+    
+    @Override
+    public void normalize(float[] x, float[] y, float[] z, int from, int to) {
+        for(int index = from; index < to; index++) {
+            float px = x[index];
+            float py = y[index];
+            float pz = z[index];
+            float length = (float) Math.sqrt(px * px + py * py + pz * pz);
+            float scale = length == 0.0f ? 1.0f : 1.0f / length;
+            x[index] = px * scale;
+            y[index] = py * scale;
+            z[index] = pz * scale;
+        }
+    }
+    
+    @Override
+    public void normalize(float[] x, float[] y, float[] z, float[] w, int from, int to) {
+        for(int index = from; index < to; index++) {
+            float px = x[index];
+            float py = y[index];
+            float pz = z[index];
+            float pw = w[index];
+            float length = (float) Math.sqrt(px * px + py * py + pz * pz + pw * pw);
+            float scale = length == 0.0f ? 1.0f : 1.0f / length;
+            x[index] = px * scale;
+            y[index] = py * scale;
+            z[index] = pz * scale;
+            w[index] = pw * scale;
+        }
+    }
+    
+    @Override
+    public void mul(float[] left, int leftStep, float[] right, float[] dest, int from, int to) {
+        for(int index = from; index < to; index++) {
+            int l = index * leftStep;
+            
+            mul(left[l], left[l + 1], left[l + 2], left[l + 3],
+                left[l + 4], left[l + 5], left[l + 6], left[l + 7],
+                left[l + 8], left[l + 9], left[l + 10], left[l + 11],
+                left[l + 12], left[l + 13], left[l + 14], left[l + 15], right, dest, index * 16);
+        }
+    }
+            
+    @Override
+    public void mul(Matrix4f left, float[] right, float[] dest, int from, int to) {
+        for(int index = from; index < to; index++)
+            mul(left.f00, left.f01, left.f02, left.f03,
+                left.f10, left.f11, left.f12, left.f13,
+                left.f20, left.f21, left.f22, left.f23,
+                left.f30, left.f31, left.f32, left.f33, right, dest, index * 16);
+    }
+            
+    private void mul(float a00, float a01, float a02, float a03,
+                     float a10, float a11, float a12, float a13,
+                     float a20, float a21, float a22, float a23,
+                     float a30, float a31, float a32, float a33, float[] right, float[] dest, int r) {
+        float b00 = right[r];
+        float b01 = right[r + 1];
+        float b02 = right[r + 2];
+        float b03 = right[r + 3];
+        float b10 = right[r + 4];
+        float b11 = right[r + 5];
+        float b12 = right[r + 6];
+        float b13 = right[r + 7];
+        float b20 = right[r + 8];
+        float b21 = right[r + 9];
+        float b22 = right[r + 10];
+        float b23 = right[r + 11];
+        float b30 = right[r + 12];
+        float b31 = right[r + 13];
+        float b32 = right[r + 14];
+        float b33 = right[r + 15];
+        
+        dest[r] = a00 * b00 + a01 * b10 + a02 * b20 + a03 * b30;
+        dest[r + 1] = a00 * b01 + a01 * b11 + a02 * b21 + a03 * b31;
+        dest[r + 2] = a00 * b02 + a01 * b12 + a02 * b22 + a03 * b32;
+        dest[r + 3] = a00 * b03 + a01 * b13 + a02 * b23 + a03 * b33;
+        dest[r + 4] = a10 * b00 + a11 * b10 + a12 * b20 + a13 * b30;
+        dest[r + 5] = a10 * b01 + a11 * b11 + a12 * b21 + a13 * b31;
+        dest[r + 6] = a10 * b02 + a11 * b12 + a12 * b22 + a13 * b32;
+        dest[r + 7] = a10 * b03 + a11 * b13 + a12 * b23 + a13 * b33;
+        dest[r + 8] = a20 * b00 + a21 * b10 + a22 * b20 + a23 * b30;
+        dest[r + 9] = a20 * b01 + a21 * b11 + a22 * b21 + a23 * b31;
+        dest[r + 10] = a20 * b02 + a21 * b12 + a22 * b22 + a23 * b32;
+        dest[r + 11] = a20 * b03 + a21 * b13 + a22 * b23 + a23 * b33;
+        dest[r + 12] = a30 * b00 + a31 * b10 + a32 * b20 + a33 * b30;
+        dest[r + 13] = a30 * b01 + a31 * b11 + a32 * b21 + a33 * b31;
+        dest[r + 14] = a30 * b02 + a31 * b12 + a32 * b22 + a33 * b32;
+        dest[r + 15] = a30 * b03 + a31 * b13 + a32 * b23 + a33 * b33;
+    }
+}
@@ -0,0 +1,383 @@
+package com.teacore.math;
+
+import java.util.Arrays;
+
+/**
+ * A uniform grid over the 2D plane, used as broad phase to find the points near a position or
+ * inside a rectangle without testing every single one. Points are identified by ids between 0 and
+ * the capacity, for example the indices of game objects or of a Vector2fArray. The grid is
+ * unbounded: cells are mapped to a fixed number of buckets with a hash, and the points of a bucket
+ * are linked through flat int arrays instead of lists of objects, so inserting, moving and removing
+ * a point takes constant time and allocates nothing.
+ * <p>
+ * Queries visit only the cells overlapping the searched area, so their cost depends on the number
+ * of points nearby instead of the total number. The cell size should be about the typical query
+ * radius: much smaller cells make queries visit many empty cells, much larger ones make them test
+ * many distant points. Coordinates whose cell lies outside of the int range are put into the
+ * outermost cells. A grid must not be modified while it is queried by another thread.
+ * 
+ * @author ShietStone
+ */
+public class SpatialHashGrid {
+
+    private float cellSize;
+    private float inverseCellSize;
+    private int bucketMask;
+    private int[] buckets;
+    private int[] next;
+    private int[] previous;
+    private int[] entryBucket;
+    private int[] cellX;
+    private int[] cellY;
+    private float[] positionX;
+    private float[] positionY;
+    private int size;
+    
+    /**
+     * Creates an empty grid with the given cell size for ids between 0 and capacity - 1. If the
+     * cell size is not positive or the capacity is negative an IllegalArgumentException is thrown.
+     * 
+     * @param cellSize The width and height of a cell
+     * @param capacity The number of ids
+     */
+    public SpatialHashGrid(float cellSize, int capacity) {
+        if(!(cellSize > 0.0f) || Float.isInfinite(cellSize))
+            throw new IllegalArgumentException("The cell size must be positive");
+        
+        if(capacity < 0)
+            throw new IllegalArgumentException("The capacity is negative");
+        
+        int bucketCount = 16;
+        
+        while(bucketCount < capacity && bucketCount < 1 << 30)
+            bucketCount <<= 1;
+        
+        this.cellSize = cellSize;
+        inverseCellSize = 1.0f / cellSize;
+        bucketMask = bucketCount - 1;
+        buckets = new int[bucketCount];
+        next = new int[capacity];
+        previous = new int[capacity];
+        entryBucket = new int[capacity];
+        cellX = new int[capacity];
+        cellY = new int[capacity];
+        positionX = new float[capacity];
+        positionY = new float[capacity];
+        clear();
+    }
+    
+    /**
+     * Removes all points from this grid.
+     */
+    public void clear() {
+        Arrays.fill(buckets, -1);
+        Arrays.fill(entryBucket, -1);
+        size = 0;
+    }
+    
+    /**
+     * Inserts a point with the given id at the given position. If the id is out of range or
+     * already contained an IllegalArgumentException is thrown.
+     * 
+     * @param id The id of the point
+     * @param x The x coordinate
+     * @param y The y coordinate
+     */
+    public void insert(int id, float x, float y) {
+        checkId(id);
+        
+        if(entryBucket[id] != -1)
+            throw new IllegalArgumentException("The id is already contained");
+        
+        positionX[id] = x;
+        positionY[id] = y;
+        link(id, toCell(x), toCell(y));
+        size++;
+    }
+    
+    /**
+     * Inserts a point with the given id at the given position. If the position is null, the id is
+     * out of range or already contained an IllegalArgumentException is thrown.
+     * 
+     * @param id The id of the point
+     * @param position The position
+     */
+    public void insert(int id, Vector2f position) {
+        if(position == null)
+            throw new IllegalArgumentException("The position is null");
+        
+        insert(id, position.x, position.y);
+    }
+    
+    /**
+     * Moves the point with the given id to the given position. The point is only relinked if it
+     * changes its cell. If the id is out of range or not contained an IllegalArgumentException is
+     * thrown.
+     * 
+     * @param id The id of the point
+     * @param x The new x coordinate
+     * @param y The new y coordinate
+     */
+    public void move(int id, float x, float y) {
+        checkContained(id);
+        
+        positionX[id] = x;
+        positionY[id] = y;
+        
+        int newCellX = toCell(x);
+        int newCellY = toCell(y);
+        
+        if(newCellX != cellX[id] || newCellY != cellY[id]) {
+            unlink(id);
+            link(id, newCellX, newCellY);
+        }
+    }
+    
+    /**
+     * Moves the point with the given id to the given position. If the position is null, the id is
+     * out of range or not contained an IllegalArgumentException is thrown.
+     * 
+     * @param id The id of the point
+     * @param position The new position
+     */
+    public void move(int id, Vector2f position) {
+        if(position == null)
+            throw new IllegalArgumentException("The position is null");
+        
+        move(id, position.x, position.y);
+    }
+    
+    /**
+     * Inserts or moves the points with the ids 0 to positions.size() - 1 to the positions in the
+     * given array, for example once per frame after all objects have moved. If the array is null
+     * or larger than the capacity an IllegalArgumentException is thrown.
+     * 
+     * @param positions The positions of the points
+     */
+    public void updateAll(Vector2fArray positions) {
+        if(positions == null)
+            throw new IllegalArgumentException("The positions are null");
+        
+        if(positions.size() > entryBucket.length)
+            throw new IllegalArgumentException("The positions exceed the capacity");
+        
+        float[] x = positions.getX();
+        float[] y = positions.getY();
+        
+        for(int id = 0; id < positions.size(); id++) {
+            if(entryBucket[id] == -1)
+                insert(id, x[id], y[id]);
+            else
+                move(id, x[id], y[id]);
+        }
+    }
+    
+    /**
+     * Removes the point with the given id. If the id is out of range or not contained an
+     * IllegalArgumentException is thrown.
+     * 
+     * @param id The id of the point
+     */
+    public void remove(int id) {
+        checkContained(id);
+        unlink(id);
+        entryBucket[id] = -1;
+        size--;
+    }
+    
+    /**
+     * Returns if a point with the given id is contained. Ids out of range are never contained.
+     * 
+     * @param id The id of the point
+     * @return If the point is contained
+     */
+    public boolean contains(int id) {
+        return id >= 0 && id < entryBucket.length && entryBucket[id] != -1;
+    }
+    
+    /**
+     * Returns the position of the point with the given id in dest, which may not be null. If the
+     * id is out of range or not contained an IllegalArgumentException is thrown.
+     * 
+     * @param id The id of the point
+     * @param dest The vector to store the position in
+     * @return The destination vector
+     */
+    public Vector2f getPosition(int id, Vector2f dest) {
+        if(dest == null)
+            throw new IllegalArgumentException("The destination vector is null");
+        
+        checkContained(id);
+        return dest.set(positionX[id], positionY[id]);
+    }
+    
+    /**
+     * Finds all points within the given radius (inclusive) around a position and stores their ids
+     * in results, in no particular order. At most results.length ids are stored. The results array
+     * may not be null.
+     * 
+     * @param x The x coordinate of the center
+     * @param y The y coordinate of the center
+     * @param radius The radius
+     * @param results The array to store the ids in
+     * @return The number of ids stored
+     */
+    public int queryRadius(float x, float y, float radius, int[] results) {
+        if(results == null)
+            throw new IllegalArgumentException("The results array is null");
+        
+        if(!(radius >= 0.0f))
+            return 0;
+        
+        return query(x - radius, y - radius, x + radius, y + radius, x, y, radius * radius, results);
+    }
+    
+    /**
+     * Finds all points inside the given rectangle (inclusive) and stores their ids in results, in
+     * no particular order. At most results.length ids are stored. The results array may not be
+     * null.
+     * 
+     * @param minX The minimum x coordinate of the rectangle
+     * @param minY The minimum y coordinate of the rectangle
+     * @param maxX The maximum x coordinate of the rectangle
+     * @param maxY The maximum y coordinate of the rectangle
+     * @param results The array to store the ids in
+     * @return The number of ids stored
+     */
+    public int queryRect(float minX, float minY, float maxX, float maxY, int[] results) {
+        if(results == null)
+            throw new IllegalArgumentException("The results array is null");
+        
+        if(!(minX <= maxX && minY <= maxY))
+            return 0;
+        
+        return query(minX, minY, maxX, maxY, 0.0f, 0.0f, -1.0f, results);
+    }
+    
+    /**
+     * Returns the number of contained points.
+     * 
+     * @return The number of points
+     */
+    public int getSize() {
+        return size;
+    }
+    
+    /**
+     * Returns the number of ids, which are the numbers between 0 and capacity - 1.
+     * 
+     * @return The capacity
+     */
+    public int getCapacity() {
+        return entryBucket.length;
+    }
+    
+    /**
+     * Returns the width and height of a cell.
+     * 
+     * @return The cell size
+     */
+    public float getCellSize() {
+        return cellSize;
+    }
+    
+    private int query(float minX, float minY, float maxX, float maxY, float centerX, float centerY, float radiusSquared,
+                      int[] results) {
+        int minCellX = toCell(minX);
+        int minCellY = toCell(minY);
+        int maxCellX = toCell(maxX);
+        int maxCellY = toCell(maxY);
+        long cellCount = ((long) maxCellX - minCellX + 1) * ((long) maxCellY - minCellY + 1);
+        int found = 0;
+        
+        if(cellCount > entryBucket.length) {
+            for(int id = 0; id < entryBucket.length && found < results.length; id++)
+                if(entryBucket[id] != -1 && inside(id, minX, minY, maxX, maxY, centerX, centerY, radiusSquared))
+                    results[found++] = id;
+            
+            return found;
+        }
+        
+        // The cell coordinates saturate at the int range, so int counters could overflow and wrap
+        for(long row = minCellY; row <= maxCellY; row++) {
+            int y = (int) row;
+            
+            for(long column = minCellX; column <= maxCellX; column++) {
+                int x = (int) column;
+                
+                for(int id = buckets[hash(x, y)]; id != -1; id = next[id]) {
+                    if(cellX[id] != x || cellY[id] != y)
+                        continue;
+                    
+                    if(inside(id, minX, minY, maxX, maxY, centerX, centerY, radiusSquared)) {
+                        if(found == results.length)
+                            return found;
+                        
+                        results[found++] = id;
+                    }
+                }
+            }
+        }
+        
+        return found;
+    }
+    
+    private boolean inside(int id, float minX, float minY, float maxX, float maxY, float centerX, float centerY,
+                           float radiusSquared) {
+        float x = positionX[id];
+        float y = positionY[id];
+        
+        if(radiusSquared < 0.0f)
+            return x >= minX && x <= maxX && y >= minY && y <= maxY;
+        
+        float dx = x - centerX;
+        float dy = y - centerY;
+        return dx * dx + dy * dy <= radiusSquared;
+    }
+    
+    private void link(int id, int x, int y) {
+        int bucket = hash(x, y);
+        int head = buckets[bucket];
+        
+        cellX[id] = x;
+        cellY[id] = y;
+        entryBucket[id] = bucket;
+        previous[id] = -1;
+        next[id] = head;
+        
+        if(head != -1)
+            previous[head] = id;
+        
+        buckets[bucket] = id;
+    }
+    
+    private void unlink(int id) {
+        if(previous[id] != -1)
+            next[previous[id]] = next[id];
+        else
+            buckets[entryBucket[id]] = next[id];
+        
+        if(next[id] != -1)
+            previous[next[id]] = previous[id];
+    }
+    
+    private int toCell(float coordinate) {
+        return (int) Math.floor(coordinate * inverseCellSize);
+    }
+    
+    private int hash(int x, int y) {
+        return (x * 73856093 ^ y * 19349663) & bucketMask;
+    }
+    
+    private void checkId(int id) {
+        if(id < 0 || id >= entryBucket.length)
+            throw new IllegalArgumentException("The id is out of range");
+    }
+    
+    private void checkContained(int id) {
+        checkId(id);
+        
+        if(entryBucket[id] == -1)
+            throw new IllegalArgumentException("The id is not contained");
+    }
+}
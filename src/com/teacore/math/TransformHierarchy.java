@@ -0,0 +1,508 @@
+package com.teacore.math;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A hierarchy of transforms, for example of a scene graph or a skeleton, stored in flat arrays
+ * instead of node objects. Every node has a parent index (-1 for roots), a local translation,
+ * rotation (as quaternion) and scale and a cached world matrix, which is the world matrix of its
+ * parent multiplied with its local transformation matrix translation * rotation * scale, like the
+ * ones of MathUtil.getTransformationMatrix().
+ * <p>
+ * Nodes can only be added with an existing parent, so parents always have a lower index than their
+ * children and the node order is a topological order. Changing a local transform marks the node
+ * dirty, and update() recomputes the world matrices of dirty nodes and their descendants only, in
+ * one pass over the nodes. Nodes with the same depth do not depend on each other, so
+ * update(ForkJoinPool) recomputes them level by level on multiple threads. update() does not
+ * allocate any objects once the level order is built, update(ForkJoinPool) only allocates the fork
+ * join tasks for levels with more than PARALLEL_THRESHOLD nodes.
+ * 
+ * @author ShietStone
+ */
+public class TransformHierarchy {
+
+    /**
+     * The number of nodes of one level below which they are not split up into multiple tasks.
+     */
+    public static final int PARALLEL_THRESHOLD = 1024;
+    
+    private int nodeCount;
+    private int[] parents;
+    private float[] translations;
+    private float[] rotations;
+    private float[] scales;
+    private float[] worldMatrices;
+    private boolean[] dirty;
+    private boolean[] updated;
+    
+    private int[] depths;
+    private int[] levelOrder;
+    private int[] levelStarts;
+    private int levelCount;
+    private boolean levelOrderValid;
+    
+    /**
+     * Creates an empty hierarchy with room for the given number of nodes. It grows automatically if
+     * more nodes are added.
+     * 
+     * @param capacity The initial capacity
+     */
+    public TransformHierarchy(int capacity) {
+        if(capacity < 1)
+            throw new IllegalArgumentException("Capacity is less than one");
+        
+        parents = new int[capacity];
+        translations = new float[capacity * 3];
+        rotations = new float[capacity * 4];
+        scales = new float[capacity * 3];
+        worldMatrices = new float[capacity * 16];
+        dirty = new boolean[capacity];
+        updated = new boolean[capacity];
+        depths = new int[capacity];
+    }
+    
+    /**
+     * Adds a node with an identity local transform below the given parent, which must be an
+     * existing node or -1 for a root node. The new node is dirty.
+     * 
+     * @param parent The index of the parent node or -1
+     * @return The index of the new node
+     */
+    public int addNode(int parent) {
+        if(parent < -1 || parent >= nodeCount)
+            throw new IllegalArgumentException("Invalid parent index: " + parent);
+        
+        if(nodeCount == parents.length)
+            grow(nodeCount * 2);
+        
+        int node = nodeCount++;
+        parents[node] = parent;
+        depths[node] = parent == -1 ? 0 : depths[parent] + 1;
+        setTranslation(node, 0.0f, 0.0f, 0.0f);
+        setRotation(node, 0.0f, 0.0f, 0.0f, 1.0f);
+        setScale(node, 1.0f, 1.0f, 1.0f);
+        levelOrderValid = false;
+        return node;
+    }
+    
+    /**
+     * Returns the number of nodes in this hierarchy.
+     * 
+     * @return The node count
+     */
+    public int getNodeCount() {
+        return nodeCount;
+    }
+    
+    /**
+     * Returns the parent index of the given node, which is -1 for root nodes.
+     * 
+     * @param node The index of the node
+     * @return The index of the parent
+     */
+    public int getParent(int node) {
+        checkNode(node);
+        return parents[node];
+    }
+    
+    /**
+     * Sets the local translation of the given node and marks it dirty.
+     * 
+     * @param node The index of the node
+     * @param x The x coordinate of the translation
+     * @param y The y coordinate of the translation
+     * @param z The z coordinate of the translation
+     */
+    public void setTranslation(int node, float x, float y, float z) {
+        checkNode(node);
+        translations[node * 3] = x;
+        translations[node * 3 + 1] = y;
+        translations[node * 3 + 2] = z;
+        dirty[node] = true;
+    }
+    
+    /**
+     * Sets the local rotation of the given node to a normalized quaternion and marks it dirty.
+     * 
+     * @param node The index of the node
+     * @param x The x component of the quaternion
+     * @param y The y component of the quaternion
+     * @param z The z component of the quaternion
+     * @param w The w component of the quaternion
+     */
+    public void setRotation(int node, float x, float y, float z, float w) {
+        checkNode(node);
+        rotations[node * 4] = x;
+        rotations[node * 4 + 1] = y;
+        rotations[node * 4 + 2] = z;
+        rotations[node * 4 + 3] = w;
+        dirty[node] = true;
+    }
+    
+    /**
+     * Sets the local rotation of the given node to the given normalized quaternion, which may not
+     * be null, and marks it dirty.
+     * 
+     * @param node The index of the node
+     * @param rotation The rotation
+     */
+    public void setRotation(int node, Quaternionf rotation) {
+        if(rotation == null)
+            throw new IllegalArgumentException("The rotation is null");
+        
+        setRotation(node, rotation.x, rotation.y, rotation.z, rotation.w);
+    }
+    
+    /**
+     * Sets the local scale of the given node and marks it dirty.
+     * 
+     * @param node The index of the node
+     * @param x The scale factor along the x axis
+     * @param y The scale factor along the y axis
+     * @param z The scale factor along the z axis
+     */
+    public void setScale(int node, float x, float y, float z) {
+        checkNode(node);
+        scales[node * 3] = x;
+        scales[node * 3 + 1] = y;
+        scales[node * 3 + 2] = z;
+        dirty[node] = true;
+    }
+    
+    /**
+     * Sets the whole local transform of the given node and marks it dirty. No argument may be null.
+     * 
+     * @param node The index of the node
+     * @param translation The translation
+     * @param rotation The normalized rotation
+     * @param scale The scale factors along the x, y and z axis
+     */
+    public void setLocalTransform(int node, Vector3f translation, Quaternionf rotation, Vector3f scale) {
+        if(translation == null || rotation == null || scale == null)
+            throw new IllegalArgumentException("An argument is null");
+        
+        setTranslation(node, translation.x, translation.y, translation.z);
+        setRotation(node, rotation.x, rotation.y, rotation.z, rotation.w);
+        setScale(node, scale.x, scale.y, scale.z);
+    }
+    
+    /**
+     * Stores the local translation of the given node in dest, which may not be null.
+     * 
+     * @param node The index of the node
+     * @param dest The vector to store the translation in
+     * @return The destination vector
+     */
+    public Vector3f getTranslation(int node, Vector3f dest) {
+        checkNode(node);
+        
+        if(dest == null)
+            throw new IllegalArgumentException("The destination vector is null");
+        
+        return dest.set(translations[node * 3], translations[node * 3 + 1], translations[node * 3 + 2]);
+    }
+    
+    /**
+     * Stores the local rotation of the given node in dest, which may not be null.
+     * 
+     * @param node The index of the node
+     * @param dest The quaternion to store the rotation in
+     * @return The destination quaternion
+     */
+    public Quaternionf getRotation(int node, Quaternionf dest) {
+        checkNode(node);
+        
+        if(dest == null)
+            throw new IllegalArgumentException("The destination quaternion is null");
+        
+        return dest.set(rotations[node * 4], rotations[node * 4 + 1], rotations[node * 4 + 2], rotations[node * 4 + 3]);
+    }
+    
+    /**
+     * Stores the local scale of the given node in dest, which may not be null.
+     * 
+     * @param node The index of the node
+     * @param dest The vector to store the scale in
+     * @return The destination vector
+     */
+    public Vector3f getScale(int node, Vector3f dest) {
+        checkNode(node);
+        
+        if(dest == null)
+            throw new IllegalArgumentException("The destination vector is null");
+        
+        return dest.set(scales[node * 3], scales[node * 3 + 1], scales[node * 3 + 2]);
+    }
+    
+    /**
+     * Marks the given node dirty, so its world matrix and the ones of its descendants are
+     * recomputed by the next update.
+     * 
+     * @param node The index of the node
+     */
+    public void markDirty(int node) {
+        checkNode(node);
+        dirty[node] = true;
+    }
+    
+    /**
+     * Returns whether the given node is dirty, meaning its local transform changed since the last
+     * update.
+     * 
+     * @param node The index of the node
+     * @return If the node is dirty
+     */
+    public boolean isDirty(int node) {
+        checkNode(node);
+        return dirty[node];
+    }
+    
+    /**
+     * Returns whether the world matrix of the given node was recomputed by the last update. This
+     * can be used to upload only the changed matrices.
+     * 
+     * @param node The index of the node
+     * @return If the world matrix was recomputed
+     */
+    public boolean wasUpdated(int node) {
+        checkNode(node);
+        return updated[node];
+    }
+    
+    /**
+     * Recomputes the world matrices of all dirty nodes and their descendants in a single pass in
+     * node order and clears the dirty flags.
+     */
+    public void update() {
+        updateRange(null, 0, nodeCount);
+    }
+    
+    /**
+     * Does the same as update(), but recomputes the nodes level by level, splitting every level
+     * with more than PARALLEL_THRESHOLD nodes into tasks of the given pool. The pool may not be
+     * null.
+     * 
+     * @param pool The pool to run the tasks on
+     */
+    public void update(ForkJoinPool pool) {
+        if(pool == null)
+            throw new IllegalArgumentException("Pool is null");
+        
+        if(!levelOrderValid)
+            buildLevelOrder();
+        
+        for(int level = 0; level < levelCount; level++) {
+            int from = levelStarts[level];
+            int to = levelStarts[level + 1];
+            
+            if(to - from <= PARALLEL_THRESHOLD)
+                updateRange(levelOrder, from, to);
+            else
+                pool.invoke(new UpdateTask(from, to));
+        }
+    }
+    
+    /**
+     * Stores the world matrix of the given node, as computed by the last update, in dest, which may
+     * not be null.
+     * 
+     * @param node The index of the node
+     * @param dest The matrix to store the world matrix in
+     * @return The destination matrix
+     */
+    public Matrix4f getWorldMatrix(int node, Matrix4f dest) {
+        checkNode(node);
+        
+        if(dest == null)
+            throw new IllegalArgumentException("The destination matrix is null");
+        
+        int base = node * 16;
+        float[] m = worldMatrices;
+        return dest.set(m[base], m[base + 1], m[base + 2], m[base + 3],
+                        m[base + 4], m[base + 5], m[base + 6], m[base + 7],
+                        m[base + 8], m[base + 9], m[base + 10], m[base + 11],
+                        m[base + 12], m[base + 13], m[base + 14], m[base + 15]);
+    }
+    
+    /**
+     * Returns the array holding the world matrices of all nodes, 16 floats per node in the same row
+     * by row order as the fields of Matrix4f. It is the internal array, so it must not be altered
+     * and is replaced when the hierarchy grows.
+     * 
+     * @return The world matrices
+     */
+    public float[] getWorldMatrices() {
+        return worldMatrices;
+    }
+    
+    private void updateRange(int[] order, int from, int to) {
+        for(int index = from; index < to; index++) {
+            int node = order == null ? index : order[index];
+            int parent = parents[node];
+            boolean changed = dirty[node] || parent != -1 && updated[parent];
+            
+            updated[node] = changed;
+            
+            if(changed) {
+                dirty[node] = false;
+                computeWorldMatrix(node, parent);
+            }
+        }
+    }
+    
+    private void computeWorldMatrix(int node, int parent) {
+        float qx = rotations[node * 4];
+        float qy = rotations[node * 4 + 1];
+        float qz = rotations[node * 4 + 2];
+        float qw = rotations[node * 4 + 3];
+        float sx = scales[node * 3];
+        float sy = scales[node * 3 + 1];
+        float sz = scales[node * 3 + 2];
+        
+        float xx = qx * qx;
+        float yy = qy * qy;
+        float zz = qz * qz;
+        float xy = qx * qy;
+        float xz = qx * qz;
+        float yz = qy * qz;
+        float wx = qw * qx;
+        float wy = qw * qy;
+        float wz = qw * qz;
+        
+        float l00 = (1.0f - 2.0f * (yy + zz)) * sx;
+        float l01 = 2.0f * (xy - wz) * sy;
+        float l02 = 2.0f * (xz + wy) * sz;
+        float l03 = translations[node * 3];
+        float l10 = 2.0f * (xy + wz) * sx;
+        float l11 = (1.0f - 2.0f * (xx + zz)) * sy;
+        float l12 = 2.0f * (yz - wx) * sz;
+        float l13 = translations[node * 3 + 1];
+        float l20 = 2.0f * (xz - wy) * sx;
+        float l21 = 2.0f * (yz + wx) * sy;
+        float l22 = (1.0f - 2.0f * (xx + yy)) * sz;
+        float l23 = translations[node * 3 + 2];
+        
+        float[] m = worldMatrices;
+        int base = node * 16;
+        
+        if(parent == -1) {
+            m[base] = l00;
+            m[base + 1] = l01;
+            m[base + 2] = l02;
+            m[base + 3] = l03;
+            m[base + 4] = l10;
+            m[base + 5] = l11;
+            m[base + 6] = l12;
+            m[base + 7] = l13;
+            m[base + 8] = l20;
+            m[base + 9] = l21;
+            m[base + 10] = l22;
+            m[base + 11] = l23;
+        } else {
+            int p = parent * 16;
+            float p00 = m[p];
+            float p01 = m[p + 1];
+            float p02 = m[p + 2];
+            float p03 = m[p + 3];
+            float p10 = m[p + 4];
+            float p11 = m[p + 5];
+            float p12 = m[p + 6];
+            float p13 = m[p + 7];
+            float p20 = m[p + 8];
+            float p21 = m[p + 9];
+            float p22 = m[p + 10];
+            float p23 = m[p + 11];
+            
+            m[base] = p00 * l00 + p01 * l10 + p02 * l20;
+            m[base + 1] = p00 * l01 + p01 * l11 + p02 * l21;
+            m[base + 2] = p00 * l02 + p01 * l12 + p02 * l22;
+            m[base + 3] = p00 * l03 + p01 * l13 + p02 * l23 + p03;
+            m[base + 4] = p10 * l00 + p11 * l10 + p12 * l20;
+            m[base + 5] = p10 * l01 + p11 * l11 + p12 * l21;
+            m[base + 6] = p10 * l02 + p11 * l12 + p12 * l22;
+            m[base + 7] = p10 * l03 + p11 * l13 + p12 * l23 + p13;
+            m[base + 8] = p20 * l00 + p21 * l10 + p22 * l20;
+            m[base + 9] = p20 * l01 + p21 * l11 + p22 * l21;
+            m[base + 10] = p20 * l02 + p21 * l12 + p22 * l22;
+            m[base + 11] = p20 * l03 + p21 * l13 + p22 * l23 + p23;
+        }
+        
+        m[base + 12] = 0.0f;
+        m[base + 13] = 0.0f;
+        m[base + 14] = 0.0f;
+        m[base + 15] = 1.0f;
+    }
+    
+    private void buildLevelOrder() {
+        levelCount = 0;
+        
+        for(int node = 0; node < nodeCount; node++)
+            levelCount = Math.max(levelCount, depths[node] + 1);
+        
+        if(levelStarts == null || levelStarts.length < levelCount + 1)
+            levelStarts = new int[levelCount + 1];
+        
+        if(levelOrder == null || levelOrder.length < nodeCount)
+            levelOrder = new int[parents.length];
+        
+        Arrays.fill(levelStarts, 0);
+        
+        for(int node = 0; node < nodeCount; node++)
+            levelStarts[depths[node] + 1]++;
+        
+        for(int level = 0; level < levelCount; level++)
+            levelStarts[level + 1] += levelStarts[level];
+        
+        for(int node = 0; node < nodeCount; node++)
+            levelOrder[levelStarts[depths[node]]++] = node;
+        
+        for(int level = levelCount; level > 0; level--)
+            levelStarts[level] = levelStarts[level - 1];
+        
+        levelStarts[0] = 0;
+        levelOrderValid = true;
+    }
+    
+    private void grow(int capacity) {
+        parents = Arrays.copyOf(parents, capacity);
+        translations = Arrays.copyOf(translations, capacity * 3);
+        rotations = Arrays.copyOf(rotations, capacity * 4);
+        scales = Arrays.copyOf(scales, capacity * 3);
+        worldMatrices = Arrays.copyOf(worldMatrices, capacity * 16);
+        dirty = Arrays.copyOf(dirty, capacity);
+        updated = Arrays.copyOf(updated, capacity);
+        depths = Arrays.copyOf(depths, capacity);
+    }
+    
+    private void checkNode(int node) {
+        if(node < 0 || node >= nodeCount)
+            throw new IllegalArgumentException("Invalid node index: " + node);
+    }
+    
+    private final class UpdateTask extends RecursiveAction {
+        
+        private static final long serialVersionUID = 1L;
+        
+        private int from;
+        private int to;
+        
+        private UpdateTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+        
+        @Override
+        protected void compute() {
+            if(to - from <= PARALLEL_THRESHOLD) {
+                updateRange(levelOrder, from, to);
+                return;
+            }
+            
+            int middle = (from + to) >>> 1;
+            
+            invokeAll(new UpdateTask(from, middle), new UpdateTask(middle, to));
+        }
+    }
+}
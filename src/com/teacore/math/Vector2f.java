@@ -1,7 +1,13 @@
 package com.teacore.math;
 
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+
 /**
- * Represents a 2-dimensional vector and provides utility math functions.
+ * Represents a 2-dimensional vector and provides utility math functions. Every operation is
+ * provided in three forms: one returning a new vector, one storing the result in a given
+ * destination vector and one (suffixed with Local) altering this vector itself. The latter two do
+ * not allocate any objects.
  * 
  * @author ShietStone
  */
@@ -10,6 +16,13 @@ public class Vector2f {
     public float x;
     public float y;
     
+    /**
+     * Creates a vector with all coordinates set to zero.
+     */
+    public Vector2f() {
+        this(0.0f, 0.0f);
+    }
+    
     /**
      * Stores the given coordinate values.
      * 
@@ -21,6 +34,123 @@ public class Vector2f {
         this.y = y;
     }
     
+    /**
+     * Sets this vectors coordinates to the given values.
+     * 
+     * @param x The x coordinate
+     * @param y The y coordinate
+     * @return This vector
+     */
+    public Vector2f set(float x, float y) {
+        this.x = x;
+        this.y = y;
+        return this;
+    }
+    
+    /**
+     * Sets this vectors coordinates to the ones of the given vector.
+     * 
+     * @param vector The vector to copy the values from
+     * @return This vector
+     */
+    public Vector2f set(Vector2f vector) {
+        return set(vector.x, vector.y);
+    }
+    
+    /**
+     * Stores this vectors coordinates in the given float buffer, starting at its current
+     * position. The buffers position is not altered. The buffer may not be null.
+     * 
+     * @param buffer The buffer to store the coordinates in
+     * @return The given buffer
+     */
+    public FloatBuffer get(FloatBuffer buffer) {
+        if(buffer == null)
+            throw new IllegalArgumentException("The buffer is null");
+        
+        return get(buffer, buffer.position());
+    }
+    
+    /**
+     * Stores this vectors coordinates in the given float buffer, starting at the given absolute
+     * index. The buffers position is not altered. The buffer may not be null.
+     * 
+     * @param buffer The buffer to store the coordinates in
+     * @param index The absolute index of the first coordinate
+     * @return The given buffer
+     */
+    public FloatBuffer get(FloatBuffer buffer, int index) {
+        if(buffer == null)
+            throw new IllegalArgumentException("The buffer is null");
+        
+        buffer.put(index, x);
+        buffer.put(index + 1, y);
+        return buffer;
+    }
+    
+    /**
+     * Stores this vectors coordinates in the given byte buffer, starting at the given absolute
+     * byte offset and using the buffers byte order. The buffers position is not altered. The
+     * buffer may not be null.
+     * 
+     * @param buffer The buffer to store the coordinates in
+     * @param offset The absolute byte offset of the first coordinate
+     * @return The given buffer
+     */
+    public ByteBuffer get(ByteBuffer buffer, int offset) {
+        if(buffer == null)
+            throw new IllegalArgumentException("The buffer is null");
+        
+        buffer.putFloat(offset, x);
+        buffer.putFloat(offset + 4, y);
+        return buffer;
+    }
+    
+    /**
+     * Sets this vectors coordinates to the floats at the current position of the given float
+     * buffer. The buffers position is not altered. The buffer may not be null.
+     * 
+     * @param buffer The buffer to read the coordinates from
+     * @return This vector
+     */
+    public Vector2f set(FloatBuffer buffer) {
+        if(buffer == null)
+            throw new IllegalArgumentException("The buffer is null");
+        
+        return set(buffer, buffer.position());
+    }
+    
+    /**
+     * Sets this vectors coordinates to the floats starting at the given absolute index of the
+     * float buffer. The buffers position is not altered. The buffer may not be null.
+     * 
+     * @param buffer The buffer to read the coordinates from
+     * @param index The absolute index of the first coordinate
+     * @return This vector
+     */
+    public Vector2f set(FloatBuffer buffer, int index) {
+        if(buffer == null)
+            throw new IllegalArgumentException("The buffer is null");
+        
+        return set(buffer.get(index), buffer.get(index + 1));
+    }
+    
+    /**
+     * Sets this vectors coordinates to the floats starting at the given absolute byte offset of
+     * the byte buffer, using the buffers byte order. The buffers position is not altered. The
+     * buffer may not be null.
+     * 
+     * @param buffer The buffer to read the coordinates from
+     * @param offset The absolute byte offset of the first coordinate
+     * @return This vector
+     */
+    public Vector2f set(ByteBuffer buffer, int offset) {
+        if(buffer == null)
+            throw new IllegalArgumentException("The buffer is null");
+        
+        return set(buffer.getFloat(offset), buffer.getFloat(offset + 4));
+    }
+    
     //TODO Avoid null vectors as arguments
     
     /**
@@ -30,7 +160,29 @@ public class Vector2f {
      * @return The result
      */
     public Vector2f add(Vector2f vector) {
-        return new Vector2f(x + vector.x, y + vector.y);
+        return add(vector, new Vector2f());
+    }
+    
+    /**
+     * Adds a vectors values to this vectors values and stores the result in dest, which may be
+     * this vector or the given one.
+     * 
+     * @param vector The vector to add the values from
+     * @param dest The vector to store the result in
+     * @return The destination vector
+     */
+    public Vector2f add(Vector2f vector, Vector2f dest) {
+        return dest.set(x + vector.x, y + vector.y);
+    }
+    
+    /**
+     * Adds a vectors values to this vectors values. The result is stored in this object.
+     * 
+     * @param vector The vector to add the values from
+     * @return This vector
+     */
+    public Vector2f addLocal(Vector2f vector) {
+        return add(vector, this);
     }
     
     /**
@@ -40,7 +192,29 @@ public class Vector2f {
      * @return The result
      */
     public Vector2f sub(Vector2f vector) {
-        return new Vector2f(x - vector.x, y - vector.y);    
+        return sub(vector, new Vector2f());
+    }
+    
+    /**
+     * Subtracts a vectors values from this vectors values and stores the result in dest, which may
+     * be this vector or the given one.
+     * 
+     * @param vector The vector to subtract with
+     * @param dest The vector to store the result in
+     * @return The destination vector
+     */
+    public Vector2f sub(Vector2f vector, Vector2f dest) {
+        return dest.set(x - vector.x, y - vector.y);
+    }
+    
+    /**
+     * Subtracts a vectors values from this vectors values. The result is stored in this object.
+     * 
+     * @param vector The vector to subtract with
+     * @return This vector
+     */
+    public Vector2f subLocal(Vector2f vector) {
+        return sub(vector, this);
     }
 
     /**
@@ -50,7 +224,29 @@ public class Vector2f {
      * @return The result
      */
     public Vector2f mul(Vector2f vector) {
-        return new Vector2f(x * vector.x, y * vector.y);    
+        return mul(vector, new Vector2f());
+    }
+    
+    /**
+     * Multiplies a vectors values with this vectors values and stores the result in dest, which
+     * may be this vector or the given one.
+     * 
+     * @param vector The vector to multiply the values with
+     * @param dest The vector to store the result in
+     * @return The destination vector
+     */
+    public Vector2f mul(Vector2f vector, Vector2f dest) {
+        return dest.set(x * vector.x, y * vector.y);
+    }
+    
+    /**
+     * Multiplies a vectors values with this vectors values. The result is stored in this object.
+     * 
+     * @param vector The vector to multiply the values with
+     * @return This vector
+     */
+    public Vector2f mulLocal(Vector2f vector) {
+        return mul(vector, this);
     }
     
     /**
@@ -60,7 +256,29 @@ public class Vector2f {
      * @return The result
      */
     public Vector2f div(Vector2f vector) {
-        return new Vector2f(x / vector.x, y / vector.y);    
+        return div(vector, new Vector2f());
+    }
+    
+    /**
+     * Divides this vectors values by another vectors values and stores the result in dest, which
+     * may be this vector or the given one.
+     * 
+     * @param vector The vector to divide the values by
+     * @param dest The vector to store the result in
+     * @return The destination vector
+     */
+    public Vector2f div(Vector2f vector, Vector2f dest) {
+        return dest.set(x / vector.x, y / vector.y);
+    }
+    
+    /**
+     * Divides this vectors values by another vectors values. The result is stored in this object.
+     * 
+     * @param vector The vector to divide the values by
+     * @return This vector
+     */
+    public Vector2f divLocal(Vector2f vector) {
+        return div(vector, this);
     }
     
     /**
@@ -70,7 +288,28 @@ public class Vector2f {
      * @return The result
      */
     public Vector2f add(float value) {
-        return new Vector2f(x + value, y + value);
+        return add(value, new Vector2f());
+    }
+    
+    /**
+     * Adds a single value to this vectors value and stores the result in dest.
+     * 
+     * @param value The value to add
+     * @param dest The vector to store the result in
+     * @return The destination vector
+     */
+    public Vector2f add(float value, Vector2f dest) {
+        return dest.set(x + value, y + value);
+    }
+    
+    /**
+     * Adds a single value to this vectors value. The result is stored in this object.
+     * 
+     * @param value The value to add
+     * @return This vector
+     */
+    public Vector2f addLocal(float value) {
+        return add(value, this);
     }
     
     /**
@@ -80,7 +319,28 @@ public class Vector2f {
      * @return The result
      */
     public Vector2f sub(float value) {
-        return new Vector2f(x - value, y - value);
+        return sub(value, new Vector2f());
+    }
+    
+    /**
+     * Subtracts a single value to this vectors value and stores the result in dest.
+     * 
+     * @param value The value to subtract
+     * @param dest The vector to store the result in
+     * @return The destination vector
+     */
+    public Vector2f sub(float value, Vector2f dest) {
+        return dest.set(x - value, y - value);
+    }
+    
+    /**
+     * Subtracts a single value to this vectors value. The result is stored in this object.
+     * 
+     * @param value The value to subtract
+     * @return This vector
+     */
+    public Vector2f subLocal(float value) {
+        return sub(value, this);
     }
     
     /**
@@ -90,7 +350,28 @@ public class Vector2f {
      * @return The result
      */
     public Vector2f mul(float value) {
-        return new Vector2f(x * value, y * value);
+        return mul(value, new Vector2f());
+    }
+    
+    /**
+     * Multiplies a single value with this vectors value and stores the result in dest.
+     * 
+     * @param value The value to multiply with
+     * @param dest The vector to store the result in
+     * @return The destination vector
+     */
+    public Vector2f mul(float value, Vector2f dest) {
+        return dest.set(x * value, y * value);
+    }
+    
+    /**
+     * Multiplies a single value with this vectors value. The result is stored in this object.
+     * 
+     * @param value The value to multiply with
+     * @return This vector
+     */
+    public Vector2f mulLocal(float value) {
+        return mul(value, this);
     }
     
     /**
@@ -100,7 +381,28 @@ public class Vector2f {
      * @return The result
      */
     public Vector2f div(float value) {
-        return new Vector2f(x / value, y / value);
+        return div(value, new Vector2f());
+    }
+    
+    /**
+     * Divides this vectors values by a single value and stores the result in dest.
+     * 
+     * @param value The value to divide by
+     * @param dest The vector to store the result in
+     * @return The destination vector
+     */
+    public Vector2f div(float value, Vector2f dest) {
+        return dest.set(x / value, y / value);
+    }
+    
+    /**
+     * Divides this vectors values by a single value. The result is stored in this object.
+     * 
+     * @param value The value to divide by
+     * @return This vector
+     */
+    public Vector2f divLocal(float value) {
+        return div(value, this);
     }
     
     /**
@@ -119,12 +421,31 @@ public class Vector2f {
      * @return The result
      */
     public Vector2f normalize() {
+        return normalize(new Vector2f());
+    }
+    
+    /**
+     * Normalizes this vector and stores the result in dest.
+     * 
+     * @param dest The vector to store the result in
+     * @return The destination vector
+     */
+    public Vector2f normalize(Vector2f dest) {
         float length = length();
         
         if(length == 0.0f)
             length = 1.0f;
         
-        return new Vector2f(x / length, y / length);
+        return dest.set(x / length, y / length);
+    }
+    
+    /**
+     * Normalizes this vector. The result is stored in this object.
+     * 
+     * @return This vector
+     */
+    public Vector2f normalizeLocal() {
+        return normalize(this);
     }
     
     /**
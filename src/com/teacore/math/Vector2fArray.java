@@ -0,0 +1,420 @@
+package com.teacore.math;
+
+import java.nio.FloatBuffer;
+
+/**
+ * Stores a fixed number of 2-dimensional vectors packed as structure of arrays, meaning every
+ * coordinate is held in its own float array. The bulk operations of this class run as simple loops
+ * over these arrays without allocating any objects, which the JIT compiler can turn into SIMD
+ * instructions. Use get() and set() to convert from and to interleaved vertex data.
+ * 
+ * @author ShietStone
+ */
+public class Vector2fArray {
+
+    private float[] x;
+    private float[] y;
+    private int size;
+    
+    /**
+     * Creates an array of the given size with all vectors set to zero. The size may not be
+     * negative.
+     * 
+     * @param size The number of vectors
+     */
+    public Vector2fArray(int size) {
+        if(size < 0)
+            throw new IllegalArgumentException("Size is negative");
+        
+        this.size = size;
+        x = new float[size];
+        y = new float[size];
+    }
+    
+    /**
+     * Creates an array holding the vectors of the given interleaved data, where every 2 consecutive
+     * floats form one vector (as in the data of an OGLVertexArray with a vertex size of 2). The
+     * data is copied. It may not be null and its length must be a multiple of 2.
+     * 
+     * @param data The interleaved vector data
+     */
+    public Vector2fArray(float[] data) {
+        if(data == null)
+            throw new IllegalArgumentException("Data is null");
+        
+        if(data.length % 2 != 0)
+            throw new IllegalArgumentException("Data length is not a multiple of 2");
+        
+        this.size = data.length / 2;
+        x = new float[size];
+        y = new float[size];
+        set(data, 0);
+    }
+    
+    /**
+     * Returns the number of vectors stored.
+     * 
+     * @return The number of vectors
+     */
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * Returns the array holding the x coordinates. It is not copied, so changes to it are reflected
+     * in this object.
+     * 
+     * @return The x coordinates
+     */
+    public float[] getX() {
+        return x;
+    }
+    
+    /**
+     * Returns the array holding the y coordinates. It is not copied, so changes to it are reflected
+     * in this object.
+     * 
+     * @return The y coordinates
+     */
+    public float[] getY() {
+        return y;
+    }
+    
+    /**
+     * Stores the vector at the given index in dest. The destination may not be null.
+     * 
+     * @param index The index of the vector
+     * @param dest The vector to store the coordinates in
+     * @return The destination vector
+     */
+    public Vector2f get(int index, Vector2f dest) {
+        if(dest == null)
+            throw new IllegalArgumentException("The destination vector is null");
+        
+        return dest.set(x[index], y[index]);
+    }
+    
+    /**
+     * Sets the vector at the given index to the given coordinates.
+     * 
+     * @param index The index of the vector
+     * @param x The x coordinate
+     * @param y The y coordinate
+     * @return This array
+     */
+    public Vector2fArray set(int index, float x, float y) {
+        this.x[index] = x;
+        this.y[index] = y;
+        return this;
+    }
+    
+    /**
+     * Sets the vector at the given index to the coordinates of the given vector, which may not be
+     * null.
+     * 
+     * @param index The index of the vector
+     * @param vector The vector to copy the coordinates from
+     * @return This array
+     */
+    public Vector2fArray set(int index, Vector2f vector) {
+        if(vector == null)
+            throw new IllegalArgumentException("The vector is null");
+        
+        return set(index, vector.x, vector.y);
+    }
+    
+    /**
+     * Sets all vectors to the interleaved data starting at the given offset, where every 2
+     * consecutive floats form one vector. The data may not be null and must hold 2 floats per
+     * vector of this array after the offset.
+     * 
+     * @param data The interleaved vector data
+     * @param offset The index of the first float to read
+     * @return This array
+     */
+    public Vector2fArray set(float[] data, int offset) {
+        if(data == null)
+            throw new IllegalArgumentException("Data is null");
+        
+        if(offset < 0 || data.length - offset < size * 2)
+            throw new IllegalArgumentException("Data is too small");
+        
+        for(int index = 0; index < size; index++) {
+            int base = offset + index * 2;
+            x[index] = data[base];
+            y[index] = data[base + 1];
+        }
+        
+        return this;
+    }
+    
+    /**
+     * Stores all vectors interleaved in the given array starting at the given offset, where every 2
+     * consecutive floats form one vector. The array may not be null and must have room for 2 floats
+     * per vector after the offset.
+     * 
+     * @param dest The array to store the interleaved data in
+     * @param offset The index of the first float to write
+     * @return The destination array
+     */
+    public float[] get(float[] dest, int offset) {
+        if(dest == null)
+            throw new IllegalArgumentException("The destination array is null");
+        
+        if(offset < 0 || dest.length - offset < size * 2)
+            throw new IllegalArgumentException("The destination array is too small");
+        
+        for(int index = 0; index < size; index++) {
+            int base = offset + index * 2;
+            dest[base] = x[index];
+            dest[base + 1] = y[index];
+        }
+        
+        return dest;
+    }
+    
+    /**
+     * Stores all vectors interleaved in the given float buffer, starting at its current position,
+     * so they can be uploaded directly. The buffers position is not altered. The buffer may not be
+     * null and must have room for 2 floats per vector.
+     * 
+     * @param buffer The buffer to store the interleaved data in
+     * @return The given buffer
+     */
+    public FloatBuffer get(FloatBuffer buffer) {
+        if(buffer == null)
+            throw new IllegalArgumentException("The buffer is null");
+        
+        int offset = buffer.position();
+        
+        for(int index = 0; index < size; index++) {
+            int base = offset + index * 2;
+            buffer.put(base, x[index]);
+            buffer.put(base + 1, y[index]);
+        }
+        
+        return buffer;
+    }
+    
+    /**
+     * Multiplies every vector with the given matrix. The result is stored in this array.
+     * 
+     * @param matrix The matrix to transform with
+     * @return This array
+     */
+    public Vector2fArray transformAll(Matrix2f matrix) {
+        return transformAll(matrix, this);
+    }
+    
+    /**
+     * Multiplies every vector with the given matrix. The result is stored in dest, which may be
+     * this array but must have the same size. No argument may be null.
+     * 
+     * @param matrix The matrix to transform with
+     * @param dest The array to store the result in
+     * @return The destination array
+     */
+    public Vector2fArray transformAll(Matrix2f matrix, Vector2fArray dest) {
+        checkArguments(matrix, dest);
+        
+        float f00 = matrix.f00;
+        float f01 = matrix.f01;
+        float f10 = matrix.f10;
+        float f11 = matrix.f11;
+        
+        float[] dx = dest.x;
+        float[] dy = dest.y;
+        
+        for(int index = 0; index < size; index++) {
+            float px = x[index];
+            float py = y[index];
+            
+            dx[index] = f00 * px + f01 * py;
+            dy[index] = f10 * px + f11 * py;
+        }
+        
+        return dest;
+    }
+    
+    /**
+     * Transforms every vector as 2D point (with an implicit third coordinate of 1) by the given
+     * affine matrix, so translations are applied. The last matrix row is ignored. The result is
+     * stored in this array.
+     * 
+     * @param matrix The matrix to transform with
+     * @return This array
+     */
+    public Vector2fArray transformAll(Matrix3f matrix) {
+        return transformAll(matrix, this);
+    }
+    
+    /**
+     * Transforms every vector as 2D point (with an implicit third coordinate of 1) by the given
+     * affine matrix, so translations are applied. The last matrix row is ignored. The result is
+     * stored in dest, which may be this array but must have the same size. No argument may be null.
+     * 
+     * @param matrix The matrix to transform with
+     * @param dest The array to store the result in
+     * @return The destination array
+     */
+    public Vector2fArray transformAll(Matrix3f matrix, Vector2fArray dest) {
+        checkArguments(matrix, dest);
+        
+        float f00 = matrix.f00;
+        float f01 = matrix.f01;
+        float f02 = matrix.f02;
+        float f10 = matrix.f10;
+        float f11 = matrix.f11;
+        float f12 = matrix.f12;
+        
+        float[] dx = dest.x;
+        float[] dy = dest.y;
+        
+        for(int index = 0; index < size; index++) {
+            float px = x[index];
+            float py = y[index];
+            
+            dx[index] = f00 * px + f01 * py + f02;
+            dy[index] = f10 * px + f11 * py + f12;
+        }
+        
+        return dest;
+    }
+    
+    /**
+     * Adds the given vector to every vector of this array. The vector may not be null.
+     * 
+     * @param vector The vector to add
+     * @return This array
+     */
+    public Vector2fArray addAll(Vector2f vector) {
+        if(vector == null)
+            throw new IllegalArgumentException("The vector is null");
+        
+        float vx = vector.x;
+        float vy = vector.y;
+        
+        for(int index = 0; index < size; index++) {
+            x[index] += vx;
+            y[index] += vy;
+        }
+        
+        return this;
+    }
+    
+    /**
+     * Adds the vectors of another array of the same size component wise to the vectors of this
+     * array. The array may not be null.
+     * 
+     * @param array The array to add
+     * @return This array
+     */
+    public Vector2fArray addAll(Vector2fArray array) {
+        checkArray(array);
+        
+        for(int index = 0; index < size; index++) {
+            x[index] += array.x[index];
+            y[index] += array.y[index];
+        }
+        
+        return this;
+    }
+    
+    /**
+     * Multiplies every vector of this array with a single value.
+     * 
+     * @param value The value to multiply with
+     * @return This array
+     */
+    public Vector2fArray mulAll(float value) {
+        for(int index = 0; index < size; index++) {
+            x[index] *= value;
+            y[index] *= value;
+        }
+        
+        return this;
+    }
+    
+    /**
+     * Normalizes every vector of this array. As in Vector2f.normalize(), vectors with a length of
+     * zero stay unchanged.
+     * 
+     * @return This array
+     */
+    public Vector2fArray normalizeAll() {
+        for(int index = 0; index < size; index++) {
+            float px = x[index];
+            float py = y[index];
+            float length = (float) Math.sqrt(px * px + py * py);
+            float scale = length == 0.0f ? 1.0f : 1.0f / length;
+            x[index] = px * scale;
+            y[index] = py * scale;
+        }
+        
+        return this;
+    }
+    
+    /**
+     * Calculates the dot product of every vector of this array with the given vector and stores the
+     * results in dest. No argument may be null and the destination must have a length of at least
+     * size().
+     * 
+     * @param vector The vector to calculate the dot products with
+     * @param dest The array to store the dot products in
+     * @return The destination array
+     */
+    public float[] dotAll(Vector2f vector, float[] dest) {
+        if(vector == null || dest == null)
+            throw new IllegalArgumentException("An argument is null");
+        
+        if(dest.length < size)
+            throw new IllegalArgumentException("The destination array is too small");
+        
+        float vx = vector.x;
+        float vy = vector.y;
+        
+        for(int index = 0; index < size; index++)
+            dest[index] = x[index] * vx + y[index] * vy;
+        
+        return dest;
+    }
+    
+    /**
+     * Calculates the dot product of every vector of this array with the vector at the same index of
+     * another array of the same size and stores the results in dest. No argument may be null and
+     * the destination must have a length of at least size().
+     * 
+     * @param array The array to calculate the dot products with
+     * @param dest The array to store the dot products in
+     * @return The destination array
+     */
+    public float[] dotAll(Vector2fArray array, float[] dest) {
+        checkArray(array);
+        
+        if(dest == null)
+            throw new IllegalArgumentException("The destination array is null");
+        
+        if(dest.length < size)
+            throw new IllegalArgumentException("The destination array is too small");
+        
+        for(int index = 0; index < size; index++)
+            dest[index] = x[index] * array.x[index] + y[index] * array.y[index];
+        
+        return dest;
+    }
+    
+    private void checkArray(Vector2fArray array) {
+        if(array == null)
+            throw new IllegalArgumentException("The array is null");
+        
+        if(array.size != size)
+            throw new IllegalArgumentException("The array sizes do not match");
+    }
+    
+    private void checkArguments(Object matrix, Vector2fArray dest) {
+        if(matrix == null)
+            throw new IllegalArgumentException("The matrix is null");
+        
+        checkArray(dest);
+    }
+}
@@ -1,7 +1,13 @@
 package com.teacore.math;
 
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+
 /**
- * Represents a 3-dimensional vector and provides utility math functions.
+ * Represents a 3-dimensional vector and provides utility math functions. Every operation is
+ * provided in three forms: one returning a new vector, one storing the result in a given
+ * destination vector and one (suffixed with Local) altering this vector itself. The latter two do
+ * not allocate any objects.
  * 
  * @author ShietStone
  */
@@ -11,6 +17,13 @@ public class Vector3f {
     public float y;
     public float z;
     
+    /**
+     * Creates a vector with all coordinates set to zero.
+     */
+    public Vector3f() {
+        this(0.0f, 0.0f, 0.0f);
+    }
+    
     /**
      * Stores the given coordinate values.
      * 
@@ -24,6 +37,127 @@ public class Vector3f {
         this.z = z;
     }
     
+    /**
+     * Sets this vectors coordinates to the given values.
+     * 
+     * @param x The x coordinate
+     * @param y The y coordinate
+     * @param z The z coordinate
+     * @return This vector
+     */
+    public Vector3f set(float x, float y, float z) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        return this;
+    }
+    
+    /**
+     * Sets this vectors coordinates to the ones of the given vector.
+     * 
+     * @param vector The vector to copy the values from
+     * @return This vector
+     */
+    public Vector3f set(Vector3f vector) {
+        return set(vector.x, vector.y, vector.z);
+    }
+    
+    /**
+     * Stores this vectors coordinates in the given float buffer, starting at its current
+     * position. The buffers position is not altered. The buffer may not be null.
+     * 
+     * @param buffer The buffer to store the coordinates in
+     * @return The given buffer
+     */
+    public FloatBuffer get(FloatBuffer buffer) {
+        if(buffer == null)
+            throw new IllegalArgumentException("The buffer is null");
+        
+        return get(buffer, buffer.position());
+    }
+    
+    /**
+     * Stores this vectors coordinates in the given float buffer, starting at the given absolute
+     * index. The buffers position is not altered. The buffer may not be null.
+     * 
+     * @param buffer The buffer to store the coordinates in
+     * @param index The absolute index of the first coordinate
+     * @return The given buffer
+     */
+    public FloatBuffer get(FloatBuffer buffer, int index) {
+        if(buffer == null)
+            throw new IllegalArgumentException("The buffer is null");
+        
+        buffer.put(index, x);
+        buffer.put(index + 1, y);
+        buffer.put(index + 2, z);
+        return buffer;
+    }
+    
+    /**
+     * Stores this vectors coordinates in the given byte buffer, starting at the given absolute
+     * byte offset and using the buffers byte order. The buffers position is not altered. The
+     * buffer may not be null.
+     * 
+     * @param buffer The buffer to store the coordinates in
+     * @param offset The absolute byte offset of the first coordinate
+     * @return The given buffer
+     */
+    public ByteBuffer get(ByteBuffer buffer, int offset) {
+        if(buffer == null)
+            throw new IllegalArgumentException("The buffer is null");
+        
+        buffer.putFloat(offset, x);
+        buffer.putFloat(offset + 4, y);
+        buffer.putFloat(offset + 8, z);
+        return buffer;
+    }
+    
+    /**
+     * Sets this vectors coordinates to the floats at the current position of the given float
+     * buffer. The buffers position is not altered. The buffer may not be null.
+     * 
+     * @param buffer The buffer to read the coordinates from
+     * @return This vector
+     */
+    public Vector3f set(FloatBuffer buffer) {
+        if(buffer == null)
+            throw new IllegalArgumentException("The buffer is null");
+        
+        return set(buffer, buffer.position());
+    }
+    
+    /**
+     * Sets this vectors coordinates to the floats starting at the given absolute index of the
+     * float buffer. The buffers position is not altered. The buffer may not be null.
+     * 
+     * @param buffer The buffer to read the coordinates from
+     * @param index The absolute index of the first coordinate
+     * @return This vector
+     */
+    public Vector3f set(FloatBuffer buffer, int index) {
+        if(buffer == null)
+            throw new IllegalArgumentException("The buffer is null");
+        
+        return set(buffer.get(index), buffer.get(index + 1), buffer.get(index + 2));
+    }
+    
+    /**
+     * Sets this vectors coordinates to the floats starting at the given absolute byte offset of
+     * the byte buffer, using the buffers byte order. The buffers position is not altered. The
+     * buffer may not be null.
+     * 
+     * @param buffer The buffer to read the coordinates from
+     * @param offset The absolute byte offset of the first coordinate
+     * @return This vector
+     */
+    public Vector3f set(ByteBuffer buffer, int offset) {
+        if(buffer == null)
+            throw new IllegalArgumentException("The buffer is null");
+        
+        return set(buffer.getFloat(offset), buffer.getFloat(offset + 4), buffer.getFloat(offset + 8));
+    }
+    
     /**
      * Adds a vectors values to this vectors values. This object itself is not altered.
      * 
@@ -31,7 +165,29 @@ public class Vector3f {
      * @return The result
      */
     public Vector3f add(Vector3f vector) {
-        return new Vector3f(x + vector.x, y + vector.y, z + vector.z);
+        return add(vector, new Vector3f());
+    }
+    
+    /**
+     * Adds a vectors values to this vectors values and stores the result in dest, which may be
+     * this vector or the given one.
+     * 
+     * @param vector The vector to add the values from
+     * @param dest The vector to store the result in
+     * @return The destination vector
+     */
+    public Vector3f add(Vector3f vector, Vector3f dest) {
+        return dest.set(x + vector.x, y + vector.y, z + vector.z);
+    }
+    
+    /**
+     * Adds a vectors values to this vectors values. The result is stored in this object.
+     * 
+     * @param vector The vector to add the values from
+     * @return This vector
+     */
+    public Vector3f addLocal(Vector3f vector) {
+        return add(vector, this);
     }
     
     /**
@@ -41,7 +197,29 @@ public class Vector3f {
      * @return The result
      */
     public Vector3f sub(Vector3f vector) {
-        return new Vector3f(x - vector.x, y - vector.y, z - vector.z);    
+        return sub(vector, new Vector3f());
+    }
+    
+    /**
+     * Subtracts a vectors values from this vectors values and stores the result in dest, which may
+     * be this vector or the given one.
+     * 
+     * @param vector The vector to subtract with
+     * @param dest The vector to store the result in
+     * @return The destination vector
+     */
+    public Vector3f sub(Vector3f vector, Vector3f dest) {
+        return dest.set(x - vector.x, y - vector.y, z - vector.z);
+    }
+    
+    /**
+     * Subtracts a vectors values from this vectors values. The result is stored in this object.
+     * 
+     * @param vector The vector to subtract with
+     * @return This vector
+     */
+    public Vector3f subLocal(Vector3f vector) {
+        return sub(vector, this);
     }
 
     /**
@@ -51,7 +229,29 @@ public class Vector3f {
      * @return The result
      */
     public Vector3f mul(Vector3f vector) {
-        return new Vector3f(x * vector.x, y * vector.y, z * vector.z);
+        return mul(vector, new Vector3f());
+    }
+    
+    /**
+     * Multiplies a vectors values with this vectors values and stores the result in dest, which
+     * may be this vector or the given one.
+     * 
+     * @param vector The vector to multiply the values with
+     * @param dest The vector to store the result in
+     * @return The destination vector
+     */
+    public Vector3f mul(Vector3f vector, Vector3f dest) {
+        return dest.set(x * vector.x, y * vector.y, z * vector.z);
+    }
+    
+    /**
+     * Multiplies a vectors values with this vectors values. The result is stored in this object.
+     * 
+     * @param vector The vector to multiply the values with
+     * @return This vector
+     */
+    public Vector3f mulLocal(Vector3f vector) {
+        return mul(vector, this);
     }
     
     /**
@@ -61,7 +261,29 @@ public class Vector3f {
      * @return The result
      */
     public Vector3f div(Vector3f vector) {
-        return new Vector3f(x / vector.x, y / vector.y, z / vector.z);    
+        return div(vector, new Vector3f());
+    }
+    
+    /**
+     * Divides this vectors values by another vectors values and stores the result in dest, which
+     * may be this vector or the given one.
+     * 
+     * @param vector The vector to divide the values by
+     * @param dest The vector to store the result in
+     * @return The destination vector
+     */
+    public Vector3f div(Vector3f vector, Vector3f dest) {
+        return dest.set(x / vector.x, y / vector.y, z / vector.z);
+    }
+    
+    /**
+     * Divides this vectors values by another vectors values. The result is stored in this object.
+     * 
+     * @param vector The vector to divide the values by
+     * @return This vector
+     */
+    public Vector3f divLocal(Vector3f vector) {
+        return div(vector, this);
     }
     
     /**
@@ -71,7 +293,28 @@ public class Vector3f {
      * @return The result
      */
     public Vector3f add(float value) {
-        return new Vector3f(x + value, y + value, z + value);
+        return add(value, new Vector3f());
+    }
+    
+    /**
+     * Adds a single value to this vectors value and stores the result in dest.
+     * 
+     * @param value The value to add
+     * @param dest The vector to store the result in
+     * @return The destination vector
+     */
+    public Vector3f add(float value, Vector3f dest) {
+        return dest.set(x + value, y + value, z + value);
+    }
+    
+    /**
+     * Adds a single value to this vectors value. The result is stored in this object.
+     * 
+     * @param value The value to add
+     * @return This vector
+     */
+    public Vector3f addLocal(float value) {
+        return add(value, this);
     }
     
     /**
@@ -81,7 +324,28 @@ public class Vector3f {
      * @return The result
      */
     public Vector3f sub(float value) {
-        return new Vector3f(x - value, y - value, z - value);
+        return sub(value, new Vector3f());
+    }
+    
+    /**
+     * Subtracts a single value to this vectors value and stores the result in dest.
+     * 
+     * @param value The value to subtract
+     * @param dest The vector to store the result in
+     * @return The destination vector
+     */
+    public Vector3f sub(float value, Vector3f dest) {
+        return dest.set(x - value, y - value, z - value);
+    }
+    
+    /**
+     * Subtracts a single value to this vectors value. The result is stored in this object.
+     * 
+     * @param value The value to subtract
+     * @return This vector
+     */
+    public Vector3f subLocal(float value) {
+        return sub(value, this);
     }
     
     /**
@@ -91,7 +355,28 @@ public class Vector3f {
      * @return The result
      */
     public Vector3f mul(float value) {
-        return new Vector3f(x * value, y * value, z * value);
+        return mul(value, new Vector3f());
+    }
+    
+    /**
+     * Multiplies a single value with this vectors value and stores the result in dest.
+     * 
+     * @param value The value to multiply with
+     * @param dest The vector to store the result in
+     * @return The destination vector
+     */
+    public Vector3f mul(float value, Vector3f dest) {
+        return dest.set(x * value, y * value, z * value);
+    }
+    
+    /**
+     * Multiplies a single value with this vectors value. The result is stored in this object.
+     * 
+     * @param value The value to multiply with
+     * @return This vector
+     */
+    public Vector3f mulLocal(float value) {
+        return mul(value, this);
     }
     
     /**
@@ -101,7 +386,28 @@ public class Vector3f {
      * @return The result
      */
     public Vector3f div(float value) {
-        return new Vector3f(x / value, y / value, z / value);
+        return div(value, new Vector3f());
+    }
+    
+    /**
+     * Divides this vectors values by a single value and stores the result in dest.
+     * 
+     * @param value The value to divide by
+     * @param dest The vector to store the result in
+     * @return The destination vector
+     */
+    public Vector3f div(float value, Vector3f dest) {
+        return dest.set(x / value, y / value, z / value);
+    }
+    
+    /**
+     * Divides this vectors values by a single value. The result is stored in this object.
+     * 
+     * @param value The value to divide by
+     * @return This vector
+     */
+    public Vector3f divLocal(float value) {
+        return div(value, this);
     }
     
     /**
@@ -120,12 +426,31 @@ public class Vector3f {
      * @return The result
      */
     public Vector3f normalize() {
+        return normalize(new Vector3f());
+    }
+    
+    /**
+     * Normalizes this vector and stores the result in dest.
+     * 
+     * @param dest The vector to store the result in
+     * @return The destination vector
+     */
+    public Vector3f normalize(Vector3f dest) {
         float length = length();
         
         if(length == 0.0f)
             length = 1.0f;
         
-        return new Vector3f(x / length, y / length, z / length);
+        return dest.set(x / length, y / length, z / length);
+    }
+    
+    /**
+     * Normalizes this vector. The result is stored in this object.
+     * 
+     * @return This vector
+     */
+    public Vector3f normalizeLocal() {
+        return normalize(this);
     }
     
     /**
@@ -145,6 +470,29 @@ public class Vector3f {
      * @return The result of the cross product
      */
     public Vector3f cross(Vector3f vector) {
-        return new Vector3f(y * vector.z - z * vector.y, z * vector.x - x * vector.z, x * vector.y - y * vector.x);
+        return cross(vector, new Vector3f());
+    }
+    
+    /**
+     * Calculates the cross product of this vector and another and stores the result in dest,
+     * which may be this vector or the given one.
+     * 
+     * @param vector The vector to calculate the cross product with
+     * @param dest The vector to store the result in
+     * @return The destination vector
+     */
+    public Vector3f cross(Vector3f vector, Vector3f dest) {
+        return dest.set(y * vector.z - z * vector.y, z * vector.x - x * vector.z, x * vector.y - y * vector.x);
+    }
+    
+    /**
+     * Calculates the cross product of this vector and another. The result is stored in this
+     * object.
+     * 
+     * @param vector The vector to calculate the cross product with
+     * @return This vector
+     */
+    public Vector3f crossLocal(Vector3f vector) {
+        return cross(vector, this);
     }
 }
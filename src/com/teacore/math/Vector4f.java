@@ -1,7 +1,13 @@
 package com.teacore.math;
 
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+
 /**
- * Represents a 3-dimensional vector and provides utility math functions.
+ * Represents a 3-dimensional vector and provides utility math functions. Every operation is
+ * provided in three forms: one returning a new vector, one storing the result in a given
+ * destination vector and one (suffixed with Local) altering this vector itself. The latter two do
+ * not allocate any objects.
  * 
  * @author ShietStone
  */
@@ -12,6 +18,13 @@ public class Vector4f {
     public float z;
     public float w;
     
+    /**
+     * Creates a vector with all coordinates set to zero.
+     */
+    public Vector4f() {
+        this(0.0f, 0.0f, 0.0f, 0.0f);
+    }
+    
     /**
      * Stores the given coordinate values.
      * 
@@ -27,6 +40,131 @@ public class Vector4f {
         this.w = w;
     }
     
+    /**
+     * Sets this vectors coordinates to the given values.
+     * 
+     * @param x The x coordinate
+     * @param y The y coordinate
+     * @param z The z coordinate
+     * @param w The w coordinate
+     * @return This vector
+     */
+    public Vector4f set(float x, float y, float z, float w) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.w = w;
+        return this;
+    }
+    
+    /**
+     * Sets this vectors coordinates to the ones of the given vector.
+     * 
+     * @param vector The vector to copy the values from
+     * @return This vector
+     */
+    public Vector4f set(Vector4f vector) {
+        return set(vector.x, vector.y, vector.z, vector.w);
+    }
+    
+    /**
+     * Stores this vectors coordinates in the given float buffer, starting at its current
+     * position. The buffers position is not altered. The buffer may not be null.
+     * 
+     * @param buffer The buffer to store the coordinates in
+     * @return The given buffer
+     */
+    public FloatBuffer get(FloatBuffer buffer) {
+        if(buffer == null)
+            throw new IllegalArgumentException("The buffer is null");
+        
+        return get(buffer, buffer.position());
+    }
+    
+    /**
+     * Stores this vectors coordinates in the given float buffer, starting at the given absolute
+     * index. The buffers position is not altered. The buffer may not be null.
+     * 
+     * @param buffer The buffer to store the coordinates in
+     * @param index The absolute index of the first coordinate
+     * @return The given buffer
+     */
+    public FloatBuffer get(FloatBuffer buffer, int index) {
+        if(buffer == null)
+            throw new IllegalArgumentException("The buffer is null");
+        
+        buffer.put(index, x);
+        buffer.put(index + 1, y);
+        buffer.put(index + 2, z);
+        buffer.put(index + 3, w);
+        return buffer;
+    }
+    
+    /**
+     * Stores this vectors coordinates in the given byte buffer, starting at the given absolute
+     * byte offset and using the buffers byte order. The buffers position is not altered. The
+     * buffer may not be null.
+     * 
+     * @param buffer The buffer to store the coordinates in
+     * @param offset The absolute byte offset of the first coordinate
+     * @return The given buffer
+     */
+    public ByteBuffer get(ByteBuffer buffer, int offset) {
+        if(buffer == null)
+            throw new IllegalArgumentException("The buffer is null");
+        
+        buffer.putFloat(offset, x);
+        buffer.putFloat(offset + 4, y);
+        buffer.putFloat(offset + 8, z);
+        buffer.putFloat(offset + 12, w);
+        return buffer;
+    }
+    
+    /**
+     * Sets this vectors coordinates to the floats at the current position of the given float
+     * buffer. The buffers position is not altered. The buffer may not be null.
+     * 
+     * @param buffer The buffer to read the coordinates from
+     * @return This vector
+     */
+    public Vector4f set(FloatBuffer buffer) {
+        if(buffer == null)
+            throw new IllegalArgumentException("The buffer is null");
+        
+        return set(buffer, buffer.position());
+    }
+    
+    /**
+     * Sets this vectors coordinates to the floats starting at the given absolute index of the
+     * float buffer. The buffers position is not altered. The buffer may not be null.
+     * 
+     * @param buffer The buffer to read the coordinates from
+     * @param index The absolute index of the first coordinate
+     * @return This vector
+     */
+    public Vector4f set(FloatBuffer buffer, int index) {
+        if(buffer == null)
+            throw new IllegalArgumentException("The buffer is null");
+        
+        return set(buffer.get(index), buffer.get(index + 1), buffer.get(index + 2), buffer.get(index + 3));
+    }
+    
+    /**
+     * Sets this vectors coordinates to the floats starting at the given absolute byte offset of
+     * the byte buffer, using the buffers byte order. The buffers position is not altered. The
+     * buffer may not be null.
+     * 
+     * @param buffer The buffer to read the coordinates from
+     * @param offset The absolute byte offset of the first coordinate
+     * @return This vector
+     */
+    public Vector4f set(ByteBuffer buffer, int offset) {
+        if(buffer == null)
+            throw new IllegalArgumentException("The buffer is null");
+        
+        return set(buffer.getFloat(offset), buffer.getFloat(offset + 4), buffer.getFloat(offset + 8), buffer.getFloat(offset + 12));
+    }
+    
     /**
      * Adds a vectors values to this vectors values. This object itself is not altered.
      * 
@@ -34,7 +172,29 @@ public class Vector4f {
      * @return The result
      */
     public Vector4f add(Vector4f vector) {
-        return new Vector4f(x + vector.x, y + vector.y, z + vector.z, w + vector.w);
+        return add(vector, new Vector4f());
+    }
+    
+    /**
+     * Adds a vectors values to this vectors values and stores the result in dest, which may be
+     * this vector or the given one.
+     * 
+     * @param vector The vector to add the values from
+     * @param dest The vector to store the result in
+     * @return The destination vector
+     */
+    public Vector4f add(Vector4f vector, Vector4f dest) {
+        return dest.set(x + vector.x, y + vector.y, z + vector.z, w + vector.w);
+    }
+    
+    /**
+     * Adds a vectors values to this vectors values. The result is stored in this object.
+     * 
+     * @param vector The vector to add the values from
+     * @return This vector
+     */
+    public Vector4f addLocal(Vector4f vector) {
+        return add(vector, this);
     }
     
     /**
@@ -44,7 +204,29 @@ public class Vector4f {
      * @return The result
      */
     public Vector4f sub(Vector4f vector) {
-        return new Vector4f(x - vector.x, y - vector.y, z - vector.z, w - vector.w);    
+        return sub(vector, new Vector4f());
+    }
+    
+    /**
+     * Subtracts a vectors values from this vectors values and stores the result in dest, which may
+     * be this vector or the given one.
+     * 
+     * @param vector The vector to subtract with
+     * @param dest The vector to store the result in
+     * @return The destination vector
+     */
+    public Vector4f sub(Vector4f vector, Vector4f dest) {
+        return dest.set(x - vector.x, y - vector.y, z - vector.z, w - vector.w);
+    }
+    
+    /**
+     * Subtracts a vectors values from this vectors values. The result is stored in this object.
+     * 
+     * @param vector The vector to subtract with
+     * @return This vector
+     */
+    public Vector4f subLocal(Vector4f vector) {
+        return sub(vector, this);
     }
 
     /**
@@ -54,7 +236,29 @@ public class Vector4f {
      * @return The result
      */
     public Vector4f mul(Vector4f vector) {
-        return new Vector4f(x * vector.x, y * vector.y, z * vector.z, w * vector.w);
+        return mul(vector, new Vector4f());
+    }
+    
+    /**
+     * Multiplies a vectors values with this vectors values and stores the result in dest, which
+     * may be this vector or the given one.
+     * 
+     * @param vector The vector to multiply the values with
+     * @param dest The vector to store the result in
+     * @return The destination vector
+     */
+    public Vector4f mul(Vector4f vector, Vector4f dest) {
+        return dest.set(x * vector.x, y * vector.y, z * vector.z, w * vector.w);
+    }
+    
+    /**
+     * Multiplies a vectors values with this vectors values. The result is stored in this object.
+     * 
+     * @param vector The vector to multiply the values with
+     * @return This vector
+     */
+    public Vector4f mulLocal(Vector4f vector) {
+        return mul(vector, this);
     }
     
     /**
@@ -64,7 +268,29 @@ public class Vector4f {
      * @return The result
      */
     public Vector4f div(Vector4f vector) {
-        return new Vector4f(x / vector.x, y / vector.y, z / vector.z, w / vector.w);    
+        return div(vector, new Vector4f());
+    }
+    
+    /**
+     * Divides this vectors values by another vectors values and stores the result in dest, which
+     * may be this vector or the given one.
+     * 
+     * @param vector The vector to divide the values by
+     * @param dest The vector to store the result in
+     * @return The destination vector
+     */
+    public Vector4f div(Vector4f vector, Vector4f dest) {
+        return dest.set(x / vector.x, y / vector.y, z / vector.z, w / vector.w);
+    }
+    
+    /**
+     * Divides this vectors values by another vectors values. The result is stored in this object.
+     * 
+     * @param vector The vector to divide the values by
+     * @return This vector
+     */
+    public Vector4f divLocal(Vector4f vector) {
+        return div(vector, this);
     }
     
     /**
@@ -74,7 +300,28 @@ public class Vector4f {
      * @return The result
      */
     public Vector4f add(float value) {
-        return new Vector4f(x + value, y + value, z + value, w + value);
+        return add(value, new Vector4f());
+    }
+    
+    /**
+     * Adds a single value to this vectors value and stores the result in dest.
+     * 
+     * @param value The value to add
+     * @param dest The vector to store the result in
+     * @return The destination vector
+     */
+    public Vector4f add(float value, Vector4f dest) {
+        return dest.set(x + value, y + value, z + value, w + value);
+    }
+    
+    /**
+     * Adds a single value to this vectors value. The result is stored in this object.
+     * 
+     * @param value The value to add
+     * @return This vector
+     */
+    public Vector4f addLocal(float value) {
+        return add(value, this);
     }
     
     /**
@@ -84,7 +331,28 @@ public class Vector4f {
      * @return The result
      */
     public Vector4f sub(float value) {
-        return new Vector4f(x - value, y - value, z - value, w - value);
+        return sub(value, new Vector4f());
+    }
+    
+    /**
+     * Subtracts a single value to this vectors value and stores the result in dest.
+     * 
+     * @param value The value to subtract
+     * @param dest The vector to store the result in
+     * @return The destination vector
+     */
+    public Vector4f sub(float value, Vector4f dest) {
+        return dest.set(x - value, y - value, z - value, w - value);
+    }
+    
+    /**
+     * Subtracts a single value to this vectors value. The result is stored in this object.
+     * 
+     * @param value The value to subtract
+     * @return This vector
+     */
+    public Vector4f subLocal(float value) {
+        return sub(value, this);
     }
     
     /**
@@ -94,7 +362,28 @@ public class Vector4f {
      * @return The result
      */
     public Vector4f mul(float value) {
-        return new Vector4f(x * value, y * value, z * value, w * value);
+        return mul(value, new Vector4f());
+    }
+    
+    /**
+     * Multiplies a single value with this vectors value and stores the result in dest.
+     * 
+     * @param value The value to multiply with
+     * @param dest The vector to store the result in
+     * @return The destination vector
+     */
+    public Vector4f mul(float value, Vector4f dest) {
+        return dest.set(x * value, y * value, z * value, w * value);
+    }
+    
+    /**
+     * Multiplies a single value with this vectors value. The result is stored in this object.
+     * 
+     * @param value The value to multiply with
+     * @return This vector
+     */
+    public Vector4f mulLocal(float value) {
+        return mul(value, this);
     }
     
     /**
@@ -104,7 +393,28 @@ public class Vector4f {
      * @return The result
      */
     public Vector4f div(float value) {
-        return new Vector4f(x / value, y / value, z / value, w / value);
+        return div(value, new Vector4f());
+    }
+    
+    /**
+     * Divides this vectors values by a single value and stores the result in dest.
+     * 
+     * @param value The value to divide by
+     * @param dest The vector to store the result in
+     * @return The destination vector
+     */
+    public Vector4f div(float value, Vector4f dest) {
+        return dest.set(x / value, y / value, z / value, w / value);
+    }
+    
+    /**
+     * Divides this vectors values by a single value. The result is stored in this object.
+     * 
+     * @param value The value to divide by
+     * @return This vector
+     */
+    public Vector4f divLocal(float value) {
+        return div(value, this);
     }
     
     /**
@@ -123,12 +433,31 @@ public class Vector4f {
      * @return The result
      */
     public Vector4f normalize() {
+        return normalize(new Vector4f());
+    }
+    
+    /**
+     * Normalizes this vector and stores the result in dest.
+     * 
+     * @param dest The vector to store the result in
+     * @return The destination vector
+     */
+    public Vector4f normalize(Vector4f dest) {
         float length = length();
         
         if(length == 0.0f)
             length = 1.0f;
         
-        return new Vector4f(x / length, y / length, z / length, w / length);
+        return dest.set(x / length, y / length, z / length, w / length);
+    }
+    
+    /**
+     * Normalizes this vector. The result is stored in this object.
+     * 
+     * @return This vector
+     */
+    public Vector4f normalizeLocal() {
+        return normalize(this);
     }
     
     /**
@@ -0,0 +1,179 @@
+package com.teacore.math;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The implementation of the batch loops using the JDK Vector API, processing as many elements per
+ * instruction as the preferred SIMD width of the CPU allows. Elements that do not fill a whole SIMD
+ * register are handed to the scalar implementation. No fused multiply-add is used, so the results
+ * are bit identical to the ones of ScalarBatchBackend. This class requires the incubator module
+ * jdk.incubator.vector (--add-modules jdk.incubator.vector) at compile time and at runtime, it is
+ * only loaded by BatchMath if the module is present.
+ * 
+ * @author ShietStone
+ */
+final class VectorBatchBackend implements BatchBackend {
+
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Float> ROW_SPECIES = FloatVector.SPECIES_128;
+    
+    private ScalarBatchBackend scalar;
+    
+    /**
+     * Creates the backend, which falls back to the given scalar backend for the remaining
+     * elements of each batch.
+     * 
+     * @param scalar The scalar backend
+     */
+    VectorBatchBackend(ScalarBatchBackend scalar) {
+        this.scalar = scalar;
+    }
+    
+    @Override
+    public void transform(Matrix4f matrix, float[] x, float[] y, float[] z, float[] w,
+                          float[] dx, float[] dy, float[] dz, float[] dw, int from, int to) {
+        int bound = from + SPECIES.loopBound(to - from);
+        int index = from;
+        
+        for(; index < bound; index += SPECIES.length()) {
+            FloatVector px = FloatVector.fromArray(SPECIES, x, index);
+            FloatVector py = FloatVector.fromArray(SPECIES, y, index);
+            FloatVector pz = FloatVector.fromArray(SPECIES, z, index);
+            FloatVector pw = FloatVector.fromArray(SPECIES, w, index);
+            
+            row(px, py, pz, pw, matrix.f00, matrix.f01, matrix.f02, matrix.f03).intoArray(dx, index);
+            row(px, py, pz, pw, matrix.f10, matrix.f11, matrix.f12, matrix.f13).intoArray(dy, index);
+            row(px, py, pz, pw, matrix.f20, matrix.f21, matrix.f22, matrix.f23).intoArray(dz, index);
+            row(px, py, pz, pw, matrix.f30, matrix.f31, matrix.f32, matrix.f33).intoArray(dw, index);
+        }
+        
+        scalar.transform(matrix, x, y, z, w, dx, dy, dz, dw, index, to);
+    }
+    
+    @Override
+    public void transformPoints(Matrix4f matrix, float[] x, float[] y, float[] z,
+                                float[] dx, float[] dy, float[] dz, int from, int to) {
+        int bound = from + SPECIES.loopBound(to - from);
+        int index = from;
+        
+        for(; index < bound; index += SPECIES.length()) {
+            FloatVector px = FloatVector.fromArray(SPECIES, x, index);
+            FloatVector py = FloatVector.fromArray(SPECIES, y, index);
+            FloatVector pz = FloatVector.fromArray(SPECIES, z, index);
+            
+            row(px, py, pz, matrix.f00, matrix.f01, matrix.f02).add(matrix.f03).intoArray(dx, index);
+            row(px, py, pz, matrix.f10, matrix.f11, matrix.f12).add(matrix.f13).intoArray(dy, index);
+            row(px, py, pz, matrix.f20, matrix.f21, matrix.f22).add(matrix.f23).intoArray(dz, index);
+        }
+        
+        scalar.transformPoints(matrix, x, y, z, dx, dy, dz, index, to);
+    }
+    
+    @Override
+    public void normalize(float[] x, float[] y, float[] z, int from, int to) {
+        int bound = from + SPECIES.loopBound(to - from);
+        int index = from;
+        
+        for(; index < bound; index += SPECIES.length()) {
+            FloatVector px = FloatVector.fromArray(SPECIES, x, index);
+            FloatVector py = FloatVector.fromArray(SPECIES, y, index);
+            FloatVector pz = FloatVector.fromArray(SPECIES, z, index);
+            FloatVector scale = scale(px.mul(px).add(py.mul(py)).add(pz.mul(pz)));
+            
+            px.mul(scale).intoArray(x, index);
+            py.mul(scale).intoArray(y, index);
+            pz.mul(scale).intoArray(z, index);
+        }
+        
+        scalar.normalize(x, y, z, index, to);
+    }
+    
+    @Override
+    public void normalize(float[] x, float[] y, float[] z, float[] w, int from, int to) {
+        int bound = from + SPECIES.loopBound(to - from);
+        int index = from;
+        
+        for(; index < bound; index += SPECIES.length()) {
+            FloatVector px = FloatVector.fromArray(SPECIES, x, index);
+            FloatVector py = FloatVector.fromArray(SPECIES, y, index);
+            FloatVector pz = FloatVector.fromArray(SPECIES, z, index);
+            FloatVector pw = FloatVector.fromArray(SPECIES, w, index);
+            FloatVector scale = scale(px.mul(px).add(py.mul(py)).add(pz.mul(pz)).add(pw.mul(pw)));
+            
+            px.mul(scale).intoArray(x, index);
+            py.mul(scale).intoArray(y, index);
+            pz.mul(scale).intoArray(z, index);
+            pw.mul(scale).intoArray(w, index);
+        }
+        
+        scalar.normalize(x, y, z, w, index, to);
+    }
+    
+    @Override
+    public void mul(float[] left, int leftStep, float[] right, float[] dest, int from, int to) {
+        if(SPECIES.vectorBitSize() < ROW_SPECIES.vectorBitSize()) {
+            scalar.mul(left, leftStep, right, dest, from, to);
+            return;
+        }
+        
+        for(int index = from; index < to; index++) {
+            int l = index * leftStep;
+            int r = index * 16;
+            
+            FloatVector b0 = FloatVector.fromArray(ROW_SPECIES, right, r);
+            FloatVector b1 = FloatVector.fromArray(ROW_SPECIES, right, r + 4);
+            FloatVector b2 = FloatVector.fromArray(ROW_SPECIES, right, r + 8);
+            FloatVector b3 = FloatVector.fromArray(ROW_SPECIES, right, r + 12);
+            
+            for(int rowIndex = 0; rowIndex < 16; rowIndex += 4) {
+                float a0 = left[l + rowIndex];
+                float a1 = left[l + rowIndex + 1];
+                float a2 = left[l + rowIndex + 2];
+                float a3 = left[l + rowIndex + 3];
+                
+                b0.mul(a0).add(b1.mul(a1)).add(b2.mul(a2)).add(b3.mul(a3)).intoArray(dest, r + rowIndex);
+            }
+        }
+    }
+    
+    @Override
+    public void mul(Matrix4f left, float[] right, float[] dest, int from, int to) {
+        if(SPECIES.vectorBitSize() < ROW_SPECIES.vectorBitSize()) {
+            scalar.mul(left, right, dest, from, to);
+            return;
+        }
+        
+        for(int index = from; index < to; index++) {
+            int r = index * 16;
+            
+            FloatVector b0 = FloatVector.fromArray(ROW_SPECIES, right, r);
+            FloatVector b1 = FloatVector.fromArray(ROW_SPECIES, right, r + 4);
+            FloatVector b2 = FloatVector.fromArray(ROW_SPECIES, right, r + 8);
+            FloatVector b3 = FloatVector.fromArray(ROW_SPECIES, right, r + 12);
+            
+            row(b0, b1, b2, b3, left.f00, left.f01, left.f02, left.f03).intoArray(dest, r);
+            row(b0, b1, b2, b3, left.f10, left.f11, left.f12, left.f13).intoArray(dest, r + 4);
+            row(b0, b1, b2, b3, left.f20, left.f21, left.f22, left.f23).intoArray(dest, r + 8);
+            row(b0, b1, b2, b3, left.f30, left.f31, left.f32, left.f33).intoArray(dest, r + 12);
+        }
+    }
+    
+    private FloatVector row(FloatVector px, FloatVector py, FloatVector pz, float f0, float f1, float f2) {
+        return px.mul(f0).add(py.mul(f1)).add(pz.mul(f2));
+    }
+    
+    private FloatVector row(FloatVector px, FloatVector py, FloatVector pz, FloatVector pw,
+                            float f0, float f1, float f2, float f3) {
+        return row(px, py, pz, f0, f1, f2).add(pw.mul(f3));
+    }
+    
+    private FloatVector scale(FloatVector squaredLength) {
+        FloatVector length = squaredLength.lanewise(VectorOperators.SQRT);
+        VectorMask<Float> zero = length.eq(0.0f);
+        
+        return FloatVector.broadcast(SPECIES, 1.0f).div(length).blend(1.0f, zero);
+    }
+}
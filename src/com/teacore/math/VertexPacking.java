@@ -0,0 +1,291 @@
+package com.teacore.math;
+
+/**
+ * Converts vertex attributes to compact representations that take less memory and bandwidth than 32
+ * bit floats: half floats, normalized 8 and 16 bit integers (SNORM for values between -1 and 1,
+ * UNORM for values between 0 and 1) and octahedral normals, which store a unit vector in just two
+ * components. The packed arrays can be loaded into an OGLVertexArray with the matching data type
+ * and normalized flag. The batch methods convert count values (or count normals) from the start of
+ * the given arrays and do not allocate any objects.
+ * 
+ * @author ShietStone
+ */
+public class VertexPacking {
+
+    /**
+     * Converts a float to the bits of the nearest half float (IEEE 754 binary16), rounding ties to
+     * even. Values too large for a half float become infinity, NaN stays NaN.
+     * 
+     * @param value The float value
+     * @return The half float bits
+     */
+    public static short toHalf(float value) {
+        int bits = Float.floatToRawIntBits(value);
+        int sign = (bits >>> 16) & 0x8000;
+        int exponent = (bits >>> 23) & 0xFF;
+        int mantissa = bits & 0x7FFFFF;
+        
+        if(exponent == 0xFF)
+            return (short) (sign | 0x7C00 | (mantissa != 0 ? 0x200 : 0));
+        
+        int halfExponent = exponent - 127 + 15;
+        
+        if(halfExponent >= 0x1F)
+            return (short) (sign | 0x7C00);
+        
+        if(halfExponent <= 0) {
+            if(halfExponent < -10)
+                return (short) sign;
+            
+            mantissa |= 0x800000;
+            int shift = 14 - halfExponent;
+            int half = mantissa >>> shift;
+            int remainder = mantissa & ((1 << shift) - 1);
+            int halfway = 1 << (shift - 1);
+            
+            if(remainder > halfway || remainder == halfway && (half & 1) != 0)
+                half++;
+            
+            return (short) (sign | half);
+        }
+        
+        int half = (halfExponent << 10) | (mantissa >>> 13);
+        int remainder = mantissa & 0x1FFF;
+        
+        if(remainder > 0x1000 || remainder == 0x1000 && (half & 1) != 0)
+            half++;
+        
+        return (short) (sign | half);
+    }
+    
+    /**
+     * Converts the bits of a half float (IEEE 754 binary16) to a float. This is exact.
+     * 
+     * @param half The half float bits
+     * @return The float value
+     */
+    public static float fromHalf(short half) {
+        int sign = (half & 0x8000) << 16;
+        int exponent = (half >>> 10) & 0x1F;
+        int mantissa = half & 0x3FF;
+        
+        if(exponent == 0x1F)
+            return Float.intBitsToFloat(sign | 0x7F800000 | (mantissa << 13));
+        
+        if(exponent == 0) {
+            float value = mantissa * 0x1.0p-24f;
+            return sign != 0 ? -value : value;
+        }
+        
+        return Float.intBitsToFloat(sign | ((exponent - 15 + 127) << 23) | (mantissa << 13));
+    }
+    
+    /**
+     * Converts count floats to half floats. No argument may be null and both arrays must hold at
+     * least count values.
+     * 
+     * @param source The floats to convert
+     * @param dest The array to store the half float bits in
+     * @param count The number of values
+     * @return The destination array
+     */
+    public static short[] packHalf(float[] source, short[] dest, int count) {
+        checkArrays(source, count, dest == null ? -1 : dest.length, count);
+        
+        for(int index = 0; index < count; index++)
+            dest[index] = toHalf(source[index]);
+        
+        return dest;
+    }
+    
+    /**
+     * Converts count floats between -1 and 1 to signed normalized 8 bit integers, clamping values
+     * outside of this range. No argument may be null and both arrays must hold at least count
+     * values.
+     * 
+     * @param source The floats to convert
+     * @param dest The array to store the integers in
+     * @param count The number of values
+     * @return The destination array
+     */
+    public static byte[] packSnorm8(float[] source, byte[] dest, int count) {
+        checkArrays(source, count, dest == null ? -1 : dest.length, count);
+        
+        for(int index = 0; index < count; index++)
+            dest[index] = (byte) Math.round(clamp(source[index], -1.0f) * 127.0f);
+        
+        return dest;
+    }
+    
+    /**
+     * Converts count floats between 0 and 1 to unsigned normalized 8 bit integers, clamping values
+     * outside of this range. No argument may be null and both arrays must hold at least count
+     * values.
+     * 
+     * @param source The floats to convert
+     * @param dest The array to store the integers in
+     * @param count The number of values
+     * @return The destination array
+     */
+    public static byte[] packUnorm8(float[] source, byte[] dest, int count) {
+        checkArrays(source, count, dest == null ? -1 : dest.length, count);
+        
+        for(int index = 0; index < count; index++)
+            dest[index] = (byte) Math.round(clamp(source[index], 0.0f) * 255.0f);
+        
+        return dest;
+    }
+    
+    /**
+     * Converts count floats between -1 and 1 to signed normalized 16 bit integers, clamping values
+     * outside of this range. No argument may be null and both arrays must hold at least count
+     * values.
+     * 
+     * @param source The floats to convert
+     * @param dest The array to store the integers in
+     * @param count The number of values
+     * @return The destination array
+     */
+    public static short[] packSnorm16(float[] source, short[] dest, int count) {
+        checkArrays(source, count, dest == null ? -1 : dest.length, count);
+        
+        for(int index = 0; index < count; index++)
+            dest[index] = (short) Math.round(clamp(source[index], -1.0f) * 32767.0f);
+        
+        return dest;
+    }
+    
+    /**
+     * Converts count floats between 0 and 1 to unsigned normalized 16 bit integers, clamping values
+     * outside of this range. No argument may be null and both arrays must hold at least count
+     * values.
+     * 
+     * @param source The floats to convert
+     * @param dest The array to store the integers in
+     * @param count The number of values
+     * @return The destination array
+     */
+    public static short[] packUnorm16(float[] source, short[] dest, int count) {
+        checkArrays(source, count, dest == null ? -1 : dest.length, count);
+        
+        for(int index = 0; index < count; index++)
+            dest[index] = (short) Math.round(clamp(source[index], 0.0f) * 65535.0f);
+        
+        return dest;
+    }
+    
+    /**
+     * Encodes a normalized vector with octahedral mapping into two values between -1 and 1 and
+     * stores them in dest, which may not be null. The vector is projected onto the octahedron |x| +
+     * |y| + |z| = 1, whose lower half is folded over the upper one.
+     * 
+     * @param x The x coordinate of the normal
+     * @param y The y coordinate of the normal
+     * @param z The z coordinate of the normal
+     * @param dest The vector to store the encoded normal in
+     * @return The destination vector
+     */
+    public static Vector2f encodeOctahedral(float x, float y, float z, Vector2f dest) {
+        if(dest == null)
+            throw new IllegalArgumentException("The destination vector is null");
+        
+        float length = Math.abs(x) + Math.abs(y) + Math.abs(z);
+        
+        if(length == 0.0f)
+            return dest.set(0.0f, 0.0f);
+        
+        float u = x / length;
+        float v = y / length;
+        
+        if(z < 0.0f)
+            return dest.set((1.0f - Math.abs(v)) * Math.copySign(1.0f, u), (1.0f - Math.abs(u)) * Math.copySign(1.0f, v));
+        
+        return dest.set(u, v);
+    }
+    
+    /**
+     * Decodes a normal encoded by encodeOctahedral() and stores it normalized in dest, which may
+     * not be null. Shaders decode packed normals the same way.
+     * 
+     * @param u The first encoded value
+     * @param v The second encoded value
+     * @param dest The vector to store the normal in
+     * @return The destination vector
+     */
+    public static Vector3f decodeOctahedral(float u, float v, Vector3f dest) {
+        if(dest == null)
+            throw new IllegalArgumentException("The destination vector is null");
+        
+        float z = 1.0f - Math.abs(u) - Math.abs(v);
+        float x = u;
+        float y = v;
+        
+        if(z < 0.0f) {
+            x = (1.0f - Math.abs(v)) * Math.copySign(1.0f, u);
+            y = (1.0f - Math.abs(u)) * Math.copySign(1.0f, v);
+        }
+        
+        return dest.set(x, y, z).normalizeLocal();
+    }
+    
+    /**
+     * Encodes count normals packed as (x, y, z) with octahedral mapping (see encodeOctahedral())
+     * into two signed normalized 16 bit integers each. No argument may be null, the source array
+     * must hold 3 * count and the destination 2 * count values.
+     * 
+     * @param normals The normals to encode
+     * @param dest The array to store the encoded normals in
+     * @param count The number of normals
+     * @return The destination array
+     */
+    public static short[] packOctahedralSnorm16(float[] normals, short[] dest, int count) {
+        checkArrays(normals, count * 3, dest == null ? -1 : dest.length, count * 2);
+        
+        Vector2f encoded = new Vector2f();
+        
+        for(int index = 0; index < count; index++) {
+            encodeOctahedral(normals[index * 3], normals[index * 3 + 1], normals[index * 3 + 2], encoded);
+            dest[index * 2] = (short) Math.round(clamp(encoded.x, -1.0f) * 32767.0f);
+            dest[index * 2 + 1] = (short) Math.round(clamp(encoded.y, -1.0f) * 32767.0f);
+        }
+        
+        return dest;
+    }
+    
+    /**
+     * Encodes count normals packed as (x, y, z) with octahedral mapping (see encodeOctahedral())
+     * into two signed normalized 8 bit integers each. This is less precise than
+     * packOctahedralSnorm16(), but often sufficient for lighting. No argument may be null, the
+     * source array must hold 3 * count and the destination 2 * count values.
+     * 
+     * @param normals The normals to encode
+     * @param dest The array to store the encoded normals in
+     * @param count The number of normals
+     * @return The destination array
+     */
+    public static byte[] packOctahedralSnorm8(float[] normals, byte[] dest, int count) {
+        checkArrays(normals, count * 3, dest == null ? -1 : dest.length, count * 2);
+        
+        Vector2f encoded = new Vector2f();
+        
+        for(int index = 0; index < count; index++) {
+            encodeOctahedral(normals[index * 3], normals[index * 3 + 1], normals[index * 3 + 2], encoded);
+            dest[index * 2] = (byte) Math.round(clamp(encoded.x, -1.0f) * 127.0f);
+            dest[index * 2 + 1] = (byte) Math.round(clamp(encoded.y, -1.0f) * 127.0f);
+        }
+        
+        return dest;
+    }
+    
+    private static float clamp(float value, float min) {
+        return value < min ? min : value > 1.0f ? 1.0f : value;
+    }
+    
+    private static void checkArrays(float[] source, int sourceCount, int destLength, int destCount) {
+        if(source == null || destLength < 0)
+            throw new IllegalArgumentException("An array is null");
+        
+        if(sourceCount < 0 || source.length < sourceCount || destLength < destCount)
+            throw new IllegalArgumentException("An array is too small");
+    }
+}
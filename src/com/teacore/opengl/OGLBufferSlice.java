@@ -0,0 +1,65 @@
+package com.teacore.opengl;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Represents a range of an {@link OGLRingBuffer} allocated for the current frame. The data is
+ * written directly into mapped buffer memory through the ByteBuffer view, after which the slice
+ * can be used as vertex or index source of an {@link OGLVertexArrayObject} or as uniform block of
+ * an {@link OGLShader}. A slice is only valid until the ring buffer starts the same frame segment
+ * again, which is two frames later.
+ * 
+ * @author ShietStone
+ */
+public final class OGLBufferSlice {
+
+    private OGLRingBuffer ringBuffer;
+    private ByteBuffer buffer;
+    private int offset;
+    private int size;
+    
+    OGLBufferSlice(OGLRingBuffer ringBuffer, ByteBuffer buffer, int offset, int size) {
+        this.ringBuffer = ringBuffer;
+        this.buffer = buffer;
+        this.offset = offset;
+        this.size = size;
+    }
+    
+    /**
+     * Returns the view of the mapped memory of this slice, which starts at position 0 and has the
+     * native byte order. Writing beyond its limit is not possible. It must not be written to after
+     * the frame was ended.
+     * 
+     * @return The mapped memory
+     */
+    public ByteBuffer getBuffer() {
+        return buffer;
+    }
+    
+    /**
+     * Returns the ring buffer this slice belongs to.
+     * 
+     * @return The ring buffer
+     */
+    public OGLRingBuffer getRingBuffer() {
+        return ringBuffer;
+    }
+    
+    /**
+     * Returns the offset of this slice in bytes from the start of the OpenGL buffer.
+     * 
+     * @return The offset in bytes
+     */
+    public int getOffset() {
+        return offset;
+    }
+    
+    /**
+     * Returns the size of this slice in bytes.
+     * 
+     * @return The size in bytes
+     */
+    public int getSize() {
+        return size;
+    }
+}
@@ -0,0 +1,32 @@
+package com.teacore.opengl;
+
+import org.lwjgl.opengl.GL15;
+
+/**
+ * Resembles the usage hints of OpenGL buffers, telling the driver how often the data of an
+ * {@link OGLVertexArrayObject} is going to change: STATIC data is uploaded once, DYNAMIC data is
+ * changed from time to time and STREAM data is replaced about every time it is drawn.
+ * 
+ * @author ShietStone
+ */
+public enum OGLBufferUsage {
+
+	STATIC(GL15.GL_STATIC_DRAW),
+	DYNAMIC(GL15.GL_DYNAMIC_DRAW),
+	STREAM(GL15.GL_STREAM_DRAW);
+	
+	private int handle;
+	
+	private OGLBufferUsage(int handle) {
+		this.handle = handle;
+	}
+	
+	/**
+	 * Returns the OpenGL ID of this usage hint.
+	 * 
+	 * @return The OpenGL ID
+	 */
+	public int getHandle() {
+		return handle;
+	}
+}
@@ -0,0 +1,49 @@
+package com.teacore.opengl;
+
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL30;
+
+/**
+ * Resembles the data types vertex attributes can be stored as in an {@link OGLVertexArray}. The
+ * integer types can be read either as normalized values (SNORM or UNORM, mapping the integer range
+ * to -1 to 1 or 0 to 1) or as plain numbers converted to float.
+ * 
+ * @author ShietStone
+ */
+public enum OGLDataType {
+
+	FLOAT(GL11.GL_FLOAT, 4),
+	HALF_FLOAT(GL30.GL_HALF_FLOAT, 2),
+	BYTE(GL11.GL_BYTE, 1),
+	UNSIGNED_BYTE(GL11.GL_UNSIGNED_BYTE, 1),
+	SHORT(GL11.GL_SHORT, 2),
+	UNSIGNED_SHORT(GL11.GL_UNSIGNED_SHORT, 2),
+	INT(GL11.GL_INT, 4),
+	UNSIGNED_INT(GL11.GL_UNSIGNED_INT, 4);
+	
+	private int handle;
+	private int size;
+	
+	private OGLDataType(int handle, int size) {
+		this.handle = handle;
+		this.size = size;
+	}
+	
+	/**
+	 * Returns the OpenGL ID of this data type.
+	 * 
+	 * @return The OpenGL ID
+	 */
+	public int getHandle() {
+		return handle;
+	}
+	
+	/**
+	 * Returns the size of one value of this data type in bytes.
+	 * 
+	 * @return The size in bytes
+	 */
+	public int getSize() {
+		return size;
+	}
+}
@@ -0,0 +1,36 @@
+package com.teacore.opengl;
+
+import org.lwjgl.opengl.GL11;
+
+/**
+ * Resembles the kinds of primitives an {@link OGLVertexArrayObject} can draw its indices as. The
+ * strips, loops and fans share vertices between neighbouring primitives and can be split into
+ * several ones with primitive restart.
+ * 
+ * @author ShietStone
+ */
+public enum OGLPrimitiveMode {
+
+	POINTS(GL11.GL_POINTS),
+	LINES(GL11.GL_LINES),
+	LINE_STRIP(GL11.GL_LINE_STRIP),
+	LINE_LOOP(GL11.GL_LINE_LOOP),
+	TRIANGLES(GL11.GL_TRIANGLES),
+	TRIANGLE_STRIP(GL11.GL_TRIANGLE_STRIP),
+	TRIANGLE_FAN(GL11.GL_TRIANGLE_FAN);
+	
+	private int handle;
+	
+	private OGLPrimitiveMode(int handle) {
+		this.handle = handle;
+	}
+	
+	/**
+	 * Returns the OpenGL ID of this primitive mode.
+	 * 
+	 * @return The OpenGL ID
+	 */
+	public int getHandle() {
+		return handle;
+	}
+}
@@ -0,0 +1,326 @@
+package com.teacore.opengl;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.lwjgl.opengl.ARBBufferStorage;
+import org.lwjgl.opengl.GL;
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL15;
+import org.lwjgl.opengl.GL30;
+import org.lwjgl.opengl.GL31;
+import org.lwjgl.opengl.GL32;
+import org.lwjgl.opengl.GL44;
+import org.lwjgl.opengl.GLCapabilities;
+
+import com.teacore.glfw.GLFWWindow;
+
+/**
+ * This class manages an OpenGL buffer used to stream data that changes every frame, like dynamic
+ * vertices, indices and uniform blocks, without the driver stalls of glBufferData or
+ * glBufferSubData. The buffer is split into three frame segments (triple buffering). Every frame
+ * the data is written into the next segment, while the GPU may still read the segments of the two
+ * previous frames. A fence is placed behind the draw calls of every frame, and a segment is only
+ * reused once its fence was passed, so the CPU never overwrites data the GPU still reads.
+ * <p>
+ * If OpenGL 4.4 or ARB_buffer_storage is available, the buffer is mapped persistently and
+ * coherently once, so writes are visible to the GPU without any further calls. Otherwise every
+ * segment is mapped unsynchronized with glMapBufferRange at the start of the frame and unmapped at
+ * its end. A frame looks like this:
+ * 
+ * <pre>
+ * ringBuffer.beginFrame();
+ * OGLBufferSlice slice = ringBuffer.allocate(size, 16);
+ * // write into slice.getBuffer()
+ * ringBuffer.endFrame();
+ * // draw using the slices
+ * </pre>
+ * 
+ * To avoid memory leaks this class extends OGLAllocatedData and (un-)registers itself there
+ * automatically.
+ * 
+ * @author ShietStone
+ */
+public final class OGLRingBuffer extends OGLAllocatedData {
+
+    /**
+     * The number of frame segments, so the number of frames the CPU may be ahead of the GPU.
+     */
+    public static final int FRAME_COUNT = 3;
+    
+    private static final int SEGMENT_ALIGNMENT = 256;
+    
+    private int bufferHandle;
+    private int segmentSize;
+    private boolean persistent;
+    private ByteBuffer mappedBuffer;
+    private long[] fences;
+    private int segment;
+    private int segmentOffset;
+    private int uniformAlignment;
+    private boolean frameStarted;
+    private boolean mapped;
+    
+    /**
+     * Creates a ring buffer that can hold the given number of bytes per frame, using a persistent
+     * mapping if supported. See OGLRingBuffer(int, boolean).
+     * 
+     * @param frameSize The maximum number of bytes allocated per frame
+     */
+    public OGLRingBuffer(int frameSize) {
+        this(frameSize, true);
+    }
+    
+    /**
+     * Creates a ring buffer that can hold the given number of bytes per frame, which must be at
+     * least 1. The OpenGL buffer is FRAME_COUNT times as large. If allowPersistent is false, the
+     * glMapBufferRange fallback is used even if persistent mappings are supported. Requires at
+     * least OpenGL 3.2 for fences. The constructor also automatically registers this object as
+     * OGLAllocatedData.
+     * 
+     * @param frameSize The maximum number of bytes allocated per frame
+     * @param allowPersistent If the buffer may be mapped persistently
+     */
+    public OGLRingBuffer(int frameSize, boolean allowPersistent) {
+        super();
+        
+        if(frameSize < 1)
+            throw new IllegalArgumentException("Frame size is less than one");
+        
+        segmentSize = (frameSize + SEGMENT_ALIGNMENT - 1) / SEGMENT_ALIGNMENT * SEGMENT_ALIGNMENT;
+        
+        if(segmentSize < frameSize || (long) segmentSize * FRAME_COUNT > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Frame size is too large");
+        
+        GLCapabilities capabilities = GL.getCapabilities();
+        persistent = allowPersistent && (capabilities.OpenGL44 || capabilities.GL_ARB_buffer_storage);
+        uniformAlignment = Math.max(1, GL11.glGetInteger(GL31.GL_UNIFORM_BUFFER_OFFSET_ALIGNMENT));
+        fences = new long[FRAME_COUNT];
+        segment = FRAME_COUNT - 1;
+        
+        long totalSize = (long) segmentSize * FRAME_COUNT;
+        bufferHandle = GL15.glGenBuffers();
+        GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, bufferHandle);
+        
+        if(persistent) {
+            int flags = GL30.GL_MAP_WRITE_BIT | GL44.GL_MAP_PERSISTENT_BIT | GL44.GL_MAP_COHERENT_BIT;
+            
+            if(capabilities.OpenGL44)
+                GL44.glBufferStorage(GL15.GL_ARRAY_BUFFER, totalSize, flags);
+            else
+                ARBBufferStorage.glBufferStorage(GL15.GL_ARRAY_BUFFER, totalSize, flags);
+            
+            mappedBuffer = GL30.glMapBufferRange(GL15.GL_ARRAY_BUFFER, 0, totalSize, flags);
+            
+            if(mappedBuffer == null) {
+                GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, 0);
+                GL15.glDeleteBuffers(bufferHandle);
+                throw new IllegalStateException("The ring buffer could not be mapped");
+            }
+            
+            mappedBuffer.order(ByteOrder.nativeOrder());
+        } else {
+            GL15.glBufferData(GL15.GL_ARRAY_BUFFER, totalSize, GL15.GL_STREAM_DRAW);
+        }
+        
+        GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, 0);
+        
+        OGLAllocatedData.register(this);
+    }
+    
+    /**
+     * Starts a new frame. This places a fence behind all commands issued so far, which includes
+     * the draw calls of the previous frame, moves on to the next frame segment and waits until the
+     * GPU has passed the fence placed when that segment was used last. Must not be called again
+     * before the frame was ended. Throws an IllegalStateException if already deleted, the wrong
+     * OpenGL context is current or a frame was already started.
+     */
+    public void beginFrame() {
+        checkState();
+        
+        if(frameStarted)
+            throw new IllegalStateException("The frame was already started");
+        
+        if(fences[segment] != 0)
+            GL32.glDeleteSync(fences[segment]);
+        
+        fences[segment] = GL32.glFenceSync(GL32.GL_SYNC_GPU_COMMANDS_COMPLETE, 0);
+        segment = (segment + 1) % FRAME_COUNT;
+        
+        waitForFence(segment);
+        segmentOffset = 0;
+        frameStarted = true;
+        
+        if(!persistent) {
+            GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, bufferHandle);
+            mappedBuffer = GL30.glMapBufferRange(GL15.GL_ARRAY_BUFFER, (long) segment * segmentSize, segmentSize,
+                                                 GL30.GL_MAP_WRITE_BIT | GL30.GL_MAP_INVALIDATE_RANGE_BIT
+                                                 | GL30.GL_MAP_UNSYNCHRONIZED_BIT);
+            GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, 0);
+            
+            if(mappedBuffer == null)
+                throw new IllegalStateException("The ring buffer could not be mapped");
+            
+            mappedBuffer.order(ByteOrder.nativeOrder());
+            mapped = true;
+        }
+    }
+    
+    /**
+     * Allocates the given number of bytes in the segment of the current frame, starting at an
+     * offset that is a multiple of the given alignment (for example the vertex size). The returned
+     * slice can be written to until the frame is ended. Throws an IllegalArgumentException if the
+     * size is negative or the alignment less than one and an IllegalStateException if no frame was
+     * started or the segment is full.
+     * 
+     * @param size The number of bytes to allocate
+     * @param alignment The alignment of the offset in bytes
+     * @return The allocated slice
+     */
+    public OGLBufferSlice allocate(int size, int alignment) {
+        checkState();
+        
+        if(size < 0)
+            throw new IllegalArgumentException("Size is negative");
+        
+        if(alignment < 1)
+            throw new IllegalArgumentException("Alignment is less than one");
+        
+        if(!frameStarted)
+            throw new IllegalStateException("No frame was started");
+        
+        int segmentStart = segment * segmentSize;
+        long offset = ((long) segmentStart + segmentOffset + alignment - 1) / alignment * alignment;
+        
+        if(offset + size > segmentStart + segmentSize)
+            throw new IllegalStateException("The frame segment is full");
+        
+        int mappedStart = persistent ? (int) offset : (int) offset - segmentStart;
+        ByteBuffer view = mappedBuffer.slice(mappedStart, size).order(ByteOrder.nativeOrder());
+        segmentOffset = (int) (offset + size - segmentStart);
+        
+        return new OGLBufferSlice(this, view, (int) offset, size);
+    }
+    
+    /**
+     * Allocates room for a uniform block of the given size, aligned as OpenGL requires for
+     * binding it with OGLShader.setUniformBlock(). See allocate(int, int).
+     * 
+     * @param size The size of the uniform block in bytes
+     * @return The allocated slice
+     */
+    public OGLBufferSlice allocateUniformBlock(int size) {
+        return allocate(size, uniformAlignment);
+    }
+    
+    /**
+     * Ends the current frame, after which the slices must not be written to anymore and can be
+     * drawn from. Throws an IllegalStateException if already deleted, the wrong OpenGL context is
+     * current or no frame was started.
+     */
+    public void endFrame() {
+        checkState();
+        
+        if(!frameStarted)
+            throw new IllegalStateException("No frame was started");
+        
+        frameStarted = false;
+        
+        if(mapped) {
+            GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, bufferHandle);
+            GL15.glUnmapBuffer(GL15.GL_ARRAY_BUFFER);
+            GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, 0);
+            mappedBuffer = null;
+            mapped = false;
+        }
+    }
+    
+    /**
+     * Returns if the buffer is mapped persistently or the glMapBufferRange fallback is used.
+     * 
+     * @return If the buffer is mapped persistently
+     */
+    public boolean isPersistent() {
+        return persistent;
+    }
+    
+    /**
+     * Returns the number of bytes that can be allocated per frame, which is the frame size
+     * rounded up to a multiple of 256.
+     * 
+     * @return The size of a frame segment in bytes
+     */
+    public int getFrameSize() {
+        return segmentSize;
+    }
+    
+    /**
+     * Returns the number of bytes still available in the segment of the current frame, ignoring
+     * alignment.
+     * 
+     * @return The remaining bytes
+     */
+    public int getRemaining() {
+        return segmentSize - segmentOffset;
+    }
+    
+    /**
+     * Returns the OpenGL ID of the buffer.
+     * 
+     * @return The OpenGL ID
+     */
+    public int getHandle() {
+        return bufferHandle;
+    }
+    
+    /**
+     * Waits until the GPU finished all frames, then deletes this ring buffer and unregisters this
+     * object from OGLAllocatedData. An IllegalStateException is thrown if it was already deleted or
+     * the wrong OpenGL context is current.
+     */
+    @Override
+    public void delete() {
+        checkState();
+        
+        super.delete();
+        OGLAllocatedData.unregister(this);
+        
+        for(int index = 0; index < FRAME_COUNT; index++)
+            waitForFence(index);
+        
+        if(persistent || mapped) {
+            GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, bufferHandle);
+            GL15.glUnmapBuffer(GL15.GL_ARRAY_BUFFER);
+            GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, 0);
+        }
+        
+        GL15.glDeleteBuffers(bufferHandle);
+        mappedBuffer = null;
+    }
+    
+    private void waitForFence(int index) {
+        long fence = fences[index];
+        
+        if(fence == 0)
+            return;
+        
+        int result = GL32.glClientWaitSync(fence, 0, 0);
+        
+        while(result == GL32.GL_TIMEOUT_EXPIRED)
+            result = GL32.glClientWaitSync(fence, GL32.GL_SYNC_FLUSH_COMMANDS_BIT, 1000000);
+        
+        GL32.glDeleteSync(fence);
+        fences[index] = 0;
+        
+        if(result == GL32.GL_WAIT_FAILED)
+            throw new IllegalStateException("Waiting for the GPU failed");
+    }
+    
+    private void checkState() {
+        if(isDeleted())
+            throw new IllegalStateException("Ring buffer was already deleted");
+        
+        if(getContext() != GLFWWindow.getCurrentContext())
+            throw new IllegalStateException("The wrong OpenGL context is current");
+    }
+}
@@ -1,6 +1,8 @@
 package com.teacore.opengl;
 
 import org.lwjgl.opengl.GL20;
+import org.lwjgl.opengl.GL30;
+import org.lwjgl.opengl.GL31;
 
 import com.teacore.glfw.GLFWWindow;
 
@@ -120,6 +122,68 @@ public final class OGLShader extends OGLAllocatedData {
         return GL20.glGetUniformLocation(programHandle, name);
     }
     
+    /**
+     * Assigns the uniform block with the given name in this shader program to the given binding
+     * point, from which it reads its data (see setUniformBlock()). If the name is null, no such
+     * block exists or the binding point is negative an IllegalArgumentException is thrown. If the
+     * shader program was already deleted or the wrong OpenGL context is current an
+     * IllegalStateException is thrown.
+     * 
+     * @param name The name of the uniform block
+     * @param bindingPoint The binding point to read the block from
+     */
+    public void bindUniformBlock(String name, int bindingPoint) {
+        if(name == null)
+            throw new IllegalArgumentException("An argument is null");
+        
+        if(bindingPoint < 0)
+            throw new IllegalArgumentException("Binding point is negative");
+        
+        if(isDeleted())
+            throw new IllegalStateException("The shader program was already deleted");
+        
+        if(getContext() != GLFWWindow.getCurrentContext())
+            throw new IllegalStateException("The wrong OpenGL context is current");
+        
+        int blockIndex = GL31.glGetUniformBlockIndex(programHandle, name);
+        
+        if(blockIndex == GL31.GL_INVALID_INDEX)
+            throw new IllegalArgumentException("No uniform block with the name " + name);
+        
+        GL31.glUniformBlockBinding(programHandle, blockIndex, bindingPoint);
+    }
+    
+    /**
+     * Binds the given slice of an OGLRingBuffer to the given binding point, so every uniform block
+     * assigned to it reads its data from there. The slice should be allocated with
+     * OGLRingBuffer.allocateUniformBlock() to be aligned correctly. Note the binding points are
+     * shared by all shader programs. If the slice is null or the binding point is negative an
+     * IllegalArgumentException is thrown. If the shader program or the ring buffer was already
+     * deleted or the wrong OpenGL context is current an IllegalStateException is thrown.
+     * 
+     * @param bindingPoint The binding point
+     * @param slice The slice containing the uniform block data
+     */
+    public void setUniformBlock(int bindingPoint, OGLBufferSlice slice) {
+        if(slice == null)
+            throw new IllegalArgumentException("An argument is null");
+        
+        if(bindingPoint < 0)
+            throw new IllegalArgumentException("Binding point is negative");
+        
+        if(isDeleted())
+            throw new IllegalStateException("The shader program was already deleted");
+        
+        if(slice.getRingBuffer().isDeleted())
+            throw new IllegalStateException("The ring buffer was already deleted");
+        
+        if(getContext() != GLFWWindow.getCurrentContext())
+            throw new IllegalStateException("The wrong OpenGL context is current");
+        
+        GL30.glBindBufferRange(GL31.GL_UNIFORM_BUFFER, bindingPoint, slice.getRingBuffer().getHandle(),
+                               slice.getOffset(), slice.getSize());
+    }
+    
     /**
      * Deletes this shader program and unregisters this object from OGLAllocatedData. An
      * IllegalStateException is thrown if it was already deleted or the wrong OpenGL context is 
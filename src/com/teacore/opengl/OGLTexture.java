@@ -3,6 +3,7 @@ package com.teacore.opengl;
 import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
 import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
 
 import org.lwjgl.BufferUtils;
 import org.lwjgl.opengl.GL11;
@@ -68,15 +69,80 @@ public class OGLTexture extends OGLAllocatedData {
 
         byteBuffer.flip();
 
-		textureHandle = GL11.glGenTextures();
-		bind(OGLTextureSlot.T0);
+		createTexture(wrapMode, resizeFilter);
+		GL11.glTexImage2D(GL11.GL_TEXTURE_2D, 0, GL11.GL_RGBA8, width, height, 0, GL11.GL_RGBA, GL11.GL_UNSIGNED_BYTE, byteBuffer);
+		unbind();
+	}
 		
-		GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_WRAP_S, wrapMode.getHandle());
-		GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_WRAP_T, wrapMode.getHandle());
-		GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MIN_FILTER, resizeFilter.getHandle());
-		GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MAG_FILTER, resizeFilter.getHandle());
+	/**
+	 * Creates this texture directly from raw pixel data, for example generated by a
+	 * NoiseGenerator, without converting it. The data is read from the buffer position row by row
+	 * without padding. The first row becomes the row at the texture coordinate t = 0, like the
+	 * first row of a BufferedImage. The data must match the given format: one unsigned byte per
+	 * channel for the 8 bit formats and one float in native byte order per channel for the float
+	 * formats. The buffer must be direct and have at least width * height * format.getPixelSize()
+	 * bytes remaining. No argument may be null.
+	 * 
+	 * @param data The pixel data of the texture
+	 * @param width The width of the texture
+	 * @param height The height of the texture
+	 * @param format The format of the pixel data
+	 * @param wrapMode What happens if texture data outside of its bounds is accessed
+	 * @param resizeFilter How the texture should be interpolated when shown at different sizes
+	 */
+	public OGLTexture(ByteBuffer data, int width, int height, OGLTextureFormat format, OGLWrapMode wrapMode,
+	                  OGLResizeFilter resizeFilter) {
+		super();
 		
-		GL11.glTexImage2D(GL11.GL_TEXTURE_2D, 0, GL11.GL_RGBA8, width, height, 0, GL11.GL_RGBA, GL11.GL_UNSIGNED_BYTE, byteBuffer);
+		if(data == null || format == null || wrapMode == null || resizeFilter == null)
+			throw new IllegalArgumentException("An argument is null");
+		
+		checkPixelData(data.isDirect(), data.remaining(), width, height, format.getPixelSize());
+		
+		this.width = width;
+		this.height = height;
+		
+		createTexture(wrapMode, resizeFilter);
+		GL11.glPixelStorei(GL11.GL_UNPACK_ALIGNMENT, 1);
+		GL11.glTexImage2D(GL11.GL_TEXTURE_2D, 0, format.getInternalFormat(), width, height, 0, format.getFormat(),
+		                  format.getDataType().getHandle(), data);
+		GL11.glPixelStorei(GL11.GL_UNPACK_ALIGNMENT, 4);
+		unbind();
+	}
+	
+	/**
+	 * Creates this texture directly from raw float pixel data, for example generated by a
+	 * NoiseGenerator, without converting it. The data is read from the buffer position row by row
+	 * and the first row becomes the row at the texture coordinate t = 0, as in
+	 * OGLTexture(ByteBuffer, ...). The format must be one of the float formats, the buffer must be
+	 * direct and have at least width * height * format.getChannels() floats remaining. No argument
+	 * may be null.
+	 * 
+	 * @param data The pixel data of the texture
+	 * @param width The width of the texture
+	 * @param height The height of the texture
+	 * @param format The format of the pixel data
+	 * @param wrapMode What happens if texture data outside of its bounds is accessed
+	 * @param resizeFilter How the texture should be interpolated when shown at different sizes
+	 */
+	public OGLTexture(FloatBuffer data, int width, int height, OGLTextureFormat format, OGLWrapMode wrapMode,
+	                  OGLResizeFilter resizeFilter) {
+		super();
+		
+		if(data == null || format == null || wrapMode == null || resizeFilter == null)
+			throw new IllegalArgumentException("An argument is null");
+		
+		if(format.getDataType() != OGLDataType.FLOAT)
+			throw new IllegalArgumentException("The format does not store floats");
+		
+		checkPixelData(data.isDirect(), data.remaining(), width, height, format.getChannels());
+		
+		this.width = width;
+		this.height = height;
+		
+		createTexture(wrapMode, resizeFilter);
+		GL11.glTexImage2D(GL11.GL_TEXTURE_2D, 0, format.getInternalFormat(), width, height, 0, format.getFormat(),
+		                  GL11.GL_FLOAT, data);
 		unbind();
 	}
 	
@@ -157,6 +223,29 @@ public class OGLTexture extends OGLAllocatedData {
         height = 0;
 	}
 	
+	private void createTexture(OGLWrapMode wrapMode, OGLResizeFilter resizeFilter) {
+		textureHandle = GL11.glGenTextures();
+		bind(OGLTextureSlot.T0);
+		
+		GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_WRAP_S, wrapMode.getHandle());
+		GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_WRAP_T, wrapMode.getHandle());
+		GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MIN_FILTER, resizeFilter.getHandle());
+		GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MAG_FILTER, resizeFilter.getHandle());
+		
+		OGLAllocatedData.register(this);
+	}
+	
+	private void checkPixelData(boolean direct, int remaining, int width, int height, int pixelSize) {
+		if(!direct)
+			throw new IllegalArgumentException("The pixel data is not stored in a direct buffer");
+		
+		if(width < 1 || height < 1)
+			throw new IllegalArgumentException("The texture size is less than one");
+		
+		if((long) width * height * pixelSize > remaining)
+			throw new IllegalArgumentException("The pixel data is too small");
+	}
+	
 	private int getNextPowerOfTwo(int i) {
 		int counter = 2;
 		
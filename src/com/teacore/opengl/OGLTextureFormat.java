@@ -0,0 +1,78 @@
+package com.teacore.opengl;
+
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL30;
+
+/**
+ * Resembles the pixel formats an {@link OGLTexture} can be created with from raw pixel data. The
+ * 8 bit formats store unsigned normalized values between 0 and 1, the 32 bit formats store
+ * floats without any conversion.
+ * 
+ * @author ShietStone
+ */
+public enum OGLTextureFormat {
+
+	R8(GL30.GL_R8, GL11.GL_RED, OGLDataType.UNSIGNED_BYTE, 1),
+	RG8(GL30.GL_RG8, GL30.GL_RG, OGLDataType.UNSIGNED_BYTE, 2),
+	RGBA8(GL11.GL_RGBA8, GL11.GL_RGBA, OGLDataType.UNSIGNED_BYTE, 4),
+	R32F(GL30.GL_R32F, GL11.GL_RED, OGLDataType.FLOAT, 1),
+	RG32F(GL30.GL_RG32F, GL30.GL_RG, OGLDataType.FLOAT, 2),
+	RGBA32F(GL30.GL_RGBA32F, GL11.GL_RGBA, OGLDataType.FLOAT, 4);
+	
+	private int internalFormat;
+	private int format;
+	private OGLDataType dataType;
+	private int channels;
+	
+	private OGLTextureFormat(int internalFormat, int format, OGLDataType dataType, int channels) {
+		this.internalFormat = internalFormat;
+		this.format = format;
+		this.dataType = dataType;
+		this.channels = channels;
+	}
+	
+	/**
+	 * Returns the OpenGL ID of the format the texture is stored in.
+	 * 
+	 * @return The OpenGL ID of the internal format
+	 */
+	public int getInternalFormat() {
+		return internalFormat;
+	}
+	
+	/**
+	 * Returns the OpenGL ID of the channel layout of the pixel data.
+	 * 
+	 * @return The OpenGL ID of the pixel format
+	 */
+	public int getFormat() {
+		return format;
+	}
+	
+	/**
+	 * Returns the data type of a single channel of the pixel data.
+	 * 
+	 * @return The data type
+	 */
+	public OGLDataType getDataType() {
+		return dataType;
+	}
+	
+	/**
+	 * Returns the number of channels per pixel.
+	 * 
+	 * @return The number of channels
+	 */
+	public int getChannels() {
+		return channels;
+	}
+	
+	/**
+	 * Returns the size of a single pixel in bytes.
+	 * 
+	 * @return The pixel size in bytes
+	 */
+	public int getPixelSize() {
+		return channels * dataType.getSize();
+	}
+}
@@ -9,7 +9,11 @@ package com.teacore.opengl;
 public final class OGLVertexArray {
 
     private float[] vertexData;
+    private short[] shortData;
+    private byte[] byteData;
     private int vertexSize;
+    private OGLDataType dataType;
+    private boolean normalized;
     
     /**
      * Saves the given data. If the arguments are null or invalid an IllegalArgumentException is
@@ -30,11 +34,64 @@ public final class OGLVertexArray {
         
         this.vertexData = vertexData;
         this.vertexSize = vertexSize;
+        dataType = OGLDataType.FLOAT;
     }
     
     /**
-     * Returns the raw data packed as array. Its the same object previously given in the
-     * constructor,
+     * Saves the given 16 bit data, which is interpreted as the given data type: HALF_FLOAT,
+     * SHORT or UNSIGNED_SHORT. If normalized is set the integer types are mapped to -1 to 1 or 0
+     * to 1 (as packed by VertexPacking), otherwise they are converted to float directly. If the
+     * arguments are null or invalid an IllegalArgumentException is thrown.
+     * 
+     * @param vertexData The raw data packed as array
+     * @param vertexSize The data size (in elements) per vertex
+     * @param dataType The data type of the elements
+     * @param normalized If integer data is normalized
+     */
+    public OGLVertexArray(short[] vertexData, int vertexSize, OGLDataType dataType, boolean normalized) {
+        if(vertexData == null || dataType == null)
+            throw new IllegalArgumentException("An argument is null");
+        
+        if(dataType != OGLDataType.HALF_FLOAT && dataType != OGLDataType.SHORT && dataType != OGLDataType.UNSIGNED_SHORT)
+            throw new IllegalArgumentException("Data type does not match 16 bit data");
+        
+        checkVertexSize(vertexData.length, vertexSize);
+        
+        shortData = vertexData;
+        this.vertexSize = vertexSize;
+        this.dataType = dataType;
+        this.normalized = normalized && dataType != OGLDataType.HALF_FLOAT;
+    }
+    
+    /**
+     * Saves the given 8 bit data, which is interpreted as the given data type: BYTE or
+     * UNSIGNED_BYTE. If normalized is set the values are mapped to -1 to 1 or 0 to 1 (as packed
+     * by VertexPacking), otherwise they are converted to float directly. If the arguments are
+     * null or invalid an IllegalArgumentException is thrown.
+     * 
+     * @param vertexData The raw data packed as array
+     * @param vertexSize The data size (in elements) per vertex
+     * @param dataType The data type of the elements
+     * @param normalized If the data is normalized
+     */
+    public OGLVertexArray(byte[] vertexData, int vertexSize, OGLDataType dataType, boolean normalized) {
+        if(vertexData == null || dataType == null)
+            throw new IllegalArgumentException("An argument is null");
+        
+        if(dataType != OGLDataType.BYTE && dataType != OGLDataType.UNSIGNED_BYTE)
+            throw new IllegalArgumentException("Data type does not match 8 bit data");
+        
+        checkVertexSize(vertexData.length, vertexSize);
+        
+        byteData = vertexData;
+        this.vertexSize = vertexSize;
+        this.dataType = dataType;
+        this.normalized = normalized;
+    }
+    
+    /**
+     * Returns the raw float data packed as array, or null if this array holds another data type.
+     * Its the same object previously given in the constructor,
      * 
      * @return The raw data
      */
@@ -42,6 +99,44 @@ public final class OGLVertexArray {
         return vertexData;
     }
     
+    /**
+     * Returns the raw 16 bit data packed as array, or null if this array holds another data type.
+     * Its the same object previously given in the constructor.
+     * 
+     * @return The raw 16 bit data
+     */
+    public short[] getShortData() {
+        return shortData;
+    }
+    
+    /**
+     * Returns the raw 8 bit data packed as array, or null if this array holds another data type.
+     * Its the same object previously given in the constructor.
+     * 
+     * @return The raw 8 bit data
+     */
+    public byte[] getByteData() {
+        return byteData;
+    }
+    
+    /**
+     * Returns the data type of the elements.
+     * 
+     * @return The data type
+     */
+    public OGLDataType getDataType() {
+        return dataType;
+    }
+    
+    /**
+     * Returns whether integer elements are normalized to -1 to 1 or 0 to 1 when read by a shader.
+     * 
+     * @return If the data is normalized
+     */
+    public boolean isNormalized() {
+        return normalized;
+    }
+    
     /**
      * Returns the data size (in elements) per vertex.
      * 
@@ -57,6 +152,26 @@ public final class OGLVertexArray {
      * @return The vertex count
      */
     public int getTotalSize() {
-        return vertexData.length / vertexSize;
+        return getElementCount() / vertexSize;
+    }
+    
+    /**
+     * Returns the total number of elements in the data array.
+     * 
+     * @return The element count
+     */
+    public int getElementCount() {
+        if(vertexData != null)
+            return vertexData.length;
+        
+        return shortData != null ? shortData.length : byteData.length;
+    }
+    
+    private void checkVertexSize(int length, int vertexSize) {
+        if(vertexSize < 1)
+            throw new IllegalArgumentException("Vertex size is less than one");
+        
+        if(length % vertexSize != 0)
+            throw new IllegalArgumentException("Vertex data and vertex size do not match");
     }
 }
@@ -1,26 +1,79 @@
 package com.teacore.opengl;
 
+import java.nio.ByteBuffer;
+import java.nio.ShortBuffer;
+import java.util.Arrays;
+
+import org.lwjgl.BufferUtils;
 import org.lwjgl.opengl.GL11;
 import org.lwjgl.opengl.GL15;
 import org.lwjgl.opengl.GL20;
 import org.lwjgl.opengl.GL30;
+import org.lwjgl.opengl.GL31;
+import org.lwjgl.opengl.GL33;
 
 import com.teacore.glfw.GLFWWindow;
 
 /**
  * This class manages an indexed OpenGL VertexArrayObject and provides utility functions to work
- * with it. To help avoid memory leaks, this class also extends OGLAllocatedData.
+ * with it. Vertex arrays are stored using their data type, so compact arrays (half floats or
+ * normalized integers) take less memory than floats. By default (PLANAR) every vertex array is
+ * stored in its own vertex buffer, so the vertex buffer indices are the vertex array indices. With
+ * INTERLEAVED storage, or when creating this object from raw data with an OGLVertexLayout, all
+ * attributes are stored in a single vertex buffer with index 0. To help avoid memory leaks, this
+ * class also extends OGLAllocatedData.
+ * <p>
+ * Meshes that change can be updated in place instead of being rebuilt: the vertex arrays and the
+ * indices can be replaced as a whole, which orphans the old buffer storage so the driver does not
+ * have to wait until it is no longer drawn, or updated in ranges, which uploads only the changed
+ * bytes. Buffers grow by doubling their capacity when more data is written than they can hold.
+ * The usage hint given on creation tells the driver how often this is going to happen.
+ * <p>
+ * Geometry that is rebuilt every frame can instead be written into an OGLRingBuffer and drawn from
+ * there by setting slices of it as vertex or index source, which needs no upload at all.
+ * <p>
+ * Indices are stored as unsigned bytes, shorts or ints, whichever is the smallest type that can
+ * hold the largest index, so small meshes need a half or a quarter of the index memory. The
+ * largest value of the index type is kept free as restart index: with primitive restart enabled,
+ * RESTART_INDEX in the indices ends the current strip, loop or fan and starts a new one.
+ * <p>
+ * Many copies of the same mesh can be drawn with a single drawInstanced() call. Instance buffers
+ * added with addInstanceBuffer() hold attributes that advance once per instance (or once every
+ * divisor instances) instead of once per vertex, for example a model matrix per instance. They are
+ * vertex buffers like the others, so they can be refilled every frame with setVertexData() or
+ * setInstanceMatrices(), which orphan the old storage, or be read from an OGLRingBuffer slice.
  * 
  * @author ShietStone
  */
 public final class OGLVertexArrayObject extends OGLAllocatedData {
 
+    /**
+     * The index that starts a new primitive when primitive restart is enabled.
+     */
+    public static final int RESTART_INDEX = -1;
+
     private int vaoHandle;
     private int[] vboHandles;
     private int vertexCount;
+    private OGLBufferUsage usage;
+    private long[] capacities;
+    private long[] sizes;
+    private OGLVertexLayout[] layouts;
+    private int[] divisors;
+    private int maxIndex;
+    private ByteBuffer scratchBuffer;
+    private OGLBufferSlice[] vertexSources;
+    private OGLBufferSlice indexSource;
+    private OGLDataType indexType;
+    private OGLDataType indexSourceType;
+    private OGLPrimitiveMode primitiveMode;
+    private boolean primitiveRestart;
+    private boolean containsRestart;
     
     /**
      * This constructor creates an OGLVertexArrayObject with the given vertex arrays and indices.
+     * The indices may not be negative and are drawn as triangles until another primitive mode is
+     * set. Indices containing RESTART_INDEX can be set once primitive restart is enabled.
      * Not that if an argument is null,index is invalid or the vertex arrays do not match an 
      * IllegalArgumentException is thrown. The constructor also automatically registers this object
      * as OGLAllocatedData.
@@ -29,33 +82,682 @@ public final class OGLVertexArrayObject extends OGLAllocatedData {
      * @param indices The indices determining the draw order.
      */
     public OGLVertexArrayObject(OGLVertexArray[] vertexArrays, int[] indices) {
+        this(vertexArrays, indices, OGLBufferUsage.STATIC);
+    }
+    
+    /**
+     * Creates an OGLVertexArrayObject with the given vertex arrays and indices like
+     * OGLVertexArrayObject(OGLVertexArray[], int[]), but with the given usage hint for all of its
+     * buffers. Use DYNAMIC or STREAM for meshes that are going to be updated. No argument may be
+     * null.
+     * 
+     * @param vertexArrays The vertex arrays to be contained in this vertex array object
+     * @param indices The indices determining the draw order
+     * @param usage How often the data is going to change
+     */
+    public OGLVertexArrayObject(OGLVertexArray[] vertexArrays, int[] indices, OGLBufferUsage usage) {
+        this(vertexArrays, indices, usage, OGLVertexStorage.PLANAR);
+    }
+    
+    /**
+     * Creates an OGLVertexArrayObject with the given vertex arrays and indices like
+     * OGLVertexArrayObject(OGLVertexArray[], int[], OGLBufferUsage), storing the vertex arrays as
+     * given. With INTERLEAVED storage the vertex arrays must have the same number of vertices and
+     * at most 4 components per vertex, and are packed into one vertex buffer using
+     * OGLVertexLayout.interleave(). The attribute locations are the vertex array indices in both
+     * cases. No argument may be null.
+     * 
+     * @param vertexArrays The vertex arrays to be contained in this vertex array object
+     * @param indices The indices determining the draw order
+     * @param usage How often the data is going to change
+     * @param storage How the vertex arrays are stored
+     */
+    public OGLVertexArrayObject(OGLVertexArray[] vertexArrays, int[] indices, OGLBufferUsage usage,
+                                OGLVertexStorage storage) {
         super();
         
-        if(vertexArrays == null || indices == null || containsNull(vertexArrays))
+        if(vertexArrays == null || indices == null || usage == null || storage == null || containsNull(vertexArrays))
             throw new IllegalArgumentException("An argument is null");
         
-        if(!onlyPositiveValues(indices))
+        if(!onlyValidIndices(indices))
             throw new IllegalArgumentException("An index is negative");
         
-        if(getMaxValue(indices) > getMinVertexArraySize(vertexArrays))
+        if(getMaxValue(indices) >= getMinVertexArraySize(vertexArrays))
             throw new IllegalArgumentException("An index is out of bounds of the vertex arrays");
         
-        vaoHandle = GL30.glGenVertexArrays();
-        vboHandles = new int[vertexArrays.length + 1];
-        vertexCount = indices.length;
+        if(storage == OGLVertexStorage.INTERLEAVED) {
+            OGLVertexLayout layout = OGLVertexLayout.interleave(vertexArrays);
+            ByteBuffer data = BufferUtils.createByteBuffer(vertexArrays[0].getTotalSize() * layout.getStride());
+            layout.pack(vertexArrays, data);
         
-        bind();
+            create(1, usage, indices);
+            makeVBO(0, layout, data.remaining());
+            upload(GL15.GL_ARRAY_BUFFER, 0, data);
+        } else {
+            create(vertexArrays.length, usage, indices);
         
-        for(int index = 0; index < vertexArrays.length; index++)
-            makeVBO(index, vertexArrays[index]);
+            for(int index = 0; index < vertexArrays.length; index++) {
+                makeVBO(index, getPlanarLayout(index, vertexArrays[index]), getByteSize(vertexArrays[index]));
+                upload(GL15.GL_ARRAY_BUFFER, 0, vertexArrays[index]);
+            }
+        }
         
         makeIndices(indices);
         
+        unbind();
+        
+        OGLAllocatedData.register(this);
+    }
+    
+    /**
+     * Creates an OGLVertexArrayObject with a single vertex buffer containing the given raw vertex
+     * data, which is read as described by the given layout, starting at the buffer position. This
+     * allows any interleaved format, for example one written with OGLVertexLayout.pack(). The
+     * buffer must be direct and the remaining bytes must be a multiple of the layout stride. The
+     * layout is copied, so changing it afterwards does not affect this object. No argument may be
+     * null.
+     * 
+     * @param vertexData The raw vertex data
+     * @param layout The layout of the vertex data
+     * @param indices The indices determining the draw order
+     * @param usage How often the data is going to change
+     */
+    public OGLVertexArrayObject(ByteBuffer vertexData, OGLVertexLayout layout, int[] indices, OGLBufferUsage usage) {
+        super();
+        
+        if(vertexData == null || layout == null || indices == null || usage == null)
+            throw new IllegalArgumentException("An argument is null");
+        
+        checkVertexData(vertexData, layout);
+        
+        if(!onlyValidIndices(indices))
+            throw new IllegalArgumentException("An index is negative");
+        
+        if(getMaxValue(indices) >= vertexData.remaining() / layout.getStride())
+            throw new IllegalArgumentException("An index is out of bounds of the vertex data");
+        
+        create(1, usage, indices);
+        makeVBO(0, new OGLVertexLayout(layout), vertexData.remaining());
+        upload(GL15.GL_ARRAY_BUFFER, 0, vertexData);
+        makeIndices(indices);
+        
         unbind();
        
         OGLAllocatedData.register(this);
     }
     
+    /**
+     * Replaces the data of the vertex array with the given index. The new array may have a
+     * different size, data type or vertex size than the old one. The old buffer storage is
+     * orphaned, so this does not wait for draw calls still using it, and the buffer only grows if
+     * the new data does not fit. The indices must still be in bounds of the vertex arrays when
+     * drawing. Interleaved vertex buffers can only be replaced with setVertexData(). Throws an
+     * IllegalArgumentException if the array is null, the index is invalid or the vertex buffer is
+     * interleaved and an IllegalStateException if already deleted or the wrong OpenGL context is
+     * current.
+     * 
+     * @param index The index of the vertex array to replace
+     * @param vertexArray The new data
+     */
+    public void setVertexArray(int index, OGLVertexArray vertexArray) {
+        if(vertexArray == null)
+            throw new IllegalArgumentException("Vertex array is null");
+        
+        checkVertexArrayIndex(index);
+        
+        if(layouts[index].getAttributeCount() != 1)
+            throw new IllegalArgumentException("The vertex buffer is interleaved");
+        
+        bind();
+        
+        orphan(index, getByteSize(vertexArray));
+        upload(GL15.GL_ARRAY_BUFFER, 0, vertexArray);
+        layouts[index] = getPlanarLayout(layouts[index].getLocation(0), vertexArray);
+        layouts[index].setAttributePointers(0);
+        vertexSources[index] = null;
+        
+        unbind();
+    }
+        
+    /**
+     * Replaces the data of the vertex buffer with the given index with the given raw vertex data,
+     * which is read from the buffer position and has to match the layout of the vertex buffer (see
+     * getLayout()). This works for planar and interleaved vertex buffers. The old buffer storage is
+     * orphaned and only grows if the new data does not fit. The data must be stored in a direct
+     * buffer and the remaining bytes must be a multiple of the stride. Throws an
+     * IllegalArgumentException if the data is null or invalid or the index is invalid and an
+     * IllegalStateException if already deleted or the wrong OpenGL context is current.
+     * 
+     * @param index The index of the vertex buffer to replace
+     * @param data The new raw vertex data
+     */
+    public void setVertexData(int index, ByteBuffer data) {
+        if(data == null)
+            throw new IllegalArgumentException("Vertex data is null");
+        
+        checkVertexArrayIndex(index);
+        checkVertexData(data, layouts[index]);
+        bind();
+        
+        orphan(index, data.remaining());
+        upload(GL15.GL_ARRAY_BUFFER, 0, data);
+        
+        if(vertexSources[index] != null) {
+            layouts[index].setAttributePointers(0);
+            vertexSources[index] = null;
+        }
+        
+        unbind();
+    }
+    
+    /**
+     * Overwrites the data of the vertex array with the given index, starting at the given vertex,
+     * with the given data, so only the changed bytes are uploaded. The data must have the same
+     * data type, vertex size and normalized flag as the vertex array. If it reaches past the end
+     * of the vertex array, the vertex array is extended and its buffer grows if needed, keeping
+     * its contents. Interleaved vertex buffers can only be updated with updateVertexData(). Throws
+     * an IllegalArgumentException if the data is null or does not match or the index or offset is
+     * invalid and an IllegalStateException if already deleted or the wrong OpenGL context is
+     * current.
+     * 
+     * @param index The index of the vertex array to update
+     * @param offset The index of the first vertex to overwrite
+     * @param data The new data of the vertices
+     */
+    public void updateVertexArray(int index, int offset, OGLVertexArray data) {
+        if(data == null)
+            throw new IllegalArgumentException("Vertex data is null");
+        
+        checkVertexArrayIndex(index);
+        
+        OGLVertexLayout layout = layouts[index];
+        
+        if(layout.getAttributeCount() != 1 || !layout.matches(0, data)
+           || layout.getStride() != data.getVertexSize() * data.getDataType().getSize())
+            throw new IllegalArgumentException("The vertex data does not match the vertex array");
+        
+        long start = (long) offset * layout.getStride();
+        
+        if(offset < 0 || start > sizes[index])
+            throw new IllegalArgumentException("The offset is out of bounds of the vertex array");
+        
+        bind();
+        
+        long end = reserve(index, start + getByteSize(data));
+        upload(GL15.GL_ARRAY_BUFFER, start, data);
+        sizes[index] = end;
+        
+        if(vertexSources[index] != null) {
+            layout.setAttributePointers(0);
+            vertexSources[index] = null;
+        }
+        
+        unbind();
+    }
+    
+    /**
+     * Overwrites the vertices of the vertex buffer with the given index, starting at the given
+     * vertex, with the given raw vertex data, so only the changed bytes are uploaded. The data is
+     * read from the buffer position and has to match the layout of the vertex buffer (see
+     * getLayout()). If it reaches past the end of the vertex buffer, the vertex buffer is extended
+     * and grows if needed, keeping its contents. The data must be stored in a direct buffer and the
+     * remaining bytes must be a multiple of the stride. Throws an IllegalArgumentException if the
+     * data is null or invalid or the index or offset is invalid and an IllegalStateException if
+     * already deleted or the wrong OpenGL context is current.
+     * 
+     * @param index The index of the vertex buffer to update
+     * @param offset The index of the first vertex to overwrite
+     * @param data The new raw vertex data
+     */
+    public void updateVertexData(int index, int offset, ByteBuffer data) {
+        if(data == null)
+            throw new IllegalArgumentException("Vertex data is null");
+        
+        checkVertexArrayIndex(index);
+        checkVertexData(data, layouts[index]);
+        
+        long start = (long) offset * layouts[index].getStride();
+        
+        if(offset < 0 || start > sizes[index])
+            throw new IllegalArgumentException("The offset is out of bounds of the vertex buffer");
+        
+        bind();
+        
+        long end = reserve(index, start + data.remaining());
+        upload(GL15.GL_ARRAY_BUFFER, start, data);
+        sizes[index] = end;
+        
+        if(vertexSources[index] != null) {
+            layouts[index].setAttributePointers(0);
+            vertexSources[index] = null;
+        }
+        
+        unbind();
+    }
+    
+    /**
+     * Replaces the indices, which also sets the number of indices drawn and selects the index type
+     * again. The indices may only contain RESTART_INDEX if primitive restart is enabled. The old
+     * buffer storage is orphaned and only grows if the new indices do not fit. Throws an
+     * IllegalArgumentException if the indices are null, negative or out of bounds of the vertex
+     * arrays and an IllegalStateException if already deleted or the wrong OpenGL context is
+     * current.
+     * 
+     * @param indices The new indices
+     */
+    public void setIndices(int[] indices) {
+        checkIndices(indices);
+        
+        int max = getMaxValue(indices);
+        OGLDataType type = getIndexType(max);
+        storeIndices(packIndices(indices, type), type, indices.length, max, contains(indices, RESTART_INDEX));
+    }
+        
+    /**
+     * Replaces the indices with the unsigned shorts remaining in the given buffer, which are
+     * stored as they are without selecting the index type. The value 0xFFFF (-1 as short) is the
+     * restart index. The buffer position is not changed. Throws an IllegalArgumentException if the
+     * indices are null or out of bounds of the vertex arrays and an IllegalStateException if
+     * already deleted or the wrong OpenGL context is current.
+     * 
+     * @param indices The new indices
+     */
+    public void setIndices(ShortBuffer indices) {
+        if(indices == null)
+            throw new IllegalArgumentException("Indices are null");
+        
+        int count = indices.remaining();
+        ByteBuffer data = getScratchBuffer(count * 2L);
+        int max = Integer.MIN_VALUE;
+        boolean restart = false;
+        
+        for(int index = 0; index < count; index++) {
+            int value = indices.get(indices.position() + index) & 0xFFFF;
+            data.putShort(index * 2, (short) value);
+            
+            if(value == 0xFFFF)
+                restart = true;
+            else
+                max = Math.max(max, value);
+        }
+        
+        checkMaxIndex(max);
+        data.limit(count * 2);
+        storeIndices(data, OGLDataType.UNSIGNED_SHORT, count, max, restart);
+    }
+    
+    /**
+     * Replaces the indices with the unsigned bytes remaining in the given buffer, which are stored
+     * as they are without selecting the index type. The value 0xFF (-1 as byte) is the restart
+     * index. The buffer position is not changed. Throws an IllegalArgumentException if the indices
+     * are null or out of bounds of the vertex arrays and an IllegalStateException if already
+     * deleted or the wrong OpenGL context is current.
+     * 
+     * @param indices The new indices
+     */
+    public void setIndices(ByteBuffer indices) {
+        if(indices == null)
+            throw new IllegalArgumentException("Indices are null");
+        
+        int count = indices.remaining();
+        ByteBuffer data = getScratchBuffer(count);
+        int max = Integer.MIN_VALUE;
+        boolean restart = false;
+        
+        for(int index = 0; index < count; index++) {
+            int value = indices.get(indices.position() + index) & 0xFF;
+            data.put(index, (byte) value);
+            
+            if(value == 0xFF)
+                restart = true;
+            else
+                max = Math.max(max, value);
+        }
+        
+        checkMaxIndex(max);
+        data.limit(count);
+        storeIndices(data, OGLDataType.UNSIGNED_BYTE, count, max, restart);
+    }
+    
+    /**
+     * Overwrites the indices starting at the given offset with the given indices, so only the
+     * changed bytes are uploaded. If they reach past the current end, the number of indices drawn
+     * increases and the buffer grows if needed, keeping its contents. If the new indices do not
+     * fit into the current index type, all indices are converted to a larger one first. The indices
+     * may only contain RESTART_INDEX if primitive restart is enabled. Throws an
+     * IllegalArgumentException if the indices are null, negative or out of bounds of the vertex
+     * arrays or the offset is invalid and an IllegalStateException if already deleted or the wrong
+     * OpenGL context is current.
+     * 
+     * @param offset The position of the first index to overwrite
+     * @param indices The new indices
+     */
+    public void updateIndices(int offset, int[] indices) {
+        checkIndices(indices);
+        
+        if(offset < 0 || offset > vertexCount)
+            throw new IllegalArgumentException("The offset is out of bounds of the indices");
+        
+        bind();
+        
+        int last = vboHandles.length - 1;
+        GL15.glBindBuffer(GL15.GL_ELEMENT_ARRAY_BUFFER, vboHandles[last]);
+        indexSource = null;
+        maxIndex = Math.max(maxIndex, getMaxValue(indices));
+        
+        if(getIndexType(maxIndex).getSize() > indexType.getSize())
+            widenIndices(getIndexType(maxIndex));
+        
+        long end = (offset + (long) indices.length) * indexType.getSize();
+        
+        if(end > capacities[last])
+            grow(last, GL15.GL_ELEMENT_ARRAY_BUFFER, end);
+        
+        upload(GL15.GL_ELEMENT_ARRAY_BUFFER, (long) offset * indexType.getSize(), packIndices(indices, indexType));
+        sizes[last] = Math.max(sizes[last], end);
+        vertexCount = Math.max(vertexCount, offset + indices.length);
+        containsRestart |= contains(indices, RESTART_INDEX);
+        
+        unbind();
+    }
+    
+    /**
+     * Makes the vertex buffer with the given index read its vertices from the given slice of an
+     * OGLRingBuffer instead of its own buffer. The slice must contain vertices in the layout of the
+     * vertex buffer (see getLayout()), and its number of vertices becomes the vertex count of the
+     * vertex buffer. The slice is only valid for the frame it was allocated in, so it has to be set
+     * again every frame. The methods replacing or updating the vertex buffer switch back to the own
+     * buffer. Throws an IllegalArgumentException if the slice is null or the index is invalid and
+     * an IllegalStateException if this object or the ring buffer was already deleted or the wrong
+     * OpenGL context is current.
+     * 
+     * @param index The index of the vertex buffer
+     * @param slice The slice containing the vertices
+     */
+    public void setVertexSource(int index, OGLBufferSlice slice) {
+        if(slice == null)
+            throw new IllegalArgumentException("Slice is null");
+        
+        checkVertexArrayIndex(index);
+        
+        if(slice.getRingBuffer().isDeleted())
+            throw new IllegalStateException("The ring buffer was already deleted");
+        
+        bind();
+        
+        GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, slice.getRingBuffer().getHandle());
+        layouts[index].setAttributePointers(slice.getOffset());
+        GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, 0);
+        vertexSources[index] = slice;
+        
+        unbind();
+    }
+    
+    /**
+     * Makes this object draw the unsigned int indices stored in the given slice of an
+     * OGLRingBuffer instead of its own indices. See setIndexSource(OGLBufferSlice, OGLDataType).
+     * 
+     * @param slice The slice containing the indices
+     */
+    public void setIndexSource(OGLBufferSlice slice) {
+        setIndexSource(slice, OGLDataType.UNSIGNED_INT);
+    }
+    
+    /**
+     * Makes this object draw the indices stored in the given slice of an OGLRingBuffer instead of
+     * its own indices. The indices have the given type, which must be UNSIGNED_BYTE,
+     * UNSIGNED_SHORT or UNSIGNED_INT, and the size of the slice determines the number of indices
+     * drawn. The largest value of the type is the restart index. Since the indices are written
+     * directly into mapped memory, they are not checked against the vertex arrays. The slice is
+     * only valid for the frame it was allocated in, so it has to be set again every frame.
+     * setIndices() and updateIndices() switch back to the own indices. Throws an
+     * IllegalArgumentException if an argument is null or the type is invalid and an
+     * IllegalStateException if this object or the ring buffer was already deleted or the wrong
+     * OpenGL context is current.
+     * 
+     * @param slice The slice containing the indices
+     * @param indexType The type of the indices
+     */
+    public void setIndexSource(OGLBufferSlice slice, OGLDataType indexType) {
+        if(slice == null || indexType == null)
+            throw new IllegalArgumentException("An argument is null");
+        
+        if(indexType != OGLDataType.UNSIGNED_BYTE && indexType != OGLDataType.UNSIGNED_SHORT
+           && indexType != OGLDataType.UNSIGNED_INT)
+            throw new IllegalArgumentException("Invalid index type: " + indexType);
+        
+        if(slice.getRingBuffer().isDeleted())
+            throw new IllegalStateException("The ring buffer was already deleted");
+        
+        bind();
+        
+        GL15.glBindBuffer(GL15.GL_ELEMENT_ARRAY_BUFFER, slice.getRingBuffer().getHandle());
+        indexSource = slice;
+        indexSourceType = indexType;
+        
+        unbind();
+    }
+    
+    /**
+     * Adds an empty instance buffer with the given layout and returns its vertex buffer index. The
+     * attributes of the layout advance once every divisor instances, so with a divisor of 1 every
+     * instance reads the next element. Their locations must not be used by another vertex buffer
+     * of this object. The layout is copied. The buffer is filled with setVertexData(),
+     * updateVertexData(), setInstanceMatrices() or setVertexSource(). Requires OpenGL 3.3. Throws an
+     * IllegalArgumentException if the layout is null, has no attributes or uses a location that is
+     * already used or the divisor is less than one and an IllegalStateException if already deleted
+     * or the wrong OpenGL context is current.
+     * 
+     * @param layout The layout of the per instance attributes
+     * @param divisor The number of instances sharing one element
+     * @return The index of the instance buffer
+     */
+    public int addInstanceBuffer(OGLVertexLayout layout, int divisor) {
+        if(layout == null)
+            throw new IllegalArgumentException("Layout is null");
+        
+        if(layout.getAttributeCount() == 0)
+            throw new IllegalArgumentException("The layout has no attributes");
+        
+        if(divisor < 1)
+            throw new IllegalArgumentException("Divisor is less than one");
+        
+        for(OGLVertexLayout other : layouts)
+            for(int attribute = 0; attribute < other.getAttributeCount(); attribute++)
+                for(int newAttribute = 0; newAttribute < layout.getAttributeCount(); newAttribute++)
+                    if(other.getLocation(attribute) == layout.getLocation(newAttribute))
+                        throw new IllegalArgumentException("Location is already used: " + other.getLocation(attribute));
+        
+        bind();
+        
+        int index = layouts.length;
+        vboHandles = Arrays.copyOf(vboHandles, index + 2);
+        capacities = Arrays.copyOf(capacities, index + 2);
+        sizes = Arrays.copyOf(sizes, index + 2);
+        vboHandles[index + 1] = vboHandles[index];
+        capacities[index + 1] = capacities[index];
+        sizes[index + 1] = sizes[index];
+        layouts = Arrays.copyOf(layouts, index + 1);
+        divisors = Arrays.copyOf(divisors, index + 1);
+        vertexSources = Arrays.copyOf(vertexSources, index + 1);
+        
+        makeVBO(index, new OGLVertexLayout(layout), 0);
+        divisors[index] = divisor;
+        
+        for(int attribute = 0; attribute < layout.getAttributeCount(); attribute++)
+            GL33.glVertexAttribDivisor(layout.getLocation(attribute), divisor);
+        
+        unbind();
+        return index;
+    }
+    
+    /**
+     * Replaces the data of the given instance buffer, which must have the layout created by
+     * OGLVertexLayout.matrix(), with the given number of 4x4 matrices. The matrices are
+     * packed as 16 floats in row major order, as BatchMath and AnimationSampler store them, and are
+     * transposed into the column major order GLSL expects. The old buffer storage is orphaned, so
+     * the matrices can be replaced every frame without waiting for the previous draw calls. Throws
+     * an IllegalArgumentException if the matrices are null or too few, the index is invalid or the
+     * vertex buffer is not an instance buffer holding matrices and an IllegalStateException if
+     * already deleted or the wrong OpenGL context is current.
+     * 
+     * @param index The index of the vertex buffer
+     * @param matrices The packed matrices
+     * @param count The number of matrices
+     */
+    public void setInstanceMatrices(int index, float[] matrices, int count) {
+        if(matrices == null)
+            throw new IllegalArgumentException("Matrices are null");
+        
+        checkVertexArrayIndex(index);
+        
+        if(divisors[index] == 0)
+            throw new IllegalArgumentException("The vertex buffer is not an instance buffer");
+        
+        if(!layouts[index].isMatrix())
+            throw new IllegalArgumentException("The vertex buffer does not hold matrices");
+        
+        if(count < 0 || matrices.length / 16 < count)
+            throw new IllegalArgumentException("The matrices array is too small");
+        
+        ByteBuffer data = getScratchBuffer(count * 64L);
+        
+        for(int matrix = 0; matrix < count; matrix++)
+            for(int row = 0; row < 4; row++)
+                for(int column = 0; column < 4; column++)
+                    data.putFloat(matrix * 64 + column * 16 + row * 4, matrices[matrix * 16 + row * 4 + column]);
+        
+        data.limit(count * 64);
+        bind();
+        
+        orphan(index, count * 64L);
+        upload(GL15.GL_ARRAY_BUFFER, 0, data);
+        
+        if(vertexSources[index] != null) {
+            layouts[index].setAttributePointers(0);
+            vertexSources[index] = null;
+        }
+        
+        unbind();
+    }
+    
+    /**
+     * Returns the divisor of the given vertex buffer, which is 0 for buffers advancing per vertex
+     * and the number of instances sharing one element for instance buffers.
+     * 
+     * @param index The index of the vertex buffer
+     * @return The divisor
+     */
+    public int getDivisor(int index) {
+        checkVertexArrayIndex(index);
+        return divisors[index];
+    }
+    
+    /**
+     * Returns the usage hint of the buffers of this object.
+     * 
+     * @return The usage hint
+     */
+    public OGLBufferUsage getUsage() {
+        return usage;
+    }
+    
+    /**
+     * Returns the number of indices drawn by draw().
+     * 
+     * @return The index count
+     */
+    public int getIndexCount() {
+        return indexSource != null ? indexSource.getSize() / indexSourceType.getSize() : vertexCount;
+    }
+    
+    /**
+     * Returns the type the indices are stored as: UNSIGNED_BYTE, UNSIGNED_SHORT or UNSIGNED_INT.
+     * If a ring buffer slice is the index source, its type is returned.
+     * 
+     * @return The index type
+     */
+    public OGLDataType getIndexType() {
+        return indexSource != null ? indexSourceType : indexType;
+    }
+    
+    /**
+     * Returns the kind of primitives the indices are drawn as.
+     * 
+     * @return The primitive mode
+     */
+    public OGLPrimitiveMode getPrimitiveMode() {
+        return primitiveMode;
+    }
+    
+    /**
+     * Sets the kind of primitives the indices are drawn as, which may not be null.
+     * 
+     * @param primitiveMode The primitive mode
+     */
+    public void setPrimitiveMode(OGLPrimitiveMode primitiveMode) {
+        if(primitiveMode == null)
+            throw new IllegalArgumentException("Primitive mode is null");
+        
+        this.primitiveMode = primitiveMode;
+    }
+    
+    /**
+     * Returns if primitive restart is enabled while drawing this object.
+     * 
+     * @return If primitive restart is enabled
+     */
+    public boolean isPrimitiveRestart() {
+        return primitiveRestart;
+    }
+    
+    /**
+     * Sets if primitive restart is enabled while drawing this object, so RESTART_INDEX in the
+     * indices starts a new primitive. This allows drawing many strips with one draw call. While it
+     * is enabled, setIndices(int[]) and updateIndices() accept RESTART_INDEX, and indices
+     * containing it can only be drawn with primitive restart enabled.
+     * 
+     * @param primitiveRestart If primitive restart should be enabled
+     */
+    public void setPrimitiveRestart(boolean primitiveRestart) {
+        this.primitiveRestart = primitiveRestart;
+    }
+    
+    /**
+     * Returns the number of vertex buffers, which is 1 for interleaved storage and the number of
+     * vertex arrays otherwise, plus the number of instance buffers.
+     * 
+     * @return The vertex buffer count
+     */
+    public int getVertexBufferCount() {
+        return layouts.length;
+    }
+    
+    /**
+     * Returns a copy of the layout of the vertex buffer with the given index. The layout of a
+     * planar vertex array has a single attribute without padding.
+     * 
+     * @param index The index of the vertex buffer
+     * @return The layout
+     */
+    public OGLVertexLayout getLayout(int index) {
+        checkVertexArrayIndex(index);
+        return new OGLVertexLayout(layouts[index]);
+    }
+    
+    /**
+     * Returns the number of vertices of the vertex buffer with the given index. For an instance
+     * buffer this is the number of elements, each used by divisor instances.
+     * 
+     * @param index The index of the vertex buffer
+     * @return The vertex count
+     */
+    public int getVertexCount(int index) {
+        checkVertexArrayIndex(index);
+        long size = vertexSources[index] != null ? vertexSources[index].getSize() : sizes[index];
+        return (int) (size / layouts[index].getStride());
+    }
+    
     /**
      * Binds this OGLVertexArrayObject to be used in the rendering pipeline. If this object was
      * already deleted or the wrong OpenGL context is current  an IllegalStateException is thrown.
@@ -86,7 +788,7 @@ public final class OGLVertexArrayObject extends OGLAllocatedData {
     }
     
     /**
-     * Enables all buffers (vertex arrays) of this OGLVertexArrayObject. Must be called after
+     * Enables all vertex attributes of this OGLVertexArrayObject. Must be called after
      * bind(). Throws an IllegalStateException if already deleted or the wrong OpenGL context is 
      * current.
      */
@@ -97,12 +799,13 @@ public final class OGLVertexArrayObject extends OGLAllocatedData {
         if(getContext() != GLFWWindow.getCurrentContext())
             throw new IllegalStateException("The wrong OpenGL context is current");
         
-        for(int index = 0; index < vboHandles.length - 1; index++)
-            GL20.glEnableVertexAttribArray(index);
+        for(OGLVertexLayout layout : layouts)
+            for(int attribute = 0; attribute < layout.getAttributeCount(); attribute++)
+                GL20.glEnableVertexAttribArray(layout.getLocation(attribute));
     }
     
     /**
-     * Disables all buffers (vertex arrays) of this OGLVertexArrayObject. Must be called before
+     * Disables all vertex attributes of this OGLVertexArrayObject. Must be called before
      * unbind(). Throws an IllegalStateException if already deleted or the wrong OpenGL context is
      * current.
      */
@@ -113,23 +816,36 @@ public final class OGLVertexArrayObject extends OGLAllocatedData {
         if(getContext() != GLFWWindow.getCurrentContext())
             throw new IllegalStateException("The wrong OpenGL context is current");
         
-        for(int index = 0; index < vboHandles.length - 1; index++)
-            GL20.glDisableVertexAttribArray(index);
+        for(OGLVertexLayout layout : layouts)
+            for(int attribute = 0; attribute < layout.getAttributeCount(); attribute++)
+                GL20.glDisableVertexAttribArray(layout.getLocation(attribute));
     }
     
     /**
      * This method will initiate a draw call using the currently bound and used components of the
-     * rendering pipeline. Will throw an IllegalStateException if this object was deleted already
-     * or if the wrong OpenGL context is current.
+     * rendering pipeline, drawing the indices as the set primitive mode. Will throw an
+     * IllegalStateException if this object was deleted already, if the wrong OpenGL context is
+     * current or if the indices contain RESTART_INDEX but primitive restart is disabled.
      */
     public void draw() {
-        if(isDeleted())
-            throw new IllegalStateException("Vertex array object was already deleted");
+        drawElements(1);
+    }
         
-        if(getContext() != GLFWWindow.getCurrentContext())
-            throw new IllegalStateException("The wrong OpenGL context is current");
+    /**
+     * Draws the given number of instances of this object with a single draw call, otherwise like
+     * draw(). The attributes of the instance buffers advance per instance, while the other ones
+     * are the same for every instance. Will throw an IllegalArgumentException if the instance
+     * count is negative and an IllegalStateException if this object was deleted already, the wrong
+     * OpenGL context is current, an instance buffer holds too few elements for the instances or
+     * the indices contain RESTART_INDEX but primitive restart is disabled.
+     * 
+     * @param instanceCount The number of instances to draw
+     */
+    public void drawInstanced(int instanceCount) {
+        if(instanceCount < 0)
+            throw new IllegalArgumentException("Instance count is negative");
         
-        GL11.glDrawElements(GL11.GL_TRIANGLES, vertexCount, GL11.GL_UNSIGNED_INT, 0);
+        drawElements(instanceCount);
     }
     
     /**
@@ -161,14 +877,22 @@ public final class OGLVertexArrayObject extends OGLAllocatedData {
         return false;
     }
     
-    private boolean onlyPositiveValues(int[] values) {
+    private boolean onlyValidIndices(int[] values) {
         for(int value : values)
-            if(value < 0)
+            if(value < 0 && (value != RESTART_INDEX || !primitiveRestart))
                 return false;
         
         return true;
     }
     
+    private boolean contains(int[] values, int value) {
+        for(int element : values)
+            if(element == value)
+                return true;
+        
+        return false;
+    }
+    
     private int getMaxValue(int[] values) {
         int max = Integer.MIN_VALUE;
         
@@ -189,18 +913,276 @@ public final class OGLVertexArrayObject extends OGLAllocatedData {
         return min;
     }
     
-    private void makeVBO(int index, OGLVertexArray vertexArray) {
+    private void drawElements(int instanceCount) {
+        if(isDeleted())
+            throw new IllegalStateException("Vertex array object was already deleted");
+        
+        if(getContext() != GLFWWindow.getCurrentContext())
+            throw new IllegalStateException("The wrong OpenGL context is current");
+        
+        OGLDataType type = indexType;
+        long offset = 0;
+        
+        if(indexSource != null) {
+            type = indexSourceType;
+            offset = indexSource.getOffset();
+        } else {
+            if(vertexCount > 0 && maxIndex >= getMinVertexCount())
+                throw new IllegalStateException("An index is out of bounds of the vertex arrays");
+            
+            if(containsRestart && !primitiveRestart)
+                throw new IllegalStateException("Restart indices require primitive restart");
+        }
+        
+        for(int index = 0; index < layouts.length; index++)
+            if(divisors[index] > 0 && (long) getVertexCount(index) * divisors[index] < instanceCount)
+                throw new IllegalStateException("An instance buffer holds too few elements");
+        
+        if(primitiveRestart) {
+            GL11.glEnable(GL31.GL_PRIMITIVE_RESTART);
+            GL31.glPrimitiveRestartIndex(getRestartValue(type));
+        }
+        
+        if(instanceCount == 1)
+            GL11.glDrawElements(primitiveMode.getHandle(), getIndexCount(), type.getHandle(), offset);
+        else
+            GL31.glDrawElementsInstanced(primitiveMode.getHandle(), getIndexCount(), type.getHandle(), offset,
+                                         instanceCount);
+        
+        if(primitiveRestart)
+            GL11.glDisable(GL31.GL_PRIMITIVE_RESTART);
+    }
+    
+    private int getMinVertexCount() {
+        int min = Integer.MAX_VALUE;
+        
+        for(int index = 0; index < vboHandles.length - 1; index++)
+            if(divisors[index] == 0)
+                min = Math.min(min, getVertexCount(index));
+        
+        return min;
+    }
+    
+    private long getByteSize(OGLVertexArray vertexArray) {
+        return (long) vertexArray.getElementCount() * vertexArray.getDataType().getSize();
+    }
+    
+    private OGLVertexLayout getPlanarLayout(int location, OGLVertexArray vertexArray) {
+        int vertexBytes = vertexArray.getVertexSize() * vertexArray.getDataType().getSize();
+        OGLVertexLayout layout = new OGLVertexLayout(vertexBytes);
+        layout.addAttribute(location, vertexArray.getDataType(), vertexArray.getVertexSize(),
+                            vertexArray.isNormalized(), 0);
+        return layout;
+    }
+    
+    private void checkVertexArrayIndex(int index) {
+        if(index < 0 || index >= vboHandles.length - 1)
+            throw new IllegalArgumentException("Invalid vertex buffer index: " + index);
+    }
+    
+    private void checkVertexData(ByteBuffer data, OGLVertexLayout layout) {
+        if(!data.isDirect())
+            throw new IllegalArgumentException("The vertex data is not stored in a direct buffer");
+        
+        if(layout.getAttributeCount() == 0)
+            throw new IllegalArgumentException("The layout has no attributes");
+        
+        if(data.remaining() % layout.getStride() != 0)
+            throw new IllegalArgumentException("Vertex data and stride do not match");
+    }
+    
+    private void checkIndices(int[] indices) {
+        if(indices == null)
+            throw new IllegalArgumentException("Indices are null");
+        
+        if(!onlyValidIndices(indices))
+            throw new IllegalArgumentException("An index is negative");
+        
+        checkMaxIndex(getMaxValue(indices));
+    }
+    
+    private void checkMaxIndex(int max) {
+        if(max >= 0 && max >= getMinVertexCount())
+            throw new IllegalArgumentException("An index is out of bounds of the vertex arrays");
+    }
+    
+    private void create(int bufferCount, OGLBufferUsage usage, int[] indices) {
+        vaoHandle = GL30.glGenVertexArrays();
+        vboHandles = new int[bufferCount + 1];
+        vertexCount = indices.length;
+        this.usage = usage;
+        capacities = new long[bufferCount + 1];
+        sizes = new long[bufferCount + 1];
+        layouts = new OGLVertexLayout[bufferCount];
+        divisors = new int[bufferCount];
+        vertexSources = new OGLBufferSlice[bufferCount];
+        maxIndex = getMaxValue(indices);
+        primitiveMode = OGLPrimitiveMode.TRIANGLES;
+        
+        bind();
+    }
+    
+    private void makeVBO(int index, OGLVertexLayout layout, long byteSize) {
         vboHandles[index] = GL15.glGenBuffers();
+        capacities[index] = byteSize;
+        sizes[index] = byteSize;
+        layouts[index] = layout;
         
         GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, vboHandles[index]);
-        GL15.glBufferData(GL15.GL_ARRAY_BUFFER, vertexArray.getVertexData(), GL15.GL_STATIC_DRAW);
-        GL20.glVertexAttribPointer(index, vertexArray.getVertexSize(), GL11.GL_FLOAT, false, 0, 0);
+        GL15.glBufferData(GL15.GL_ARRAY_BUFFER, byteSize, usage.getHandle());
+        layout.setAttributePointers(0);
     }
-    
+        
     private void makeIndices(int[] indices) {
-        vboHandles[vboHandles.length - 1] = GL15.glGenBuffers();
+        int last = vboHandles.length - 1;
+        vboHandles[last] = GL15.glGenBuffers();
+        indexType = getIndexType(maxIndex);
+        containsRestart = contains(indices, RESTART_INDEX);
+        capacities[last] = (long) indices.length * indexType.getSize();
+        sizes[last] = capacities[last];
+        
+        GL15.glBindBuffer(GL15.GL_ELEMENT_ARRAY_BUFFER, vboHandles[last]);
+        GL15.glBufferData(GL15.GL_ELEMENT_ARRAY_BUFFER, packIndices(indices, indexType), usage.getHandle());
+    }
+    
+    private void storeIndices(ByteBuffer data, OGLDataType type, int count, int max, boolean restart) {
+        bind();
+        
+        int last = vboHandles.length - 1;
+        long byteSize = data.remaining();
+        GL15.glBindBuffer(GL15.GL_ELEMENT_ARRAY_BUFFER, vboHandles[last]);
+        indexSource = null;
+        
+        if(byteSize > capacities[last])
+            capacities[last] = Math.max(capacities[last] * 2, byteSize);
+        
+        GL15.glBufferData(GL15.GL_ELEMENT_ARRAY_BUFFER, capacities[last], usage.getHandle());
+        upload(GL15.GL_ELEMENT_ARRAY_BUFFER, 0, data);
+        sizes[last] = byteSize;
+        vertexCount = count;
+        maxIndex = max;
+        indexType = type;
+        containsRestart = restart;
+        
+        unbind();
+    }
+    
+    private void widenIndices(OGLDataType type) {
+        int last = vboHandles.length - 1;
+        int oldSize = indexType.getSize();
+        ByteBuffer data = BufferUtils.createByteBuffer((int) sizes[last]);
+        
+        if(sizes[last] > 0)
+            GL15.glGetBufferSubData(GL15.GL_ELEMENT_ARRAY_BUFFER, 0, data);
+        
+        int[] indices = new int[(int) (sizes[last] / oldSize)];
+        int oldRestart = getRestartValue(indexType);
+        
+        for(int index = 0; index < indices.length; index++) {
+            int value = oldSize == 1 ? data.get(index) & 0xFF
+                        : oldSize == 2 ? data.getShort(index * 2) & 0xFFFF : data.getInt(index * 4);
+            indices[index] = value == oldRestart ? RESTART_INDEX : value;
+        }
+        
+        capacities[last] = capacities[last] / oldSize * type.getSize();
+        sizes[last] = (long) indices.length * type.getSize();
+        indexType = type;
+        
+        GL15.glBufferData(GL15.GL_ELEMENT_ARRAY_BUFFER, capacities[last], usage.getHandle());
+        upload(GL15.GL_ELEMENT_ARRAY_BUFFER, 0, packIndices(indices, type));
+    }
+    
+    private ByteBuffer packIndices(int[] indices, OGLDataType type) {
+        ByteBuffer data = getScratchBuffer((long) indices.length * type.getSize());
+        
+        for(int index = 0; index < indices.length; index++) {
+            if(type == OGLDataType.UNSIGNED_BYTE)
+                data.put(index, (byte) indices[index]);
+            else if(type == OGLDataType.UNSIGNED_SHORT)
+                data.putShort(index * 2, (short) indices[index]);
+            else
+                data.putInt(index * 4, indices[index]);
+        }
+        
+        data.limit(indices.length * type.getSize());
+        return data;
+    }
+    
+    private OGLDataType getIndexType(int max) {
+        if(max < 0xFF)
+            return OGLDataType.UNSIGNED_BYTE;
+        
+        return max < 0xFFFF ? OGLDataType.UNSIGNED_SHORT : OGLDataType.UNSIGNED_INT;
+    }
+    
+    private int getRestartValue(OGLDataType type) {
+        if(type == OGLDataType.UNSIGNED_BYTE)
+            return 0xFF;
+        
+        return type == OGLDataType.UNSIGNED_SHORT ? 0xFFFF : RESTART_INDEX;
+    }
+    
+    private ByteBuffer getScratchBuffer(long size) {
+        if(size > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("The data is too large");
+        
+        if(scratchBuffer == null || scratchBuffer.capacity() < size)
+            scratchBuffer = BufferUtils.createByteBuffer((int) Math.max(size, 256));
+        
+        scratchBuffer.clear();
+        return scratchBuffer;
+    }
+    
+    private void orphan(int index, long byteSize) {
+        if(byteSize > capacities[index])
+            capacities[index] = Math.max(capacities[index] * 2, byteSize);
+        
+        GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, vboHandles[index]);
+        GL15.glBufferData(GL15.GL_ARRAY_BUFFER, capacities[index], usage.getHandle());
+        sizes[index] = byteSize;
+    }
+    
+    private long reserve(int index, long end) {
+        if(end > capacities[index])
+            grow(index, GL15.GL_ARRAY_BUFFER, end);
+        
+        GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, vboHandles[index]);
+        return Math.max(sizes[index], end);
+    }
+    
+    private void upload(int target, long offset, ByteBuffer data) {
+        if(data.remaining() > 0)
+            GL15.glBufferSubData(target, offset, data);
+    }
+    
+    private void upload(int target, long offset, OGLVertexArray vertexArray) {
+        if(vertexArray.getVertexData() != null) {
+            GL15.glBufferSubData(target, offset, vertexArray.getVertexData());
+        } else if(vertexArray.getShortData() != null) {
+            GL15.glBufferSubData(target, offset, vertexArray.getShortData());
+        } else {
+            byte[] data = vertexArray.getByteData();
+            GL15.glBufferSubData(target, offset, getScratchBuffer(data.length).put(data).flip());
+        }
+    }
+    
+    private void grow(int index, int target, long required) {
+        long capacity = Math.max(capacities[index] * 2, required);
+        int handle = GL15.glGenBuffers();
+        
+        GL15.glBindBuffer(GL31.GL_COPY_WRITE_BUFFER, handle);
+        GL15.glBufferData(GL31.GL_COPY_WRITE_BUFFER, capacity, usage.getHandle());
+        GL15.glBindBuffer(GL31.GL_COPY_READ_BUFFER, vboHandles[index]);
+        GL31.glCopyBufferSubData(GL31.GL_COPY_READ_BUFFER, GL31.GL_COPY_WRITE_BUFFER, 0, 0, sizes[index]);
+        GL15.glBindBuffer(GL31.GL_COPY_READ_BUFFER, 0);
+        GL15.glBindBuffer(GL31.GL_COPY_WRITE_BUFFER, 0);
+        GL15.glDeleteBuffers(vboHandles[index]);
+        
+        vboHandles[index] = handle;
+        capacities[index] = capacity;
+        GL15.glBindBuffer(target, handle);
         
-        GL15.glBindBuffer(GL15.GL_ELEMENT_ARRAY_BUFFER, vboHandles[vboHandles.length - 1]);
-        GL15.glBufferData(GL15.GL_ELEMENT_ARRAY_BUFFER, indices, GL15.GL_STATIC_DRAW);
+        if(target == GL15.GL_ARRAY_BUFFER)
+            layouts[index].setAttributePointers(0);
     }
 }
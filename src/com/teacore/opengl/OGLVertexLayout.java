@@ -0,0 +1,338 @@
+package com.teacore.opengl;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+import org.lwjgl.opengl.GL20;
+
+/**
+ * Describes how the vertex attributes are laid out in a single vertex buffer. Every attribute has a
+ * location (the shader input it is read by), a data type, a component count from 1 to 4, a
+ * normalized flag and its byte offset within a vertex. All attributes share the stride, which is
+ * the distance in bytes from one vertex to the next.
+ * <p>
+ * With a single attribute and a stride equal to its size the layout is planar, like the buffers an
+ * {@link OGLVertexArrayObject} creates per {@link OGLVertexArray} by default. With several
+ * attributes the layout is interleaved: all attributes of a vertex lie next to each other, so the
+ * GPU fetches a vertex from one buffer and one cache line instead of one stream per attribute.
+ * interleave() creates such a layout for a set of vertex arrays and pack() stores their data in it.
+ * 
+ * @author ShietStone
+ */
+public final class OGLVertexLayout {
+
+    private int stride;
+    private int attributeCount;
+    private int[] locations;
+    private OGLDataType[] dataTypes;
+    private int[] counts;
+    private boolean[] normalized;
+    private int[] offsets;
+    
+    /**
+     * Creates an empty layout with the given stride in bytes, which must be at least 1.
+     * 
+     * @param stride The distance in bytes from one vertex to the next
+     */
+    public OGLVertexLayout(int stride) {
+        if(stride < 1)
+            throw new IllegalArgumentException("Stride is less than one");
+        
+        this.stride = stride;
+        locations = new int[4];
+        dataTypes = new OGLDataType[4];
+        counts = new int[4];
+        normalized = new boolean[4];
+        offsets = new int[4];
+    }
+    
+    OGLVertexLayout(OGLVertexLayout layout) {
+        stride = layout.stride;
+        attributeCount = layout.attributeCount;
+        locations = layout.locations.clone();
+        dataTypes = layout.dataTypes.clone();
+        counts = layout.counts.clone();
+        normalized = layout.normalized.clone();
+        offsets = layout.offsets.clone();
+    }
+    
+    /**
+     * Creates an interleaved layout for the given vertex arrays, which may not be null or empty.
+     * The attribute of the vertex array at index i gets the location i and the data type, vertex
+     * size and normalized flag of that array. The attributes follow each other in the order of the
+     * arrays, each starting at a multiple of 4 bytes as GPUs prefer, and the stride is rounded up
+     * to a multiple of 4 bytes as well.
+     * 
+     * @param vertexArrays The vertex arrays to interleave
+     * @return The interleaved layout
+     */
+    public static OGLVertexLayout interleave(OGLVertexArray... vertexArrays) {
+        if(vertexArrays == null || vertexArrays.length == 0)
+            throw new IllegalArgumentException("No vertex arrays given");
+        
+        int[] offsets = new int[vertexArrays.length];
+        int stride = 0;
+        
+        for(int index = 0; index < vertexArrays.length; index++) {
+            if(vertexArrays[index] == null)
+                throw new IllegalArgumentException("A vertex array is null");
+            
+            if(vertexArrays[index].getVertexSize() > 4)
+                throw new IllegalArgumentException("A vertex array has more than 4 components");
+            
+            offsets[index] = stride;
+            stride += align(vertexArrays[index].getVertexSize() * vertexArrays[index].getDataType().getSize());
+        }
+        
+        OGLVertexLayout layout = new OGLVertexLayout(stride);
+        
+        for(int index = 0; index < vertexArrays.length; index++)
+            layout.addAttribute(index, vertexArrays[index].getDataType(), vertexArrays[index].getVertexSize(),
+                                vertexArrays[index].isNormalized(), offsets[index]);
+        
+        return layout;
+    }
+    
+    /**
+     * Creates a layout for 4x4 float matrices stored in column major order, for example for a model
+     * matrix per instance. A matrix takes 4 attribute locations in a shader, one per column, so the
+     * layout has 4 attributes with 4 floats each at the locations starting with the given one. The
+     * stride is 64 bytes.
+     * 
+     * @param location The location of the first column
+     * @return The matrix layout
+     */
+    public static OGLVertexLayout matrix(int location) {
+        OGLVertexLayout layout = new OGLVertexLayout(64);
+        
+        for(int column = 0; column < 4; column++)
+            layout.addAttribute(location + column, OGLDataType.FLOAT, 4, false, column * 16);
+        
+        return layout;
+    }
+    
+    /**
+     * Adds an attribute to this layout. The location must not be used by another attribute of this
+     * layout and the count must be from 1 to 4. The normalized flag is ignored for the float types.
+     * The attribute must lie completely within the stride. Throws an IllegalArgumentException if
+     * the data type is null or an argument is invalid.
+     * 
+     * @param location The location of the attribute in the shader
+     * @param dataType The data type of the components
+     * @param count The number of components
+     * @param normalized If integer components are normalized
+     * @param offset The offset of the attribute within a vertex in bytes
+     * @return The index of the new attribute
+     */
+    public int addAttribute(int location, OGLDataType dataType, int count, boolean normalized, int offset) {
+        if(dataType == null)
+            throw new IllegalArgumentException("Data type is null");
+        
+        if(location < 0)
+            throw new IllegalArgumentException("Location is negative");
+        
+        if(count < 1 || count > 4)
+            throw new IllegalArgumentException("Invalid component count: " + count);
+        
+        if(offset < 0 || offset + count * dataType.getSize() > stride)
+            throw new IllegalArgumentException("The attribute does not fit into the stride");
+        
+        for(int attribute = 0; attribute < attributeCount; attribute++)
+            if(locations[attribute] == location)
+                throw new IllegalArgumentException("Location is already used: " + location);
+        
+        if(attributeCount == locations.length) {
+            locations = Arrays.copyOf(locations, attributeCount * 2);
+            dataTypes = Arrays.copyOf(dataTypes, attributeCount * 2);
+            counts = Arrays.copyOf(counts, attributeCount * 2);
+            this.normalized = Arrays.copyOf(this.normalized, attributeCount * 2);
+            offsets = Arrays.copyOf(offsets, attributeCount * 2);
+        }
+        
+        locations[attributeCount] = location;
+        dataTypes[attributeCount] = dataType;
+        counts[attributeCount] = count;
+        this.normalized[attributeCount] = normalized && dataType != OGLDataType.FLOAT
+                                          && dataType != OGLDataType.HALF_FLOAT;
+        offsets[attributeCount] = offset;
+        return attributeCount++;
+    }
+    
+    /**
+     * Stores the data of the given vertex arrays in the given buffer as described by this layout,
+     * starting at the buffer position, which is not changed. The vertex array at index i provides
+     * the data of attribute i and must match its data type, component count and normalized flag,
+     * and all vertex arrays must contain the same number of vertices. Bytes between the attributes
+     * are left unchanged. The buffer must have at least vertex count * stride bytes remaining.
+     * Throws an IllegalArgumentException if an argument is null or does not match.
+     * 
+     * @param vertexArrays The vertex arrays to pack
+     * @param buffer The buffer to store the vertices in
+     * @return The buffer
+     */
+    public ByteBuffer pack(OGLVertexArray[] vertexArrays, ByteBuffer buffer) {
+        if(vertexArrays == null || buffer == null)
+            throw new IllegalArgumentException("An argument is null");
+        
+        if(vertexArrays.length != attributeCount)
+            throw new IllegalArgumentException("The vertex arrays do not match the attributes");
+        
+        int vertexCount = attributeCount == 0 ? 0 : getVertexCount(vertexArrays[0]);
+        
+        for(int attribute = 0; attribute < attributeCount; attribute++) {
+            OGLVertexArray vertexArray = vertexArrays[attribute];
+            
+            if(vertexArray == null)
+                throw new IllegalArgumentException("A vertex array is null");
+            
+            if(!matches(attribute, vertexArray))
+                throw new IllegalArgumentException("A vertex array does not match its attribute");
+            
+            if(vertexArray.getTotalSize() != vertexCount)
+                throw new IllegalArgumentException("The vertex arrays have different vertex counts");
+        }
+        
+        if((long) vertexCount * stride > buffer.remaining())
+            throw new IllegalArgumentException("The buffer is too small");
+        
+        ByteOrder order = buffer.order();
+        buffer.order(ByteOrder.nativeOrder());
+        
+        for(int attribute = 0; attribute < attributeCount; attribute++) {
+            OGLVertexArray vertexArray = vertexArrays[attribute];
+            float[] floatData = vertexArray.getVertexData();
+            short[] shortData = vertexArray.getShortData();
+            byte[] byteData = vertexArray.getByteData();
+            int count = counts[attribute];
+            int size = dataTypes[attribute].getSize();
+            
+            for(int vertex = 0; vertex < vertexCount; vertex++) {
+                int target = buffer.position() + vertex * stride + offsets[attribute];
+                
+                for(int component = 0; component < count; component++) {
+                    int source = vertex * count + component;
+                    
+                    if(floatData != null)
+                        buffer.putFloat(target + component * size, floatData[source]);
+                    else if(shortData != null)
+                        buffer.putShort(target + component * size, shortData[source]);
+                    else
+                        buffer.put(target + component * size, byteData[source]);
+                }
+            }
+        }
+        
+        buffer.order(order);
+        return buffer;
+    }
+    
+    /**
+     * Returns the distance in bytes from one vertex to the next.
+     * 
+     * @return The stride in bytes
+     */
+    public int getStride() {
+        return stride;
+    }
+    
+    /**
+     * Returns the number of attributes in this layout.
+     * 
+     * @return The attribute count
+     */
+    public int getAttributeCount() {
+        return attributeCount;
+    }
+    
+    /**
+     * Returns the shader location of the given attribute.
+     * 
+     * @param attribute The index of the attribute
+     * @return The location
+     */
+    public int getLocation(int attribute) {
+        checkAttribute(attribute);
+        return locations[attribute];
+    }
+    
+    /**
+     * Returns the data type of the components of the given attribute.
+     * 
+     * @param attribute The index of the attribute
+     * @return The data type
+     */
+    public OGLDataType getDataType(int attribute) {
+        checkAttribute(attribute);
+        return dataTypes[attribute];
+    }
+    
+    /**
+     * Returns the number of components of the given attribute.
+     * 
+     * @param attribute The index of the attribute
+     * @return The component count
+     */
+    public int getCount(int attribute) {
+        checkAttribute(attribute);
+        return counts[attribute];
+    }
+    
+    /**
+     * Returns whether the integer components of the given attribute are normalized.
+     * 
+     * @param attribute The index of the attribute
+     * @return If the attribute is normalized
+     */
+    public boolean isNormalized(int attribute) {
+        checkAttribute(attribute);
+        return normalized[attribute];
+    }
+    
+    /**
+     * Returns the offset of the given attribute within a vertex in bytes.
+     * 
+     * @param attribute The index of the attribute
+     * @return The offset in bytes
+     */
+    public int getOffset(int attribute) {
+        checkAttribute(attribute);
+        return offsets[attribute];
+    }
+    
+    boolean isMatrix() {
+        if(stride != 64 || attributeCount != 4)
+            return false;
+        
+        for(int attribute = 0; attribute < 4; attribute++)
+            if(locations[attribute] != locations[0] + attribute || dataTypes[attribute] != OGLDataType.FLOAT
+               || counts[attribute] != 4 || normalized[attribute] || offsets[attribute] != attribute * 16)
+                return false;
+        
+        return true;
+    }
+    
+    boolean matches(int attribute, OGLVertexArray vertexArray) {
+        return vertexArray.getDataType() == dataTypes[attribute] && vertexArray.getVertexSize() == counts[attribute]
+               && vertexArray.isNormalized() == normalized[attribute];
+    }
+    
+    void setAttributePointers(long baseOffset) {
+        for(int attribute = 0; attribute < attributeCount; attribute++)
+            GL20.glVertexAttribPointer(locations[attribute], counts[attribute], dataTypes[attribute].getHandle(),
+                                       normalized[attribute], stride, baseOffset + offsets[attribute]);
+    }
+    
+    private int getVertexCount(OGLVertexArray vertexArray) {
+        return vertexArray == null ? 0 : vertexArray.getTotalSize();
+    }
+    
+    private void checkAttribute(int attribute) {
+        if(attribute < 0 || attribute >= attributeCount)
+            throw new IllegalArgumentException("Invalid attribute index: " + attribute);
+    }
+    
+    private static int align(int size) {
+        return (size + 3) & ~3;
+    }
+}
@@ -0,0 +1,15 @@
+package com.teacore.opengl;
+
+/**
+ * Resembles the ways an {@link OGLVertexArrayObject} can store its vertex arrays: PLANAR stores
+ * every vertex array in its own buffer, while INTERLEAVED packs all of them into a single buffer,
+ * one vertex after the other (see {@link OGLVertexLayout}). Interleaved vertices are fetched from
+ * one buffer with better cache locality, planar vertex arrays can be replaced one by one.
+ * 
+ * @author ShietStone
+ */
+public enum OGLVertexStorage {
+
+	PLANAR,
+	INTERLEAVED;
+}
@@ -0,0 +1,214 @@
+package com.teacore.math;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import jdk.incubator.vector.FloatVector;
+
+/**
+ * Checks that VectorBatchBackend produces bit identical results to ScalarBatchBackend, including
+ * the elements that do not fill a whole SIMD register, zero length vectors and aliased arrays.
+ * 
+ * @author ShietStone
+ */
+class BatchBackendTest {
+
+    private static final int LANES = FloatVector.SPECIES_PREFERRED.length();
+    private static final int[] LENGTHS = {0, 1, 3, LANES - 1, LANES, LANES + 1, 3 * LANES + 3, 1000};
+    
+    private ScalarBatchBackend scalar = new ScalarBatchBackend();
+    private VectorBatchBackend vector = new VectorBatchBackend(scalar);
+    private Random random = new Random(42);
+    
+    @Test
+    void transform() {
+        Matrix4f matrix = randomMatrix();
+        
+        for(int length : LENGTHS) {
+            float[][] input = {randomArray(length), randomArray(length), randomArray(length), randomArray(length)};
+            float[][] expected = new float[4][length];
+            float[][] actual = new float[4][length];
+            
+            scalar.transform(matrix, input[0], input[1], input[2], input[3],
+                             expected[0], expected[1], expected[2], expected[3], 0, length);
+            vector.transform(matrix, input[0], input[1], input[2], input[3],
+                             actual[0], actual[1], actual[2], actual[3], 0, length);
+            
+            assertBitEquals(expected, actual);
+        }
+    }
+    
+    @Test
+    void transformPoints() {
+        Matrix4f matrix = randomMatrix();
+        
+        for(int length : LENGTHS) {
+            float[][] input = {randomArray(length), randomArray(length), randomArray(length)};
+            float[][] expected = new float[3][length];
+            float[][] actual = new float[3][length];
+            
+            scalar.transformPoints(matrix, input[0], input[1], input[2],
+                                   expected[0], expected[1], expected[2], 0, length);
+            vector.transformPoints(matrix, input[0], input[1], input[2],
+                                   actual[0], actual[1], actual[2], 0, length);
+            
+            assertBitEquals(expected, actual);
+        }
+    }
+    
+    @Test
+    void transformRange() {
+        Matrix4f matrix = randomMatrix();
+        int length = 4 * LANES + 5;
+        float[][] input = {randomArray(length), randomArray(length), randomArray(length), randomArray(length)};
+        float[][] expected = new float[4][length];
+        float[][] actual = new float[4][length];
+        
+        scalar.transform(matrix, input[0], input[1], input[2], input[3],
+                         expected[0], expected[1], expected[2], expected[3], 3, length - 1);
+        vector.transform(matrix, input[0], input[1], input[2], input[3],
+                         actual[0], actual[1], actual[2], actual[3], 3, length - 1);
+        
+        assertBitEquals(expected, actual);
+    }
+    
+    @Test
+    void normalize3() {
+        for(int length : LENGTHS) {
+            float[][] expected = {randomArray(length), randomArray(length), randomArray(length)};
+            zeroVectors(expected, length);
+            float[][] actual = copy(expected);
+            
+            scalar.normalize(expected[0], expected[1], expected[2], 0, length);
+            vector.normalize(actual[0], actual[1], actual[2], 0, length);
+            
+            assertBitEquals(expected, actual);
+        }
+    }
+    
+    @Test
+    void normalize4() {
+        for(int length : LENGTHS) {
+            float[][] expected = {randomArray(length), randomArray(length), randomArray(length), randomArray(length)};
+            zeroVectors(expected, length);
+            float[][] actual = copy(expected);
+            
+            scalar.normalize(expected[0], expected[1], expected[2], expected[3], 0, length);
+            vector.normalize(actual[0], actual[1], actual[2], actual[3], 0, length);
+            
+            assertBitEquals(expected, actual);
+        }
+    }
+    
+    @Test
+    void mul() {
+        for(int count : new int[] {0, 1, 2, 7}) {
+            float[] left = randomArray(count * 16);
+            float[] right = randomArray(count * 16);
+            float[] expected = new float[count * 16];
+            float[] actual = new float[count * 16];
+            
+            scalar.mul(left, 16, right, expected, 0, count);
+            vector.mul(left, 16, right, actual, 0, count);
+            assertBitEquals(expected, actual);
+            
+            scalar.mul(left, 0, right, expected, 0, count);
+            vector.mul(left, 0, right, actual, 0, count);
+            assertBitEquals(expected, actual);
+        }
+    }
+    
+    @Test
+    void mulMatrix() {
+        Matrix4f matrix = randomMatrix();
+        float[] left = matrix.asArray();
+        
+        for(int count : new int[] {0, 1, 2, 7}) {
+            float[] right = randomArray(count * 16);
+            float[] expected = new float[count * 16];
+            float[] actual = new float[count * 16];
+            float[] fromArray = new float[count * 16];
+            
+            scalar.mul(matrix, right, expected, 0, count);
+            vector.mul(matrix, right, actual, 0, count);
+            scalar.mul(left, 0, right, fromArray, 0, count);
+            
+            assertBitEquals(expected, actual);
+            assertBitEquals(expected, fromArray);
+        }
+    }
+    
+    @Test
+    void mulAliased() {
+        int count = 5;
+        float[] left = randomArray(count * 16);
+        float[] right = randomArray(count * 16);
+        float[] expected = new float[count * 16];
+        scalar.mul(left, 16, right, expected, 0, count);
+        
+        float[] scalarLeft = left.clone();
+        float[] vectorLeft = left.clone();
+        scalar.mul(scalarLeft, 16, right, scalarLeft, 0, count);
+        vector.mul(vectorLeft, 16, right, vectorLeft, 0, count);
+        assertBitEquals(expected, scalarLeft);
+        assertBitEquals(expected, vectorLeft);
+        
+        float[] scalarRight = right.clone();
+        float[] vectorRight = right.clone();
+        scalar.mul(left, 16, scalarRight, scalarRight, 0, count);
+        vector.mul(left, 16, vectorRight, vectorRight, 0, count);
+        assertBitEquals(expected, scalarRight);
+        assertBitEquals(expected, vectorRight);
+        
+        Matrix4f matrix = randomMatrix();
+        scalar.mul(matrix, right, expected, 0, count);
+        vectorRight = right.clone();
+        vector.mul(matrix, vectorRight, vectorRight, 0, count);
+        assertBitEquals(expected, vectorRight);
+    }
+    
+    private Matrix4f randomMatrix() {
+        float[] values = randomArray(16);
+        return new Matrix4f(values);
+    }
+    
+    private float[] randomArray(int length) {
+        float[] array = new float[length];
+        
+        for(int index = 0; index < length; index++)
+            array[index] = random.nextFloat() * 200.0f - 100.0f;
+        
+        return array;
+    }
+    
+    private void zeroVectors(float[][] components, int length) {
+        for(int index = 0; index < length; index += 3)
+            for(float[] component : components)
+                component[index] = 0.0f;
+    }
+    
+    private float[][] copy(float[][] arrays) {
+        float[][] copy = new float[arrays.length][];
+        
+        for(int index = 0; index < arrays.length; index++)
+            copy[index] = arrays[index].clone();
+        
+        return copy;
+    }
+    
+    private void assertBitEquals(float[][] expected, float[][] actual) {
+        for(int index = 0; index < expected.length; index++)
+            assertBitEquals(expected[index], actual[index]);
+    }
+    
+    private void assertBitEquals(float[] expected, float[] actual) {
+        assertEquals(expected.length, actual.length);
+        
+        for(int index = 0; index < expected.length; index++)
+            assertEquals(Float.floatToRawIntBits(expected[index]), Float.floatToRawIntBits(actual[index]),
+                         "Element " + index);
+    }
+}
@@ -0,0 +1,75 @@
+package com.teacore.math;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that the generate methods sample the noise at the pixel centers, as documented, and that
+ * the default settings do not produce a blank image.
+ * 
+ * @author ShietStone
+ */
+class NoiseGeneratorTest {
+
+    private static final int WIDTH = 37;
+    private static final int HEIGHT = 29;
+    private static final int DEPTH = 3;
+    
+    @Test
+    void defaultSettingsAreNotBlank() {
+        for(NoiseGenerator.Type type : NoiseGenerator.Type.values()) {
+            NoiseGenerator generator = new NoiseGenerator(1).setType(type);
+            float[] image = generator.generate(new float[WIDTH * HEIGHT], WIDTH, HEIGHT, 0.0f, 0.0f);
+            int nonZero = 0;
+            
+            for(float value : image)
+                if(value != 0.0f)
+                    nonZero++;
+            
+            assertTrue(nonZero > image.length / 2, type + " noise is mostly zero");
+        }
+    }
+    
+    @Test
+    void pixelsSampleTheirCenters() {
+        NoiseGenerator generator = new NoiseGenerator(2, ForkJoinPool.commonPool(), 2).setOctaves(3);
+        float originX = -10.25f;
+        float originY = 3.0f;
+        float[] image = generator.generate(new float[WIDTH * HEIGHT], WIDTH, HEIGHT, originX, originY);
+        FloatBuffer buffer = generator.generate(ByteBuffer.allocateDirect(WIDTH * HEIGHT * 4)
+                                                          .order(ByteOrder.nativeOrder()).asFloatBuffer(),
+                                                WIDTH, HEIGHT, originX, originY);
+        
+        for(int y = 0; y < HEIGHT; y++) {
+            for(int x = 0; x < WIDTH; x++) {
+                float expected = generator.noise(originX + x + 0.5f, originY + y + 0.5f);
+                assertEquals(expected, image[y * WIDTH + x]);
+                assertEquals(expected, buffer.get(y * WIDTH + x));
+            }
+        }
+    }
+    
+    @Test
+    void voxelsSampleTheirCenters() {
+        NoiseGenerator generator = new NoiseGenerator(3, ForkJoinPool.commonPool(), 2);
+        generator.setType(NoiseGenerator.Type.SIMPLEX);
+        float originX = 5.0f;
+        float originY = -7.5f;
+        float originZ = 1.0f;
+        float[] volume = generator.generate(new float[WIDTH * HEIGHT * DEPTH], WIDTH, HEIGHT, DEPTH, originX, originY,
+                                            originZ);
+        
+        for(int z = 0; z < DEPTH; z++)
+            for(int y = 0; y < HEIGHT; y++)
+                for(int x = 0; x < WIDTH; x++)
+                    assertEquals(generator.noise(originX + x + 0.5f, originY + y + 0.5f, originZ + z + 0.5f),
+                                 volume[(z * HEIGHT + y) * WIDTH + x]);
+    }
+}
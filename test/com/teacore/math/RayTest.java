@@ -0,0 +1,38 @@
+package com.teacore.math;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the slab test shared by Ray and BoundingVolumeHierarchy, especially for rays parallel to
+ * and lying on a face of the box.
+ * 
+ * @author ShietStone
+ */
+class RayTest {
+
+    @Test
+    void intersectAABB() {
+        assertEquals(4.0f, new Ray(0.5f, 0.5f, 5.0f, 0.0f, 0.0f, -1.0f).intersectAABB(0, 0, 0, 1, 1, 1));
+        assertEquals(0.0f, new Ray(0.5f, 0.5f, 0.5f, 1.0f, 0.0f, 0.0f).intersectAABB(0, 0, 0, 1, 1, 1));
+        assertEquals(-1.0f, new Ray(0.5f, 0.5f, 5.0f, 0.0f, 0.0f, 1.0f).intersectAABB(0, 0, 0, 1, 1, 1));
+        assertEquals(-1.0f, new Ray(1.5f, 0.5f, 5.0f, 0.0f, 0.0f, -1.0f).intersectAABB(0, 0, 0, 1, 1, 1));
+    }
+    
+    @Test
+    void intersectAABBOnSlabPlane() {
+        assertEquals(4.0f, new Ray(0.0f, 0.5f, 5.0f, 0.0f, 0.0f, -1.0f).intersectAABB(0, 0, 0, 1, 1, 1));
+        assertEquals(4.0f, new Ray(1.0f, 1.0f, 5.0f, 0.0f, 0.0f, -1.0f).intersectAABB(0, 0, 0, 1, 1, 1));
+        assertEquals(4.0f, new Ray(1.0f, 0.5f, 5.0f, -0.0f, 0.0f, -1.0f).intersectAABB(0, 0, 0, 1, 1, 1));
+    }
+    
+    @Test
+    void hierarchyOnSlabPlane() {
+        BoundingVolumeHierarchy hierarchy = new BoundingVolumeHierarchy(new float[] {0, 0, 0, 1, 1, 1}, 1);
+        
+        assertEquals(0, hierarchy.intersectRay(0.0f, 0.5f, 5.0f, 0.0f, 0.0f, -1.0f, 100.0f));
+        assertEquals(4.0f, hierarchy.getHitDistance());
+        assertEquals(-1, hierarchy.intersectRay(0.0f, 0.5f, 5.0f, 0.0f, 0.0f, -1.0f, 3.0f));
+    }
+}
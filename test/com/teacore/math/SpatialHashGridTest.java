@@ -0,0 +1,133 @@
+package com.teacore.math;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the queries of SpatialHashGrid against a brute force scan over all points and queries
+ * at coordinates whose cells lie outside of the int range.
+ * 
+ * @author ShietStone
+ */
+class SpatialHashGridTest {
+
+    private static final int CAPACITY = 500;
+    
+    private Random random = new Random(7);
+    private float[] x = new float[CAPACITY];
+    private float[] y = new float[CAPACITY];
+    private boolean[] contained = new boolean[CAPACITY];
+    
+    @Test
+    void saturatedCells() {
+        SpatialHashGrid grid = new SpatialHashGrid(1.0f, 16);
+        grid.insert(0, 3e9f, 0.0f);
+        grid.insert(1, 3e9f, 5.0f);
+        grid.insert(2, -3e9f, 0.0f);
+        grid.move(1, 3e9f, 0.0f);
+        int[] results = new int[4];
+        
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            assertEquals(2, grid.queryRect(3e9f, 0.0f, 3e9f, 0.0f, results));
+            assertEquals(1, grid.queryRect(-3e9f, 0.0f, -3e9f, 0.0f, results));
+            assertEquals(2, results[0]);
+            assertEquals(2, grid.queryRadius(3e9f, 0.0f, 1.0f, results));
+        });
+    }
+    
+    @Test
+    void queriesMatchBruteForce() {
+        SpatialHashGrid grid = new SpatialHashGrid(4.0f, CAPACITY);
+        
+        for(int id = 0; id < CAPACITY; id++)
+            insert(grid, id);
+        
+        for(int step = 0; step < 2000; step++) {
+            int id = random.nextInt(CAPACITY);
+            int action = random.nextInt(3);
+            
+            if(!contained[id])
+                insert(grid, id);
+            else if(action == 0)
+                remove(grid, id);
+            else
+                move(grid, id);
+        }
+        
+        int[] results = new int[CAPACITY];
+        
+        for(int query = 0; query < 200; query++) {
+            float centerX = coordinate();
+            float centerY = coordinate();
+            float radius = random.nextFloat() * 20.0f;
+            int found = grid.queryRadius(centerX, centerY, radius, results);
+            assertArrayEquals(bruteForceRadius(centerX, centerY, radius), sorted(results, found));
+            
+            float maxX = centerX + random.nextFloat() * 30.0f;
+            float maxY = centerY + random.nextFloat() * 30.0f;
+            found = grid.queryRect(centerX, centerY, maxX, maxY, results);
+            assertArrayEquals(bruteForceRect(centerX, centerY, maxX, maxY), sorted(results, found));
+        }
+    }
+    
+    private void insert(SpatialHashGrid grid, int id) {
+        x[id] = coordinate();
+        y[id] = coordinate();
+        contained[id] = true;
+        grid.insert(id, x[id], y[id]);
+    }
+    
+    private void move(SpatialHashGrid grid, int id) {
+        x[id] += random.nextFloat() * 10.0f - 5.0f;
+        y[id] += random.nextFloat() * 10.0f - 5.0f;
+        grid.move(id, x[id], y[id]);
+    }
+    
+    private void remove(SpatialHashGrid grid, int id) {
+        contained[id] = false;
+        grid.remove(id);
+    }
+    
+    private float coordinate() {
+        return random.nextFloat() * 200.0f - 100.0f;
+    }
+    
+    private int[] bruteForceRadius(float centerX, float centerY, float radius) {
+        int[] ids = new int[CAPACITY];
+        int count = 0;
+        
+        for(int id = 0; id < CAPACITY; id++) {
+            float dx = x[id] - centerX;
+            float dy = y[id] - centerY;
+            
+            if(contained[id] && dx * dx + dy * dy <= radius * radius)
+                ids[count++] = id;
+        }
+        
+        return Arrays.copyOf(ids, count);
+    }
+    
+    private int[] bruteForceRect(float minX, float minY, float maxX, float maxY) {
+        int[] ids = new int[CAPACITY];
+        int count = 0;
+        
+        for(int id = 0; id < CAPACITY; id++)
+            if(contained[id] && x[id] >= minX && x[id] <= maxX && y[id] >= minY && y[id] <= maxY)
+                ids[count++] = id;
+        
+        return Arrays.copyOf(ids, count);
+    }
+    
+    private int[] sorted(int[] results, int count) {
+        int[] ids = Arrays.copyOf(results, count);
+        Arrays.sort(ids);
+        return ids;
+    }
+}